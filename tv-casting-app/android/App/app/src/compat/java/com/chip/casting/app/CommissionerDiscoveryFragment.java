@@ -16,13 +16,13 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.R;
 import com.chip.casting.DiscoveredNodeData;
+import com.chip.casting.DiscoveredNodeDelta;
 import com.chip.casting.FailureCallback;
 import com.chip.casting.MatterError;
 import com.chip.casting.SuccessCallback;
 import com.chip.casting.TvCastingApp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -36,9 +36,10 @@ import java.util.concurrent.TimeUnit;
 public class CommissionerDiscoveryFragment extends Fragment {
   private static final String TAG = CommissionerDiscoveryFragment.class.getSimpleName();
   private static final long DISCOVERY_POLL_INTERVAL_MS = 15000;
-  private static final List<DiscoveredNodeData> commissionerVideoPlayerList = new ArrayList<>();
+  // per fragment, as each new delta callback is told about every commissioner again
+  private final List<DiscoveredNodeData> commissionerVideoPlayerList = new ArrayList<>();
   private FailureCallback failureCallback;
-  private SuccessCallback<DiscoveredNodeData> successCallback;
+  private SuccessCallback<DiscoveredNodeDelta> successCallback;
   private ScheduledFuture poller;
   private final TvCastingApp tvCastingApp;
   private ScheduledExecutorService executor;
@@ -106,30 +107,36 @@ public class CommissionerDiscoveryFragment extends Fragment {
     list.setAdapter(arrayAdapter);
 
     this.successCallback =
-        new SuccessCallback<DiscoveredNodeData>() {
+        new SuccessCallback<DiscoveredNodeDelta>() {
           @Override
-          public void handle(DiscoveredNodeData discoveredNodeData) {
+          public void handle(DiscoveredNodeDelta discoveredNodeDelta) {
             Log.d(
                 TAG,
-                "SuccessCallback handle() Discovered a Video Player Commissioner: "
-                    + discoveredNodeData);
+                "SuccessCallback handle() Video Player Commissioner change: "
+                    + discoveredNodeDelta);
+            DiscoveredNodeData discoveredNodeData = discoveredNodeDelta.getDiscoveredNodeData();
             new Handler(Looper.getMainLooper())
                 .post(
                     () -> {
-                      final Optional<DiscoveredNodeData> discoveredNodeInList =
-                          commissionerVideoPlayerList
-                              .stream()
-                              .filter(node -> discoveredNodeData.discoveredNodeHasSameSource(node))
-                              .findFirst();
-                      if (discoveredNodeInList.isPresent()) {
-                        Log.d(
-                            TAG,
-                            "Replacing existing entry "
-                                + discoveredNodeInList.get().getDeviceName()
-                                + " in players list");
-                        arrayAdapter.remove(discoveredNodeInList.get());
+                      switch (discoveredNodeDelta.getType()) {
+                        case ADDED:
+                          arrayAdapter.add(discoveredNodeData);
+                          break;
+                        case UPDATED:
+                          DiscoveredNodeData previousNodeData =
+                              discoveredNodeDelta.getPreviousDiscoveredNodeData();
+                          int position = arrayAdapter.getPosition(previousNodeData);
+                          if (position >= 0) {
+                            arrayAdapter.remove(previousNodeData);
+                            arrayAdapter.insert(discoveredNodeData, position);
+                          } else {
+                            arrayAdapter.add(discoveredNodeData);
+                          }
+                          break;
+                        case REMOVED:
+                          arrayAdapter.remove(discoveredNodeData);
+                          break;
                       }
-                      arrayAdapter.add(discoveredNodeData);
                     });
           }
         };
@@ -144,7 +151,7 @@ public class CommissionerDiscoveryFragment extends Fragment {
                     + matterError);
             if (MatterError.DISCOVERY_SERVICE_LOST == matterError) {
               Log.d(TAG, "Attempting to restart service");
-              tvCastingApp.discoverVideoPlayerCommissioners(successCallback, this);
+              tvCastingApp.discoverVideoPlayerCommissionerDeltas(successCallback, this);
             }
           }
         };
@@ -153,7 +160,7 @@ public class CommissionerDiscoveryFragment extends Fragment {
     discoverButton.setOnClickListener(
         v -> {
           Log.d(TAG, "Discovering on button click");
-          tvCastingApp.discoverVideoPlayerCommissioners(successCallback, failureCallback);
+          tvCastingApp.discoverVideoPlayerCommissionerDeltas(successCallback, failureCallback);
         });
   }
 
@@ -165,7 +172,7 @@ public class CommissionerDiscoveryFragment extends Fragment {
     poller =
         executor.scheduleAtFixedRate(
             () -> {
-              tvCastingApp.discoverVideoPlayerCommissioners(successCallback, failureCallback);
+              tvCastingApp.discoverVideoPlayerCommissionerDeltas(successCallback, failureCallback);
             },
             0,
             DISCOVERY_POLL_INTERVAL_MS,
@@ -17,6 +17,7 @@ import com.chip.casting.MediaPlaybackTypes;
 import com.chip.casting.SubscriptionEstablishedCallback;
 import com.chip.casting.SuccessCallback;
 import com.chip.casting.TvCastingApp;
+import com.matter.casting.support.FrameDelivery;
 
 /**
  * @deprecated Refer to com.matter.casting.MediaPlaybackSubscribeToCurrentStateExampleFragment.
@@ -32,6 +33,8 @@ public class MediaPlaybackFragment extends Fragment {
 
   private View.OnClickListener shutdownALlSubscriptionsButtonClickListener;
 
+  private FrameDelivery.Slot<String> currentStateText;
+
   private static final ContentApp kContentApp = new ContentApp((short) 4, null);
 
   public MediaPlaybackFragment(TvCastingApp tvCastingApp) {
@@ -57,6 +60,18 @@ public class MediaPlaybackFragment extends Fragment {
   @Override
   public View onCreateView(
       LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+    // reports are shown at most once per frame, bursts only showing their latest value
+    this.currentStateText =
+        FrameDelivery.getInstance()
+            .newSlot(
+                text -> {
+                  View view = getView();
+                  if (view != null) {
+                    TextView currentStateValue = view.findViewById(R.id.currentStateValue);
+                    currentStateValue.setText(text);
+                  }
+                });
+
     this.subscribeToCurrentStateButtonClickListener =
         new View.OnClickListener() {
           @Override
@@ -66,7 +81,6 @@ public class MediaPlaybackFragment extends Fragment {
             TextView maxInterval = getView().findViewById(R.id.maxIntervalEditText);
             TextView subscriptionStatus =
                 getView().findViewById(R.id.currentStateSubscriptionEstablishedStatus);
-            TextView currentStateValue = getView().findViewById(R.id.currentStateValue);
 
             SuccessCallback<MediaPlaybackTypes.PlaybackStateEnum> successCallback =
                 new SuccessCallback<MediaPlaybackTypes.PlaybackStateEnum>() {
@@ -76,17 +90,8 @@ public class MediaPlaybackFragment extends Fragment {
                         TAG,
                         "handle() called on SuccessCallback<MediaPlaybackResponseTypes.PlaybackStateEnum> with "
                             + playbackStateEnum);
-                    FragmentActivity fragmentActivity = getActivity();
-                    if (fragmentActivity != null) {
-                      fragmentActivity.runOnUiThread(
-                          new Runnable() {
-                            @Override
-                            public void run() {
-                              if (playbackStateEnum != null) {
-                                currentStateValue.setText(playbackStateEnum.toString());
-                              }
-                            }
-                          });
+                    if (playbackStateEnum != null) {
+                      currentStateText.post(playbackStateEnum.toString());
                     }
                   }
                 };
@@ -96,14 +101,7 @@ public class MediaPlaybackFragment extends Fragment {
                   @Override
                   public void handle(MatterError matterError) {
                     Log.d(TAG, "handle() called on FailureCallback with " + matterError);
-                    getActivity()
-                        .runOnUiThread(
-                            new Runnable() {
-                              @Override
-                              public void run() {
-                                currentStateValue.setText("Error!");
-                              }
-                            });
+                    currentStateText.post("Error!");
                   }
                 };
 
@@ -164,4 +162,12 @@ public class MediaPlaybackFragment extends Fragment {
         .findViewById(R.id.shutdownAllSubscriptionsButton)
         .setOnClickListener(shutdownALlSubscriptionsButtonClickListener);
   }
+
+  @Override
+  public void onDestroyView() {
+    super.onDestroyView();
+    if (currentStateText != null) {
+      currentStateText.cancel();
+    }
+  }
 }
@@ -8,4 +8,8 @@ public class GlobalCastingConstants {
   // set to true, to demo the simplified casting APIs.
   // Otherwise, the deprecated casting APIs are invoked
   public static final boolean ChipCastingSimplified = true;
+
+  // set to true, to start the Matter server while the app launches, as the simplified casting APIs
+  // did before. Otherwise, it is started on demand, by the first discovery or connection request
+  public static final boolean MatterServerWarmStart = false;
 }
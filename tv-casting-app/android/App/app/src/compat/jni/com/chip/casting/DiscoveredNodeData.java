@@ -32,7 +32,8 @@ import java.util.Objects;
 public class DiscoveredNodeData {
   private static final String TAG = DiscoveredNodeData.class.getSimpleName();
 
-  private static final int MAX_ROTATING_ID_LEN = 50;
+  // shared, as no rotating id is parsed from the TXT record
+  private static final byte[] NO_ROTATING_ID = new byte[0];
   private static final String KEY_DEVICE_NAME = "DN";
   private static final String KEY_DEVICE_TYPE = "DT";
   private static final String KEY_VENDOR_PRODUCT = "VP";
@@ -47,7 +48,7 @@ public class DiscoveredNodeData {
   private byte commissioningMode;
   private long deviceType;
   private String deviceName;
-  private byte rotatingId[] = new byte[MAX_ROTATING_ID_LEN];
+  private byte rotatingId[] = NO_ROTATING_ID;
   private int rotatingIdLen;
   private short pairingHint;
   private String pairingInstruction;
@@ -61,38 +62,29 @@ public class DiscoveredNodeData {
     Map<String, byte[]> attributes = serviceInfo.getAttributes();
 
     if (attributes != null) {
-      if (attributes.get(KEY_DEVICE_NAME) != null) {
-        this.deviceName = new String(attributes.get(KEY_DEVICE_NAME), StandardCharsets.UTF_8);
+      // each value is looked up once, and only the display name is decoded to a String
+      byte[] deviceNameValue = attributes.get(KEY_DEVICE_NAME);
+      if (deviceNameValue != null) {
+        this.deviceName = new String(deviceNameValue, StandardCharsets.UTF_8);
       } else {
         Log.e(TAG, "No device name (DN) found in DiscovoredNodeData");
       }
 
-      if (attributes.get(KEY_DEVICE_TYPE) != null) {
-        try {
-          this.deviceType =
-              Long.parseLong(new String(attributes.get(KEY_DEVICE_TYPE), StandardCharsets.UTF_8));
-        } catch (NumberFormatException e) {
-          Log.e(TAG, "Could not parse TXT record for DT: " + e.getMessage());
+      byte[] deviceTypeValue = attributes.get(KEY_DEVICE_TYPE);
+      if (deviceTypeValue != null) {
+        long deviceType = TxtRecordParser.parseDecimal(deviceTypeValue);
+        if (deviceType != TxtRecordParser.INVALID) {
+          this.deviceType = deviceType;
+        } else {
+          Log.e(TAG, "Could not parse TXT record for DT");
         }
       } else {
         Log.e(TAG, "TXT Record for DT was null");
       }
 
-      if (attributes.get(KEY_VENDOR_PRODUCT) != null) {
-        String vp = new String(attributes.get(KEY_VENDOR_PRODUCT), StandardCharsets.UTF_8);
-        if (vp != null) {
-          String[] vpArray = vp.split("\\+");
-          try {
-            if (vpArray.length > 0) {
-              this.vendorId = Long.parseLong(vpArray[0]);
-              if (vpArray.length == 2) {
-                this.productId = Long.parseLong(vpArray[1]);
-              }
-            }
-          } catch (NumberFormatException e) {
-            Log.e(TAG, "Could not parse TXT record for VP: " + e.getMessage());
-          }
-        }
+      byte[] vendorProductValue = attributes.get(KEY_VENDOR_PRODUCT);
+      if (vendorProductValue != null) {
+        parseVendorProduct(vendorProductValue);
       } else {
         Log.e(TAG, "TXT Record for VP was null");
       }
@@ -110,6 +102,33 @@ public class DiscoveredNodeData {
     this.numIPs = 1;
   }
 
+  /** Parses VP, "<vendor id>" or "<vendor id>+<product id>" */
+  private void parseVendorProduct(byte[] value) {
+    // as String.split() did, trailing separators are ignored, and a product id is only read if
+    // there are exactly two parts
+    int end = value.length;
+    while (end > 0 && value[end - 1] == '+') {
+      end--;
+    }
+    int plus = TxtRecordParser.indexOf(value, (byte) '+', 0, end);
+    long vendorId = TxtRecordParser.parseDecimal(value, 0, plus < 0 ? end : plus);
+    if (vendorId == TxtRecordParser.INVALID) {
+      Log.e(TAG, "Could not parse TXT record for VP");
+      return;
+    }
+    this.vendorId = vendorId;
+
+    if (plus < 0 || TxtRecordParser.indexOf(value, (byte) '+', plus + 1, end) >= 0) {
+      return;
+    }
+    long productId = TxtRecordParser.parseDecimal(value, plus + 1, end);
+    if (productId == TxtRecordParser.INVALID) {
+      Log.e(TAG, "Could not parse TXT record for VP");
+      return;
+    }
+    this.productId = productId;
+  }
+
   public DiscoveredNodeData(VideoPlayer player) {
     this.connectableVideoPlayer = player;
     this.instanceName = player.getInstanceName();
@@ -124,11 +143,11 @@ public class DiscoveredNodeData {
   }
 
   DiscoveredNodeData(CastingPlayer castingPlayer) {
+    List<InetAddress> ipAddresses = castingPlayer.getIpAddresses();
     this.castingPlayer = castingPlayer;
     this.deviceName = castingPlayer.getDeviceName();
-    this.ipAddresses = castingPlayer.getIpAddresses();
-    this.numIPs =
-        castingPlayer.getIpAddresses() != null ? castingPlayer.getIpAddresses().size() : 0;
+    this.ipAddresses = ipAddresses;
+    this.numIPs = ipAddresses != null ? ipAddresses.size() : 0;
     this.deviceType = castingPlayer.getDeviceType();
     this.hostName = castingPlayer.getHostName();
     this.vendorId = castingPlayer.getVendorId();
@@ -139,6 +158,27 @@ public class DiscoveredNodeData {
     }
   }
 
+  /**
+   * A DiscoveredNodeData handed to a client is not modified afterwards, as the client may read it
+   * on any thread, so a later discovery event of its CastingPlayer gets a new one.
+   *
+   * @return a DiscoveredNodeData for a later discovery event of the same CastingPlayer, or null if
+   *     none of the fields of this one would change
+   */
+  DiscoveredNodeData updatedWith(CastingPlayer castingPlayer) {
+    // a VideoPlayer reads the endpoints of the CastingPlayer, so it is only rebuilt on a change
+    boolean changed =
+        !Objects.equals(deviceName, castingPlayer.getDeviceName())
+            || !Objects.equals(ipAddresses, castingPlayer.getIpAddresses())
+            || deviceType != castingPlayer.getDeviceType()
+            || !Objects.equals(hostName, castingPlayer.getHostName())
+            || vendorId != castingPlayer.getVendorId()
+            || productId != castingPlayer.getProductId()
+            || !Objects.equals(instanceName, castingPlayer.getInstanceName())
+            || castingPlayer.isConnected() != (connectableVideoPlayer != null);
+    return changed ? new DiscoveredNodeData(castingPlayer) : null;
+  }
+
   void setConnectableVideoPlayer(VideoPlayer videoPlayer) {
     this.connectableVideoPlayer = videoPlayer;
   }
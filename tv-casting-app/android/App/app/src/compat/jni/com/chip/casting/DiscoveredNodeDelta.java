@@ -0,0 +1,74 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.chip.casting;
+
+/**
+ * @deprecated Use the APIs described in /examples/tv-casting-app/APIs.md instead.
+ *     <p>A change to the set of video player commissioners discovered. A commissioner is ADDED
+ *     once, then UPDATED each time one of its fields changes, with a new DiscoveredNodeData that
+ *     replaces the previous one, until it is REMOVED. A DiscoveredNodeData is never modified once
+ *     reported, so it may be read on any thread.
+ */
+@Deprecated
+public final class DiscoveredNodeDelta {
+  public enum Type {
+    ADDED,
+    UPDATED,
+    REMOVED
+  }
+
+  private final Type type;
+  private final DiscoveredNodeData discoveredNodeData;
+  private final DiscoveredNodeData previousDiscoveredNodeData;
+
+  DiscoveredNodeDelta(
+      Type type,
+      DiscoveredNodeData discoveredNodeData,
+      DiscoveredNodeData previousDiscoveredNodeData) {
+    this.type = type;
+    this.discoveredNodeData = discoveredNodeData;
+    this.previousDiscoveredNodeData = previousDiscoveredNodeData;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the commissioner ADDED, its new DiscoveredNodeData if UPDATED, or its last one if
+   *     REMOVED
+   */
+  public DiscoveredNodeData getDiscoveredNodeData() {
+    return discoveredNodeData;
+  }
+
+  /** @return the DiscoveredNodeData replaced, if UPDATED, null otherwise */
+  public DiscoveredNodeData getPreviousDiscoveredNodeData() {
+    return previousDiscoveredNodeData;
+  }
+
+  @Override
+  public String toString() {
+    return "DiscoveredNodeDelta{"
+        + "type="
+        + type
+        + ", discoveredNodeData="
+        + discoveredNodeData
+        + '}';
+  }
+}
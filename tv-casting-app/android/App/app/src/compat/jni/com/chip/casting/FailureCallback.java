@@ -18,6 +18,7 @@
 package com.chip.casting;
 
 import android.util.Log;
+import com.matter.casting.support.MatterCallbackDispatcher;
 
 /** @deprecated Use the APIs described in /examples/tv-casting-app/APIs.md instead. */
 @Deprecated
@@ -27,10 +28,14 @@ public abstract class FailureCallback {
   public abstract void handle(MatterError err);
 
   protected final void handleInternal(MatterError err) {
-    try {
-      handle(err);
-    } catch (Throwable t) {
-      Log.e(TAG, "FailureCallback::Caught an unhandled Throwable from the client: " + t);
-    }
+    MatterCallbackDispatcher.getInstance()
+        .dispatch(
+            () -> {
+              try {
+                handle(err);
+              } catch (Throwable t) {
+                Log.e(TAG, "FailureCallback::Caught an unhandled Throwable from the client: " + t);
+              }
+            });
   }
 }
@@ -18,6 +18,7 @@
 package com.chip.casting;
 
 import android.util.Log;
+import com.matter.casting.support.MatterCallbackDispatcher;
 
 /** @deprecated Use the APIs described in /examples/tv-casting-app/APIs.md instead. */
 @Deprecated
@@ -27,12 +28,17 @@ public abstract class SubscriptionEstablishedCallback {
   public abstract void handle();
 
   protected void handleInternal() {
-    try {
-      handle();
-    } catch (Throwable t) {
-      Log.e(
-          TAG,
-          "SubscriptionEstablishedCallback::Caught an unhandled Throwable from the client: " + t);
-    }
+    MatterCallbackDispatcher.getInstance()
+        .dispatch(
+            () -> {
+              try {
+                handle();
+              } catch (Throwable t) {
+                Log.e(
+                    TAG,
+                    "SubscriptionEstablishedCallback::Caught an unhandled Throwable from the client: "
+                        + t);
+              }
+            });
   }
 }
@@ -18,6 +18,7 @@
 package com.chip.casting;
 
 import android.util.Log;
+import com.matter.casting.support.MatterCallbackDispatcher;
 
 /** @deprecated Use the APIs described in /examples/tv-casting-app/APIs.md instead. */
 @Deprecated
@@ -27,6 +28,18 @@ public abstract class SuccessCallback<R> {
   public abstract void handle(R response);
 
   protected final void handleInternal(R response) {
+    MatterCallbackDispatcher.getInstance().dispatch(() -> handleSafely(response));
+  }
+
+  /**
+   * Like handleInternal(), but a response still waiting to be dispatched is replaced by this one.
+   * Used for subscription reports, where only the latest value is of interest.
+   */
+  protected final void handleLatestInternal(R response) {
+    MatterCallbackDispatcher.getInstance().dispatchLatest(this, () -> handleSafely(response));
+  }
+
+  private void handleSafely(R response) {
     try {
       handle(response);
     } catch (Throwable t) {
@@ -26,18 +26,23 @@ import com.matter.casting.core.CastingApp;
 import com.matter.casting.core.CastingPlayer;
 import com.matter.casting.core.CastingPlayerDiscovery;
 import com.matter.casting.core.Endpoint;
-import com.matter.casting.core.MatterCastingPlayerDiscovery;
 import com.matter.casting.support.AppParameters;
+import com.matter.casting.support.CommandTimer;
 import com.matter.casting.support.CommissionableData;
 import com.matter.casting.support.ConnectionCallbacks;
 import com.matter.casting.support.DACProvider;
 import com.matter.casting.support.IdentificationDeclarationOptions;
 import com.matter.casting.support.MatterCallback;
+import com.matter.casting.support.MatterCallbackDispatcher;
 import com.matter.casting.support.MatterError;
+import com.matter.casting.support.SubscriptionRegistry;
 import com.matter.casting.support.TargetAppInfo;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /** @deprecated Use the APIs described in /examples/tv-casting-app/APIs.md instead. */
@@ -53,41 +58,116 @@ public class TvCastingApp {
   private SuccessCallback<ContentApp> onNewOrUpdatedEndpointCallback;
   private CastingPlayer targetCastingPlayer;
 
+  private static final long CURRENT_STATE_ATTRIBUTE_ID = 0x0000;
+  private static final long TARGET_LIST_ATTRIBUTE_ID = 0x0000;
+  // a newer subscribe call replaces the listener of an older one, as in the legacy native API
+  private SubscriptionRegistry.Handle currentStateSubscription;
+  private SubscriptionRegistry.Handle targetListSubscription;
+
   private abstract class CastingPlayerChangeListenerAdapter
       extends CastingPlayerDiscovery.CastingPlayerChangeListener {
-    public abstract void initialize(SuccessCallback<DiscoveredNodeData> discoverySuccessCallback);
+    public abstract void initialize(
+        SuccessCallback<DiscoveredNodeData> discoverySuccessCallback,
+        SuccessCallback<DiscoveredNodeDelta> discoveryDeltaCallback);
   }
 
   private CastingPlayerChangeListenerAdapter castingPlayerDiscoveryChangeListener =
       new CastingPlayerChangeListenerAdapter() {
+        // the DiscoveredNodeData last reported for each CastingPlayer, by device id
+        private final Map<String, DiscoveredNodeData> discoveredNodes = new HashMap<>();
+        // the discovery session each CastingPlayer was last discovered in, by device id
+        private final Map<String, Integer> lastSeenSessions = new HashMap<>();
+        private int session = 0;
         private SuccessCallback<DiscoveredNodeData> discoverySuccessCallbackCompat;
+        private SuccessCallback<DiscoveredNodeDelta> discoveryDeltaCallbackCompat;
 
         @Override
-        public void initialize(SuccessCallback<DiscoveredNodeData> discoverySuccessCallback) {
+        public synchronized void initialize(
+            SuccessCallback<DiscoveredNodeData> discoverySuccessCallback,
+            SuccessCallback<DiscoveredNodeDelta> discoveryDeltaCallback) {
+          // deltas are relative to what the callbacks were already told, so a restarted discovery
+          // only reports changes, whereas new callbacks are told about every CastingPlayer again
+          if (discoverySuccessCallback != discoverySuccessCallbackCompat
+              || discoveryDeltaCallback != discoveryDeltaCallbackCompat) {
+            discoveredNodes.clear();
+            lastSeenSessions.clear();
+          }
           this.discoverySuccessCallbackCompat = discoverySuccessCallback;
+          this.discoveryDeltaCallbackCompat = discoveryDeltaCallback;
+          // queued behind the events of the session that just stopped, which the listener is
+          // dispatched on, so that they are counted in it
+          MatterCallbackDispatcher.getInstance().dispatch(this::beginSession);
+        }
+
+        /**
+         * Reports as REMOVED the CastingPlayers not discovered again during the previous
+         * session. Every CastingPlayer is removed when discovery stops, including when the
+         * rediscovery poll restarts it, so onRemoved() alone does not tell that one left.
+         */
+        private synchronized void beginSession() {
+          Iterator<Map.Entry<String, Integer>> it = lastSeenSessions.entrySet().iterator();
+          while (it.hasNext()) {
+            Map.Entry<String, Integer> lastSeenSession = it.next();
+            if (lastSeenSession.getValue() < session) {
+              it.remove();
+              DiscoveredNodeData discoveredNode = discoveredNodes.remove(lastSeenSession.getKey());
+              // a removal cannot be reported as a DiscoveredNodeData, only as a delta
+              if (discoveredNode != null && discoveryDeltaCallbackCompat != null) {
+                discoveryDeltaCallbackCompat.handleInternal(
+                    new DiscoveredNodeDelta(
+                        DiscoveredNodeDelta.Type.REMOVED, discoveredNode, null));
+              }
+            }
+          }
+          session++;
         }
 
         @Override
         public void onAdded(CastingPlayer castingPlayer) {
-          if (discoverySuccessCallbackCompat == null) {
-            Log.e(TAG, "discoverySuccessCallbackCompat not set");
-            return;
-          }
-          discoverySuccessCallbackCompat.handleInternal(new DiscoveredNodeData((castingPlayer)));
+          onAddedOrChanged(castingPlayer);
         }
 
         @Override
         public void onChanged(CastingPlayer castingPlayer) {
-          if (discoverySuccessCallbackCompat == null) {
-            Log.e(TAG, "discoverySuccessCallbackCompat not set");
-            return;
-          }
-          discoverySuccessCallbackCompat.handleInternal(new DiscoveredNodeData((castingPlayer)));
+          onAddedOrChanged(castingPlayer);
         }
 
         @Override
         public void onRemoved(CastingPlayer castingPlayer) {
-          Log.e(TAG, "CastingPlayerChangeListener.onRemoved() not implemented");
+          // discovery stopped: the CastingPlayer is only reported REMOVED by beginSession() if the
+          // next session does not discover it again
+        }
+
+        private synchronized void onAddedOrChanged(CastingPlayer castingPlayer) {
+          if (discoverySuccessCallbackCompat == null && discoveryDeltaCallbackCompat == null) {
+            Log.e(TAG, "discoverySuccessCallbackCompat not set");
+            return;
+          }
+          lastSeenSessions.put(castingPlayer.getDeviceId(), session);
+          DiscoveredNodeDelta.Type type;
+          DiscoveredNodeData previousNode = discoveredNodes.get(castingPlayer.getDeviceId());
+          DiscoveredNodeData discoveredNode;
+          if (previousNode == null) {
+            discoveredNode = new DiscoveredNodeData(castingPlayer);
+            type = DiscoveredNodeDelta.Type.ADDED;
+          } else {
+            discoveredNode = previousNode.updatedWith(castingPlayer);
+            if (discoveredNode == null) {
+              return;
+            }
+            type = DiscoveredNodeDelta.Type.UPDATED;
+          }
+          discoveredNodes.put(castingPlayer.getDeviceId(), discoveredNode);
+
+          // handleInternal(), unlike handleLatestInternal(), runs every delta, in order: each one
+          // is relative to the previous one, so none may be coalesced
+          if (discoverySuccessCallbackCompat != null) {
+            discoverySuccessCallbackCompat.handleInternal(discoveredNode);
+          }
+          if (discoveryDeltaCallbackCompat != null) {
+            discoveryDeltaCallbackCompat.handleInternal(
+                new DiscoveredNodeDelta(type, discoveredNode, previousNode));
+          }
         }
       };
 
@@ -211,16 +291,40 @@ public class TvCastingApp {
     this.dacProvider.initialize(dacProviderCompat);
   }
 
+  /**
+   * Discovers video player commissioners, reporting each one when it is discovered and again each
+   * time it changes, as a new DiscoveredNodeData.
+   */
   public void discoverVideoPlayerCommissioners(
       SuccessCallback<DiscoveredNodeData> discoverySuccessCallback,
       FailureCallback discoveryFailureCallback) {
+    startVideoPlayerDiscovery(discoverySuccessCallback, null, discoveryFailureCallback);
+  }
+
+  /**
+   * Discovers video player commissioners, reporting each change to the set of discovered
+   * commissioners as a DiscoveredNodeDelta: ADDED, UPDATED, or REMOVED. Restarting discovery with
+   * the same callback only reports what changed since, and a commissioner is REMOVED once a whole
+   * discovery session did not find it.
+   */
+  public void discoverVideoPlayerCommissionerDeltas(
+      SuccessCallback<DiscoveredNodeDelta> discoveryDeltaCallback,
+      FailureCallback discoveryFailureCallback) {
+    startVideoPlayerDiscovery(null, discoveryDeltaCallback, discoveryFailureCallback);
+  }
+
+  private void startVideoPlayerDiscovery(
+      SuccessCallback<DiscoveredNodeData> discoverySuccessCallback,
+      SuccessCallback<DiscoveredNodeDelta> discoveryDeltaCallback,
+      FailureCallback discoveryFailureCallback) {
 
     // stop before starting another discovery session
     stopVideoPlayerDiscovery();
 
-    castingPlayerDiscoveryChangeListener.initialize(discoverySuccessCallback);
+    castingPlayerDiscoveryChangeListener.initialize(
+        discoverySuccessCallback, discoveryDeltaCallback);
     MatterError err =
-        MatterCastingPlayerDiscovery.getInstance()
+        CastingApp.getInstance().getCastingPlayerDiscovery()
             .addCastingPlayerChangeListener(castingPlayerDiscoveryChangeListener);
     if (err.hasError()) {
       Log.e(TAG, "addCastingPlayerChangeListener before starting discovery failed. Err: " + err);
@@ -229,7 +333,7 @@ public class TvCastingApp {
     }
 
     err =
-        MatterCastingPlayerDiscovery.getInstance()
+        CastingApp.getInstance().getCastingPlayerDiscovery()
             .startDiscovery(DISCOVERY_TARGET_DEVICE_TYPE_FILTER.get(0));
     if (err.hasError()) {
       Log.e(TAG, "startDiscovery failed. Err: " + err);
@@ -238,14 +342,14 @@ public class TvCastingApp {
   }
 
   public void stopVideoPlayerDiscovery() {
-    MatterError err = MatterCastingPlayerDiscovery.getInstance().stopDiscovery();
+    MatterError err = CastingApp.getInstance().getCastingPlayerDiscovery().stopDiscovery();
     if (err.hasError()) {
       Log.e(TAG, "stopDiscovery failed. Err: " + err);
       return;
     }
 
     err =
-        MatterCastingPlayerDiscovery.getInstance()
+        CastingApp.getInstance().getCastingPlayerDiscovery()
             .removeCastingPlayerChangeListener(castingPlayerDiscoveryChangeListener);
     if (err.hasError()) {
       Log.e(TAG, "removeCastingPlayerChangeListener failed. Err: " + err);
@@ -373,16 +477,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("ContentLauncher.LaunchURL");
     cluster.launchURL(
         new ChipClusters.ContentLauncherCluster.LauncherResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "LauncherResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -410,7 +517,35 @@ public class TvCastingApp {
       return false;
     }
 
-    // translate searchCompat
+    CommandTimer timer = CommandTimer.start("ContentLauncher.LaunchContent");
+    cluster.launchContent(
+        new ChipClusters.ContentLauncherCluster.LauncherResponseCallback() {
+          @Override
+          public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
+            ((MatterCallbackHandler) responseHandler)
+                .handleInternal(com.chip.casting.MatterError.NO_ERROR);
+          }
+
+          @Override
+          public void onError(Exception error) {
+            timer.failed();
+            Log.e(TAG, "LauncherResponseCallback.onError: " + error);
+            ((MatterCallbackHandler) responseHandler)
+                .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
+          }
+        },
+        toContentSearchStruct(searchCompat),
+        autoPlay,
+        data != null ? Optional.of(data) : Optional.empty(),
+        Optional.empty(),
+        Optional.empty());
+    return true;
+  }
+
+  /** Translates a compat ContentSearch into the ContentLauncher cluster's ContentSearchStruct */
+  static ChipStructs.ContentLauncherClusterContentSearchStruct toContentSearchStruct(
+      ContentLauncherTypes.ContentSearch searchCompat) {
     ArrayList<ChipStructs.ContentLauncherClusterParameterStruct> parameterList = null;
     if (searchCompat.parameterList != null) {
       parameterList = new ArrayList<>();
@@ -432,30 +567,7 @@ public class TvCastingApp {
                 externalIDList != null ? Optional.of(externalIDList) : Optional.empty()));
       }
     }
-    ChipStructs.ContentLauncherClusterContentSearchStruct search =
-        new ChipStructs.ContentLauncherClusterContentSearchStruct(parameterList);
-
-    cluster.launchContent(
-        new ChipClusters.ContentLauncherCluster.LauncherResponseCallback() {
-          @Override
-          public void onSuccess(Integer status, Optional<String> data) {
-            ((MatterCallbackHandler) responseHandler)
-                .handleInternal(com.chip.casting.MatterError.NO_ERROR);
-          }
-
-          @Override
-          public void onError(Exception error) {
-            Log.e(TAG, "LauncherResponseCallback.onError: " + error);
-            ((MatterCallbackHandler) responseHandler)
-                .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
-          }
-        },
-        search,
-        autoPlay,
-        data != null ? Optional.of(data) : Optional.empty(),
-        Optional.empty(),
-        Optional.empty());
-    return true;
+    return new ChipStructs.ContentLauncherClusterContentSearchStruct(parameterList);
   }
 
   public boolean mediaPlayback_play(ContentApp contentApp, Object responseHandler) {
@@ -468,16 +580,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Play");
     cluster.play(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -496,16 +611,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Pause");
     cluster.pause(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -524,16 +642,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Stop");
     cluster.stop(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -552,16 +673,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Next");
     cluster.next(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -581,16 +705,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Previous");
     cluster.previous(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -609,16 +736,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Rewind");
     cluster.rewind(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -638,16 +768,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.FastForward");
     cluster.fastForward(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -667,16 +800,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.StartOver");
     cluster.startOver(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -695,16 +831,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.Seek");
     cluster.seek(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -725,16 +864,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.SkipForward");
     cluster.skipForward(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -755,16 +897,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("MediaPlayback.SkipBackward");
     cluster.skipBackward(
         new ChipClusters.MediaPlaybackCluster.PlaybackResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "PlaybackResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -790,26 +935,55 @@ public class TvCastingApp {
       return false;
     }
 
-    cluster.subscribeCurrentStateAttribute(
-        new ChipClusters.IntegerAttributeCallback() {
-          @Override
-          public void onSuccess(int value) {
-            readSuccessHandler.handleInternal(MediaPlaybackTypes.PlaybackStateEnum.values()[value]);
-          }
+    if (currentStateSubscription != null) {
+      currentStateSubscription.close();
+    }
+    currentStateSubscription =
+        SubscriptionRegistry.getInstance()
+            .subscribe(
+                endpoint,
+                ChipClusters.MediaPlaybackCluster.CLUSTER_ID,
+                CURRENT_STATE_ATTRIBUTE_ID,
+                minInterval,
+                maxInterval,
+                (sharedMinInterval, sharedMaxInterval, sink) ->
+                    cluster.subscribeCurrentStateAttribute(
+                        new ChipClusters.IntegerAttributeCallback() {
+                          @Override
+                          public void onSuccess(int value) {
+                            sink.onValue(MediaPlaybackTypes.PlaybackStateEnum.values()[value]);
+                          }
+
+                          @Override
+                          public void onError(Exception error) {
+                            Log.e(TAG, "IntegerAttributeCallback.onError: " + error);
+                            sink.onError(error);
+                          }
+
+                          @Override
+                          public void onSubscriptionEstablished(long subscriptionId) {
+                            sink.onSubscriptionEstablished(subscriptionId);
+                          }
+                        },
+                        sharedMinInterval,
+                        sharedMaxInterval),
+                new SubscriptionRegistry.Listener<MediaPlaybackTypes.PlaybackStateEnum>() {
+                  @Override
+                  public void onValue(MediaPlaybackTypes.PlaybackStateEnum playbackStateEnum) {
+                    readSuccessHandler.handleLatestInternal(playbackStateEnum);
+                  }
 
-          @Override
-          public void onError(Exception error) {
-            Log.e(TAG, "IntegerAttributeCallback.onError: " + error);
-            readFailureHandler.handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
-          }
+                  @Override
+                  public void onError(Exception error) {
+                    readFailureHandler.handleInternal(
+                        com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
+                  }
 
-          @Override
-          public void onSubscriptionEstablished(long subscriptionId) {
-            subscriptionEstablishedHandler.handleInternal();
-          }
-        },
-        minInterval,
-        maxInterval);
+                  @Override
+                  public void onSubscriptionEstablished() {
+                    subscriptionEstablishedHandler.handleInternal();
+                  }
+                });
     return true;
   }
 
@@ -840,16 +1014,19 @@ public class TvCastingApp {
                   (int) catalogVendorId, applicationId));
     }
 
+    CommandTimer timer = CommandTimer.start("ApplicationLauncher.LaunchApp");
     cluster.launchApp(
         new ChipClusters.ApplicationLauncherCluster.LauncherResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<byte[]> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "LauncherResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -883,16 +1060,19 @@ public class TvCastingApp {
                   (int) catalogVendorId, applicationId));
     }
 
+    CommandTimer timer = CommandTimer.start("ApplicationLauncher.StopApp");
     cluster.stopApp(
         new ChipClusters.ApplicationLauncherCluster.LauncherResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<byte[]> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "LauncherResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -925,16 +1105,19 @@ public class TvCastingApp {
                   (int) catalogVendorId, applicationId));
     }
 
+    CommandTimer timer = CommandTimer.start("ApplicationLauncher.HideApp");
     cluster.hideApp(
         new ChipClusters.ApplicationLauncherCluster.LauncherResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<byte[]> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "LauncherResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -955,16 +1138,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("TargetNavigator.NavigateTarget");
     cluster.navigateTarget(
         new ChipClusters.TargetNavigatorCluster.NavigateTargetResponseCallback() {
           @Override
           public void onSuccess(Integer status, Optional<String> data) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "NavigateTargetResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -975,6 +1161,21 @@ public class TvCastingApp {
     return true;
   }
 
+  /** Translates the TargetNavigator cluster's TargetList into compat TargetInfos */
+  static List<TargetNavigatorTypes.TargetInfo> toTargetInfoList(
+      List<ChipStructs.TargetNavigatorClusterTargetInfoStruct> targetInfoList) {
+    if (targetInfoList == null) {
+      return null;
+    }
+    List<TargetNavigatorTypes.TargetInfo> targetInfoListCompat =
+        new ArrayList<>(targetInfoList.size());
+    for (ChipStructs.TargetNavigatorClusterTargetInfoStruct targetInfo : targetInfoList) {
+      targetInfoListCompat.add(
+          new TargetNavigatorTypes.TargetInfo(targetInfo.identifier, targetInfo.name));
+    }
+    return targetInfoListCompat;
+  }
+
   public boolean targetNavigator_subscribeToTargetList(
       ContentApp contentApp,
       SuccessCallback<Object> readSuccessHandler,
@@ -991,35 +1192,57 @@ public class TvCastingApp {
       return false;
     }
 
-    cluster.subscribeTargetListAttribute(
-        new ChipClusters.TargetNavigatorCluster.TargetListAttributeCallback() {
-          @Override
-          public void onSuccess(
-              List<ChipStructs.TargetNavigatorClusterTargetInfoStruct> targetInfoList) {
-            List<TargetNavigatorTypes.TargetInfo> targetInfoListCompat = null;
-            if (targetInfoList != null) {
-              targetInfoListCompat = new ArrayList<>();
-              for (ChipStructs.TargetNavigatorClusterTargetInfoStruct targetInfo : targetInfoList) {
-                targetInfoListCompat.add(
-                    new TargetNavigatorTypes.TargetInfo(targetInfo.identifier, targetInfo.name));
-              }
-            }
-            readSuccessHandler.handleInternal(targetInfoListCompat);
-          }
+    if (targetListSubscription != null) {
+      targetListSubscription.close();
+    }
+    targetListSubscription =
+        SubscriptionRegistry.getInstance()
+            .subscribe(
+                endpoint,
+                ChipClusters.TargetNavigatorCluster.CLUSTER_ID,
+                TARGET_LIST_ATTRIBUTE_ID,
+                minInterval,
+                maxInterval,
+                (sharedMinInterval, sharedMaxInterval, sink) ->
+                    cluster.subscribeTargetListAttribute(
+                        new ChipClusters.TargetNavigatorCluster.TargetListAttributeCallback() {
+                          @Override
+                          public void onSuccess(
+                              List<ChipStructs.TargetNavigatorClusterTargetInfoStruct>
+                                  targetInfoList) {
+                            sink.onValue(toTargetInfoList(targetInfoList));
+                          }
+
+                          @Override
+                          public void onError(Exception error) {
+                            Log.e(TAG, "TargetListAttributeCallback.onError: " + error);
+                            sink.onError(error);
+                          }
+
+                          @Override
+                          public void onSubscriptionEstablished(long subscriptionId) {
+                            sink.onSubscriptionEstablished(subscriptionId);
+                          }
+                        },
+                        sharedMinInterval,
+                        sharedMaxInterval),
+                new SubscriptionRegistry.Listener<List<TargetNavigatorTypes.TargetInfo>>() {
+                  @Override
+                  public void onValue(List<TargetNavigatorTypes.TargetInfo> targetInfoList) {
+                    readSuccessHandler.handleLatestInternal(targetInfoList);
+                  }
 
-          @Override
-          public void onError(Exception error) {
-            Log.e(TAG, "TargetListAttributeCallback.onError: " + error);
-            readFailureHandler.handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
-          }
+                  @Override
+                  public void onError(Exception error) {
+                    readFailureHandler.handleInternal(
+                        com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
+                  }
 
-          @Override
-          public void onSubscriptionEstablished(long subscriptionId) {
-            subscriptionEstablishedHandler.handleInternal();
-          }
-        },
-        minInterval,
-        maxInterval);
+                  @Override
+                  public void onSubscriptionEstablished() {
+                    subscriptionEstablishedHandler.handleInternal();
+                  }
+                });
     return true;
   }
 
@@ -1033,16 +1256,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("KeypadInput.SendKey");
     cluster.sendKey(
         new ChipClusters.KeypadInputCluster.SendKeyResponseCallback() {
           @Override
           public void onSuccess(Integer status) {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "LauncherResponseCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -1207,16 +1433,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("OnOff.On");
     cluster.on(
         new ChipClusters.DefaultClusterCallback() {
           @Override
           public void onSuccess() {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "DefaultClusterCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -1235,16 +1464,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("OnOff.Off");
     cluster.off(
         new ChipClusters.DefaultClusterCallback() {
           @Override
           public void onSuccess() {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "DefaultClusterCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -1263,16 +1495,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("OnOff.Toggle");
     cluster.toggle(
         new ChipClusters.DefaultClusterCallback() {
           @Override
           public void onSuccess() {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "DefaultClusterCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
@@ -1300,16 +1535,19 @@ public class TvCastingApp {
       return false;
     }
 
+    CommandTimer timer = CommandTimer.start("Messages.PresentMessagesRequest");
     cluster.presentMessagesRequest(
         new ChipClusters.DefaultClusterCallback() {
           @Override
           public void onSuccess() {
+            timer.succeeded();
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.NO_ERROR);
           }
 
           @Override
           public void onError(Exception error) {
+            timer.failed();
             Log.e(TAG, "DefaultClusterCallback.onError: " + error);
             ((MatterCallbackHandler) responseHandler)
                 .handleInternal(com.chip.casting.MatterError.MATTER_INTERNAL_ERROR);
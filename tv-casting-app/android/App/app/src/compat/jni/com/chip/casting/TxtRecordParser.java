@@ -0,0 +1,67 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.chip.casting;
+
+/**
+ * Parses the values of a DNS-SD TXT record, as NsdServiceInfo.getAttributes() returns them, in
+ * place. DiscoveredNodeData is built for every service resolved during discovery, so numeric fields
+ * are read from the bytes directly, without decoding them to a String or splitting them with a
+ * regex: only display fields, such as DN, are decoded.
+ */
+final class TxtRecordParser {
+  /** Returned for a missing, empty or malformed numeric value */
+  static final long INVALID = -1;
+
+  private static final long MAX_PREFIX = Long.MAX_VALUE / 10;
+
+  private TxtRecordParser() {}
+
+  /** @return the unsigned decimal value, or INVALID */
+  static long parseDecimal(byte[] value) {
+    return value == null ? INVALID : parseDecimal(value, 0, value.length);
+  }
+
+  /** @return the unsigned decimal value of value[from, to), or INVALID */
+  static long parseDecimal(byte[] value, int from, int to) {
+    if (from >= to) {
+      return INVALID;
+    }
+    long result = 0;
+    for (int i = from; i < to; i++) {
+      int digit = value[i] - '0';
+      if (digit < 0 || digit > 9 || result > MAX_PREFIX) {
+        return INVALID;
+      }
+      result = result * 10 + digit;
+      if (result < 0) { // overflow
+        return INVALID;
+      }
+    }
+    return result;
+  }
+
+  /** @return the index of the first b in value[from, to), or -1 */
+  static int indexOf(byte[] value, byte b, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (value[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -13,6 +13,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.R;
+import com.matter.casting.support.NativeLibrary;
 
 /**
  * Application Launcher Fragment - Provides interface to launch and stop applications
@@ -29,7 +30,7 @@ public class AppLauncherFragment extends Fragment {
   private TextView statusText;
   
   static {
-    System.loadLibrary("TvCastingApp");
+    NativeLibrary.load();
   }
   
   @Nullable
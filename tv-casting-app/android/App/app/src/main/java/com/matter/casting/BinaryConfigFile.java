@@ -0,0 +1,196 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting;
+
+import android.util.Log;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * A compact key-value file holding raw byte[] values, such as certificates, keys and opaque stack
+ * blobs. The file is read and parsed once when loaded, and rewritten atomically (write to a
+ * temporary file, then rename) with takeSnapshot() and write() after changes.
+ *
+ * <p>File layout: MAGIC (int), VERSION (short), record count (int), then for each record: key
+ * length (short), key (UTF-8), value length (int), value, CRC32 of key and value (int). Records
+ * that fail their checksum are dropped when loading.
+ *
+ * <p>This class is not thread safe, callers must synchronize access.
+ */
+final class BinaryConfigFile {
+  private static final String TAG = BinaryConfigFile.class.getSimpleName();
+  private static final int MAGIC = 0x4d434647; // "MCFG"
+  private static final short VERSION = 1;
+
+  private final File file;
+  private final Map<String, byte[]> entries = new HashMap<>();
+  private boolean dirty = false;
+
+  BinaryConfigFile(File file) {
+    this.file = file;
+    load();
+  }
+
+  /** @return the value stored for key, or null. The returned array must not be modified. */
+  byte[] get(String key) {
+    return entries.get(key);
+  }
+
+  Set<String> keys() {
+    return entries.keySet();
+  }
+
+  boolean contains(String key) {
+    return entries.containsKey(key);
+  }
+
+  /** Stores value for key. The array is kept as is, so it must not be modified afterwards. */
+  void put(String key, byte[] value) {
+    entries.put(key, value);
+    dirty = true;
+  }
+
+  void remove(String key) {
+    if (entries.remove(key) != null) {
+      dirty = true;
+    }
+  }
+
+  void clear() {
+    if (!entries.isEmpty()) {
+      entries.clear();
+      dirty = true;
+    }
+  }
+
+  /**
+   * Takes a copy of the entries to write with write(), outside of the lock that guards this file,
+   * and marks the file clean.
+   *
+   * @return null if the entries did not change since the last load or snapshot
+   */
+  Map<String, byte[]> takeSnapshot() {
+    if (!dirty) {
+      return null;
+    }
+    dirty = false;
+    return new HashMap<>(entries);
+  }
+
+  /** Marks the file as changed, e.g. after writing a snapshot failed, so that it is written again */
+  void markDirty() {
+    dirty = true;
+  }
+
+  /**
+   * Atomically replaces the file with the snapshot. Touches no state of this instance, so it can be
+   * called without holding the lock that guards it, but callers must not write two snapshots
+   * concurrently.
+   */
+  boolean write(Map<String, byte[]> snapshot) {
+    File tmpFile = new File(file.getPath() + ".tmp");
+    CRC32 crc = new CRC32();
+    try (FileOutputStream fileOut = new FileOutputStream(tmpFile);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeInt(snapshot.size());
+      for (Map.Entry<String, byte[]> entry : snapshot.entrySet()) {
+        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] value = entry.getValue();
+        crc.reset();
+        crc.update(key);
+        crc.update(value);
+        out.writeShort(key.length);
+        out.write(key);
+        out.writeInt(value.length);
+        out.write(value);
+        out.writeInt((int) crc.getValue());
+      }
+      out.flush();
+      fileOut.getFD().sync();
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to write " + tmpFile + ": " + e);
+      tmpFile.delete();
+      return false;
+    }
+
+    if (!tmpFile.renameTo(file)) {
+      Log.e(TAG, "Failed to rename " + tmpFile + " to " + file);
+      tmpFile.delete();
+      return false;
+    }
+    return true;
+  }
+
+  private void load() {
+    if (!file.exists()) {
+      return;
+    }
+
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+      if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+        Log.e(TAG, "Ignoring " + file + ", unknown format");
+        return;
+      }
+
+      CRC32 crc = new CRC32();
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        byte[] key = new byte[checkLength(buffer, buffer.getShort() & 0xffff)];
+        buffer.get(key);
+        byte[] value = new byte[checkLength(buffer, buffer.getInt())];
+        buffer.get(value);
+        int checksum = buffer.getInt();
+
+        crc.reset();
+        crc.update(key);
+        crc.update(value);
+        if ((int) crc.getValue() != checksum) {
+          Log.e(TAG, "Dropping corrupted record " + i + " in " + file);
+          dirty = true;
+          continue;
+        }
+        entries.put(new String(key, StandardCharsets.UTF_8), value);
+      }
+    } catch (IOException | BufferUnderflowException e) {
+      Log.e(TAG, "Stopped loading truncated or unreadable " + file + ": " + e);
+      dirty = true;
+    }
+  }
+
+  /** Guards against allocating a huge array for a corrupted length */
+  private static int checkLength(ByteBuffer buffer, int length) {
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return length;
+  }
+}
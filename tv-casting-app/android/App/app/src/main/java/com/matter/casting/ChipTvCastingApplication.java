@@ -6,5 +6,9 @@ public class ChipTvCastingApplication extends Application {
   @Override
   public void onCreate() {
     super.onCreate();
+    // load the native library and start the Matter stack while the first activity is created
+    StartupPipeline.begin(this);
+    // relax subscription reporting intervals while the app is not visible
+    SubscriptionVisibilityMonitor.register(this);
   }
 }
@@ -31,6 +31,7 @@ import chip.devicecontroller.ChipClusters;
 import com.R;
 import com.matter.casting.core.CastingPlayer;
 import com.matter.casting.core.Endpoint;
+import com.matter.casting.support.CommandTimer;
 import java.util.Optional;
 
 /** A {@link Fragment} to send Content Launcher LaunchURL command using the TV Casting App. */
@@ -99,15 +100,18 @@ public class ContentLauncherLaunchURLExampleFragment extends Fragment {
 
           // call launchURL on the cluster object while passing in a
           // ChipClusters.ContentLauncherCluster.LauncherResponseCallback and request parameters
+          CommandTimer timer = CommandTimer.start("ContentLauncher.LaunchURL");
           cluster.launchURL(
               new ChipClusters.ContentLauncherCluster.LauncherResponseCallback() {
                 @Override
                 public void onSuccess(Integer status, Optional<String> data) {
+                  timer.succeeded();
                   Log.d(TAG, "LaunchURL success. Status: " + status + ", Data: " + data);
                   new Handler(Looper.getMainLooper())
                       .post(
                           () -> {
-                            TextView launcherResult = getView().findViewById(R.id.launcherResult);
+                            TextView launcherResult =
+                                getView().findViewById(R.id.launcherResult);
                             launcherResult.setText(
                                 "LaunchURL result\nStatus: " + status + ", Data: " + data);
                           });
@@ -115,11 +119,13 @@ public class ContentLauncherLaunchURLExampleFragment extends Fragment {
 
                 @Override
                 public void onError(Exception error) {
+                  timer.failed();
                   Log.e(TAG, "LaunchURL failure " + error);
                   new Handler(Looper.getMainLooper())
                       .post(
                           () -> {
-                            TextView launcherResult = getView().findViewById(R.id.launcherResult);
+                            TextView launcherResult =
+                                getView().findViewById(R.id.launcherResult);
                             launcherResult.setText("LaunchURL result\nError: " + error);
                           });
                 }
@@ -18,8 +18,6 @@ package com.matter.casting;
 
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -34,105 +32,37 @@ import com.R;
 import com.matter.casting.core.CastingPlayer;
 import com.matter.casting.core.CastingPlayerDiscovery;
 import com.matter.casting.core.MatterCastingPlayerDiscovery;
+import com.matter.casting.support.CastingPlayerRegistry;
 import com.matter.casting.support.MatterError;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 public class DiscoveryExampleFragment extends Fragment {
   private static final String TAG = DiscoveryExampleFragment.class.getSimpleName();
   // 35 represents device type of Matter Casting Player
   private static final Long DISCOVERY_TARGET_DEVICE_TYPE = 35L;
   private static final int DISCOVERY_RUNTIME_SEC = 15;
-  private static final List<CastingPlayer> castingPlayerList = new ArrayList<>();
-  private static ArrayAdapter<CastingPlayer> arrayAdapter;
-  
+  // the discovered CastingPlayers, by device id, fed by the CastingPlayerDiscovery from onCreate()
+  // to onDestroy()
+  private final CastingPlayerRegistry castingPlayerRegistry = new CastingPlayerRegistry();
+  // the CastingPlayers shown by the castingPlayerList, rebound from the castingPlayerRegistry
+  private final List<CastingPlayer> castingPlayerList = new ArrayList<>();
+  private ArrayAdapter<CastingPlayer> arrayAdapter;
+  private CastingPlayerRegistry.Listener castingPlayerListBinder;
+  private long boundVersion = -1;
+
   // Handler for periodic connection status updates
   private android.os.Handler connectionStatusHandler;
   private Runnable connectionStatusUpdateRunnable;
+  // waits for a commissioned CastingPlayer, see startMonitoringForCommissionedPlayer()
+  private CastingPlayerRegistry.Listener commissionedPlayerListener;
 
   // Get a singleton instance of the MatterCastingPlayerDiscovery
   private static final CastingPlayerDiscovery matterCastingPlayerDiscovery =
       MatterCastingPlayerDiscovery.getInstance();
 
-  /**
-   * Implementation of a CastingPlayerChangeListener used to listen to changes in the discovered
-   * CastingPlayers
-   */
-  private static final CastingPlayerDiscovery.CastingPlayerChangeListener
-      castingPlayerChangeListener =
-          new CastingPlayerDiscovery.CastingPlayerChangeListener() {
-            private final String TAG =
-                CastingPlayerDiscovery.CastingPlayerChangeListener.class.getSimpleName();
-
-            @Override
-            public void onAdded(CastingPlayer castingPlayer) {
-              Log.i(
-                  TAG,
-                  "DiscoveryExampleFragment onAdded() Discovered CastingPlayer deviceId: "
-                      + castingPlayer.getDeviceId());
-              // Display CastingPlayer info on the screen
-              new Handler(Looper.getMainLooper())
-                  .post(
-                      () -> {
-                        arrayAdapter.add(castingPlayer);
-                      });
-            }
-
-            @Override
-            public void onChanged(CastingPlayer castingPlayer) {
-              Log.i(
-                  TAG,
-                  "DiscoveryExampleFragment onChanged() Discovered changes to CastingPlayer with deviceId: "
-                      + castingPlayer.getDeviceId());
-              // Update the CastingPlayer on the screen
-              new Handler(Looper.getMainLooper())
-                  .post(
-                      () -> {
-                        final Optional<CastingPlayer> playerInList =
-                            castingPlayerList
-                                .stream()
-                                .filter(node -> castingPlayer.equals(node))
-                                .findFirst();
-                        if (playerInList.isPresent()) {
-                          Log.d(
-                              TAG,
-                              "onChanged() Updating existing CastingPlayer entry "
-                                  + playerInList.get().getDeviceId()
-                                  + " in castingPlayerList list");
-                          arrayAdapter.remove(playerInList.get());
-                        }
-                        arrayAdapter.add(castingPlayer);
-                      });
-            }
-
-            @Override
-            public void onRemoved(CastingPlayer castingPlayer) {
-              Log.i(
-                  TAG,
-                  "DiscoveryExampleFragment onRemoved() Removed CastingPlayer with deviceId: "
-                      + castingPlayer.getDeviceId());
-              // Remove CastingPlayer from the screen
-              new Handler(Looper.getMainLooper())
-                  .post(
-                      () -> {
-                        final Optional<CastingPlayer> playerInList =
-                            castingPlayerList
-                                .stream()
-                                .filter(node -> castingPlayer.equals(node))
-                                .findFirst();
-                        if (playerInList.isPresent()) {
-                          Log.d(
-                              TAG,
-                              "onRemoved() Removing existing CastingPlayer entry "
-                                  + playerInList.get().getDeviceId()
-                                  + " in castingPlayerList list");
-                          arrayAdapter.remove(playerInList.get());
-                        }
-                      });
-            }
-          };
-
   public static DiscoveryExampleFragment newInstance() {
     Log.i(TAG, "newInstance() called");
     return new DiscoveryExampleFragment();
@@ -142,6 +72,22 @@ public class DiscoveryExampleFragment extends Fragment {
   public void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     Log.i(TAG, "onCreate() called");
+    MatterError err =
+        matterCastingPlayerDiscovery.addCastingPlayerChangeListener(castingPlayerRegistry);
+    if (err.hasError()) {
+      Log.e(TAG, "onCreate() addCastingPlayerChangeListener failed: " + err);
+    }
+  }
+
+  @Override
+  public void onDestroy() {
+    super.onDestroy();
+    Log.i(TAG, "onDestroy() called");
+    MatterError err =
+        matterCastingPlayerDiscovery.removeCastingPlayerChangeListener(castingPlayerRegistry);
+    if (err.hasError()) {
+      Log.e(TAG, "onDestroy() removeCastingPlayerChangeListener failed: " + err);
+    }
   }
 
   @Override
@@ -159,6 +105,16 @@ public class DiscoveryExampleFragment extends Fragment {
 
     Log.d(TAG, "onViewCreated() creating callbacks");
 
+    arrayAdapter = new CastingPlayerArrayAdapter(getActivity(), castingPlayerList);
+    ListView listView = view.findViewById(R.id.castingPlayerList);
+    listView.setAdapter(arrayAdapter);
+    boundVersion = -1;
+    bindCastingPlayerList();
+    // rebind on the main thread, once per batch of changes, see bindCastingPlayerList()
+    android.os.Handler handler = new android.os.Handler(android.os.Looper.getMainLooper());
+    castingPlayerListBinder = (change, castingPlayer, version) -> bindCastingPlayerList();
+    castingPlayerRegistry.addListener(castingPlayerListBinder, handler::post);
+
     // Update connection status indicator
     updateConnectionStatus();
     
@@ -187,6 +143,31 @@ public class DiscoveryExampleFragment extends Fragment {
     stopConnectionStatusMonitoring();
   }
 
+  @Override
+  public void onDestroyView() {
+    super.onDestroyView();
+    stopMonitoringForCommissionedPlayer();
+    castingPlayerRegistry.removeListener(castingPlayerListBinder);
+    castingPlayerListBinder = null;
+    arrayAdapter = null;
+  }
+
+  /**
+   * Rebinds the castingPlayerList to the snapshot of the castingPlayerRegistry, unless it is already
+   * bound to that version, as when several changes were posted before the first one ran.
+   */
+  private void bindCastingPlayerList() {
+    CastingPlayerRegistry.Snapshot snapshot = castingPlayerRegistry.getSnapshot();
+    if (arrayAdapter == null || snapshot.getVersion() == boundVersion) {
+      return;
+    }
+    boundVersion = snapshot.getVersion();
+    arrayAdapter.setNotifyOnChange(false);
+    arrayAdapter.clear();
+    arrayAdapter.addAll(snapshot.getCastingPlayers());
+    arrayAdapter.notifyDataSetChanged();
+  }
+
   /** Interface for notifying the host. */
   public interface Callback {
     /** Notifies listener of Connection Button click. */
@@ -285,7 +266,7 @@ public class DiscoveryExampleFragment extends Fragment {
 
       new Thread(() -> {
         // Open for 10 minutes (600 seconds)
-        MatterError err = ManualCommissioningHelper.openBasicCommissioningWindowWithTimeout(600);
+        MatterError err = ManualCommissioningHelper.openBasicCommissioningWindowOnDemand(600);
         
         getActivity().runOnUiThread(() -> {
           if (err.hasNoError()) {
@@ -326,7 +307,7 @@ public class DiscoveryExampleFragment extends Fragment {
 
     new Thread(() -> {
       // Open for 10 minutes (600 seconds)
-      MatterError err = ManualCommissioningHelper.openBasicCommissioningWindowWithTimeout(600);
+      MatterError err = ManualCommissioningHelper.openBasicCommissioningWindowOnDemand(600);
       
       if (getActivity() != null) {
         getActivity().runOnUiThread(() -> {
@@ -386,63 +367,78 @@ public class DiscoveryExampleFragment extends Fragment {
    */
   private void startMonitoringForCommissionedPlayer() {
     Log.i(TAG, "Starting to monitor for commissioned CastingPlayer");
-    
-    // Monitor for newly commissioned players in the castingPlayerList
-    final int[] previousSize = {castingPlayerList.size()};
-    
+    // the commissioning window may be reopened, which restarts the monitoring
+    stopMonitoringForCommissionedPlayer();
+
     android.os.Handler handler = new android.os.Handler(android.os.Looper.getMainLooper());
-    Runnable checkForNewPlayer = new Runnable() {
+    // the device ids of the connected CastingPlayers, so that only a CastingPlayer that was added
+    // connected, or that went from not connected to connected, counts as commissioned
+    Set<String> connectedDeviceIds = new HashSet<>();
+    long[] seededVersion = {Long.MAX_VALUE};
+    commissionedPlayerListener = new CastingPlayerRegistry.Listener() {
       @Override
-      public void run() {
-        // Check if a new player was added and is connected
-        if (castingPlayerList.size() > previousSize[0]) {
-          CastingPlayer newPlayer = castingPlayerList.get(castingPlayerList.size() - 1);
-          
-          if (newPlayer.getConnectionState() == CastingPlayer.ConnectionState.CONNECTED) {
-            Log.i(TAG, "Detected newly commissioned CastingPlayer: " + newPlayer.getDeviceName());
-            
-            // Update connection status indicator
-            updateConnectionStatus();
-            
-            // Show success toast
-            if (getActivity() != null) {
-              getActivity().runOnUiThread(() -> {
-                android.widget.Toast.makeText(
-                  getContext(),
-                  "✓ Connection Successful!\nConnected to: " + newPlayer.getDeviceName(),
-                  android.widget.Toast.LENGTH_LONG
-                ).show();
-              });
-            }
-            
-            TextView commissioningStatusTextView = getView().findViewById(R.id.commissioningStatusTextView);
-            commissioningStatusTextView.setText(
-              "✓ Successfully commissioned!\n" +
-              "Connected to: " + newPlayer.getDeviceName() + "\n" +
-              "You can now use Virtual Remote or Application Launcher."
-            );
-            
-            // Navigate to ActionSelector after a brief delay
-            handler.postDelayed(() -> {
-              Callback callback = (Callback) getActivity();
-              if (callback != null) {
-                callback.handleConnectionButtonClicked(newPlayer, false);
-              }
-            }, 1500); // 1.5 second delay to show the message
-            
-            return; // Stop monitoring
-          }
+      public void onRegistryChanged(
+          CastingPlayerRegistry.Change change, CastingPlayer newPlayer, long version) {
+        // already part of the seed below
+        if (version <= seededVersion[0]) {
+          return;
         }
-        
-        previousSize[0] = castingPlayerList.size();
-        
-        // Check again in 2 seconds
-        handler.postDelayed(this, 2000);
+        boolean connected =
+            change != CastingPlayerRegistry.Change.REMOVED
+                && newPlayer.getConnectionState() == CastingPlayer.ConnectionState.CONNECTED;
+        boolean wasConnected =
+            connected
+                ? !connectedDeviceIds.add(newPlayer.getDeviceId())
+                : connectedDeviceIds.remove(newPlayer.getDeviceId());
+        if (!connected || wasConnected || getView() == null) {
+          return;
+        }
+        Log.i(TAG, "Detected newly commissioned CastingPlayer: " + newPlayer.getDeviceName());
+        stopMonitoringForCommissionedPlayer();
+
+        // Update connection status indicator
+        updateConnectionStatus();
+
+        // Show success toast
+        android.widget.Toast.makeText(
+          getContext(),
+          "✓ Connection Successful!\nConnected to: " + newPlayer.getDeviceName(),
+          android.widget.Toast.LENGTH_LONG
+        ).show();
+
+        TextView commissioningStatusTextView = getView().findViewById(R.id.commissioningStatusTextView);
+        commissioningStatusTextView.setText(
+          "✓ Successfully commissioned!\n" +
+          "Connected to: " + newPlayer.getDeviceName() + "\n" +
+          "You can now use Virtual Remote or Application Launcher."
+        );
+
+        // Navigate to ActionSelector after a brief delay
+        handler.postDelayed(() -> {
+          Callback callback = (Callback) getActivity();
+          if (callback != null) {
+            callback.handleConnectionButtonClicked(newPlayer, false);
+          }
+        }, 1500); // 1.5 second delay to show the message
       }
     };
-    
-    // Start checking after 2 seconds
-    handler.postDelayed(checkForNewPlayer, 2000);
+    // run on the main thread, as each change is reported, instead of polling the players
+    castingPlayerRegistry.addListener(commissionedPlayerListener, handler::post);
+    // seed after adding the listener, on the main thread, so that the listener first runs with it
+    CastingPlayerRegistry.Snapshot snapshot = castingPlayerRegistry.getSnapshot();
+    for (CastingPlayer player : snapshot.getCastingPlayers()) {
+      if (player.getConnectionState() == CastingPlayer.ConnectionState.CONNECTED) {
+        connectedDeviceIds.add(player.getDeviceId());
+      }
+    }
+    seededVersion[0] = snapshot.getVersion();
+  }
+
+  private void stopMonitoringForCommissionedPlayer() {
+    if (commissionedPlayerListener != null) {
+      castingPlayerRegistry.removeListener(commissionedPlayerListener);
+      commissionedPlayerListener = null;
+    }
   }
 }
 
@@ -89,27 +89,31 @@ public class InitializationExample {
    */
   private static final DACProvider dacProvider = new DACProviderStub();
 
+  /**
+   * @param applicationContext Given android.content.Context, initialize the CastingApp, to be
+   *     started on demand, e.g. by the first discovery or connection request
+   */
+  public static MatterError initAndStartOnDemand(Context applicationContext) {
+    // Set before initializing, so that requests made while initializing start the CastingApp
+    MatterError err = CastingApp.getInstance().startOnDemand();
+    if (err.hasError()) {
+      Log.e(TAG, "Failed to set the Matter CastingApp to start on demand");
+      return err;
+    }
+
+    err = CastingApp.getInstance().initialize(buildAppParameters(applicationContext));
+    if (err.hasError()) {
+      Log.e(TAG, "Failed to initialize Matter CastingApp");
+    }
+    return err;
+  }
+
   /**
    * @param applicationContext Given android.content.Context, initialize and start the CastingApp
    */
   public static MatterError initAndStart(Context applicationContext) {
-    // Create an AppParameters object to pass in global casting parameters to the SDK
-    AppParameters appParameters =
-        new AppParameters(
-            applicationContext,
-            new DataProvider<ConfigurationManager>() {
-              @Override
-              public ConfigurationManager get() {
-                return new PreferencesConfigurationManager(
-                    applicationContext, "chip.platform.ConfigurationManager");
-              }
-            },
-            rotatingDeviceIdUniqueIdProvider,
-            commissionableDataProvider,
-            dacProvider);
-
     // Initialize the SDK using the appParameters and check if it returns successfully
-    MatterError err = CastingApp.getInstance().initialize(appParameters);
+    MatterError err = CastingApp.getInstance().initialize(buildAppParameters(applicationContext));
     if (err.hasError()) {
       Log.e(TAG, "Failed to initialize Matter CastingApp");
       return err;
@@ -122,4 +126,20 @@ public class InitializationExample {
     }
     return err;
   }
+
+  private static AppParameters buildAppParameters(Context applicationContext) {
+    // Create an AppParameters object to pass in global casting parameters to the SDK
+    return new AppParameters(
+        applicationContext,
+        new DataProvider<ConfigurationManager>() {
+          @Override
+          public ConfigurationManager get() {
+            return new PreferencesConfigurationManager(
+                applicationContext, "chip.platform.ConfigurationManager");
+          }
+        },
+        rotatingDeviceIdUniqueIdProvider,
+        commissionableDataProvider,
+        dacProvider);
+  }
 }
@@ -0,0 +1,33 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+/**
+ * Told how a key sequence sent with sendKeySequenceToDevice() went. The keys are sent one at a
+ * time, each once the previous one was acknowledged, and the sequence stops at the first key that
+ * fails.
+ */
+public interface KeySequenceCallback {
+  /**
+   * Called on the Matter thread once the sequence is done.
+   *
+   * @param sentCount how many keys were acknowledged. When lower than keyCount, the key at index
+   *     sentCount failed and the keys after it were not sent.
+   * @param keyCount how many keys the sequence has
+   */
+  void onKeySequenceSent(int sentCount, int keyCount);
+}
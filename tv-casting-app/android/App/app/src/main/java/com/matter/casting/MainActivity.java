@@ -2,6 +2,8 @@ package com.matter.casting;
 
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
@@ -16,7 +18,10 @@ import com.chip.casting.app.ContentLauncherFragment;
 import com.chip.casting.app.MediaPlaybackFragment;
 import com.chip.casting.app.SelectClusterFragment;
 import com.chip.casting.util.GlobalCastingConstants;
+import com.matter.casting.core.CastingApp;
 import com.matter.casting.core.CastingPlayer;
+import com.matter.casting.support.MatterError;
+import com.matter.casting.support.StartupTrace;
 import java.util.Random;
 
 public class MainActivity extends AppCompatActivity
@@ -42,29 +47,46 @@ public class MainActivity extends AppCompatActivity
     }
 
     Log.i(TAG, "ChipCastingSimplified = " + GlobalCastingConstants.ChipCastingSimplified);
-    boolean ret =
-        GlobalCastingConstants.ChipCastingSimplified
-            ? InitializationExample.initAndStart(this.getApplicationContext()).hasNoError()
-            : initJni();
-    if (!ret) {
+    if (!GlobalCastingConstants.ChipCastingSimplified && !initJni()) {
       Log.e(TAG, "Failed to initialize Matter TV casting library");
       return;
     }
+    markFirstFrame();
 
-    // Auto-start commissioning in background
+    // The simplified CastingApp is initialized by the StartupPipeline, in the background, and
+    // started on demand unless MatterServerWarmStart is set. Auto-start commissioning once it is
     if (GlobalCastingConstants.ChipCastingSimplified) {
-      new Thread(() -> {
-        Log.i(TAG, "Auto-starting commissioning window for 10 minutes");
-        com.matter.casting.support.MatterError err = 
-            ManualCommissioningHelper.openBasicCommissioningWindowWithTimeout(600);
-        if (err.hasNoError()) {
-          Log.i(TAG, "Commissioning window opened successfully");
-        } else {
-          Log.e(TAG, "Failed to open commissioning window: " + err.getErrorMessage());
-        }
-      }).start();
+      StartupPipeline.whenReady()
+          .whenComplete(
+              (err, throwable) -> {
+                if (throwable != null) {
+                  Log.e(TAG, "Failed to initialize Matter TV casting library", throwable);
+                } else if (err.hasError()) {
+                  Log.e(TAG, "Failed to initialize Matter TV casting library: " + err);
+                }
+              });
+      CastingApp.getInstance()
+          .whenStarted()
+          .whenCompleteAsync(
+              (startErr, throwable) -> {
+                if (throwable != null) {
+                  Log.e(TAG, "Failed to start the CastingApp", throwable);
+                  return;
+                }
+                if (startErr.hasError()) {
+                  return;
+                }
+                Log.i(TAG, "Auto-starting commissioning window for 10 minutes");
+                MatterError err =
+                    ManualCommissioningHelper.openBasicCommissioningWindowWithTimeout(600);
+                if (err.hasNoError()) {
+                  Log.i(TAG, "Commissioning window opened successfully");
+                } else {
+                  Log.e(TAG, "Failed to open commissioning window: " + err.getErrorMessage());
+                }
+              });
     }
-    
+
     // Directly open Premium Controller as home page
     Fragment fragment = null;
     if (GlobalCastingConstants.ChipCastingSimplified) {
@@ -174,6 +196,23 @@ public class MainActivity extends AppCompatActivity
     return tvCastingApp.initApp(this.getApplicationContext(), appParameters);
   }
 
+  /** Marks the FIRST_FRAME startup milestone once the first frame of the activity is drawn */
+  private void markFirstFrame() {
+    View decorView = getWindow().getDecorView();
+    decorView
+        .getViewTreeObserver()
+        .addOnDrawListener(
+            new ViewTreeObserver.OnDrawListener() {
+              @Override
+              public void onDraw() {
+                StartupTrace.getInstance().mark(StartupTrace.Phase.FIRST_FRAME);
+                // listeners cannot be removed from within onDraw()
+                decorView.post(
+                    () -> decorView.getViewTreeObserver().removeOnDrawListener(this));
+              }
+            });
+  }
+
   private void showFragment(Fragment fragment, boolean showOnBack) {
     Log.d(
         TAG,
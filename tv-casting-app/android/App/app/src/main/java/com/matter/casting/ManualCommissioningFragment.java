@@ -107,7 +107,7 @@ public class ManualCommissioningFragment extends Fragment {
         
         // Open commissioning window on a background thread
         new Thread(() -> {
-            MatterError err = ManualCommissioningHelper.openBasicCommissioningWindow();
+            MatterError err = ManualCommissioningHelper.openBasicCommissioningWindowOnDemand();
             
             getActivity().runOnUiThread(() -> {
                 if (err.hasNoError()) {
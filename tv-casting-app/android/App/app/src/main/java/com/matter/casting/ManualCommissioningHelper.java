@@ -19,6 +19,7 @@ package com.matter.casting;
 import android.util.Log;
 import com.matter.casting.core.CastingApp;
 import com.matter.casting.support.MatterError;
+import java.util.concurrent.CompletionException;
 
 /**
  * ManualCommissioningHelper provides utility methods to enable manual commissioning mode
@@ -104,4 +105,62 @@ public class ManualCommissioningHelper {
      * @return MatterError.NO_ERROR if reconnection started successfully
      */
     public static native MatterError attemptReconnectToLastPlayer();
+
+    /**
+     * @return true if there is a commissioned player to reconnect to, in cache or in the
+     *     CastingStore. Must be called once the CastingApp is initialized.
+     */
+    public static native boolean hasCachedPlayer();
+
+    /**
+     * Opens a basic commissioning window, once the CastingApp is started. If it starts on demand
+     * and has not started yet, it is started first. Blocks until then, so must not be called on
+     * the main thread.
+     *
+     * @param timeoutSeconds How long to keep the commissioning window open (minimum 180 seconds)
+     * @return MatterError.NO_ERROR if successful, specific error code otherwise
+     */
+    public static MatterError openBasicCommissioningWindowOnDemand(int timeoutSeconds) {
+        MatterError err = awaitStart();
+        return err.hasError() ? err : openBasicCommissioningWindowWithTimeout(timeoutSeconds);
+    }
+
+    /**
+     * Same as openBasicCommissioningWindowOnDemand(int), with the default timeout.
+     */
+    public static MatterError openBasicCommissioningWindowOnDemand() {
+        MatterError err = awaitStart();
+        return err.hasError() ? err : openBasicCommissioningWindow();
+    }
+
+    /**
+     * Attempts to reconnect to the last commissioned player from cache, once the CastingApp is
+     * started. If there is one, and the CastingApp starts on demand and has not started yet, it is
+     * started first. Blocks until then, so must not be called on the main thread. Must be called
+     * once the CastingApp is initialized.
+     *
+     * @return MatterError.NO_ERROR if reconnection started successfully
+     */
+    public static MatterError attemptReconnectToLastPlayerOnDemand() {
+        if (!hasCachedPlayer()) {
+            // like attemptReconnectToLastPlayer(), without starting the CastingApp for nothing
+            return MatterError.CHIP_ERROR_INCORRECT_STATE;
+        }
+        MatterError err = awaitStart();
+        return err.hasError() ? err : attemptReconnectToLastPlayer();
+    }
+
+    private static MatterError awaitStart() {
+        CastingApp castingApp = CastingApp.getInstance();
+        if (!castingApp.isStartDeferred()) {
+            return MatterError.NO_ERROR;
+        }
+        Log.i(TAG, "Starting the CastingApp on demand");
+        try {
+            return castingApp.requestStart().join();
+        } catch (CompletionException e) {
+            Log.e(TAG, "The CastingApp could not start", e.getCause());
+            return MatterError.CHIP_ERROR_INCORRECT_STATE;
+        }
+    }
 }
@@ -11,6 +11,12 @@ import android.os.IBinder;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import com.R;
+import com.matter.casting.support.MatterCallbackDispatcher;
+import com.matter.casting.support.MetricsRegistry;
+import com.matter.casting.support.StartupTrace;
+import com.matter.casting.support.SubscriptionRegistry;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 /**
  * Foreground service to keep Matter stack alive when app is backgrounded.
@@ -65,6 +71,19 @@ public class MatterKeepAliveService extends Service {
         Log.w(TAG, "MatterKeepAliveService destroyed");
     }
 
+    /**
+     * Prints the metrics of the casting app, e.g. with
+     * `adb shell dumpsys activity service MatterKeepAliveService`.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.println(TAG + " metrics:");
+        MetricsRegistry.getInstance().dump(writer);
+        StartupTrace.getInstance().dump(writer);
+        writer.println(MatterCallbackDispatcher.getInstance());
+        writer.println(SubscriptionRegistry.getInstance());
+    }
+
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel serviceChannel = new NotificationChannel(
@@ -17,9 +17,8 @@
 package com.matter.casting;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,19 +26,34 @@ import android.widget.TextView;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import chip.devicecontroller.ChipClusters;
+import chip.devicecontroller.ChipStructs;
 import com.R;
 import com.matter.casting.core.CastingApp;
 import com.matter.casting.core.CastingPlayer;
 import com.matter.casting.core.Endpoint;
+import com.matter.casting.support.FrameDelivery;
+import com.matter.casting.support.PlaybackClock;
+import com.matter.casting.support.SubscriptionRegistry;
 import java.util.Date;
+import java.util.Locale;
 
 /**
  * A {@link Fragment} to subscribe to CurrentState (from MediaPLayback cluster) using the TV Casting
- * App.
+ * App. Along with it, the playback position is shown on every frame, interpolated by a {@link
+ * PlaybackClock} from sparse SampledPosition and PlaybackSpeed reports.
  */
 public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragment {
   private static final String TAG =
       MediaPlaybackSubscribeToCurrentStateExampleFragment.class.getSimpleName();
+  private static final long CURRENT_STATE_ATTRIBUTE_ID = 0x0000;
+  private static final long SAMPLED_POSITION_ATTRIBUTE_ID = 0x0003;
+  private static final long PLAYBACK_SPEED_ATTRIBUTE_ID = 0x0004;
+
+  /**
+   * Max interval, in seconds, of the SampledPosition and PlaybackSpeed subscriptions. The
+   * PlaybackClock fills in the position between reports.
+   */
+  private static final int PLAYBACK_POSITION_MAX_INTERVAL = 10;
 
   private final CastingPlayer selectedCastingPlayer;
   private final boolean useCommissionerGeneratedPasscode;
@@ -47,6 +61,15 @@ public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragmen
   private View.OnClickListener subscribeButtonClickListener;
   private View.OnClickListener shutdownSubscriptionsButtonClickListener;
 
+  private SubscriptionRegistry.Handle currentStateSubscription;
+  private SubscriptionRegistry.Handle sampledPositionSubscription;
+  private SubscriptionRegistry.Handle playbackSpeedSubscription;
+  private FrameDelivery.Slot<String> currentStateResult;
+
+  private final PlaybackClock playbackClock = new PlaybackClock();
+  private final Choreographer.FrameCallback playbackPositionTicker = this::showPlaybackPosition;
+  private boolean playbackPositionTicking = false;
+
   public MediaPlaybackSubscribeToCurrentStateExampleFragment(
       CastingPlayer selectedCastingPlayer, boolean useCommissionerGeneratedPasscode) {
     this.selectedCastingPlayer = selectedCastingPlayer;
@@ -83,6 +106,18 @@ public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragmen
           R.layout.fragment_matter_media_playback_subscribe_current_state, container, false);
     }
 
+    // reports are shown at most once per frame, bursts only showing their latest value
+    this.currentStateResult =
+        FrameDelivery.getInstance()
+            .newSlot(
+                text -> {
+                  View view = getView();
+                  if (view != null) {
+                    TextView currentStateResult = view.findViewById(R.id.currentStateResult);
+                    currentStateResult.setText(text);
+                  }
+                });
+
     this.subscribeButtonClickListener =
         v -> {
           // get ChipClusters.MediaPlaybackCluster from the endpoint
@@ -95,36 +130,61 @@ public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragmen
             return;
           }
 
-          // call subscribeCurrentStateAttribute on the cluster object while passing in a
-          // ChipClusters.IntegerAttributeCallback and [0, 1] for min and max interval params
-          cluster.subscribeCurrentStateAttribute(
-              new ChipClusters.IntegerAttributeCallback() {
-                @Override
-                public void onSuccess(int value) {
-                  Log.d(TAG, "Read success on subscription. Value: " + value + " @ " + new Date());
-                  new Handler(Looper.getMainLooper())
-                      .post(
-                          () -> {
-                            TextView currentStateResult =
-                                getView().findViewById(R.id.currentStateResult);
-                            currentStateResult.setText("Current State result\nValue: " + value);
-                          });
-                }
-
-                @Override
-                public void onError(Exception error) {
-                  Log.e(TAG, "Read failure on subscription: " + error);
-                  new Handler(Looper.getMainLooper())
-                      .post(
-                          () -> {
-                            TextView currentStateResult =
-                                getView().findViewById(R.id.currentStateResult);
-                            currentStateResult.setText("Current State result\nError: " + error);
-                          });
-                }
-              },
-              0,
-              1);
+          if (currentStateSubscription != null) {
+            currentStateSubscription.close();
+          }
+
+          // subscribe through the SubscriptionRegistry, so that other listeners of CurrentState
+          // on this endpoint share one subscription. The registry calls
+          // subscribeCurrentStateAttribute on the cluster object, passing in a
+          // ChipClusters.IntegerAttributeCallback and [0, 1] for min and max interval params, only
+          // if no such subscription exists yet.
+          currentStateSubscription =
+              SubscriptionRegistry.getInstance()
+                  .subscribe(
+                      endpoint,
+                      ChipClusters.MediaPlaybackCluster.CLUSTER_ID,
+                      CURRENT_STATE_ATTRIBUTE_ID,
+                      0,
+                      1,
+                      (minInterval, maxInterval, sink) ->
+                          cluster.subscribeCurrentStateAttribute(
+                              new ChipClusters.IntegerAttributeCallback() {
+                                @Override
+                                public void onSuccess(int value) {
+                                  sink.onValue(value);
+                                }
+
+                                @Override
+                                public void onError(Exception error) {
+                                  sink.onError(error);
+                                }
+
+                                @Override
+                                public void onSubscriptionEstablished(long subscriptionId) {
+                                  sink.onSubscriptionEstablished(subscriptionId);
+                                }
+                              },
+                              minInterval,
+                              maxInterval),
+                      new SubscriptionRegistry.Listener<Integer>() {
+                        @Override
+                        public void onValue(Integer value) {
+                          Log.d(
+                              TAG,
+                              "Read success on subscription. Value: " + value + " @ " + new Date());
+                          playbackClock.onCurrentState(value);
+                          currentStateResult.post("Current State result\nValue: " + value);
+                        }
+
+                        @Override
+                        public void onError(Exception error) {
+                          Log.e(TAG, "Read failure on subscription: " + error);
+                          currentStateResult.post("Current State result\nError: " + error);
+                        }
+                      });
+
+          subscribeToPlaybackPosition(endpoint, cluster);
         };
 
     this.shutdownSubscriptionsButtonClickListener =
@@ -132,6 +192,7 @@ public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragmen
           @Override
           public void onClick(View v) {
             Log.d(TAG, "Shutting down subscriptions");
+            // parks the subscriptions: the next subscribe resumes them
             CastingApp.getInstance().shutdownAllSubscriptions();
           }
         };
@@ -151,4 +212,147 @@ public class MediaPlaybackSubscribeToCurrentStateExampleFragment extends Fragmen
         .findViewById(R.id.shutdownSubscriptionsButton)
         .setOnClickListener(shutdownSubscriptionsButtonClickListener);
   }
+
+  /**
+   * Subscribes to SampledPosition and PlaybackSpeed with a long max interval, feeding their reports
+   * to the PlaybackClock, and starts showing the position it interpolates on every frame.
+   */
+  private void subscribeToPlaybackPosition(
+      Endpoint endpoint, ChipClusters.MediaPlaybackCluster cluster) {
+    closePlaybackPositionSubscriptions();
+    playbackClock.reset();
+
+    sampledPositionSubscription =
+        SubscriptionRegistry.getInstance()
+            .subscribe(
+                endpoint,
+                ChipClusters.MediaPlaybackCluster.CLUSTER_ID,
+                SAMPLED_POSITION_ATTRIBUTE_ID,
+                0,
+                PLAYBACK_POSITION_MAX_INTERVAL,
+                (minInterval, maxInterval, sink) ->
+                    cluster.subscribeSampledPositionAttribute(
+                        new ChipClusters.MediaPlaybackCluster.SampledPositionAttributeCallback() {
+                          @Override
+                          public void onSuccess(
+                              ChipStructs.MediaPlaybackClusterPlaybackPositionStruct value) {
+                            sink.onValue(value);
+                          }
+
+                          @Override
+                          public void onError(Exception error) {
+                            sink.onError(error);
+                          }
+
+                          @Override
+                          public void onSubscriptionEstablished(long subscriptionId) {
+                            sink.onSubscriptionEstablished(subscriptionId);
+                          }
+                        },
+                        minInterval,
+                        maxInterval),
+                new SubscriptionRegistry.Listener<
+                    ChipStructs.MediaPlaybackClusterPlaybackPositionStruct>() {
+                  @Override
+                  public void onValue(ChipStructs.MediaPlaybackClusterPlaybackPositionStruct value) {
+                    playbackClock.onSampledPosition(value);
+                  }
+
+                  @Override
+                  public void onError(Exception error) {
+                    Log.e(TAG, "SampledPosition subscription failure: " + error);
+                  }
+                });
+
+    playbackSpeedSubscription =
+        SubscriptionRegistry.getInstance()
+            .subscribe(
+                endpoint,
+                ChipClusters.MediaPlaybackCluster.CLUSTER_ID,
+                PLAYBACK_SPEED_ATTRIBUTE_ID,
+                0,
+                PLAYBACK_POSITION_MAX_INTERVAL,
+                (minInterval, maxInterval, sink) ->
+                    cluster.subscribePlaybackSpeedAttribute(
+                        new ChipClusters.FloatAttributeCallback() {
+                          @Override
+                          public void onSuccess(float value) {
+                            sink.onValue(value);
+                          }
+
+                          @Override
+                          public void onError(Exception error) {
+                            sink.onError(error);
+                          }
+
+                          @Override
+                          public void onSubscriptionEstablished(long subscriptionId) {
+                            sink.onSubscriptionEstablished(subscriptionId);
+                          }
+                        },
+                        minInterval,
+                        maxInterval),
+                new SubscriptionRegistry.Listener<Float>() {
+                  @Override
+                  public void onValue(Float value) {
+                    playbackClock.onPlaybackSpeed(value);
+                  }
+
+                  @Override
+                  public void onError(Exception error) {
+                    Log.e(TAG, "PlaybackSpeed subscription failure: " + error);
+                  }
+                });
+
+    if (!playbackPositionTicking) {
+      playbackPositionTicking = true;
+      Choreographer.getInstance().postFrameCallback(playbackPositionTicker);
+    }
+  }
+
+  private void showPlaybackPosition(long frameTimeNanos) {
+    if (!playbackPositionTicking) {
+      return;
+    }
+    View view = getView();
+    if (view != null && playbackClock.hasPosition()) {
+      long positionSeconds = playbackClock.getPositionMs() / 1000;
+      TextView playbackPositionResult = view.findViewById(R.id.playbackPositionResult);
+      playbackPositionResult.setText(
+          String.format(
+              Locale.US,
+              "Playback position: %d:%02d",
+              positionSeconds / 60,
+              positionSeconds % 60));
+    }
+    Choreographer.getInstance().postFrameCallback(playbackPositionTicker);
+  }
+
+  private void closePlaybackPositionSubscriptions() {
+    if (sampledPositionSubscription != null) {
+      sampledPositionSubscription.close();
+      sampledPositionSubscription = null;
+    }
+    if (playbackSpeedSubscription != null) {
+      playbackSpeedSubscription.close();
+      playbackSpeedSubscription = null;
+    }
+  }
+
+  @Override
+  public void onDestroyView() {
+    super.onDestroyView();
+    if (currentStateSubscription != null) {
+      currentStateSubscription.close();
+      currentStateSubscription = null;
+    }
+    closePlaybackPositionSubscriptions();
+    if (playbackPositionTicking) {
+      playbackPositionTicking = false;
+      Choreographer.getInstance().removeFrameCallback(playbackPositionTicker);
+    }
+    if (currentStateResult != null) {
+      currentStateResult.cancel();
+    }
+  }
 }
@@ -0,0 +1,235 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PhraseMatcher finds phrases in text by walking a compiled character trie from each word start.
+ * Matching is case insensitive and word aligned, so "up" does not match inside "supper", and any
+ * run of spaces or punctuation in the text matches a single space in a phrase. Where
+ * phrases overlap, the longest one starting leftmost wins, so "volume up" is found rather than
+ * "up". Matching allocates nothing per character, and one object per reported match.
+ *
+ * <p>A PhraseMatcher is immutable once built, and can be shared between threads.
+ */
+public final class PhraseMatcher<T> {
+  private final Node<T> root;
+
+  /** A phrase found in the text, spanning [start, end) */
+  public static final class Match<T> {
+    public final T value;
+    public final int start;
+    public final int end;
+    /** True if a longer phrase starts with this one, e.g. for "prime" when "prime video" exists */
+    public final boolean extensible;
+
+    Match(T value, int start, int end, boolean extensible) {
+      this.value = value;
+      this.start = start;
+      this.end = end;
+      this.extensible = extensible;
+    }
+
+    @Override
+    public String toString() {
+      return "Match{"
+          + "value="
+          + value
+          + ", start="
+          + start
+          + ", end="
+          + end
+          + ", extensible="
+          + extensible
+          + '}';
+    }
+  }
+
+  public static final class Builder<T> {
+    private final Node<T> root = new Node<>();
+
+    /** Adds phrases that map to the value. A phrase added twice keeps its latest value. */
+    public Builder<T> add(T value, String... phrases) {
+      for (String phrase : phrases) {
+        Node<T> node = root;
+        int length = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < phrase.length(); i++) {
+          char c = normalize(phrase.charAt(i));
+          if (c == ' ') {
+            pendingSpace = length > 0;
+            continue;
+          }
+          if (pendingSpace) {
+            node = node.childOrCreate(' ');
+            length++;
+            pendingSpace = false;
+          }
+          node = node.childOrCreate(c);
+          length++;
+        }
+        if (length == 0) {
+          throw new IllegalArgumentException("Empty phrase for " + value);
+        }
+        node.value = value;
+      }
+      return this;
+    }
+
+    public PhraseMatcher<T> build() {
+      return new PhraseMatcher<>(root);
+    }
+  }
+
+  private PhraseMatcher(Node<T> root) {
+    this.root = root;
+  }
+
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Finds the phrases in the text, leftmost first, preferring the longest phrase at each position.
+   * Matches do not overlap.
+   *
+   * @param out receives the matches, in order
+   * @return the number of matches added to out
+   */
+  public int findAll(CharSequence text, List<Match<T>> out) {
+    Cursor<T> cursor = new Cursor<>();
+    int found = 0;
+    int position = 0;
+    while (position < text.length()) {
+      if (isWordStart(text, position) && matchAt(text, position, cursor)) {
+        out.add(new Match<>(cursor.value, position, cursor.end, cursor.extensible));
+        found++;
+        position = cursor.end;
+      } else {
+        position++;
+      }
+    }
+    return found;
+  }
+
+  /** @return the matches in the text, see findAll(CharSequence, List) */
+  public List<Match<T>> findAll(CharSequence text) {
+    List<Match<T>> matches = new ArrayList<>();
+    findAll(text, matches);
+    return matches;
+  }
+
+  /** @return true if the text contains any of the phrases */
+  public boolean containsAny(CharSequence text) {
+    Cursor<T> cursor = new Cursor<>();
+    for (int position = 0; position < text.length(); position++) {
+      if (isWordStart(text, position) && matchAt(text, position, cursor)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Walks the trie from the word starting at position, and stores the longest phrase that ends on
+   * a word boundary in the cursor.
+   *
+   * @return true if a phrase was matched
+   */
+  private boolean matchAt(CharSequence text, int position, Cursor<T> cursor) {
+    boolean matched = false;
+    Node<T> node = root;
+    int length = text.length();
+    int i = position;
+    while (i < length) {
+      char c = normalize(text.charAt(i++));
+      if (c == ' ') {
+        // a run of separators matches a single space
+        while (i < length && normalize(text.charAt(i)) == ' ') {
+          i++;
+        }
+      }
+      node = node.child(c);
+      if (node == null) {
+        break;
+      }
+      if (c != ' ' && node.value != null && (i == length || !isWordChar(text.charAt(i)))) {
+        cursor.value = node.value;
+        cursor.end = i;
+        cursor.extensible = node.keys.length > 0;
+        matched = true;
+      }
+    }
+    return matched;
+  }
+
+  private static boolean isWordStart(CharSequence text, int position) {
+    return isWordChar(text.charAt(position))
+        && (position == 0 || !isWordChar(text.charAt(position - 1)));
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '\'';
+  }
+
+  private static char normalize(char c) {
+    return isWordChar(c) ? Character.toLowerCase(c) : ' ';
+  }
+
+  private static final class Cursor<T> {
+    T value;
+    int end;
+    boolean extensible;
+  }
+
+  private static final class Node<T> {
+    // children sorted by character, for a binary search
+    char[] keys = new char[0];
+    @SuppressWarnings("unchecked")
+    Node<T>[] children = new Node[0];
+    T value;
+
+    Node<T> child(char c) {
+      int index = Arrays.binarySearch(keys, c);
+      return index >= 0 ? children[index] : null;
+    }
+
+    Node<T> childOrCreate(char c) {
+      int index = Arrays.binarySearch(keys, c);
+      if (index >= 0) {
+        return children[index];
+      }
+      int insertAt = -index - 1;
+      char[] newKeys = new char[keys.length + 1];
+      @SuppressWarnings("unchecked")
+      Node<T>[] newChildren = new Node[children.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, insertAt);
+      System.arraycopy(children, 0, newChildren, 0, insertAt);
+      System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+      System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+      Node<T> node = new Node<>();
+      newKeys[insertAt] = c;
+      newChildren[insertAt] = node;
+      keys = newKeys;
+      children = newChildren;
+      return node;
+    }
+  }
+}
@@ -23,26 +23,86 @@ import android.util.Log;
 import chip.platform.AndroidChipPlatformException;
 import chip.platform.ConfigurationManager;
 import chip.platform.KeyValueStoreManager;
+import java.io.File;
+import java.io.Flushable;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-/** Java interface for ConfigurationManager */
-public class PreferencesConfigurationManager implements ConfigurationManager {
+/**
+ * Java interface for ConfigurationManager
+ *
+ * <p>Writes are cached in memory and committed to the SharedPreferences file in one batch, either
+ * FLUSH_DELAY_MS after the first uncommitted write or on an explicit call to flush(). This turns
+ * the bursts of writes made during commissioning and fabric updates into a single file rewrite.
+ * Reads always see the latest written value, committed or not.
+ *
+ * <p>Preference keys ("namespace:name") are built once and kept per namespace, so reads do not
+ * allocate, and clearing a namespace only visits the keys in that namespace.
+ *
+ * <p>Binary values are stored as raw bytes in a BinaryConfigFile next to the SharedPreferences,
+ * instead of as Base64 strings. Values written as Base64 strings by earlier versions are moved to
+ * it the first time they are read.
+ */
+public class PreferencesConfigurationManager implements ConfigurationManager, Flushable {
 
   private final String TAG = KeyValueStoreManager.class.getSimpleName();
+  private static final long FLUSH_DELAY_MS = 100;
+
+  /** Marks a key removed in pendingWrites */
+  private static final Object REMOVED = new Object();
+
   private SharedPreferences preferences;
 
+  /** Binary config values. Committed together with pendingWrites */
+  private final BinaryConfigFile binaryValues;
+
+  /** Uncommitted writes, keyed by preference key. Values are Long, String or REMOVED */
+  private final Map<String, Object> pendingWrites = new HashMap<>();
+
+  /** True if all preferences were cleared after the last commit */
+  private boolean pendingClear = false;
+
+  /** Number of times all preferences were cleared, so a commit knows if it saw the last clear */
+  private long clearCount = 0;
+
+  private boolean flushScheduled = false;
+
+  /** Serializes commits, which write to disk outside of the monitor guarding the cached writes */
+  private final Object commitLock = new Object();
+
+  /** Preference keys, by namespace and name */
+  private final Map<String, Map<String, String>> keys = new HashMap<>();
+
+  /** Keys of the config values that currently exist, committed or not, by namespace */
+  private final Map<String, Set<String>> namespaceIndex = new HashMap<>();
+
+  private final ScheduledExecutorService flushExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "PreferencesConfigurationManager");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   public PreferencesConfigurationManager(Context context, String preferenceFileKey) {
     preferences = context.getSharedPreferences(preferenceFileKey, Context.MODE_PRIVATE);
+    binaryValues = new BinaryConfigFile(new File(context.getFilesDir(), preferenceFileKey + ".bin"));
+    buildIndex();
 
     try {
       String keyUniqueId = getKey(kConfigNamespace_ChipFactory, kConfigKey_UniqueId);
       if (!preferences.contains(keyUniqueId)) {
-        preferences
-            .edit()
-            .putString(keyUniqueId, UUID.randomUUID().toString().replaceAll("-", ""))
-            .apply();
+        stageWrite(
+            kConfigNamespace_ChipFactory,
+            keyUniqueId,
+            UUID.randomUUID().toString().replaceAll("-", ""));
       }
     } catch (AndroidChipPlatformException e) {
       e.printStackTrace();
@@ -92,13 +152,18 @@ public class PreferencesConfigurationManager implements ConfigurationManager {
         return 41;
     }
 
-    if (preferences.contains(key)) {
-      long value = preferences.getLong(key, Long.MAX_VALUE);
-      return value;
-    } else {
-      Log.d(TAG, "Key '" + key + "' not found in shared preferences");
-      throw new AndroidChipPlatformException();
+    synchronized (this) {
+      Object pending = pendingWrites.get(key);
+      if (pending instanceof Long) {
+        return (Long) pending;
+      }
+      if (pending == null && !pendingClear && preferences.contains(key)) {
+        long value = preferences.getLong(key, Long.MAX_VALUE);
+        return value;
+      }
     }
+    Log.d(TAG, "Key '" + key + "' not found in shared preferences");
+    throw new AndroidChipPlatformException();
   }
 
   @Override
@@ -178,26 +243,35 @@ public class PreferencesConfigurationManager implements ConfigurationManager {
         return "X10";
     }
 
-    if (preferences.contains(key)) {
-      String value = preferences.getString(key, null);
-      return value;
-    } else {
+    String value = readString(key);
+    if (value == null) {
       Log.d(TAG, "Key '" + key + "' not found in shared preferences");
       throw new AndroidChipPlatformException();
     }
+    return value;
   }
 
   @Override
   public byte[] readConfigValueBin(String namespace, String name)
       throws AndroidChipPlatformException {
     String key = getKey(namespace, name);
-    if (preferences.contains(key)) {
-      String value = preferences.getString(key, null);
-      byte[] byteValue = Base64.getDecoder().decode(value);
+    synchronized (this) {
+      byte[] value = binaryValues.get(key);
+      if (value != null) {
+        return value;
+      }
+
+      // migrate a value stored as a Base64 string by an earlier version
+      String legacyValue = readString(key);
+      if (legacyValue == null) {
+        Log.d(TAG, "Key '" + key + "' not found in binary config values");
+        throw new AndroidChipPlatformException();
+      }
+      byte[] byteValue = Base64.getDecoder().decode(legacyValue);
+      binaryValues.put(key, byteValue);
+      pendingWrites.put(key, REMOVED);
+      scheduleFlush();
       return byteValue;
-    } else {
-      Log.d(TAG, "Key '" + key + "' not found in shared preferences");
-      throw new AndroidChipPlatformException();
     }
   }
 
@@ -205,14 +279,14 @@ public class PreferencesConfigurationManager implements ConfigurationManager {
   public void writeConfigValueLong(String namespace, String name, long val)
       throws AndroidChipPlatformException {
     String key = getKey(namespace, name);
-    preferences.edit().putLong(key, val).apply();
+    stageWrite(namespace, key, val);
   }
 
   @Override
   public void writeConfigValueStr(String namespace, String name, String val)
       throws AndroidChipPlatformException {
     String key = getKey(namespace, name);
-    preferences.edit().putString(key, val).apply();
+    stageWrite(namespace, key, val);
   }
 
   @Override
@@ -220,46 +294,248 @@ public class PreferencesConfigurationManager implements ConfigurationManager {
       throws AndroidChipPlatformException {
     String key = getKey(namespace, name);
     if (val != null) {
-      String valStr = Base64.getEncoder().encodeToString(val);
-      preferences.edit().putString(key, valStr).apply();
+      synchronized (this) {
+        binaryValues.put(key, val);
+        addToIndex(namespace, key);
+        if (pendingWrites.containsKey(key) || preferences.contains(key)) {
+          // drop any value stored as a Base64 string by an earlier version
+          pendingWrites.put(key, REMOVED);
+        }
+        scheduleFlush();
+      }
     } else {
-      preferences.edit().remove(key).apply();
+      stageWrite(namespace, key, REMOVED);
     }
   }
 
   @Override
   public void clearConfigValue(String namespace, String name) throws AndroidChipPlatformException {
     if (namespace != null && name != null) {
-      preferences.edit().remove(getKey(namespace, name)).apply();
+      stageWrite(namespace, getKey(namespace, name), REMOVED);
     } else if (namespace != null && name == null) {
-      String pre = getKey(namespace, null);
-      SharedPreferences.Editor editor = preferences.edit();
-      Map<String, ?> allEntries = preferences.getAll();
-      for (Map.Entry<String, ?> entry : allEntries.entrySet()) {
-        String key = entry.getKey();
-        if (key.startsWith(pre)) {
-          editor.remove(key);
+      synchronized (this) {
+        Set<String> namespaceKeys = namespaceIndex.remove(namespace);
+        if (namespaceKeys != null) {
+          for (String key : namespaceKeys) {
+            pendingWrites.put(key, REMOVED);
+            binaryValues.remove(key);
+          }
+          scheduleFlush();
         }
       }
-      editor.apply();
     } else if (namespace == null && name == null) {
-      preferences.edit().clear().apply();
+      synchronized (this) {
+        pendingWrites.clear();
+        namespaceIndex.clear();
+        binaryValues.clear();
+        pendingClear = true;
+        clearCount++;
+        scheduleFlush();
+      }
     }
   }
 
   @Override
   public boolean configValueExists(String namespace, String name)
       throws AndroidChipPlatformException {
-    return preferences.contains(getKey(namespace, name));
+    String key = getKey(namespace, name);
+    synchronized (this) {
+      if (binaryValues.contains(key)) {
+        return true;
+      }
+      Object pending = pendingWrites.get(key);
+      if (pending != null) {
+        return pending != REMOVED;
+      }
+      return !pendingClear && preferences.contains(key);
+    }
   }
 
-  private String getKey(String namespace, String name) throws AndroidChipPlatformException {
-    if (namespace != null && name != null) {
-      return namespace + ":" + name;
-    } else if (namespace != null && name == null) {
+  /**
+   * Durability barrier: synchronously commits all cached writes to the config files.
+   * Returns once the file has been written. Called before the Matter stack is shut down, and by
+   * the native layer once commissioning completes and when a fabric changes.
+   */
+  @Override
+  public void flush() {
+    commitPendingWrites(true);
+  }
+
+  private synchronized String readString(String key) {
+    Object pending = pendingWrites.get(key);
+    if (pending instanceof String) {
+      return (String) pending;
+    }
+    if (pending == null && !pendingClear) {
+      return preferences.getString(key, null);
+    }
+    return null;
+  }
+
+  private synchronized void stageWrite(String namespace, String key, Object value) {
+    pendingWrites.put(key, value);
+    if (value == REMOVED) {
+      binaryValues.remove(key);
+      Set<String> namespaceKeys = namespaceIndex.get(namespace);
+      if (namespaceKeys != null) {
+        namespaceKeys.remove(key);
+      }
+    } else {
+      addToIndex(namespace, key);
+    }
+    scheduleFlush();
+  }
+
+  private void addToIndex(String namespace, String key) {
+    Set<String> namespaceKeys = namespaceIndex.get(namespace);
+    if (namespaceKeys == null) {
+      namespaceKeys = new HashSet<>();
+      namespaceIndex.put(namespace, namespaceKeys);
+    }
+    namespaceKeys.add(key);
+  }
+
+  /** Indexes the keys already in the config files. Runs once, at construction. */
+  private synchronized void buildIndex() {
+    for (String key : preferences.getAll().keySet()) {
+      indexExistingKey(key);
+    }
+    for (String key : binaryValues.keys()) {
+      indexExistingKey(key);
+    }
+  }
+
+  private void indexExistingKey(String key) {
+    int separator = key.indexOf(':');
+    if (separator <= 0) {
+      return;
+    }
+    String namespace = key.substring(0, separator);
+    String name = key.substring(separator + 1);
+
+    Map<String, String> namespaceKeys = keys.get(namespace);
+    if (namespaceKeys == null) {
+      namespaceKeys = new HashMap<>();
+      keys.put(namespace, namespaceKeys);
+    }
+    namespaceKeys.put(name, key);
+    addToIndex(namespace, key);
+  }
+
+  private void scheduleFlush() {
+    if (!flushScheduled) {
+      flushScheduled = true;
+      flushExecutor.schedule(
+          () -> commitPendingWrites(false), FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Commits all cached writes in a single SharedPreferences edit, and the binary values file. The
+   * writes are taken under the monitor, but written to disk outside of it, so that reads are not
+   * blocked meanwhile. They stay in pendingWrites, visible to reads, until they are committed.
+   *
+   * @param synchronous if true, waits for the write to disk, otherwise the write is queued
+   */
+  private void commitPendingWrites(boolean synchronous) {
+    synchronized (commitLock) {
+      Map<String, byte[]> binarySnapshot;
+      Map<String, Object> writes;
+      boolean clear;
+      long clearCountAtSnapshot;
+      synchronized (this) {
+        flushScheduled = false;
+        binarySnapshot = binaryValues.takeSnapshot();
+        if (binarySnapshot == null && !pendingClear && pendingWrites.isEmpty()) {
+          return;
+        }
+        writes = new HashMap<>(pendingWrites);
+        clear = pendingClear;
+        clearCountAtSnapshot = clearCount;
+      }
+
+      // binary values go first, so a migrated value is on disk before its Base64 copy is removed
+      boolean binarySynced = binarySnapshot == null || binaryValues.write(binarySnapshot);
+      if (!binarySynced) {
+        Log.e(TAG, "Failed to commit binary config values, will retry on the next commit");
+      }
+
+      SharedPreferences.Editor editor = preferences.edit();
+      if (clear) {
+        editor.clear();
+      }
+      for (Map.Entry<String, Object> entry : writes.entrySet()) {
+        Object value = entry.getValue();
+        if (value == REMOVED) {
+          if (!binarySynced && binarySnapshot.containsKey(entry.getKey())) {
+            // keep the Base64 copy until the raw bytes are on disk
+            continue;
+          }
+          editor.remove(entry.getKey());
+        } else if (value instanceof Long) {
+          editor.putLong(entry.getKey(), (Long) value);
+        } else {
+          editor.putString(entry.getKey(), (String) value);
+        }
+      }
+
+      boolean committed = true;
+      if (synchronous) {
+        committed = editor.commit();
+        if (!committed) {
+          Log.e(TAG, "Failed to commit config values to shared preferences");
+        }
+      } else {
+        editor.apply();
+      }
+
+      synchronized (this) {
+        if (!binarySynced) {
+          binaryValues.markDirty();
+        }
+        if (!committed) {
+          return; // everything stays pending, for the next commit
+        }
+        for (Map.Entry<String, Object> entry : writes.entrySet()) {
+          if (entry.getValue() == REMOVED
+              && !binarySynced
+              && binarySnapshot.containsKey(entry.getKey())) {
+            continue;
+          }
+          // unless written again since the snapshot
+          pendingWrites.remove(entry.getKey(), entry.getValue());
+        }
+        if (clear && clearCount == clearCountAtSnapshot) {
+          pendingClear = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the preference key for namespace and name, building it only the first time. A null name
+   * gives the namespace's own key, "namespace:", which no config value uses, so e.g.
+   * configValueExists(namespace, null) is false, as it always was.
+   */
+  private synchronized String getKey(String namespace, String name)
+      throws AndroidChipPlatformException {
+    if (namespace == null) {
+      throw new AndroidChipPlatformException();
+    }
+    if (name == null) {
       return namespace + ":";
     }
 
-    throw new AndroidChipPlatformException();
+    Map<String, String> namespaceKeys = keys.get(namespace);
+    if (namespaceKeys == null) {
+      namespaceKeys = new HashMap<>();
+      keys.put(namespace, namespaceKeys);
+    }
+    String key = namespaceKeys.get(name);
+    if (key == null) {
+      key = namespace + ":" + name;
+      namespaceKeys.put(name, key);
+    }
+    return key;
   }
 }
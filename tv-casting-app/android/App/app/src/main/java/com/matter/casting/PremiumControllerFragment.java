@@ -27,8 +27,11 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import com.R;
+import com.matter.casting.core.CastingApp;
+import com.matter.casting.support.NativeLibrary;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Premium One-Page Controller with Matte Black Theme
@@ -52,6 +55,7 @@ public class PremiumControllerFragment extends Fragment {
   private android.app.AlertDialog voiceSessionDialog;
   private SpeechRecognizer speechRecognizer;
   private boolean isListening = false;
+  private final StreamingVoiceSession voiceStream = new StreamingVoiceSession(this::dispatchIntent);
   private boolean isVoiceSessionActive = false;
   private TextView voiceCommandText;
   private TextView voiceStatusText;
@@ -90,7 +94,7 @@ public class PremiumControllerFragment extends Fragment {
   private static final int KEY_NUMBER_9 = 41;
   
   static {
-    System.loadLibrary("TvCastingApp");
+    NativeLibrary.load();
   }
   
   @Nullable
@@ -129,18 +133,25 @@ public class PremiumControllerFragment extends Fragment {
     super.onStart();
     Log.i(TAG, "onStart() - attempting reconnection");
     
-    // Explicitly trigger reconnection to last player if one exists in cache
-    // Do this synchronously before polling to ensure it completes
-    try {
-      com.matter.casting.support.MatterError err = ManualCommissioningHelper.attemptReconnectToLastPlayer();
-      if (err.hasError()) {
-        Log.w(TAG, "No cached player to reconnect to: " + err.getErrorMessage());
-      } else {
-        Log.i(TAG, "Reconnection attempt initiated successfully");
+    // Explicitly trigger reconnection to last player if one exists in cache. This starts the
+    // Matter server if it starts on demand, so do it in the background, once the CastingApp is
+    // initialized
+    new Thread(() -> {
+      try {
+        com.matter.casting.support.MatterError err = StartupPipeline.whenReady().join();
+        if (err.hasNoError()) {
+          err = ManualCommissioningHelper.attemptReconnectToLastPlayerOnDemand();
+        }
+        if (err.hasError()) {
+          Log.w(TAG, "No cached player to reconnect to: " + err.getErrorMessage());
+        } else {
+          Log.i(TAG, "Reconnection attempt initiated successfully");
+        }
+      } catch (Exception e) {
+        Log.e(TAG, "Exception during reconnection attempt", e);
       }
-    } catch (Exception e) {
-      Log.e(TAG, "Exception during reconnection attempt", e);
-    }
+      handler.post(this::updateConnectionStatus);
+    }).start();
     
     // Poll for connection status
     handler.postDelayed(
@@ -185,7 +196,7 @@ public class PremiumControllerFragment extends Fragment {
     }
     
     // Update UI to reflect current connection state
-    // CastingApp.start() is already called in MainActivity.onCreate() which handles auto-reconnect
+    // The CastingApp is started on demand by the reconnection attempt of onStart()
     updateConnectionStatus();
     
     // Poll more aggressively for the first 10 seconds after resume to catch auto-reconnect
@@ -354,7 +365,9 @@ public class PremiumControllerFragment extends Fragment {
       }
     } else {
       statusIndicator.setImageResource(R.drawable.indicator_disconnected);
-      statusLabel.setText("Disconnected");
+      // until the CastingApp's readiness future completes, the Matter server is still starting
+      statusLabel.setText(
+          CastingApp.getInstance().whenStarted().isDone() ? "Disconnected" : "Starting...");
       
       // Only reset power to OFF when transitioning from connected to disconnected
       if (wasConnected) {
@@ -369,6 +382,11 @@ public class PremiumControllerFragment extends Fragment {
   }
   
   private boolean isConnectedToCastingPlayer() {
+    // The Matter stack cannot be queried until the CastingApp is started
+    CompletableFuture<?> started = CastingApp.getInstance().whenStarted();
+    if (!started.isDone() || started.isCompletedExceptionally()) {
+      return false;
+    }
     // Use ManualCommissioningHelper to check if we have a commissioned player
     // This reliably tracks the commissioned state even after discovery stops
     boolean hasCommissioned = ManualCommissioningHelper.hasCommissionedVideoPlayer();
@@ -415,7 +433,7 @@ public class PremiumControllerFragment extends Fragment {
     new Thread(() -> {
       Log.i(TAG, "Opening commissioning window for pairing");
       com.matter.casting.support.MatterError err = 
-          ManualCommissioningHelper.openBasicCommissioningWindowWithTimeout(600);
+          ManualCommissioningHelper.openBasicCommissioningWindowOnDemand(600);
       
       getActivity().runOnUiThread(() -> {
         if (err.hasNoError()) {
@@ -464,12 +482,14 @@ public class PremiumControllerFragment extends Fragment {
       
       @Override
       public void onEndOfSpeech() {
+        voiceStream.onEndOfSpeech();
         voiceInputIcon.setAlpha(0.7f);
       }
       
       @Override
       public void onError(int error) {
         isListening = false;
+        voiceStream.onError();
         
         // Auto-restart on certain errors if voice session is active
         if (isVoiceSessionActive && (error == SpeechRecognizer.ERROR_NO_MATCH || error == SpeechRecognizer.ERROR_SPEECH_TIMEOUT)) {
@@ -533,7 +553,12 @@ public class PremiumControllerFragment extends Fragment {
       }
       
       @Override
-      public void onPartialResults(Bundle partialResults) {}
+      public void onPartialResults(Bundle partialResults) {
+        ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        if (matches != null && !matches.isEmpty()) {
+          voiceStream.onPartialResult(matches.get(0));
+        }
+      }
       
       @Override
       public void onEvent(int eventType, Bundle params) {}
@@ -694,9 +719,10 @@ public class PremiumControllerFragment extends Fragment {
     intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
     intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, "en-US");
     intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 1);
-    intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, false);
+    intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
     
     try {
+      voiceStream.begin();
       speechRecognizer.startListening(intent);
       isListening = true;
       Log.d(TAG, "Started listening");
@@ -716,62 +742,32 @@ public class PremiumControllerFragment extends Fragment {
   }
   
   private void processVoiceCommand(String command) {
-    String lowerCommand = command.toLowerCase().trim();
-    Log.i(TAG, "Voice command: " + lowerCommand);
-    
-    // App launch commands
-    if (lowerCommand.contains("youtube") || lowerCommand.contains("you tube")) {
-      launchApp("YouTube");
-    } else if (lowerCommand.contains("netflix")) {
-      launchApp("Netflix");
-    }
-    // Navigation commands
-    else if (lowerCommand.contains("up")) {
-      sendKey(KEY_UP, "Up");
-    } else if (lowerCommand.contains("down")) {
-      sendKey(KEY_DOWN, "Down");
-    } else if (lowerCommand.contains("left")) {
-      sendKey(KEY_LEFT, "Left");
-    } else if (lowerCommand.contains("right")) {
-      sendKey(KEY_RIGHT, "Right");
-    } else if (lowerCommand.contains("select") || lowerCommand.contains("ok") || lowerCommand.contains("enter")) {
-      sendKey(KEY_SELECT, "OK");
-    } else if (lowerCommand.contains("home") || lowerCommand.contains("menu")) {
-      sendKey(KEY_ROOT_MENU, "Home");
-    } else if (lowerCommand.contains("back") || lowerCommand.contains("exit")) {
-      sendKey(KEY_EXIT, "Back");
-    }
-    // Volume commands
-    else if (lowerCommand.contains("volume up") || lowerCommand.contains("louder")) {
-      sendKey(KEY_VOLUME_UP, "Volume Up");
-    } else if (lowerCommand.contains("volume down") || lowerCommand.contains("quieter")) {
-      sendKey(KEY_VOLUME_DOWN, "Volume Down");
-    }
-    // Power commands
-    else if (lowerCommand.contains("power") || lowerCommand.contains("turn on") || lowerCommand.contains("turn off")) {
-      togglePower();
-    }
-    // Number commands
-    else if (lowerCommand.matches(".*\\b(zero|0)\\b.*")) {
-      sendKey(KEY_NUMBER_0, "0");
-    } else if (lowerCommand.matches(".*\\b(one|1)\\b.*")) {
-      sendKey(KEY_NUMBER_1, "1");
-    } else if (lowerCommand.matches(".*\\b(two|2)\\b.*")) {
-      sendKey(KEY_NUMBER_2, "2");
-    } else if (lowerCommand.matches(".*\\b(three|3)\\b.*")) {
-      sendKey(KEY_NUMBER_3, "3");
-    } else if (lowerCommand.matches(".*\\b(four|4)\\b.*")) {
-      sendKey(KEY_NUMBER_4, "4");
-    } else if (lowerCommand.matches(".*\\b(five|5)\\b.*")) {
-      sendKey(KEY_NUMBER_5, "5");
-    } else if (lowerCommand.matches(".*\\b(six|6)\\b.*")) {
-      sendKey(KEY_NUMBER_6, "6");
-    } else if (lowerCommand.matches(".*\\b(seven|7)\\b.*")) {
-      sendKey(KEY_NUMBER_7, "7");
-    } else if (lowerCommand.matches(".*\\b(eight|8)\\b.*")) {
-      sendKey(KEY_NUMBER_8, "8");
-    } else if (lowerCommand.matches(".*\\b(nine|9)\\b.*")) {
-      sendKey(KEY_NUMBER_9, "9");
+    Log.i(TAG, "Voice command: " + command);
+    voiceStream.onFinalResult(command);
+  }
+  
+  private void dispatchIntent(VoiceIntent intent) {
+    switch (intent.action) {
+      case LAUNCH_APP:
+        if (intent.appName != null) {
+          launchApp(intent.appName);
+        }
+        break;
+      case KEY:
+        if (intent.keys.size() == 1 && intent.keys.get(0) == VoiceIntent.Key.POWER) {
+          togglePower();
+        } else {
+          sendKeys(intent.keyCodes());
+        }
+        break;
+      case NUMBER:
+        sendKeys(intent.keyCodes());
+        break;
+      case CHANNEL:
+        changeChannel(intent);
+        break;
+      default:
+        break;
     }
   }
   
@@ -831,6 +827,43 @@ public class PremiumControllerFragment extends Fragment {
     sendKeyToDevice(keyCode);
   }
   
+  // Sends each key once the previous one was acknowledged, and says so if the sequence stopped early
+  private void sendKeys(int[] keyCodes) {
+    if (!ManualCommissioningHelper.hasCommissionedVideoPlayer()) {
+      Toast.makeText(getContext(), "Connect device first", Toast.LENGTH_SHORT).show();
+      return;
+    }
+    
+    sendKeySequenceToDevice(keyCodes, this::onKeySequenceSent);
+  }
+  
+  // Called on the Matter thread
+  private void onKeySequenceSent(int sentCount, int keyCount) {
+    if (sentCount == keyCount) {
+      return;
+    }
+    Log.e(TAG, "Key sequence stopped after " + sentCount + " of " + keyCount + " keys");
+    if (getActivity() != null) {
+      getActivity().runOnUiThread(() -> {
+        if (getContext() != null) {
+          Toast.makeText(getContext(), "Sent " + sentCount + " of " + keyCount + " keys", Toast.LENGTH_SHORT).show();
+        }
+      });
+    }
+  }
+  
+  private void changeChannel(VoiceIntent intent) {
+    if (!ManualCommissioningHelper.hasCommissionedVideoPlayer()) {
+      Toast.makeText(getContext(), "Connect device first", Toast.LENGTH_SHORT).show();
+      return;
+    }
+    
+    // the player may not support the Channel cluster, so type the number in instead
+    if (!changeChannelNative(intent.digits)) {
+      sendKeySequenceToDevice(intent.keyCodes(), this::onKeySequenceSent);
+    }
+  }
+  
   @Override
   public void onDestroy() {
     super.onDestroy();
@@ -853,5 +886,7 @@ public class PremiumControllerFragment extends Fragment {
   
   // Native methods
   private native boolean sendKeyToDevice(int keyCode);
+  private native boolean sendKeySequenceToDevice(int[] keyCodes, KeySequenceCallback callback);
+  private native boolean changeChannelNative(String match);
   private native boolean launchAppNative(int catalogVendorId, String applicationId);
 }
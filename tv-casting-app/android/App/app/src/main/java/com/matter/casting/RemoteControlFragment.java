@@ -13,6 +13,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.R;
+import com.matter.casting.support.NativeLibrary;
 
 /**
  * Remote Control Fragment - Provides a virtual TV remote interface to send KeypadInput commands
@@ -22,7 +23,7 @@ public class RemoteControlFragment extends Fragment {
   private static final String TAG = RemoteControlFragment.class.getSimpleName();
   
   static {
-    System.loadLibrary("TvCastingApp");
+    NativeLibrary.load();
   }
   
   private TextView deviceStatusText;
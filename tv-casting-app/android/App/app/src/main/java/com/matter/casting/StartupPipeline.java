@@ -0,0 +1,88 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import android.content.Context;
+import android.util.Log;
+import com.chip.casting.util.GlobalCastingConstants;
+import com.matter.casting.core.CastingApp;
+import com.matter.casting.support.MatterError;
+import com.matter.casting.support.NativeLibrary;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * StartupPipeline moves the cold start of the casting app off the main thread. Called from
+ * Application.onCreate(), it loads the native library on a background thread and, with the
+ * simplified API, initializes the CastingApp on that same thread, so that the first activity draws
+ * its first frame while the Matter stack initializes. The Matter server is then started on demand
+ * by the CastingApp, unless GlobalCastingConstants.MatterServerWarmStart starts it right away.
+ */
+public final class StartupPipeline {
+  private static final String TAG = StartupPipeline.class.getSimpleName();
+
+  private static final CompletableFuture<MatterError> ready = new CompletableFuture<>();
+  private static boolean begun = false;
+
+  private StartupPipeline() {}
+
+  /** Begins the startup, once per process */
+  public static synchronized void begin(Context context) {
+    if (begun) {
+      return;
+    }
+    begun = true;
+
+    if (GlobalCastingConstants.ChipCastingSimplified
+        && !GlobalCastingConstants.MatterServerWarmStart) {
+      // right away, so that requests made before the CastingApp is initialized wait for its start
+      CastingApp.getInstance().startOnDemand();
+    }
+
+    Context applicationContext = context.getApplicationContext();
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "casting-startup"));
+    executor.execute(
+        () -> {
+          try {
+            NativeLibrary.load();
+            if (!GlobalCastingConstants.ChipCastingSimplified) {
+              ready.complete(MatterError.NO_ERROR);
+            } else if (GlobalCastingConstants.MatterServerWarmStart) {
+              ready.complete(InitializationExample.initAndStart(applicationContext));
+            } else {
+              ready.complete(InitializationExample.initAndStartOnDemand(applicationContext));
+            }
+          } catch (Throwable t) {
+            Log.e(TAG, "StartupPipeline failed", t);
+            ready.completeExceptionally(t);
+          }
+        });
+    executor.shutdown();
+  }
+
+  /**
+   * @return completes once the native library is loaded and, with the simplified API, the
+   *     CastingApp is initialized, and started if MatterServerWarmStart is set, with the error
+   *     InitializationExample returned, if any, or exceptionally with what the startup threw.
+   *     CastingApp.whenStarted() completes once the CastingApp is started.
+   */
+  public static CompletableFuture<MatterError> whenReady() {
+    return ready;
+  }
+}
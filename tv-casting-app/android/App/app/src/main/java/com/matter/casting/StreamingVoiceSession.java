@@ -0,0 +1,214 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import android.util.Log;
+
+/**
+ * StreamingVoiceSession acts on partial speech recognition results rather than waiting for the
+ * recognizer to finalize. Each partial result is parsed, and the first unambiguous key command
+ * that can be undone, such as "volume up" or "channel down", is dispatched at once. When the final
+ * result arrives, a speculation that agrees with it is kept, and one that starts the final key
+ * sequence is followed by the rest of the sequence. Any other speculation is compensated by
+ * sending the opposite key, before the final intent is dispatched.
+ *
+ * <p>The session also measures the latency from the end of speech to the command being sent,
+ * which is negative when a speculation sent the command while the user was still speaking.
+ *
+ * <p>All methods are expected to be called on the main thread, as RecognitionListener callbacks
+ * are.
+ */
+public class StreamingVoiceSession {
+  private static final String TAG = StreamingVoiceSession.class.getSimpleName();
+
+  /** Carries out a voice intent, e.g. by sending a key to the casting player */
+  public interface Dispatcher {
+    void dispatch(VoiceIntent intent);
+  }
+
+  private final Dispatcher dispatcher;
+
+  // state of the current utterance
+  private VoiceIntent speculated;
+  private long speculatedAtNanos;
+  private long endOfSpeechAtNanos;
+
+  private long utteranceCount = 0;
+  private long speculationCount = 0;
+  private long compensationCount = 0;
+  private long latencyCount = 0;
+  private long latencySumMs = 0;
+  private long lastLatencyMs = 0;
+
+  public StreamingVoiceSession(Dispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  /** Starts a new utterance, typically when SpeechRecognizer.startListening() is called */
+  public void begin() {
+    speculated = null;
+    speculatedAtNanos = 0;
+    endOfSpeechAtNanos = 0;
+  }
+
+  /** Speculatively dispatches the partial result's intent if it is unambiguous and undoable */
+  public void onPartialResult(String text) {
+    if (speculated != null || text == null) {
+      return;
+    }
+    VoiceIntent intent = VoiceIntent.parse(text);
+    if (!intent.unambiguous || compensationFor(intent.keys.get(0)) == null) {
+      return;
+    }
+    Log.d(TAG, "onPartialResult() speculating on \"" + text + "\" -> " + intent);
+    speculated = intent;
+    speculatedAtNanos = System.nanoTime();
+    speculationCount++;
+    dispatcher.dispatch(intent);
+  }
+
+  public void onEndOfSpeech() {
+    endOfSpeechAtNanos = System.nanoTime();
+  }
+
+  /**
+   * Resolves the utterance with its final result: keeps a speculation that agrees with it or
+   * starts its key sequence, or compensates one that does not and dispatches the final intent.
+   *
+   * @return the final intent
+   */
+  public VoiceIntent onFinalResult(String text) {
+    VoiceIntent intent = VoiceIntent.parse(text);
+    long commandAtNanos;
+    if (speculated != null && speculated.equals(intent)) {
+      commandAtNanos = speculatedAtNanos;
+    } else if (speculated != null
+        && intent.action == VoiceIntent.Action.KEY
+        && intent.keys.get(0) == speculated.keys.get(0)) {
+      // e.g. "down" was heard first, then "down down select"
+      commandAtNanos = System.nanoTime();
+      dispatcher.dispatch(VoiceIntent.forKeys(intent.keys.subList(1, intent.keys.size())));
+    } else {
+      if (speculated != null) {
+        Log.i(TAG, "onFinalResult() compensating " + speculated + ", final intent is " + intent);
+        compensationCount++;
+        dispatcher.dispatch(VoiceIntent.forKey(compensationFor(speculated.keys.get(0))));
+      }
+      commandAtNanos = System.nanoTime();
+      dispatcher.dispatch(intent);
+    }
+    recordLatency(commandAtNanos);
+    speculated = null;
+    return intent;
+  }
+
+  /**
+   * Ends the utterance without a final result. A speculation stands, as it matched what the user
+   * had said so far.
+   */
+  public void onError() {
+    speculated = null;
+  }
+
+  /** @return the number of utterances that got a final result */
+  public long getUtteranceCount() {
+    return utteranceCount;
+  }
+
+  /** @return the number of commands dispatched from partial results */
+  public long getSpeculationCount() {
+    return speculationCount;
+  }
+
+  /** @return the number of speculations the final result disagreed with */
+  public long getCompensationCount() {
+    return compensationCount;
+  }
+
+  /** @return the mean latency from the end of speech to the command, in milliseconds */
+  public long getMeanLatencyMs() {
+    return latencyCount == 0 ? 0 : latencySumMs / latencyCount;
+  }
+
+  /** @return the latency of the last command, in milliseconds */
+  public long getLastLatencyMs() {
+    return lastLatencyMs;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamingVoiceSession{"
+        + "utterances="
+        + utteranceCount
+        + ", speculations="
+        + speculationCount
+        + ", compensations="
+        + compensationCount
+        + ", meanLatencyMs="
+        + getMeanLatencyMs()
+        + ", lastLatencyMs="
+        + lastLatencyMs
+        + '}';
+  }
+
+  private void recordLatency(long commandAtNanos) {
+    utteranceCount++;
+    if (endOfSpeechAtNanos == 0) {
+      // the recognizer did not report the end of speech
+      return;
+    }
+    lastLatencyMs = (commandAtNanos - endOfSpeechAtNanos) / 1_000_000;
+    latencySumMs += lastLatencyMs;
+    latencyCount++;
+    Log.i(TAG, "Speech end to command latency: " + lastLatencyMs + " ms, " + this);
+  }
+
+  /**
+   * Only relative keys, undone by their opposite, and toggles are speculated on. PLAY and PAUSE are
+   * neither: e.g. PLAY while already playing does nothing, and the PAUSE meant to undo it would
+   * then pause.
+   *
+   * @return the key undoing the key, or null if it cannot be undone and must not be speculated
+   */
+  private static VoiceIntent.Key compensationFor(VoiceIntent.Key key) {
+    if (key == null) {
+      return null;
+    }
+    switch (key) {
+      case UP:
+        return VoiceIntent.Key.DOWN;
+      case DOWN:
+        return VoiceIntent.Key.UP;
+      case LEFT:
+        return VoiceIntent.Key.RIGHT;
+      case RIGHT:
+        return VoiceIntent.Key.LEFT;
+      case VOLUME_UP:
+        return VoiceIntent.Key.VOLUME_DOWN;
+      case VOLUME_DOWN:
+        return VoiceIntent.Key.VOLUME_UP;
+      case CHANNEL_UP:
+        return VoiceIntent.Key.CHANNEL_DOWN;
+      case CHANNEL_DOWN:
+        return VoiceIntent.Key.CHANNEL_UP;
+      case MUTE:
+        return VoiceIntent.Key.MUTE;
+      default:
+        return null;
+    }
+  }
+}
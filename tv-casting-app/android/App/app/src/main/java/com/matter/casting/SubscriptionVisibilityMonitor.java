@@ -0,0 +1,108 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.PowerManager;
+import android.util.Log;
+import com.matter.casting.support.MatterCallbackDispatcher;
+import com.matter.casting.support.SubscriptionRegistry;
+
+/**
+ * Tracks whether the app is visible, the screen is on and the device is idle, and sets the
+ * SubscriptionRegistry's visibility accordingly, so that the TV reports at UI rates only while
+ * someone can see the results. Callbacks all arrive on the main thread. The visibility is set on
+ * the MatterCallbackDispatcher thread, in order, since renegotiating the subscriptions calls into
+ * the native stack.
+ */
+public class SubscriptionVisibilityMonitor extends BroadcastReceiver
+    implements Application.ActivityLifecycleCallbacks {
+  private static final String TAG = SubscriptionVisibilityMonitor.class.getSimpleName();
+
+  private final PowerManager powerManager;
+  private int startedActivities = 0;
+
+  private SubscriptionVisibilityMonitor(Application application) {
+    this.powerManager = (PowerManager) application.getSystemService(Context.POWER_SERVICE);
+  }
+
+  /** Starts monitoring the application, typically from Application.onCreate() */
+  public static void register(Application application) {
+    SubscriptionVisibilityMonitor monitor = new SubscriptionVisibilityMonitor(application);
+    application.registerActivityLifecycleCallbacks(monitor);
+
+    IntentFilter filter = new IntentFilter();
+    filter.addAction(Intent.ACTION_SCREEN_ON);
+    filter.addAction(Intent.ACTION_SCREEN_OFF);
+    filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+    application.registerReceiver(monitor, filter);
+
+    monitor.update();
+  }
+
+  @Override
+  public void onReceive(Context context, Intent intent) {
+    Log.d(TAG, "onReceive() " + intent.getAction());
+    update();
+  }
+
+  @Override
+  public void onActivityStarted(Activity activity) {
+    startedActivities++;
+    update();
+  }
+
+  @Override
+  public void onActivityStopped(Activity activity) {
+    startedActivities = Math.max(0, startedActivities - 1);
+    update();
+  }
+
+  @Override
+  public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+  @Override
+  public void onActivityResumed(Activity activity) {}
+
+  @Override
+  public void onActivityPaused(Activity activity) {}
+
+  @Override
+  public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+  @Override
+  public void onActivityDestroyed(Activity activity) {}
+
+  private void update() {
+    SubscriptionRegistry.Visibility visibility;
+    if (powerManager != null && powerManager.isDeviceIdleMode()) {
+      visibility = SubscriptionRegistry.Visibility.IDLE;
+    } else if (startedActivities > 0 && (powerManager == null || powerManager.isInteractive())) {
+      visibility = SubscriptionRegistry.Visibility.FOREGROUND;
+    } else {
+      visibility = SubscriptionRegistry.Visibility.BACKGROUND;
+    }
+    MatterCallbackDispatcher.getInstance()
+        .dispatch(() -> SubscriptionRegistry.getInstance().setVisibility(visibility));
+  }
+}
@@ -20,6 +20,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import com.R;
+import com.matter.casting.support.NativeLibrary;
 import java.util.ArrayList;
 
 /**
@@ -38,39 +39,10 @@ public class VoiceControlFragment extends Fragment {
   
   private SpeechRecognizer speechRecognizer;
   private boolean isListening = false;
-  
-  // CEC Key Codes
-  private static final int KEY_SELECT = 0;
-  private static final int KEY_UP = 1;
-  private static final int KEY_DOWN = 2;
-  private static final int KEY_LEFT = 3;
-  private static final int KEY_RIGHT = 4;
-  private static final int KEY_ROOT_MENU = 9;
-  private static final int KEY_EXIT = 13;
-  private static final int KEY_NUMBER_0 = 32;
-  private static final int KEY_NUMBER_1 = 33;
-  private static final int KEY_NUMBER_2 = 34;
-  private static final int KEY_NUMBER_3 = 35;
-  private static final int KEY_NUMBER_4 = 36;
-  private static final int KEY_NUMBER_5 = 37;
-  private static final int KEY_NUMBER_6 = 38;
-  private static final int KEY_NUMBER_7 = 39;
-  private static final int KEY_NUMBER_8 = 40;
-  private static final int KEY_NUMBER_9 = 41;
-  private static final int KEY_CHANNEL_UP = 48;
-  private static final int KEY_CHANNEL_DOWN = 49;
-  private static final int KEY_POWER = 64;
-  private static final int KEY_VOLUME_UP = 65;
-  private static final int KEY_VOLUME_DOWN = 66;
-  private static final int KEY_MUTE = 67;
-  private static final int KEY_PLAY = 68;
-  private static final int KEY_STOP = 69;
-  private static final int KEY_PAUSE = 70;
-  private static final int KEY_REWIND = 72;
-  private static final int KEY_FAST_FORWARD = 73;
+  private final StreamingVoiceSession voiceStream = new StreamingVoiceSession(this::dispatchIntent);
   
   static {
-    System.loadLibrary("TvCastingApp");
+    NativeLibrary.load();
   }
   
   @Nullable
@@ -157,6 +129,7 @@ public class VoiceControlFragment extends Fragment {
       
       @Override
       public void onEndOfSpeech() {
+        voiceStream.onEndOfSpeech();
         listeningStatusText.setText("⏳ Processing...");
       }
       
@@ -166,6 +139,7 @@ public class VoiceControlFragment extends Fragment {
         listeningStatusText.setText("❌ Error: " + errorMsg);
         listeningStatusText.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
         isListening = false;
+        voiceStream.onError();
         startListeningButton.setEnabled(true);
         stopListeningButton.setEnabled(false);
         Log.e(TAG, "Speech recognition error: " + errorMsg);
@@ -186,7 +160,10 @@ public class VoiceControlFragment extends Fragment {
       
       @Override
       public void onPartialResults(Bundle partialResults) {
-        // Partial results available
+        ArrayList<String> matches = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        if (matches != null && !matches.isEmpty()) {
+          voiceStream.onPartialResult(matches.get(0));
+        }
       }
       
       @Override
@@ -203,10 +180,12 @@ public class VoiceControlFragment extends Fragment {
     intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
     intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE, "en-US");
     intent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 1);
+    intent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
     
     listeningStatusText.setText("🎤 Starting...");
     listeningStatusText.setTextColor(getResources().getColor(android.R.color.holo_blue_dark));
     
+    voiceStream.begin();
     speechRecognizer.startListening(intent);
     isListening = true;
     startListeningButton.setEnabled(false);
@@ -228,39 +207,34 @@ public class VoiceControlFragment extends Fragment {
   }
   
   private void processVoiceCommand(String command) {
-    String lowerCommand = command.toLowerCase().trim();
     lastCommandText.setText("Heard: \"" + command + "\"");
-    
-    Log.i(TAG, "Processing voice command: " + lowerCommand);
-    
-    // Check for application launch commands first
-    if (lowerCommand.contains("launch") || lowerCommand.contains("open") || lowerCommand.contains("start")) {
-      handleApplicationCommand(lowerCommand, true);
-      return;
-    }
-    
-    if (lowerCommand.contains("stop") || lowerCommand.contains("close")) {
-      handleApplicationCommand(lowerCommand, false);
-      return;
-    }
-    
-    // Check for keypad commands
-    handleKeypadCommand(lowerCommand);
+    Log.i(TAG, "Processing voice command: " + command);
+    voiceStream.onFinalResult(command);
   }
   
-  private void handleApplicationCommand(String command, boolean isLaunch) {
-    String appName = null;
-    
-    if (command.contains("youtube")) {
-      appName = "YouTube";
-    } else if (command.contains("netflix")) {
-      appName = "Netflix";
-    } else if (command.contains("prime") || command.contains("amazon")) {
-      appName = "Prime Video";
-    } else if (command.contains("disney")) {
-      appName = "Disney+";
+  private void dispatchIntent(VoiceIntent intent) {
+    Log.i(TAG, "Dispatching " + intent);
+    switch (intent.action) {
+      case LAUNCH_APP:
+        handleApplicationCommand(intent.appName, true);
+        break;
+      case STOP_APP:
+        handleApplicationCommand(intent.appName, false);
+        break;
+      case KEY:
+      case NUMBER:
+        handleKeypadCommand(intent.keyCodes(), intent.label());
+        break;
+      case CHANNEL:
+        handleChannelCommand(intent);
+        break;
+      default:
+        handleKeypadCommand(null, null);
+        break;
     }
-    
+  }
+  
+  private void handleApplicationCommand(String appName, boolean isLaunch) {
     if (appName != null) {
       final String finalAppName = appName;
       listeningStatusText.setText("✓ " + (isLaunch ? "Launching" : "Stopping") + " " + appName);
@@ -294,122 +268,37 @@ public class VoiceControlFragment extends Fragment {
     }
   }
   
-  private void handleKeypadCommand(String command) {
-    Integer keyCode = null;
-    String keyName = null;
-    
-    // Navigation keys
-    if (command.contains("left")) {
-      keyCode = KEY_LEFT;
-      keyName = "Left";
-    } else if (command.contains("right")) {
-      keyCode = KEY_RIGHT;
-      keyName = "Right";
-    } else if (command.contains("up")) {
-      keyCode = KEY_UP;
-      keyName = "Up";
-    } else if (command.contains("down")) {
-      keyCode = KEY_DOWN;
-      keyName = "Down";
-    } else if (command.contains("select") || command.contains("ok") || command.contains("enter")) {
-      keyCode = KEY_SELECT;
-      keyName = "Select";
-    }
-    
-    // Menu keys
-    else if (command.contains("home") || command.contains("menu")) {
-      keyCode = KEY_ROOT_MENU;
-      keyName = "Home/Menu";
-    } else if (command.contains("back") || command.contains("exit")) {
-      keyCode = KEY_EXIT;
-      keyName = "Back";
-    }
-    
-    // Volume keys
-    else if (command.contains("volume up") || command.contains("louder")) {
-      keyCode = KEY_VOLUME_UP;
-      keyName = "Volume Up";
-    } else if (command.contains("volume down") || command.contains("quieter")) {
-      keyCode = KEY_VOLUME_DOWN;
-      keyName = "Volume Down";
-    } else if (command.contains("mute")) {
-      keyCode = KEY_MUTE;
-      keyName = "Mute";
-    }
-    
-    // Channel keys
-    else if (command.contains("channel up")) {
-      keyCode = KEY_CHANNEL_UP;
-      keyName = "Channel Up";
-    } else if (command.contains("channel down")) {
-      keyCode = KEY_CHANNEL_DOWN;
-      keyName = "Channel Down";
-    }
-    
-    // Media keys
-    else if (command.contains("play")) {
-      keyCode = KEY_PLAY;
-      keyName = "Play";
-    } else if (command.contains("pause")) {
-      keyCode = KEY_PAUSE;
-      keyName = "Pause";
-    } else if (command.contains("stop")) {
-      keyCode = KEY_STOP;
-      keyName = "Stop";
-    } else if (command.contains("rewind")) {
-      keyCode = KEY_REWIND;
-      keyName = "Rewind";
-    } else if (command.contains("forward") || command.contains("fast forward")) {
-      keyCode = KEY_FAST_FORWARD;
-      keyName = "Fast Forward";
-    }
-    
-    // Number keys
-    else if (command.contains("zero") || command.matches(".*\\b0\\b.*")) {
-      keyCode = KEY_NUMBER_0;
-      keyName = "0";
-    } else if (command.contains("one") || command.matches(".*\\b1\\b.*")) {
-      keyCode = KEY_NUMBER_1;
-      keyName = "1";
-    } else if (command.contains("two") || command.matches(".*\\b2\\b.*")) {
-      keyCode = KEY_NUMBER_2;
-      keyName = "2";
-    } else if (command.contains("three") || command.matches(".*\\b3\\b.*")) {
-      keyCode = KEY_NUMBER_3;
-      keyName = "3";
-    } else if (command.contains("four") || command.matches(".*\\b4\\b.*")) {
-      keyCode = KEY_NUMBER_4;
-      keyName = "4";
-    } else if (command.contains("five") || command.matches(".*\\b5\\b.*")) {
-      keyCode = KEY_NUMBER_5;
-      keyName = "5";
-    } else if (command.contains("six") || command.matches(".*\\b6\\b.*")) {
-      keyCode = KEY_NUMBER_6;
-      keyName = "6";
-    } else if (command.contains("seven") || command.matches(".*\\b7\\b.*")) {
-      keyCode = KEY_NUMBER_7;
-      keyName = "7";
-    } else if (command.contains("eight") || command.matches(".*\\b8\\b.*")) {
-      keyCode = KEY_NUMBER_8;
-      keyName = "8";
-    } else if (command.contains("nine") || command.matches(".*\\b9\\b.*")) {
-      keyCode = KEY_NUMBER_9;
-      keyName = "9";
-    } else if (command.contains("power")) {
-      keyCode = KEY_POWER;
-      keyName = "Power";
+  private void handleChannelCommand(VoiceIntent intent) {
+    if (changeChannel(intent.digits)) {
+      listeningStatusText.setText("✓ Changing to: " + intent.label());
+      listeningStatusText.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
+      Toast.makeText(getContext(), "✓ Sent: " + intent.label(), Toast.LENGTH_SHORT).show();
+    } else {
+      // the player may not support the Channel cluster, so type the number in instead
+      handleKeypadCommand(intent.keyCodes(), intent.label());
     }
-    
-    if (keyCode != null) {
+  }
+  
+  private void handleKeypadCommand(int[] keyCodes, String keyName) {
+    if (keyCodes != null) {
       final String finalKeyName = keyName;
       listeningStatusText.setText("✓ Sending: " + keyName);
       listeningStatusText.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
       
-      boolean success = sendKeyToDevice(keyCode);
-      
-      if (success) {
-        Toast.makeText(getContext(), "✓ Sent: " + finalKeyName, Toast.LENGTH_SHORT).show();
-      } else {
+      // each key is sent once the previous one was acknowledged, and the outcome comes back on the
+      // Matter thread
+      boolean queued =
+          sendKeySequenceToDevice(
+              keyCodes,
+              (sentCount, keyCount) -> {
+                if (getActivity() != null) {
+                  getActivity()
+                      .runOnUiThread(
+                          () -> showKeySequenceSent(finalKeyName, sentCount, keyCount));
+                }
+              });
+
+      if (!queued) {
         Toast.makeText(getContext(), "✗ Failed to send: " + finalKeyName, Toast.LENGTH_LONG).show();
       }
     } else {
@@ -420,6 +309,21 @@ public class VoiceControlFragment extends Fragment {
     }
   }
   
+  private void showKeySequenceSent(String keyName, int sentCount, int keyCount) {
+    if (getContext() == null) {
+      return;
+    }
+    if (sentCount == keyCount) {
+      Toast.makeText(getContext(), "✓ Sent: " + keyName, Toast.LENGTH_SHORT).show();
+    } else {
+      Toast.makeText(
+              getContext(),
+              "✗ Sent " + sentCount + " of " + keyCount + " keys: " + keyName,
+              Toast.LENGTH_LONG)
+          .show();
+    }
+  }
+
   private String getErrorMessage(int error) {
     switch (error) {
       case SpeechRecognizer.ERROR_AUDIO:
@@ -454,7 +358,8 @@ public class VoiceControlFragment extends Fragment {
   }
   
   // Native methods
-  private native boolean sendKeyToDevice(int keyCode);
+  private native boolean sendKeySequenceToDevice(int[] keyCodes, KeySequenceCallback callback);
+  private native boolean changeChannel(String match);
   private native boolean launchApp(int catalogVendorId, String applicationId);
   private native boolean stopApp(int catalogVendorId, String applicationId);
 }
@@ -0,0 +1,390 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What a spoken command asks the TV to do, as parsed by parse(). The vocabulary is compiled once
+ * into a PhraseMatcher, so parsing costs one scan of the utterance whatever the number of phrases,
+ * and longer phrases win over the shorter ones they contain: "volume up" is never taken for "up".
+ * An utterance may chain several keys, as in "down down down select", or spell out a channel
+ * number, and is then parsed into the whole sequence so it can be sent in one go.
+ */
+public final class VoiceIntent {
+  public enum Action {
+    /** Send keys, KeypadInput keys, in order */
+    KEY,
+    /** Send the number keys for each of digits */
+    NUMBER,
+    /** Change to the channel numbered digits, e.g. for "channel one two three" */
+    CHANNEL,
+    /** Launch appName, or an app that was not recognized if appName is null */
+    LAUNCH_APP,
+    /** Stop appName, or an app that was not recognized if appName is null */
+    STOP_APP,
+    UNKNOWN,
+  }
+
+  /** KeypadInput keys, with their CEC key codes */
+  public enum Key {
+    SELECT(0, "OK"),
+    UP(1, "Up"),
+    DOWN(2, "Down"),
+    LEFT(3, "Left"),
+    RIGHT(4, "Right"),
+    ROOT_MENU(9, "Home"),
+    EXIT(13, "Back"),
+    CHANNEL_UP(48, "Channel Up"),
+    CHANNEL_DOWN(49, "Channel Down"),
+    POWER(64, "Power"),
+    VOLUME_UP(65, "Volume Up"),
+    VOLUME_DOWN(66, "Volume Down"),
+    MUTE(67, "Mute"),
+    PLAY(68, "Play"),
+    STOP(69, "Stop"),
+    PAUSE(70, "Pause"),
+    REWIND(72, "Rewind"),
+    FAST_FORWARD(73, "Fast Forward");
+
+    public final int cecCode;
+    public final String label;
+
+    Key(int cecCode, String label) {
+      this.cecCode = cecCode;
+      this.label = label;
+    }
+  }
+
+  private static final List<Key> NO_KEYS = Collections.emptyList();
+
+  /** CEC key code of the number key for digit 0, the others following in order */
+  public static final int KEY_NUMBER_0 = 32;
+
+  public final Action action;
+  /** The keys of a KEY intent, in spoken order, and an empty list otherwise */
+  public final List<Key> keys;
+  public final String digits;
+  public final String appName;
+  /**
+   * True if saying more is unlikely to change this intent: a key phrase that no longer phrase
+   * starts with, alone in the utterance. Only KEY intents can be unambiguous. This matters for
+   * partial recognition results, which may be acted on before the user stops speaking.
+   */
+  public final boolean unambiguous;
+
+  private VoiceIntent(Action action, List<Key> keys, String digits, String appName) {
+    this(action, keys, digits, appName, false);
+  }
+
+  private VoiceIntent(
+      Action action, List<Key> keys, String digits, String appName, boolean unambiguous) {
+    this.action = action;
+    this.keys = keys;
+    this.digits = digits;
+    this.appName = appName;
+    this.unambiguous = unambiguous;
+  }
+
+  /** @return an intent sending the keys, in order */
+  public static VoiceIntent forKeys(List<Key> keys) {
+    return new VoiceIntent(
+        Action.KEY, Collections.unmodifiableList(new ArrayList<>(keys)), null, null);
+  }
+
+  /** @return an intent sending the key */
+  public static VoiceIntent forKey(Key key) {
+    return new VoiceIntent(Action.KEY, Collections.singletonList(key), null, null);
+  }
+
+  /**
+   * @return the CEC key codes to send for a KEY intent, or the number keys for the digits of a
+   *     NUMBER or CHANNEL intent, in order; an empty array for other intents
+   */
+  public int[] keyCodes() {
+    if (action == Action.KEY) {
+      int[] codes = new int[keys.size()];
+      for (int i = 0; i < codes.length; i++) {
+        codes[i] = keys.get(i).cecCode;
+      }
+      return codes;
+    }
+    if (action == Action.NUMBER || action == Action.CHANNEL) {
+      int[] codes = new int[digits.length()];
+      for (int i = 0; i < codes.length; i++) {
+        codes[i] = numberKeyCode(digits.charAt(i));
+      }
+      return codes;
+    }
+    return new int[0];
+  }
+
+  /** @return the CEC key code of the number key for the digit character */
+  public static int numberKeyCode(char digit) {
+    return KEY_NUMBER_0 + (digit - '0');
+  }
+
+  /** @return a short description for the UI, e.g. "Down, Down, OK" or "Channel 123" */
+  public String label() {
+    switch (action) {
+      case KEY:
+        StringBuilder label = new StringBuilder();
+        for (Key key : keys) {
+          if (label.length() > 0) {
+            label.append(", ");
+          }
+          label.append(key.label);
+        }
+        return label.toString();
+      case NUMBER:
+        return digits;
+      case CHANNEL:
+        return "Channel " + digits;
+      default:
+        return appName != null ? appName : action.toString();
+    }
+  }
+
+  /** Intents are equal if they ask for the same thing, whether or not they are unambiguous */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    VoiceIntent that = (VoiceIntent) o;
+    return action == that.action
+        && keys.equals(that.keys)
+        && Objects.equals(digits, that.digits)
+        && Objects.equals(appName, that.appName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(action, keys, digits, appName);
+  }
+
+  @Override
+  public String toString() {
+    return "VoiceIntent{"
+        + "action="
+        + action
+        + ", keys="
+        + keys
+        + ", digits="
+        + digits
+        + ", appName="
+        + appName
+        + ", unambiguous="
+        + unambiguous
+        + '}';
+  }
+
+  /** A word or phrase of the vocabulary, and what it means */
+  private static final class Term {
+    static final int KEY = 0;
+    static final int DIGIT = 1;
+    static final int APP = 2;
+    static final int LAUNCH_VERB = 3;
+    static final int STOP_VERB = 4;
+    static final int CHANNEL_WORD = 5;
+
+    final int kind;
+    final Key key;
+    final char digit;
+    final String appName;
+
+    Term(int kind, Key key, char digit, String appName) {
+      this.kind = kind;
+      this.key = key;
+      this.digit = digit;
+      this.appName = appName;
+    }
+
+    static Term key(Key key) {
+      return new Term(KEY, key, '\0', null);
+    }
+
+    static Term digit(char digit) {
+      return new Term(DIGIT, null, digit, null);
+    }
+
+    static Term app(String appName) {
+      return new Term(APP, null, '\0', appName);
+    }
+  }
+
+  private static final Term LAUNCH = new Term(Term.LAUNCH_VERB, null, '\0', null);
+  private static final Term CLOSE = new Term(Term.STOP_VERB, null, '\0', null);
+  // "stop" alone is the Stop key, "stop <app>" stops the app
+  private static final Term STOP = new Term(Term.STOP_VERB, Key.STOP, '\0', null);
+  private static final Term CHANNEL = new Term(Term.CHANNEL_WORD, null, '\0', null);
+
+  private static final PhraseMatcher<Term> VOCABULARY =
+      PhraseMatcher.<Term>builder()
+          .add(Term.app("YouTube"), "youtube", "you tube")
+          .add(Term.app("Netflix"), "netflix")
+          .add(Term.app("Prime Video"), "prime video", "prime", "amazon", "amazon prime")
+          .add(Term.app("Disney+"), "disney", "disney plus")
+          .add(LAUNCH, "launch", "open", "start")
+          .add(CLOSE, "close", "quit")
+          .add(STOP, "stop")
+          .add(Term.key(Key.UP), "up")
+          .add(Term.key(Key.DOWN), "down")
+          .add(Term.key(Key.LEFT), "left")
+          .add(Term.key(Key.RIGHT), "right")
+          .add(Term.key(Key.SELECT), "select", "ok", "okay", "enter")
+          .add(Term.key(Key.ROOT_MENU), "home", "menu")
+          .add(Term.key(Key.EXIT), "back", "go back", "exit")
+          .add(Term.key(Key.VOLUME_UP), "volume up", "louder", "turn it up")
+          .add(Term.key(Key.VOLUME_DOWN), "volume down", "quieter", "turn it down")
+          .add(Term.key(Key.MUTE), "mute", "unmute")
+          .add(Term.key(Key.CHANNEL_UP), "channel up", "next channel")
+          .add(Term.key(Key.CHANNEL_DOWN), "channel down", "previous channel")
+          .add(Term.key(Key.PLAY), "play", "resume")
+          .add(Term.key(Key.PAUSE), "pause")
+          .add(Term.key(Key.REWIND), "rewind")
+          .add(Term.key(Key.FAST_FORWARD), "forward", "fast forward")
+          .add(Term.key(Key.POWER), "power", "turn on", "turn off")
+          .add(CHANNEL, "channel", "go to channel", "tune to", "tune to channel")
+          .add(Term.digit('0'), "zero")
+          .add(Term.digit('1'), "one")
+          .add(Term.digit('2'), "two")
+          .add(Term.digit('3'), "three")
+          .add(Term.digit('4'), "four")
+          .add(Term.digit('5'), "five")
+          .add(Term.digit('6'), "six")
+          .add(Term.digit('7'), "seven")
+          .add(Term.digit('8'), "eight")
+          .add(Term.digit('9'), "nine")
+          .build();
+
+  /**
+   * Parses a spoken command. An app name makes it an app command, stopping the app if "stop" or
+   * "close" comes before the name. Otherwise all the key phrases make a key sequence, then numbers
+   * spoken as words or digits make a channel change if "channel" was said, or number keys if not,
+   * then a launch or stop verb on its own asks for an unrecognized app.
+   */
+  public static VoiceIntent parse(CharSequence utterance) {
+    List<PhraseMatcher.Match<Term>> matches = new ArrayList<>();
+    VOCABULARY.findAll(utterance, matches);
+
+    Term app = null;
+    List<Key> keys = new ArrayList<>();
+    PhraseMatcher.Match<Term> lastKeyMatch = null;
+    boolean channelWord = false;
+    boolean launchVerb = false;
+    boolean stopVerbBeforeApp = false;
+    boolean stopVerb = false;
+    for (PhraseMatcher.Match<Term> match : matches) {
+      Term term = match.value;
+      switch (term.kind) {
+        case Term.APP:
+          if (app == null) {
+            app = term;
+            stopVerbBeforeApp = stopVerb;
+          }
+          break;
+        case Term.LAUNCH_VERB:
+          launchVerb = true;
+          break;
+        case Term.STOP_VERB:
+          stopVerb = true;
+          break;
+        case Term.CHANNEL_WORD:
+          channelWord = true;
+          break;
+        default:
+          break;
+      }
+      if (term.key != null) {
+        keys.add(term.key);
+        lastKeyMatch = match;
+      }
+    }
+
+    if (app != null) {
+      return new VoiceIntent(
+          stopVerbBeforeApp ? Action.STOP_APP : Action.LAUNCH_APP,
+          NO_KEYS,
+          null,
+          app.appName);
+    }
+    if (!keys.isEmpty()) {
+      // "stop" may yet be followed by an app name, and "prime" by "video"
+      boolean unambiguous =
+          matches.size() == 1
+              && lastKeyMatch.value.kind == Term.KEY
+              && (!lastKeyMatch.extensible || hasWordAfter(utterance, lastKeyMatch.end));
+      return new VoiceIntent(
+          Action.KEY, Collections.unmodifiableList(keys), null, null, unambiguous);
+    }
+    String digits = parseDigits(utterance, matches);
+    if (!digits.isEmpty()) {
+      return new VoiceIntent(channelWord ? Action.CHANNEL : Action.NUMBER, NO_KEYS, digits, null);
+    }
+    if (launchVerb || stopVerb) {
+      return new VoiceIntent(
+          launchVerb ? Action.LAUNCH_APP : Action.STOP_APP, NO_KEYS, null, null);
+    }
+    return new VoiceIntent(Action.UNKNOWN, NO_KEYS, null, null);
+  }
+
+  private static boolean hasWordAfter(CharSequence utterance, int position) {
+    for (int i = position; i < utterance.length(); i++) {
+      if (Character.isLetterOrDigit(utterance.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Collects, in spoken order, the digits of numbers said as words and of digit-only words */
+  private static String parseDigits(
+      CharSequence utterance, List<PhraseMatcher.Match<Term>> matches) {
+    StringBuilder digits = new StringBuilder();
+    int nextMatch = 0;
+    int length = utterance.length();
+    int i = 0;
+    while (i < length) {
+      while (nextMatch < matches.size() && matches.get(nextMatch).end <= i) {
+        nextMatch++;
+      }
+      if (nextMatch < matches.size() && matches.get(nextMatch).start == i) {
+        PhraseMatcher.Match<Term> match = matches.get(nextMatch);
+        if (match.value.kind == Term.DIGIT) {
+          digits.append(match.value.digit);
+        }
+        i = match.end;
+        continue;
+      }
+
+      int wordEnd = i;
+      boolean allDigits = true;
+      while (wordEnd < length && Character.isLetterOrDigit(utterance.charAt(wordEnd))) {
+        allDigits &= utterance.charAt(wordEnd) >= '0' && utterance.charAt(wordEnd) <= '9';
+        wordEnd++;
+      }
+      if (wordEnd > i && allDigits) {
+        digits.append(utterance, i, wordEnd);
+      }
+      i = Math.max(wordEnd, i + 1);
+    }
+    return digits.toString();
+  }
+}
@@ -22,41 +22,88 @@ import android.util.Log;
 import chip.appserver.ChipAppServer;
 import chip.platform.AndroidBleManager;
 import chip.platform.AndroidChipPlatform;
+import chip.platform.BleManager;
 import chip.platform.ChipMdnsCallbackImpl;
+import chip.platform.ConfigurationManager;
+import chip.platform.DiagnosticDataProvider;
 import chip.platform.DiagnosticDataProviderImpl;
 import chip.platform.NsdManagerServiceBrowser;
 import chip.platform.NsdManagerServiceResolver;
-import chip.platform.PreferencesKeyValueStoreManager;
 import com.matter.casting.support.AppParameters;
 import com.matter.casting.support.CommissionableData;
+import com.matter.casting.support.IdentificationDeclarationOptions;
+import com.matter.casting.support.JournaledKeyValueStoreManager;
+import com.matter.casting.support.LazyProxy;
 import com.matter.casting.support.MatterError;
+import com.matter.casting.support.NativeLibrary;
+import com.matter.casting.support.StartupTrace;
+import com.matter.casting.support.SubscriptionRegistry;
+import com.matter.casting.support.Tracing;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * CastingApp represents an app that can cast content to a Casting Player. This class is a
+ * CastingApp represents an app that can cast content to a Casting Player. It runs on a
+ * CastingBackend, by default the Matter stack in the native TvCastingApp library. This class is a
  * singleton.
  */
 public final class CastingApp {
   private static final String TAG = CastingApp.class.getSimpleName();
-  private static final long BROWSE_SERVICE_TIMEOUT = 2500;
-  private static final long RESOLVE_SERVICE_TIMEOUT = 3000;
 
   private static CastingApp sInstance;
 
-  private CastingAppState mState = CastingAppState.UNINITIALIZED;
+  private volatile CastingAppState mState = CastingAppState.UNINITIALIZED;
   private AppParameters appParameters;
-  private NsdManagerServiceResolver.NsdManagerResolverAvailState nsdManagerResolverAvailState;
-  private ChipAppServer chipAppServer;
-  private AndroidChipPlatform chipPlatform;
+  private CastingBackend backend;
+
+  // serializes start() and stop(), which may run on the thread started by requestStart()
+  private final Object lifecycleLock = new Object();
+  private CompletableFuture<MatterError> started = new CompletableFuture<>();
+  private boolean startOnDemand = false;
+  private boolean startRequested = false;
 
   private CastingApp() {}
 
-  public static CastingApp getInstance() {
+  public static synchronized CastingApp getInstance() {
     if (sInstance == null) {
       sInstance = new CastingApp();
     }
     return sInstance;
   }
 
+  /**
+   * Sets the backend the CastingApp runs on, instead of the native Matter stack. Must be called
+   * before initialize().
+   *
+   * @param backend e.g. the SimulatedCastingBackend of the benchmarks, to run the Java layer without
+   *     the native library
+   */
+  public MatterError setBackend(CastingBackend backend) {
+    Log.i(TAG, "CastingApp.setBackend() called with " + backend);
+    if (mState != CastingAppState.UNINITIALIZED) {
+      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    }
+    this.backend = backend;
+    return MatterError.NO_ERROR;
+  }
+
+  /** @return the backend the CastingApp runs on */
+  public CastingBackend getBackend() {
+    if (backend == null) {
+      backend = new NativeBackend(this);
+    }
+    return backend;
+  }
+
+  /** @return the CastingPlayerDiscovery of the backend the CastingApp runs on */
+  public CastingPlayerDiscovery getCastingPlayerDiscovery() {
+    return getBackend().getCastingPlayerDiscovery();
+  }
+
   /**
    * Initializes the CastingApp with appParameters
    *
@@ -69,41 +116,50 @@ public final class CastingApp {
     }
 
     this.appParameters = appParameters;
-    this.nsdManagerResolverAvailState =
-        new NsdManagerServiceResolver.NsdManagerResolverAvailState();
-
-    Context applicationContext = appParameters.getApplicationContext();
-    chipPlatform =
-        new AndroidChipPlatform(
-            new AndroidBleManager(),
-            new PreferencesKeyValueStoreManager(appParameters.getApplicationContext()),
-            appParameters.getConfigurationManagerProvider().get(),
-            new NsdManagerServiceResolver(
-                applicationContext, nsdManagerResolverAvailState, RESOLVE_SERVICE_TIMEOUT),
-            new NsdManagerServiceBrowser(applicationContext, BROWSE_SERVICE_TIMEOUT),
-            new ChipMdnsCallbackImpl(),
-            new DiagnosticDataProviderImpl(applicationContext));
-
-    MatterError err = updateAndroidChipPlatformWithCommissionableData();
-    if (err.hasError()) {
-      Log.e(
-          TAG,
-          "CastingApp.initialize() failed to updateCommissionableDataProviderData() on AndroidChipPlatform");
-      return err;
+    synchronized (this) {
+      if (started.isCompletedExceptionally()) {
+        started = new CompletableFuture<>(); // the previous initialize() failed
+      }
+    }
+    MatterError err;
+    Tracing.beginSection("CastingApp.initialize");
+    try {
+      err = getBackend().initialize(appParameters);
+    } catch (RuntimeException | Error e) {
+      failStart(e);
+      throw e;
+    } finally {
+      Tracing.endSection();
     }
-
-    err = finishInitialization(appParameters);
-
     if (err.hasNoError()) {
-      chipAppServer = new ChipAppServer(); // get a reference to the Matter server now
-      mState = CastingAppState.NOT_RUNNING; // initialization done, set state to NOT_RUNNING
+      synchronized (this) {
+        mState = CastingAppState.NOT_RUNNING; // initialization done, set state to NOT_RUNNING
+        if (startRequested) {
+          startInBackground(); // requested while initializing
+        }
+      }
+    } else {
+      failStart(new IllegalStateException("CastingApp.initialize() failed: " + err));
     }
     return err;
   }
 
   /**
-   * Updates the Android CHIP platform with the CommissionableData. This function retrieves
-   * commissionable data from the AppParameters and updates the Android CHIP platform using this
+   * Fails whoever waits for the start, now and until the next initialize(), as the CastingApp
+   * cannot start without initializing
+   */
+  private void failStart(Throwable cause) {
+    CompletableFuture<MatterError> startedFuture;
+    synchronized (this) {
+      startedFuture = started;
+      startRequested = false;
+    }
+    startedFuture.completeExceptionally(cause);
+  }
+
+  /**
+   * Updates the backend with the CommissionableData. This function retrieves commissionable data
+   * from the AppParameters and updates the backend, e.g. the Android CHIP platform, using this
    * data. The commissionable data includes information such as the SPAKE2+ verifier, salt,
    * iteration count, setup passcode, and discriminator.
    *
@@ -113,20 +169,7 @@ public final class CastingApp {
   MatterError updateAndroidChipPlatformWithCommissionableData() {
     Log.i(TAG, "CastingApp.updateAndroidChipPlatformWithCommissionableData()");
     CommissionableData commissionableData = appParameters.getCommissionableDataProvider().get();
-    boolean updated =
-        chipPlatform.updateCommissionableDataProviderData(
-            commissionableData.getSpake2pVerifierBase64(),
-            commissionableData.getSpake2pSaltBase64(),
-            commissionableData.getSpake2pIterationCount(),
-            commissionableData.getSetupPasscode(),
-            commissionableData.getDiscriminator());
-    if (!updated) {
-      Log.e(
-          TAG,
-          "CastingApp.updateAndroidChipPlatformWithCommissionableData() failed to updateCommissionableDataProviderData() on AndroidChipPlatform");
-      return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
-    }
-    return MatterError.NO_ERROR;
+    return getBackend().updateCommissionableData(commissionableData);
   }
 
   /**
@@ -134,21 +177,86 @@ public final class CastingApp {
    */
   public MatterError start() {
     Log.i(TAG, "CastingApp.start called");
-    if (mState != CastingAppState.NOT_RUNNING) {
-      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    MatterError err;
+    CompletableFuture<MatterError> startedFuture;
+    synchronized (lifecycleLock) {
+      if (mState != CastingAppState.NOT_RUNNING) {
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
+
+      Tracing.beginSection("CastingApp.start");
+      try {
+        err = getBackend().start();
+      } finally {
+        Tracing.endSection();
+      }
+      synchronized (this) {
+        if (err.hasNoError()) {
+          mState = CastingAppState.RUNNING; // CastingApp started successfully, set state to RUNNING
+        }
+        startedFuture = started;
+        startRequested = false;
+        if (err.hasError()) {
+          started = new CompletableFuture<>(); // a later requestStart() tries again
+        }
+      }
     }
+    // outside of the locks, as this runs the requests that were waiting for the start
+    startedFuture.complete(err);
+    return err;
+  }
 
-    boolean serverStarted = chipAppServer.startApp();
-    if (!serverStarted) {
-      Log.e(TAG, "CastingApp.start failed to start Matter server");
+  /**
+   * Starts the CastingApp on demand, rather than now with start(): the Matter server, and with it
+   * the commissioning listener, is only started by the first call to requestStart(). Discovery of,
+   * and connection to, CastingPlayers call it. May be called before initialize(), so that requests
+   * made while the CastingApp initializes are not missed.
+   */
+  public synchronized MatterError startOnDemand() {
+    Log.i(TAG, "CastingApp.startOnDemand called");
+    if (mState == CastingAppState.RUNNING) {
       return MatterError.CHIP_ERROR_INCORRECT_STATE;
     }
+    startOnDemand = true;
+    return MatterError.NO_ERROR;
+  }
 
-    MatterError err = finishStartup();
-    if (err.hasNoError()) {
-      mState = CastingAppState.RUNNING; // CastingApp started successfully, set state to RUNNING
+  /**
+   * Starts the CastingApp on a background thread, unless it is running or already starting. If
+   * the CastingApp is not initialized yet, it is started once it is, and the readiness future
+   * completes exceptionally if initialize() fails.
+   *
+   * @return the readiness future, see whenStarted()
+   */
+  public synchronized CompletableFuture<MatterError> requestStart() {
+    if (mState != CastingAppState.RUNNING && !startRequested) {
+      startRequested = true;
+      if (mState == CastingAppState.NOT_RUNNING) {
+        startInBackground();
+      }
     }
-    return err;
+    return started;
+  }
+
+  /**
+   * @return the readiness future, completed with the result of the next start of the CastingApp,
+   *     or of its current run if it is running, or exceptionally if initialize() fails. Unlike
+   *     requestStart(), does not start it.
+   */
+  public synchronized CompletableFuture<MatterError> whenStarted() {
+    return started;
+  }
+
+  /**
+   * @return true if the CastingApp starts on demand and is not running: requests to the Matter
+   *     server must then wait for requestStart() to complete
+   */
+  public synchronized boolean isStartDeferred() {
+    return startOnDemand && mState != CastingAppState.RUNNING;
+  }
+
+  private void startInBackground() {
+    new Thread(this::start, "casting-app-start").start();
   }
 
   /**
@@ -158,31 +266,47 @@ public final class CastingApp {
    */
   public MatterError stop() {
     Log.i(TAG, "CastingApp.stop called");
-    if (mState != CastingAppState.RUNNING) {
-      return MatterError.CHIP_ERROR_INCORRECT_STATE;
-    }
+    synchronized (lifecycleLock) {
+      if (mState != CastingAppState.RUNNING) {
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
 
-    boolean serverStopped = chipAppServer.stopApp();
-    if (!serverStopped) {
-      Log.e(TAG, "CastingApp.stop failed to stop Matter server");
-      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      MatterError err = getBackend().stop();
+      if (err.hasNoError()) {
+        synchronized (this) {
+          // CastingApp stopped successfully, set state to NOT_RUNNING
+          mState = CastingAppState.NOT_RUNNING;
+          started = new CompletableFuture<>();
+        }
+      }
+      return err;
     }
-    finishStopping();
-    mState =
-        CastingAppState.NOT_RUNNING; // CastingApp stopped successfully, set state to NOT_RUNNING
+  }
 
-    return MatterError.NO_ERROR;
+  /**
+   * @brief Tears down all active subscriptions. Subscriptions made through the
+   *     SubscriptionRegistry are parked rather than dropped: their listeners and latest values are
+   *     kept, and the next subscribe through the SubscriptionRegistry, or resumeSubscriptions(),
+   *     re-establishes them.
+   */
+  public MatterError shutdownAllSubscriptions() {
+    SubscriptionRegistry.getInstance().park();
+    return getBackend().shutdownAllSubscriptions();
   }
 
-  /** @brief Tears down all active subscriptions. */
-  public native MatterError shutdownAllSubscriptions();
+  /** @brief Re-establishes the subscriptions parked by shutdownAllSubscriptions(). */
+  public void resumeSubscriptions() {
+    SubscriptionRegistry.getInstance().resume();
+  }
 
   /**
    * Clears app cache that contains the information about CastingPlayers previously connected to
    *
    * @return
    */
-  public native MatterError clearCache();
+  public MatterError clearCache() {
+    return getBackend().clearCache();
+  }
 
   /**
    * Sets DeviceAttestationCrdentials provider and RotatingDeviceIdUniqueId
@@ -191,13 +315,247 @@ public final class CastingApp {
    */
   private native MatterError finishInitialization(AppParameters appParameters);
 
+  private native MatterError shutdownAllSubscriptionsNative();
+
+  private native MatterError clearCacheNative();
+
   /** Performs post Matter server startup registrations */
   private native MatterError finishStartup();
 
   /** Performs cleanup after stopping Matter server */
   private native void finishStopping();
 
-  static {
-    System.loadLibrary("TvCastingApp");
+  /**
+   * Called by the native layer, on the Matter thread, when the state of the Matter stack must be on
+   * disk: once commissioning completes, and when a fabric is committed, updated or removed. The
+   * flush syncs the stores to disk, so it runs on the durabilityExecutor rather than on the Matter
+   * thread, and completes the native barrier with onFlushCompleteNative() once done.
+   */
+  private static void flushFromNative() {
+    DurabilityExecutorHolder.EXECUTOR.execute(
+        () -> {
+          try {
+            CastingBackend backend = getInstance().backend;
+            if (backend instanceof NativeBackend) {
+              ((NativeBackend) backend).flushStores();
+            }
+          } finally {
+            onFlushCompleteNative();
+          }
+        });
+  }
+
+  private static native void onFlushCompleteNative();
+
+  // created on the first flush, which only the native backend requests
+  private static final class DurabilityExecutorHolder {
+    static final ExecutorService EXECUTOR =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "casting-durability");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** The default backend: the Matter stack in the native TvCastingApp library */
+  private static final class NativeBackend implements CastingBackend {
+    private static final long BROWSE_SERVICE_TIMEOUT = 2500;
+    private static final long RESOLVE_SERVICE_TIMEOUT = 3000;
+    // CHIP_NO_ERROR, which AndroidBleManager.init() returns, and the Matter stack calls at startup
+    private static final int BLE_MANAGER_INIT_SUCCESS = 0;
+
+    private final CastingApp castingApp;
+    private NsdManagerServiceResolver.NsdManagerResolverAvailState nsdManagerResolverAvailState;
+    private ChipAppServer chipAppServer;
+    private AndroidChipPlatform chipPlatform;
+    private ConfigurationManager configurationManager;
+    private JournaledKeyValueStoreManager keyValueStoreManager;
+
+    NativeBackend(CastingApp castingApp) {
+      this.castingApp = castingApp;
+    }
+
+    @Override
+    public MatterError initialize(AppParameters appParameters) {
+      StartupTrace startupTrace = StartupTrace.getInstance();
+      try (StartupTrace.Section section = startupTrace.begin(StartupTrace.Phase.BUILD_PLATFORM)) {
+        chipPlatform = buildChipPlatform(appParameters);
+      }
+
+      MatterError err =
+          updateCommissionableData(appParameters.getCommissionableDataProvider().get());
+      if (err.hasError()) {
+        Log.e(
+            TAG,
+            "CastingApp.initialize() failed to updateCommissionableDataProviderData() on AndroidChipPlatform");
+        return err;
+      }
+
+      try (StartupTrace.Section section = startupTrace.begin(StartupTrace.Phase.INITIALIZE)) {
+        err = castingApp.finishInitialization(appParameters);
+      }
+      if (err.hasNoError()) {
+        chipAppServer = new ChipAppServer(); // get a reference to the Matter server now
+      }
+      return err;
+    }
+
+    /**
+     * Builds the AndroidChipPlatform. The KeyValueStoreManager, which reads storage on creation, is
+     * built on a background thread in parallel with the ConfigurationManager and the NSD
+     * components. The ConfigurationManagerProvider is supplied by the app, so it is called on the
+     * thread calling initialize(), like the other providers of the AppParameters. The BleManager
+     * and the DiagnosticDataProvider are only created once the Matter stack first calls them, which
+     * for BLE is never unless a commissioner connects over BLE: the BleManager's init(), called at
+     * startup, is answered by the LazyProxy.
+     */
+    private AndroidChipPlatform buildChipPlatform(AppParameters appParameters) {
+      Context applicationContext = appParameters.getApplicationContext();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        CompletableFuture<JournaledKeyValueStoreManager> keyValueStoreManagerFuture =
+            CompletableFuture.supplyAsync(
+                () -> {
+                  JournaledKeyValueStoreManager keyValueStoreManager =
+                      new JournaledKeyValueStoreManager(applicationContext);
+                  keyValueStoreManager.preload();
+                  return keyValueStoreManager;
+                },
+                executor);
+
+        configurationManager = appParameters.getConfigurationManagerProvider().get();
+        this.nsdManagerResolverAvailState =
+            new NsdManagerServiceResolver.NsdManagerResolverAvailState();
+        NsdManagerServiceResolver serviceResolver =
+            new NsdManagerServiceResolver(
+                applicationContext, nsdManagerResolverAvailState, RESOLVE_SERVICE_TIMEOUT);
+        NsdManagerServiceBrowser serviceBrowser =
+            new NsdManagerServiceBrowser(applicationContext, BROWSE_SERVICE_TIMEOUT);
+
+        keyValueStoreManager = join(keyValueStoreManagerFuture);
+        return new AndroidChipPlatform(
+            LazyProxy.builder(BleManager.class, AndroidBleManager::new)
+                .defer("setAndroidChipPlatform")
+                .defer("init", BLE_MANAGER_INIT_SUCCESS)
+                .build(),
+            keyValueStoreManager,
+            configurationManager,
+            serviceResolver,
+            serviceBrowser,
+            new ChipMdnsCallbackImpl(),
+            LazyProxy.of(
+                DiagnosticDataProvider.class,
+                () -> new DiagnosticDataProviderImpl(applicationContext)));
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    /** Waits for a platform component, rethrowing whatever its creation threw */
+    private static <T> T join(CompletableFuture<T> future) {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw e;
+      }
+    }
+
+    @Override
+    public MatterError updateCommissionableData(CommissionableData commissionableData) {
+      boolean updated =
+          chipPlatform.updateCommissionableDataProviderData(
+              commissionableData.getSpake2pVerifierBase64(),
+              commissionableData.getSpake2pSaltBase64(),
+              commissionableData.getSpake2pIterationCount(),
+              commissionableData.getSetupPasscode(),
+              commissionableData.getDiscriminator());
+      if (!updated) {
+        Log.e(
+            TAG,
+            "CastingApp.updateAndroidChipPlatformWithCommissionableData() failed to updateCommissionableDataProviderData() on AndroidChipPlatform");
+        return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+      }
+      return MatterError.NO_ERROR;
+    }
+
+    @Override
+    public MatterError start() {
+      try (StartupTrace.Section section =
+          StartupTrace.getInstance().begin(StartupTrace.Phase.START_SERVER)) {
+        boolean serverStarted = chipAppServer.startApp();
+        if (!serverStarted) {
+          Log.e(TAG, "CastingApp.start failed to start Matter server");
+          return MatterError.CHIP_ERROR_INCORRECT_STATE;
+        }
+        return castingApp.finishStartup();
+      }
+    }
+
+    @Override
+    public MatterError stop() {
+      boolean serverStopped = chipAppServer.stopApp();
+      if (!serverStopped) {
+        Log.e(TAG, "CastingApp.stop failed to stop Matter server");
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
+      castingApp.finishStopping();
+      flushStores();
+      return MatterError.NO_ERROR;
+    }
+
+    /**
+     * Commits the writes the KeyValueStoreManager, and the ConfigurationManager if it supports it
+     * (i.e. implements java.io.Flushable), are holding in memory. Acts as a durability barrier for
+     * the Matter stack's state.
+     */
+    private void flushStores() {
+      if (keyValueStoreManager != null) {
+        keyValueStoreManager.flush();
+      }
+      if (configurationManager instanceof Flushable) {
+        try {
+          ((Flushable) configurationManager).flush();
+        } catch (IOException e) {
+          Log.e(TAG, "CastingApp.flushStores() failed: " + e);
+        }
+      }
+    }
+
+    @Override
+    public MatterError shutdownAllSubscriptions() {
+      return castingApp.shutdownAllSubscriptionsNative();
+    }
+
+    @Override
+    public MatterError clearCache() {
+      return castingApp.clearCacheNative();
+    }
+
+    @Override
+    public CastingPlayerDiscovery getCastingPlayerDiscovery() {
+      return MatterCastingPlayerDiscovery.getInstance();
+    }
+
+    @Override
+    public short getUdcMaxTargetApps() {
+      return IdentificationDeclarationOptions.getChipDeviceConfigUdcMaxTargetApps();
+    }
+
+    @Override
+    public String toString() {
+      return "NativeBackend";
+    }
+
+    static {
+      NativeLibrary.load();
+    }
   }
 }
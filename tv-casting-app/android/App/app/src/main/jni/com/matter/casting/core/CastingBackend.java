@@ -0,0 +1,64 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import com.matter.casting.support.AppParameters;
+import com.matter.casting.support.CommissionableData;
+import com.matter.casting.support.MatterError;
+
+/**
+ * The CastingBackend interface defines what the CastingApp runs on. By default, that is the Matter
+ * stack in the native TvCastingApp library. Another backend, such as the in-process
+ * SimulatedCastingBackend of the benchmarks, can be set with CastingApp.setBackend() before the
+ * CastingApp is initialized, e.g. to exercise the Java layer on a JVM without the native library.
+ *
+ * <p>CastingApp checks its own state before calling a backend, so a backend is initialized,
+ * started and stopped in that order. A backend delivers results to MatterCallbacks with
+ * handleInternal(), which is only visible to the com.matter.casting.support package, and discovery
+ * events to CastingPlayerChangeListeners with their _onAdded(), _onChanged() and _onRemoved()
+ * methods, as the native layer does.
+ */
+public interface CastingBackend {
+  /**
+   * Prepares the backend to start, e.g. sets up the platform and its providers from appParameters.
+   */
+  MatterError initialize(AppParameters appParameters);
+
+  /** Updates the commissionable data, e.g. with a passcode the user entered */
+  MatterError updateCommissionableData(CommissionableData commissionableData);
+
+  /** Starts the Matter server, or its equivalent */
+  MatterError start();
+
+  /** Stops the Matter server, or its equivalent */
+  MatterError stop();
+
+  /** Tears down all active subscriptions */
+  MatterError shutdownAllSubscriptions();
+
+  /** Clears the cache of CastingPlayers previously connected to */
+  MatterError clearCache();
+
+  /** @return the CastingPlayerDiscovery of this backend */
+  CastingPlayerDiscovery getCastingPlayerDiscovery();
+
+  /**
+   * @return the maximum number of TargetAppInfos an IdentificationDeclaration can carry, i.e.
+   *     CHIP_DEVICE_CONFIG_UDC_MAX_TARGET_APPS of the Matter stack
+   */
+  short getUdcMaxTargetApps();
+}
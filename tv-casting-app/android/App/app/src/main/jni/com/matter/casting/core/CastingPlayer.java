@@ -104,7 +104,10 @@ public interface CastingPlayer {
    *     verifyOrEstablishConnection() will force UDC, in case the desired TargetApp is not found in
    *     the on-device CastingStore.
    * @return MatterError - MatterError.NO_ERROR if request submitted successfully, otherwise a
-   *     MatterError object corresponding to the error.
+   *     MatterError object corresponding to the error. If the CastingApp starts on demand and has
+   *     not started yet, it is started first, and NO_ERROR only means that the request is
+   *     submitted once it has: a later error, including a failed start, is passed to the onFailure
+   *     callback.
    */
   MatterError verifyOrEstablishConnection(
       ConnectionCallbacks connectionCallbacks,
@@ -117,7 +120,8 @@ public interface CastingPlayer {
    * @param connectionCallbacks contains the onSuccess (Required), onFailure (Required) and
    *     onCommissionerDeclaration (Optional) callbacks defiend in ConnectCallbacks.java.
    * @return MatterError - MatterError.NO_ERROR if request submitted successfully, otherwise a
-   *     MatterError object corresponding to the error.
+   *     MatterError object corresponding to the error. As for the API above, NO_ERROR may only
+   *     mean that the request is submitted once the CastingApp has started on demand.
    */
   MatterError verifyOrEstablishConnection(ConnectionCallbacks connectionCallbacks);
 
@@ -166,6 +170,19 @@ public interface CastingPlayer {
   /** @brief Sets the internal connection state of this CastingPlayer to "disconnected" */
   void disconnect();
 
+  /**
+   * @brief Tears down a single subscription to this CastingPlayer. Implementations that cannot do
+   *     so keep the default, and their subscriptions run until the session with the CastingPlayer
+   *     ends.
+   * @param subscriptionId the ID reported when the subscription was established
+   * @return MatterError - MatterError.NO_ERROR if the subscription was shut down, otherwise a
+   *     MatterError object corresponding to the error. MatterError.CHIP_ERROR_NOT_IMPLEMENTED by
+   *     default.
+   */
+  default MatterError shutdownSubscription(long subscriptionId) {
+    return MatterError.CHIP_ERROR_NOT_IMPLEMENTED;
+  }
+
   /**
    * @brief Get CastingPlayer's current ConnectionState.
    * @return Current ConnectionState.
@@ -17,6 +17,7 @@
 package com.matter.casting.core;
 
 import android.util.Log;
+import com.matter.casting.support.MatterCallbackDispatcher;
 import com.matter.casting.support.MatterError;
 import java.util.List;
 
@@ -41,7 +42,10 @@ public interface CastingPlayerDiscovery {
    * @param discoveryTargetDeviceType the target device type to be discovered using DNS-SD. For
    *     example: 35 represents device type of Matter Casting Video Player. If "null" is passed in,
    *     discovery will default to all "_matterd._udp" device types.
-   * @return a specific MatterError if the the operation failed or NO_ERROR if succeeded.
+   * @return a specific MatterError if the the operation failed or NO_ERROR if succeeded. If the
+   *     CastingApp starts on demand and has not started yet, it is started first, and NO_ERROR
+   *     only means that discovery starts once it has: no CastingPlayer is reported if it then
+   *     fails.
    */
   MatterError startDiscovery(Long discoveryTargetDeviceType);
 
@@ -97,6 +101,8 @@ public interface CastingPlayerDiscovery {
 
     /**
      * This handler is called when a Casting Player previously detected on the network is removed.
+     * As DNS-SD does not report Casting Players leaving the network, this is when discovery stops,
+     * which removes every Casting Player discovered. A restarted discovery adds them again.
      *
      * @param castingPlayer the Casting Player removed.
      */
@@ -105,29 +111,42 @@ public interface CastingPlayerDiscovery {
     /**
      * The following methods are used to catch possible exceptions thrown by the methods above
      * (onAdded(), onChanged() and onRemoved()), when not implemented correctly by the client.
+     * They run the handlers on the MatterCallbackDispatcher thread, off the Matter thread.
      */
     protected final void _onAdded(CastingPlayer castingPlayer) {
-      try {
-        onAdded(castingPlayer);
-      } catch (Throwable t) {
-        Log.e(TAG, "_onAdded() Caught an unhandled Throwable from the client: " + t);
-      }
+      MatterCallbackDispatcher.getInstance()
+          .dispatch(
+              () -> {
+                try {
+                  onAdded(castingPlayer);
+                } catch (Throwable t) {
+                  Log.e(TAG, "_onAdded() Caught an unhandled Throwable from the client: " + t);
+                }
+              });
     };
 
     protected final void _onChanged(CastingPlayer castingPlayer) {
-      try {
-        onChanged(castingPlayer);
-      } catch (Throwable t) {
-        Log.e(TAG, "_onChanged() Caught an unhandled Throwable from the client: " + t);
-      }
+      MatterCallbackDispatcher.getInstance()
+          .dispatch(
+              () -> {
+                try {
+                  onChanged(castingPlayer);
+                } catch (Throwable t) {
+                  Log.e(TAG, "_onChanged() Caught an unhandled Throwable from the client: " + t);
+                }
+              });
     };
 
     protected final void _onRemoved(CastingPlayer castingPlayer) {
-      try {
-        onRemoved(castingPlayer);
-      } catch (Throwable t) {
-        Log.e(TAG, "_onRemoved() Caught an unhandled Throwable from the client: " + t);
-      }
+      MatterCallbackDispatcher.getInstance()
+          .dispatch(
+              () -> {
+                try {
+                  onRemoved(castingPlayer);
+                } catch (Throwable t) {
+                  Log.e(TAG, "_onRemoved() Caught an unhandled Throwable from the client: " + t);
+                }
+              });
     };
   }
 }
@@ -19,6 +19,7 @@ package com.matter.casting.core;
 import android.util.Log;
 import com.matter.casting.support.ConnectionCallbacks;
 import com.matter.casting.support.IdentificationDeclarationOptions;
+import com.matter.casting.support.MatterCallbackDispatcher;
 import com.matter.casting.support.MatterError;
 import java.net.InetAddress;
 import java.util.List;
@@ -192,10 +193,53 @@ public class MatterCastingPlayer implements CastingPlayer {
    *     verifyOrEstablishConnection() will force UDC, in case the desired TargetApp is not found in
    *     the on-device CastingStore.
    * @return MatterError - MatterError.NO_ERROR if request submitted successfully, otherwise a
-   *     MatterError object corresponding to the error.
+   *     MatterError object corresponding to the error. If the CastingApp starts on demand and has
+   *     not started yet, the request is submitted once it has, and a later error is passed to the
+   *     onFailure callback.
    */
   @Override
-  public native MatterError verifyOrEstablishConnection(
+  public MatterError verifyOrEstablishConnection(
+      ConnectionCallbacks connectionCallbacks,
+      short commissioningWindowTimeoutSec,
+      IdentificationDeclarationOptions idOptions) {
+    CastingApp castingApp = CastingApp.getInstance();
+    if (!castingApp.isStartDeferred()) {
+      return verifyOrEstablishConnectionNative(
+          connectionCallbacks, commissioningWindowTimeoutSec, idOptions);
+    }
+
+    Log.d(TAG, "verifyOrEstablishConnection() starting the CastingApp on demand");
+    castingApp
+        .requestStart()
+        .whenComplete(
+            (startErr, throwable) -> {
+              MatterError err;
+              if (throwable != null) {
+                err = MatterError.CHIP_ERROR_INCORRECT_STATE; // the CastingApp failed to initialize
+              } else if (startErr.hasError()) {
+                err = startErr;
+              } else {
+                err =
+                    verifyOrEstablishConnectionNative(
+                        connectionCallbacks, commissioningWindowTimeoutSec, idOptions);
+              }
+              if (err.hasError()) {
+                // handleInternal() is only visible to the support package, so dispatch as it does
+                MatterCallbackDispatcher.getInstance()
+                    .dispatch(
+                        () -> {
+                          try {
+                            connectionCallbacks.onFailure.handle(err);
+                          } catch (Throwable t) {
+                            Log.e(TAG, "onFailure threw: " + t);
+                          }
+                        });
+              }
+            });
+    return MatterError.NO_ERROR;
+  }
+
+  private native MatterError verifyOrEstablishConnectionNative(
       ConnectionCallbacks connectionCallbacks,
       short commissioningWindowTimeoutSec,
       IdentificationDeclarationOptions idOptions);
@@ -269,6 +313,9 @@ public class MatterCastingPlayer implements CastingPlayer {
   @Override
   public native void disconnect();
 
+  @Override
+  public native MatterError shutdownSubscription(long subscriptionId);
+
   /**
    * @brief Get CastingPlayer's current ConnectionState.
    * @throws IllegalArgumentException or NullPointerException when native layer returns invalid
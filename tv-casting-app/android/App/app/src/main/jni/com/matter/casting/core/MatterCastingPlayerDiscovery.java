@@ -16,6 +16,7 @@
  */
 package com.matter.casting.core;
 
+import android.util.Log;
 import com.matter.casting.support.MatterError;
 import java.util.List;
 
@@ -50,10 +51,38 @@ public final class MatterCastingPlayerDiscovery implements CastingPlayerDiscover
    * @param discoveryTargetDeviceType the target device type to be discovered using DNS-SD. For
    *     example: 35 represents device type of Matter Casting Video Player. If "null" is passed in,
    *     discovery will default to all "_matterd._udp" device types.
-   * @return a specific MatterError if the the operation failed or NO_ERROR if succeeded.
+   * @return a specific MatterError if the the operation failed or NO_ERROR if succeeded. If the
+   *     CastingApp starts on demand and has not started yet, it is started first, and NO_ERROR only
+   *     means that discovery starts once it has: a later error is logged.
    */
   @Override
-  public native MatterError startDiscovery(Long discoveryTargetDeviceType);
+  public MatterError startDiscovery(Long discoveryTargetDeviceType) {
+    CastingApp castingApp = CastingApp.getInstance();
+    if (!castingApp.isStartDeferred()) {
+      return startDiscoveryNative(discoveryTargetDeviceType);
+    }
+
+    Log.d(TAG, "startDiscovery() starting the CastingApp on demand");
+    castingApp
+        .requestStart()
+        .whenComplete(
+            (startErr, throwable) -> {
+              MatterError err;
+              if (throwable != null) {
+                err = MatterError.CHIP_ERROR_INCORRECT_STATE; // the CastingApp failed to initialize
+              } else if (startErr.hasError()) {
+                err = startErr;
+              } else {
+                err = startDiscoveryNative(discoveryTargetDeviceType);
+              }
+              if (err.hasError()) {
+                Log.e(TAG, "startDiscovery() failed once the CastingApp started on demand: " + err);
+              }
+            });
+    return MatterError.NO_ERROR;
+  }
+
+  private native MatterError startDiscoveryNative(Long discoveryTargetDeviceType);
 
   /**
    * Stops Casting Players discovery or returns an error.
@@ -21,6 +21,7 @@ import chip.devicecontroller.ChipClusters;
 import com.matter.casting.support.DeviceTypeStruct;
 import com.matter.casting.support.MatterCallback;
 import com.matter.casting.support.MatterError;
+import com.matter.casting.support.Tracing;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
@@ -91,14 +92,16 @@ public class MatterEndpoint implements Endpoint {
 
   private Long getDeviceProxy() {
     CompletableFuture<Long> deviceProxyFuture = new CompletableFuture<>();
+    // complete the future on the calling thread: getCluster() may itself be called from a client
+    // callback running on the MatterCallbackDispatcher thread
     getDeviceProxy(
-        new MatterCallback<Long>() {
+        new MatterCallback<Long>(true) {
           @Override
           public void handle(Long deviceProxy) {
             deviceProxyFuture.complete(deviceProxy);
           }
         },
-        new MatterCallback<MatterError>() {
+        new MatterCallback<MatterError>(true) {
           @Override
           public void handle(MatterError response) {
             deviceProxyFuture.completeExceptionally(
@@ -106,11 +109,14 @@ public class MatterEndpoint implements Endpoint {
           }
         });
 
+    Tracing.beginSection("MatterEndpoint.getDeviceProxy wait");
     try {
       return deviceProxyFuture.get(MAX_WAIT_FOR_DEVICE_PROXY_MS, TimeUnit.MILLISECONDS);
     } catch (ExecutionException | InterruptedException | TimeoutException e) {
       Log.e(TAG, "Exception while waiting on getDeviceProxy future: " + e);
       return null;
+    } finally {
+      Tracing.endSection();
     }
   }
 
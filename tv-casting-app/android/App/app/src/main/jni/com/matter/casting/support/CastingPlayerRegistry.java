@@ -0,0 +1,220 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.util.Log;
+import com.matter.casting.core.CastingPlayer;
+import com.matter.casting.core.CastingPlayerDiscovery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * CastingPlayerRegistry keeps the discovered CastingPlayers indexed by device id. Added as a
+ * CastingPlayerChangeListener of the CastingPlayerDiscovery, it applies every discovery event in
+ * O(1), and reports it to its listeners as a Change. A changed CastingPlayer keeps its position, so
+ * the CastingPlayers are listed in the order they were first discovered.
+ *
+ * <p>Every change bumps the version of the registry. getSnapshot() returns an immutable list of
+ * the CastingPlayers at a version, which is only rebuilt when read after a change, so that a UI
+ * list can rebind once per batch of changes rather than once per change.
+ *
+ * <p>This class is thread-safe. Changes are handed to the executor of each listener under the lock
+ * that applies them, so that every listener gets them in version order, even when they are applied
+ * from several threads. A listener run on the thread that applies each change thus runs under that
+ * lock too, and should be short.
+ */
+public final class CastingPlayerRegistry
+    extends CastingPlayerDiscovery.CastingPlayerChangeListener {
+  private static final String TAG = CastingPlayerRegistry.class.getSimpleName();
+
+  /** How a change affected a CastingPlayer of the registry */
+  public enum Change {
+    ADDED,
+    UPDATED,
+    REMOVED
+  }
+
+  /** Listener of the changes to a CastingPlayerRegistry */
+  public interface Listener {
+    /**
+     * @param change how the CastingPlayer was affected
+     * @param castingPlayer the CastingPlayer added, its update, or the CastingPlayer removed
+     * @param version the version of the registry once the change was applied
+     */
+    void onRegistryChanged(Change change, CastingPlayer castingPlayer, long version);
+  }
+
+  /** The CastingPlayers of a registry at a version */
+  public static final class Snapshot {
+    private final long version;
+    private final List<CastingPlayer> castingPlayers;
+
+    private Snapshot(long version, List<CastingPlayer> castingPlayers) {
+      this.version = version;
+      this.castingPlayers = Collections.unmodifiableList(castingPlayers);
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    /** @return the CastingPlayers, in the order they were first discovered */
+    public List<CastingPlayer> getCastingPlayers() {
+      return castingPlayers;
+    }
+
+    public int size() {
+      return castingPlayers.size();
+    }
+  }
+
+  private static final class ListenerRegistration {
+    private final Listener listener;
+    private final Executor executor;
+
+    private ListenerRegistration(Listener listener, Executor executor) {
+      this.listener = listener;
+      this.executor = executor;
+    }
+  }
+
+  private final Object lock = new Object();
+  // guarded by lock, in the order the CastingPlayers were first added
+  private final Map<String, CastingPlayer> castingPlayers = new LinkedHashMap<>();
+  private long version = 0;
+  private Snapshot snapshot = new Snapshot(0, Collections.<CastingPlayer>emptyList());
+  private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+
+  /** @return the CastingPlayer with this device id, or null if there is none */
+  public CastingPlayer get(String deviceId) {
+    synchronized (lock) {
+      return castingPlayers.get(deviceId);
+    }
+  }
+
+  public int size() {
+    synchronized (lock) {
+      return castingPlayers.size();
+    }
+  }
+
+  public long getVersion() {
+    synchronized (lock) {
+      return version;
+    }
+  }
+
+  /** @return the CastingPlayers at the current version */
+  public Snapshot getSnapshot() {
+    synchronized (lock) {
+      if (snapshot.version != version) {
+        snapshot = new Snapshot(version, new ArrayList<>(castingPlayers.values()));
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Adds a listener, to be run on the executor, e.g. that of the main thread for a UI list. The
+   * listener is not told about the CastingPlayers already in the registry, which it can read from
+   * getSnapshot().
+   */
+  public void addListener(Listener listener, Executor executor) {
+    listeners.add(new ListenerRegistration(listener, executor));
+  }
+
+  /** Adds a listener, to be run on the thread that applies each change */
+  public void addListener(Listener listener) {
+    addListener(listener, Runnable::run);
+  }
+
+  public void removeListener(Listener listener) {
+    for (ListenerRegistration registration : listeners) {
+      if (registration.listener == listener) {
+        listeners.remove(registration);
+      }
+    }
+  }
+
+  /** Adds the CastingPlayer, or replaces the CastingPlayer with the same device id */
+  public void put(CastingPlayer castingPlayer) {
+    String deviceId = castingPlayer.getDeviceId();
+    if (deviceId == null) {
+      Log.e(TAG, "put() ignoring a CastingPlayer without a device id");
+      return;
+    }
+    synchronized (lock) {
+      Change change =
+          castingPlayers.put(deviceId, castingPlayer) == null ? Change.ADDED : Change.UPDATED;
+      notifyListeners(change, castingPlayer, ++version);
+    }
+  }
+
+  /** @return true if the registry had a CastingPlayer with the device id of this one */
+  public boolean remove(CastingPlayer castingPlayer) {
+    synchronized (lock) {
+      CastingPlayer removed = castingPlayers.remove(castingPlayer.getDeviceId());
+      if (removed == null) {
+        return false;
+      }
+      notifyListeners(Change.REMOVED, removed, ++version);
+      return true;
+    }
+  }
+
+  /** Removes every CastingPlayer, e.g. when discovery stops */
+  public void clear() {
+    for (CastingPlayer castingPlayer : getSnapshot().getCastingPlayers()) {
+      remove(castingPlayer);
+    }
+  }
+
+  @Override
+  public void onAdded(CastingPlayer castingPlayer) {
+    put(castingPlayer);
+  }
+
+  @Override
+  public void onChanged(CastingPlayer castingPlayer) {
+    put(castingPlayer);
+  }
+
+  @Override
+  public void onRemoved(CastingPlayer castingPlayer) {
+    remove(castingPlayer);
+  }
+
+  // called with lock held, so that the changes reach each executor in version order
+  private void notifyListeners(Change change, CastingPlayer castingPlayer, long changeVersion) {
+    for (ListenerRegistration registration : listeners) {
+      registration.executor.execute(
+          () -> {
+            try {
+              registration.listener.onRegistryChanged(change, castingPlayer, changeVersion);
+            } catch (Throwable t) {
+              Log.e(TAG, "onRegistryChanged() Caught an unhandled Throwable from a listener: " + t);
+            }
+          });
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+/**
+ * CommandTimer times a cluster command sent through the ChipClusters of a MatterEndpoint. It is
+ * started right before the command is sent, and the response callback passed to the command calls
+ * succeeded() or failed(), which record the time since the start in the MetricsRegistry. Only the
+ * first of these calls is recorded.
+ */
+public final class CommandTimer {
+  private final String command;
+  private final long startNanos;
+  private boolean recorded = false;
+
+  private CommandTimer(String command, long startNanos) {
+    this.command = command;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * Starts timing a command, to be called right before the command is sent.
+   *
+   * @param command e.g. "ContentLauncher.LaunchURL"
+   */
+  public static CommandTimer start(String command) {
+    return new CommandTimer(command, System.nanoTime());
+  }
+
+  /** Records the latency of the command, from the onSuccess() of its response callback */
+  public void succeeded() {
+    record(true);
+  }
+
+  /** Records the latency of the command, from the onError() of its response callback */
+  public void failed() {
+    record(false);
+  }
+
+  // the response callback of a command is called once, on one thread, so this is not contended
+  private synchronized void record(boolean success) {
+    if (recorded) {
+      return;
+    }
+    recorded = true;
+    MetricsRegistry.getInstance()
+        .recordCommandLatencyNanos(command, System.nanoTime() - startNanos, success);
+  }
+}
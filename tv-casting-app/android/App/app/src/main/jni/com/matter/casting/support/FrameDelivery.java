@@ -0,0 +1,189 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * FrameDelivery hands values, such as subscription reports, to the UI once per display frame.
+ * Each stream of values posts to its own Slot, which keeps only the latest value; at the next
+ * Choreographer frame every Slot holding a value delivers it on the main thread. A burst of reports
+ * thus costs at most one UI update per Slot per frame, and posting a value allocates nothing.
+ * This class is a singleton.
+ */
+public final class FrameDelivery implements Choreographer.FrameCallback {
+  private static final String TAG = FrameDelivery.class.getSimpleName();
+
+  private static FrameDelivery sInstance;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(this);
+
+  // slots holding a value, swapped with deliveringSlots at each frame so that neither allocates
+  private List<Slot<?>> dirtySlots = new ArrayList<>();
+  private List<Slot<?>> deliveringSlots = new ArrayList<>();
+  private boolean frameScheduled = false;
+
+  private long postedCount = 0;
+  private long deliveredCount = 0;
+  private long frameCount = 0;
+
+  private FrameDelivery() {}
+
+  public static synchronized FrameDelivery getInstance() {
+    if (sInstance == null) {
+      sInstance = new FrameDelivery();
+    }
+    return sInstance;
+  }
+
+  /**
+   * Creates a Slot delivering the values posted to it to the consumer, on the main thread.
+   *
+   * @param consumer typically updates a View with the value
+   */
+  public <T> Slot<T> newSlot(Consumer<T> consumer) {
+    return new Slot<>(consumer);
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    List<Slot<?>> slots;
+    synchronized (this) {
+      frameScheduled = false;
+      frameCount++;
+      slots = dirtySlots;
+      dirtySlots = deliveringSlots;
+      deliveringSlots = slots;
+    }
+
+    for (int i = 0; i < slots.size(); i++) {
+      slots.get(i).deliver();
+    }
+    slots.clear();
+  }
+
+  /** @return the number of values posted to all slots */
+  public synchronized long getPostedCount() {
+    return postedCount;
+  }
+
+  /** @return the number of values delivered, the others having been superseded before a frame */
+  public synchronized long getDeliveredCount() {
+    return deliveredCount;
+  }
+
+  /** @return the number of frames that delivered values */
+  public synchronized long getFrameCount() {
+    return frameCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "FrameDelivery{"
+        + "posted="
+        + postedCount
+        + ", delivered="
+        + deliveredCount
+        + ", frames="
+        + frameCount
+        + '}';
+  }
+
+  private synchronized void markDirty(Slot<?> slot) {
+    postedCount++;
+    dirtySlots.add(slot);
+    if (!frameScheduled) {
+      frameScheduled = true;
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        scheduleFrame.run();
+      } else {
+        mainHandler.post(scheduleFrame);
+      }
+    }
+  }
+
+  private synchronized void countSuperseded() {
+    postedCount++;
+  }
+
+  private synchronized void countDelivered() {
+    deliveredCount++;
+  }
+
+  /** Holds the latest value of one stream until the next frame */
+  public final class Slot<T> {
+    private final Consumer<T> consumer;
+    private T value;
+    private boolean pending = false;
+    private boolean cancelled = false;
+
+    private Slot(Consumer<T> consumer) {
+      this.consumer = consumer;
+    }
+
+    /** Sets the value to deliver at the next frame, replacing any value not delivered yet */
+    public void post(T value) {
+      boolean wasPending;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        this.value = value;
+        wasPending = pending;
+        pending = true;
+      }
+      if (wasPending) {
+        countSuperseded();
+      } else {
+        markDirty(this);
+      }
+    }
+
+    /** Drops any pending value and ignores later ones, e.g. when the View goes away */
+    public synchronized void cancel() {
+      cancelled = true;
+      pending = false;
+      value = null;
+    }
+
+    private void deliver() {
+      T latest;
+      synchronized (this) {
+        if (!pending) {
+          return;
+        }
+        latest = value;
+        value = null;
+        pending = false;
+      }
+      countDelivered();
+      try {
+        consumer.accept(latest);
+      } catch (Throwable t) {
+        Log.e(TAG, "Slot::Caught an unhandled Throwable from the client: " + t);
+      }
+    }
+  }
+}
@@ -14,6 +14,7 @@
 package com.matter.casting.support;
 
 import android.util.Log;
+import com.matter.casting.core.CastingApp;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,7 +26,7 @@ import java.util.List;
 public class IdentificationDeclarationOptions {
   private final String TAG = IdentificationDeclarationOptions.class.getSimpleName();
   private final short CHIP_DEVICE_CONFIG_UDC_MAX_TARGET_APPS =
-      getChipDeviceConfigUdcMaxTargetApps();
+      CastingApp.getInstance().getBackend().getUdcMaxTargetApps();
 
   /** Default constructor. */
   public IdentificationDeclarationOptions() {}
@@ -56,9 +57,9 @@ public class IdentificationDeclarationOptions {
    * @brief Gets the maximum number of Target Content Apps that can be added to the
    *     IdentificationDeclarationOptions.java TargetAppInfo list from
    *     connectedhomeip/examples/tv-casting-app/tv-casting-common/include/CHIPProjectAppConfig.h.
-   *     See this file for details.
+   *     See this file for details. The CastingApp reads it through its CastingBackend.
    */
-  private native short getChipDeviceConfigUdcMaxTargetApps();
+  public static native short getChipDeviceConfigUdcMaxTargetApps();
 
   /**
    * Feature: Target Content Application - Flag to instruct the Commissioner not to display a
@@ -0,0 +1,492 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import chip.platform.KeyValueStoreManager;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A chip.platform.KeyValueStoreManager backed by an append-only journal file. Writes append only
+ * the changed entries, as checksummed records, so a write costs O(change) instead of a rewrite of
+ * the whole store. A record torn by a crash fails its checksum, or its parsing, and is discarded
+ * with everything after it when the journal is next loaded.
+ *
+ * <p>Writes are applied in memory right away, and group committed: the writes made within
+ * FLUSH_DELAY_MS are appended together as a single record, and synced to disk, on a background
+ * thread, so that the Matter thread never waits for the disk. A group is thus replayed whole or
+ * not at all. flush() is the durability barrier, which the native layer calls once commissioning
+ * completes and when a fabric changes.
+ *
+ * <p>The journal is loaded on first access rather than at construction. journalLock is always
+ * taken before the monitor of the store, never while holding it. When it grows past
+ * COMPACTION_MIN_BYTES and is more than twice the size of the live entries, it is compacted into a
+ * single record. Entries stored by chip.platform.PreferencesKeyValueStoreManager are imported the
+ * first time the journal is created.
+ */
+public class JournaledKeyValueStoreManager implements KeyValueStoreManager, Flushable {
+  private static final String TAG = JournaledKeyValueStoreManager.class.getSimpleName();
+
+  /** Name of the SharedPreferences file used by chip.platform.PreferencesKeyValueStoreManager */
+  private static final String LEGACY_PREFERENCE_FILE_KEY = "chip.platform.KeyValueStore";
+
+  private static final String JOURNAL_FILE_NAME = "chip.platform.KeyValueStore.journal";
+  private static final int MAGIC = 0x4d4b5653; // "MKVS"
+  private static final short VERSION = 1;
+  private static final int HEADER_BYTES = 6;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final long COMPACTION_MIN_BYTES = 64 * 1024;
+  private static final long FLUSH_DELAY_MS = 100;
+
+  private static final byte OP_SET = 1;
+  private static final byte OP_DELETE = 2;
+
+  private final Context context;
+  private final File journalFile;
+
+  // guarded by this
+  private final Map<String, String> entries = new HashMap<>();
+  /** The encoded size of the live entries, to compare with that of the journal */
+  private long liveBytes = 0;
+  /** The keys and values, null for a delete, of the writes not yet appended to the journal */
+  private final List<String> pendingKeys = new ArrayList<>();
+  private final List<String> pendingValues = new ArrayList<>();
+  private boolean flushScheduled = false;
+
+  /** Serializes loading and writing the journal, which are done outside of the monitor */
+  private final Object journalLock = new Object();
+  // written with journalLock and the monitor held
+  private volatile boolean loaded = false;
+  // guarded by journalLock, once loaded
+  private FileChannel journal;
+  private long journalBytes = 0;
+
+  private final ScheduledExecutorService flushExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public JournaledKeyValueStoreManager(Context context) {
+    this.context = context;
+    this.journalFile = new File(context.getFilesDir(), JOURNAL_FILE_NAME);
+  }
+
+  @Override
+  public String get(String key) {
+    ensureLoaded();
+    synchronized (this) {
+      return entries.get(key);
+    }
+  }
+
+  @Override
+  public void set(String key, String value) {
+    write(key, value);
+  }
+
+  @Override
+  public void delete(String key) {
+    write(key, null);
+  }
+
+  /** Loads the journal now, e.g. on a background thread during startup, not on first access */
+  public void preload() {
+    ensureLoaded();
+  }
+
+  /**
+   * Durability barrier: synchronously appends the pending writes to the journal, and syncs it.
+   * Called before the Matter stack is shut down, and by the native layer once commissioning
+   * completes and when a fabric changes.
+   */
+  @Override
+  public void flush() {
+    writePendingRecords();
+  }
+
+  // @param value null for a delete
+  private void write(String key, String value) {
+    ensureLoaded();
+    synchronized (this) {
+      apply(key, value);
+      pendingKeys.add(key);
+      pendingValues.add(value);
+      if (!flushScheduled) {
+        flushScheduled = true;
+        flushExecutor.schedule(this::writePendingRecords, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void apply(String key, String value) {
+    String previous = value != null ? entries.put(key, value) : entries.remove(key);
+    if (previous != null) {
+      liveBytes -= entryBytes(key, previous);
+    }
+    if (value != null) {
+      liveBytes += entryBytes(key, value);
+    }
+  }
+
+  /**
+   * Appends the pending writes to the journal as a single record, with a single sync, then compacts
+   * it if needed
+   */
+  private void writePendingRecords() {
+    synchronized (journalLock) {
+      List<String> keys;
+      List<String> values;
+      synchronized (this) {
+        flushScheduled = false;
+        if (pendingKeys.isEmpty()) {
+          return;
+        }
+        keys = new ArrayList<>(pendingKeys);
+        values = new ArrayList<>(pendingValues);
+        pendingKeys.clear();
+        pendingValues.clear();
+      }
+
+      try {
+        append(encodeRecord(keys, values));
+      } catch (IOException e) {
+        Log.e(TAG, "Failed to append to " + journalFile + ", will retry on the next write: " + e);
+        synchronized (this) {
+          pendingKeys.addAll(0, keys);
+          pendingValues.addAll(0, values);
+        }
+        return;
+      }
+
+      List<String> liveKeys = null;
+      List<String> liveValues = null;
+      synchronized (this) {
+        if (journalBytes > COMPACTION_MIN_BYTES && journalBytes > 2 * liveBytes) {
+          // writes applied since are still pending, and are appended to the compacted journal
+          liveKeys = new ArrayList<>(entries.keySet());
+          liveValues = new ArrayList<>(liveKeys.size());
+          for (String key : liveKeys) {
+            liveValues.add(entries.get(key));
+          }
+        }
+      }
+      if (liveKeys != null) {
+        compact(liveKeys, liveValues);
+      }
+    }
+  }
+
+  /** Loads the journal, unless it is already. Called without holding the monitor. */
+  private void ensureLoaded() {
+    if (loaded) {
+      return;
+    }
+    synchronized (journalLock) {
+      synchronized (this) {
+        if (!loaded) {
+          loaded = true;
+          open();
+        }
+      }
+    }
+  }
+
+  private void open() {
+    try {
+      SharedPreferences legacyPreferences = null;
+      if (!journalFile.exists()) {
+        legacyPreferences =
+            context.getSharedPreferences(LEGACY_PREFERENCE_FILE_KEY, Context.MODE_PRIVATE);
+        createJournal(legacyPreferences.getAll());
+      }
+
+      journal =
+          FileChannel.open(journalFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+      load();
+
+      if (legacyPreferences != null && !entries.isEmpty()) {
+        // the imported entries are now safely in the journal
+        legacyPreferences.edit().clear().commit();
+        Log.i(TAG, "Imported " + entries.size() + " entries from " + LEGACY_PREFERENCE_FILE_KEY);
+      }
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to open " + journalFile + ", entries will not be persisted: " + e);
+    }
+  }
+
+  /** Replays the journal, and truncates it after the last intact record. */
+  private void load() throws IOException {
+    ByteBuffer buffer = journal.map(FileChannel.MapMode.READ_ONLY, 0, journal.size());
+    if (buffer.remaining() < HEADER_BYTES
+        || buffer.getInt() != MAGIC
+        || buffer.getShort() != VERSION) {
+      Log.e(TAG, "Discarding " + journalFile + ", unknown format");
+      journal.truncate(0);
+      journal.position(0);
+      writeHeader(journal);
+      journalBytes = HEADER_BYTES;
+      return;
+    }
+
+    CRC32 crc = new CRC32();
+    long validBytes = HEADER_BYTES;
+    List<String> keys = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length < 4 || length > buffer.remaining()) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(payload);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      // a record is parsed whole before it is applied, so a malformed one is not applied in part
+      keys.clear();
+      values.clear();
+      if (!parseRecord(ByteBuffer.wrap(payload), keys, values)) {
+        break;
+      }
+      for (int i = 0; i < keys.size(); i++) {
+        apply(keys.get(i), values.get(i));
+      }
+      validBytes += RECORD_HEADER_BYTES + length;
+    }
+
+    if (validBytes < journal.size()) {
+      Log.w(TAG, "Discarding a torn record at the end of " + journalFile);
+      journal.truncate(validBytes);
+    }
+    journalBytes = validBytes;
+    journal.position(validBytes);
+  }
+
+  /**
+   * Parses the operations of a record payload
+   *
+   * @return false if the payload is malformed
+   */
+  private static boolean parseRecord(ByteBuffer payload, List<String> keys, List<String> values) {
+    try {
+      int count = payload.getInt();
+      if (count < 0) {
+        return false;
+      }
+      for (int i = 0; i < count; i++) {
+        byte op = payload.get();
+        if (op != OP_SET && op != OP_DELETE) {
+          return false;
+        }
+        keys.add(readString(payload));
+        values.add(op == OP_SET ? readString(payload) : null);
+      }
+      return !payload.hasRemaining();
+    } catch (BufferUnderflowException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates the journal, holding the entries stored by chip.platform.PreferencesKeyValueStoreManager
+   * if there are any. The journal is written to a temporary file first, so it only appears once
+   * complete.
+   */
+  private void createJournal(Map<String, ?> legacyEntries) throws IOException {
+    List<String> keys = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    for (Map.Entry<String, ?> entry : legacyEntries.entrySet()) {
+      if (entry.getValue() instanceof String) {
+        keys.add(entry.getKey());
+        values.add((String) entry.getValue());
+      }
+    }
+    writeJournal(keys, values);
+  }
+
+  /** Rewrites the journal as a single record holding the live entries */
+  private void compact(List<String> keys, List<String> values) {
+    try {
+      long compactedBytes = writeJournal(keys, values);
+      journal.close();
+      journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+      journal.position(compactedBytes);
+      journalBytes = compactedBytes;
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to compact " + journalFile + ": " + e);
+    }
+  }
+
+  /**
+   * Atomically replaces the journal with one holding a single record of the given entries
+   *
+   * @return the size of the new journal
+   */
+  private long writeJournal(List<String> keys, List<String> values) throws IOException {
+    File tmpFile = new File(journalFile.getPath() + ".tmp");
+    long size;
+    try (FileChannel channel =
+        FileChannel.open(
+            tmpFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      writeHeader(channel);
+      ByteBuffer record = encodeRecord(keys, values);
+      size = HEADER_BYTES + record.remaining();
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      tmpFile.delete();
+      throw e;
+    }
+
+    if (!tmpFile.renameTo(journalFile)) {
+      tmpFile.delete();
+      throw new IOException("Failed to rename " + tmpFile + " to " + journalFile);
+    }
+    return size;
+  }
+
+  /** Appends the record, then syncs the journal */
+  private void append(ByteBuffer record) throws IOException {
+    if (journal == null) {
+      throw new IOException("journal not open");
+    }
+    long start = journal.position();
+    try {
+      while (record.hasRemaining()) {
+        journal.write(record);
+      }
+      journal.force(false);
+    } catch (IOException e) {
+      // drop the partial record, so later records are not appended after it
+      journal.truncate(start);
+      journal.position(start);
+      throw e;
+    }
+    journalBytes = journal.position();
+  }
+
+  private static void writeHeader(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).putShort(VERSION).flip();
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+  }
+
+  /** Encodes a record: payload length, CRC32 of payload, then the payload */
+  private static ByteBuffer encodeRecord(List<String> keys, List<String> values) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0); // length, filled in below
+      out.writeInt(0); // checksum, filled in below
+      out.writeInt(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        String value = values.get(i);
+        out.writeByte(value != null ? OP_SET : OP_DELETE);
+        writeString(out, keys.get(i));
+        if (value != null) {
+          writeString(out, value);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // not thrown by ByteArrayOutputStream
+    }
+
+    ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+    int length = record.remaining() - RECORD_HEADER_BYTES;
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), RECORD_HEADER_BYTES, length);
+    record.putInt(0, length);
+    record.putInt(4, (int) crc.getValue());
+    return record;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** The size of an entry as encoded in a compacted journal: op, then key and value strings */
+  private static long entryBytes(String key, String value) {
+    return 1 + 4 + utf8Length(key) + 4 + utf8Length(value);
+  }
+
+  /** The length of a string encoded as UTF-8, as String.getBytes() would return, without it */
+  private static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length += 1; // a lone surrogate is encoded as '?'
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
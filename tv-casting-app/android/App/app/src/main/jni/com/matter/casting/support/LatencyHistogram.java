@@ -0,0 +1,187 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts latencies, in microseconds, in the manner of HdrHistogram: values below
+ * 64us are counted exactly, and each power of two above that is split into 32 buckets, so that a
+ * recorded value is known to within about 3%. The whole range, up to about 19 hours, fits in a
+ * fixed array of counts. Recording is lock free and does not allocate, so it is cheap enough for
+ * the Matter thread.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // values from 2^MAX_MAGNITUDE microseconds up are counted in the last bucket
+  private static final int MAX_MAGNITUDE = 36;
+  private static final int BUCKET_COUNT =
+      SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong minMicros = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /** Records a latency given in nanoseconds, e.g. the difference of two System.nanoTime() */
+  public void recordNanos(long latencyNanos) {
+    recordMicros(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+  }
+
+  /** Records a latency given in microseconds. Negative latencies are recorded as 0. */
+  public void recordMicros(long latencyMicros) {
+    long value = Math.max(0, latencyMicros);
+    counts.incrementAndGet(bucketIndex(value));
+    totalMicros.addAndGet(value);
+    long min;
+    while (value < (min = minMicros.get()) && !minMicros.compareAndSet(min, value)) {}
+    long max;
+    while (value > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, value)) {}
+  }
+
+  /** Clears all recorded latencies */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    totalMicros.set(0);
+    minMicros.set(Long.MAX_VALUE);
+    maxMicros.set(0);
+  }
+
+  /**
+   * @return a consistent view of the latencies recorded so far. Latencies recorded while the
+   *     snapshot is taken may or may not be in it.
+   */
+  public Snapshot snapshot() {
+    long[] snapshotCounts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshotCounts[i] = counts.get(i);
+      count += snapshotCounts[i];
+    }
+    long min = minMicros.get();
+    return new Snapshot(
+        snapshotCounts, count, min == Long.MAX_VALUE ? 0 : min, maxMicros.get(), totalMicros.get());
+  }
+
+  @Override
+  public String toString() {
+    return snapshot().toString();
+  }
+
+  private static int bucketIndex(long value) {
+    if (value < 2 * SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude >= MAX_MAGNITUDE) {
+      return BUCKET_COUNT - 1;
+    }
+    int shift = magnitude - SUB_BUCKET_BITS;
+    // the bits following the leading one pick the sub-bucket
+    int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /** @return the highest value counted in the bucket */
+  private static long bucketUpperBound(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+    int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+    return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+  }
+
+  /** The latencies recorded in a LatencyHistogram at a point in time, in microseconds */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long min;
+    private final long max;
+    private final long total;
+
+    private Snapshot(long[] counts, long count, long min, long max, long total) {
+      this.counts = counts;
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.total = total;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMinMicros() {
+      return min;
+    }
+
+    public long getMaxMicros() {
+      return max;
+    }
+
+    public long getMeanMicros() {
+      return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99 for the p99
+     * @return the latency that the given percentage of recorded latencies are at or below, to
+     *     within the precision of the histogram, or 0 if none were recorded
+     */
+    public long getPercentileMicros(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.max(min, Math.min(bucketUpperBound(i), max));
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "Snapshot{"
+          + "count="
+          + count
+          + ", minUs="
+          + min
+          + ", p50Us="
+          + getPercentileMicros(50)
+          + ", p90Us="
+          + getPercentileMicros(90)
+          + ", p99Us="
+          + getPercentileMicros(99)
+          + ", maxUs="
+          + max
+          + ", meanUs="
+          + getMeanMicros()
+          + '}';
+    }
+  }
+}
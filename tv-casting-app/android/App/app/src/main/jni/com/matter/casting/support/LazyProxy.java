@@ -0,0 +1,216 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LazyProxy stands in for the implementation of an interface that is costly to create and may
+ * never be used, such as the BleManager of the AndroidChipPlatform. The implementation is created
+ * by the factory on the first call made through the proxy. Calls to the deferred methods, e.g. the
+ * setter through which the platform registers itself, do not create it: they are recorded, and
+ * replayed on the implementation once it is created. A deferred method that returns a value, e.g.
+ * the init() the Matter stack calls at startup, returns the result given for it instead, which must
+ * be what the implementation would return.
+ *
+ * <p>The factory runs without the proxy locked, so that calls to deferred methods made meanwhile
+ * from other threads are recorded rather than blocked. Other calls wait for the implementation.
+ */
+public final class LazyProxy<T> implements InvocationHandler {
+  private final Class<T> type;
+  private final Supplier<? extends T> factory;
+  // the result each deferred method returns until the implementation is created
+  private final Map<String, Object> deferredMethods;
+  private final List<Object[]> deferredCalls = new ArrayList<>();
+  private final List<Method> deferredCallMethods = new ArrayList<>();
+  private T target;
+  // the thread running the factory, if any
+  private Thread creatingThread;
+
+  private LazyProxy(Builder<T> builder) {
+    this.type = builder.type;
+    this.factory = builder.factory;
+    this.deferredMethods = new HashMap<>(builder.deferredMethods);
+  }
+
+  public static final class Builder<T> {
+    private final Class<T> type;
+    private final Supplier<? extends T> factory;
+    private final Map<String, Object> deferredMethods = new HashMap<>();
+
+    private Builder(Class<T> type, Supplier<? extends T> factory) {
+      this.type = type;
+      this.factory = factory;
+    }
+
+    /** Defers the calls to a method returning void */
+    public Builder<T> defer(String method) {
+      return defer(method, null);
+    }
+
+    /**
+     * Defers the calls to a method, which return result until the implementation is created
+     *
+     * @param result what the implementation returns, null for a method returning void
+     */
+    public Builder<T> defer(String method, Object result) {
+      boolean found = false;
+      for (Method m : type.getMethods()) {
+        if (!m.getName().equals(method)) {
+          continue;
+        }
+        found = true;
+        Class<?> returnType = m.getReturnType();
+        if (returnType == void.class ? result != null : !isAssignable(returnType, result)) {
+          throw new IllegalArgumentException(
+              "Invalid result " + result + " for " + type.getSimpleName() + "." + method);
+        }
+      }
+      if (!found) {
+        throw new IllegalArgumentException("No method " + type.getSimpleName() + "." + method);
+      }
+      deferredMethods.put(method, result);
+      return this;
+    }
+
+    /** @return a proxy implementing type */
+    public T build() {
+      return type.cast(
+          Proxy.newProxyInstance(
+              type.getClassLoader(), new Class<?>[] {type}, new LazyProxy<>(this)));
+    }
+
+    private static boolean isAssignable(Class<?> returnType, Object result) {
+      if (!returnType.isPrimitive()) {
+        return result == null || returnType.isInstance(result);
+      }
+      // the default element of a primitive array is boxed in the primitive's wrapper class
+      return result != null
+          && Array.get(Array.newInstance(returnType, 1), 0).getClass() == result.getClass();
+    }
+  }
+
+  /**
+   * @param type the interface to implement
+   * @param factory creates the implementation, on the first call made through the proxy
+   * @return a Builder of a proxy implementing type
+   */
+  public static <T> Builder<T> builder(Class<T> type, Supplier<? extends T> factory) {
+    return new Builder<>(type, factory);
+  }
+
+  /**
+   * @param type the interface to implement
+   * @param factory creates the implementation, on the first call made through the proxy
+   * @param deferredMethods names of methods returning void that are replayed on the implementation
+   *     once it is created, instead of creating it
+   * @return a proxy implementing type
+   */
+  public static <T> T of(Class<T> type, Supplier<? extends T> factory, String... deferredMethods) {
+    Builder<T> builder = builder(type, factory);
+    for (String method : deferredMethods) {
+      builder.defer(method);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (method.getDeclaringClass() == Object.class) {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+          return toString();
+      }
+    }
+
+    synchronized (this) {
+      if (this.target == null && deferredMethods.containsKey(method.getName())) {
+        deferredCallMethods.add(method);
+        deferredCalls.add(args);
+        return deferredMethods.get(method.getName());
+      }
+    }
+    try {
+      return method.invoke(getTarget(), args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private T getTarget() throws Throwable {
+    synchronized (this) {
+      while (target == null && creatingThread != null) {
+        if (creatingThread == Thread.currentThread()) {
+          throw new IllegalStateException(
+              "The factory of the " + type.getSimpleName() + " called the LazyProxy");
+        }
+        wait();
+      }
+      if (target != null) {
+        return target;
+      }
+      creatingThread = Thread.currentThread();
+    }
+
+    T created;
+    try {
+      created = factory.get();
+    } catch (Throwable t) {
+      synchronized (this) {
+        creatingThread = null;
+        // wakes the other callers, which then run the factory themselves
+        notifyAll();
+      }
+      throw t;
+    }
+
+    synchronized (this) {
+      target = created;
+      creatingThread = null;
+      notifyAll();
+      for (int i = 0; i < deferredCalls.size(); i++) {
+        try {
+          deferredCallMethods.get(i).invoke(target, deferredCalls.get(i));
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+      deferredCallMethods.clear();
+      deferredCalls.clear();
+    }
+    return created;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "LazyProxy{" + "type=" + type.getSimpleName() + ", created=" + (target != null) + '}';
+  }
+}
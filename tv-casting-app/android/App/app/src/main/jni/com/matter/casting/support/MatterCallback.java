@@ -22,9 +22,36 @@ import android.util.Log;
 public abstract class MatterCallback<R> {
   private static final String TAG = MatterCallback.class.getSimpleName();
 
+  private final boolean handleOnCallingThread;
+
+  public MatterCallback() {
+    this(false);
+  }
+
+  /**
+   * @param handleOnCallingThread if true, handle() is called directly on the thread that delivers
+   *     the response (usually the Matter thread) instead of on the MatterCallbackDispatcher thread.
+   *     Only use this for trivial handlers, e.g. ones that just complete a future.
+   */
+  protected MatterCallback(boolean handleOnCallingThread) {
+    this.handleOnCallingThread = handleOnCallingThread;
+  }
+
   public abstract void handle(R response);
 
+  /**
+   * Delivers the response, on the MatterCallbackDispatcher thread unless handleOnCallingThread was
+   * set. Called by the CastingBackend: natively by the Matter stack, or by a Java backend.
+   */
   protected final void handleInternal(R response) {
+    if (handleOnCallingThread) {
+      handleSafely(response);
+      return;
+    }
+    MatterCallbackDispatcher.getInstance().dispatch(() -> handleSafely(response));
+  }
+
+  private void handleSafely(R response) {
     try {
       handle(response);
     } catch (Throwable t) {
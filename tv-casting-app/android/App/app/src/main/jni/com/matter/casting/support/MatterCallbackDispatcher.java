@@ -0,0 +1,224 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.util.Log;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MatterCallbackDispatcher moves client callbacks off the Matter event-loop thread. Callbacks are
+ * run in order on a single dispatch thread, so a slow client callback can never stall Matter I/O.
+ * High-rate events, such as subscription reports, can be coalesced per key so that only the latest
+ * pending value is delivered, which bounds the queue to one entry per key. Other callbacks, such as
+ * the completion of a command, are never dropped: the queue grows for them, and a warning is logged
+ * the first time it grows past BACKLOG_WARNING_DEPTH. This class is a singleton.
+ */
+public final class MatterCallbackDispatcher {
+  private static final String TAG = MatterCallbackDispatcher.class.getSimpleName();
+  private static final int BACKLOG_WARNING_DEPTH = 512;
+  private static final String QUEUED_TRACE_SECTION = "MatterCallbackDispatcher queued";
+  private static final String RUN_TRACE_SECTION = "MatterCallbackDispatcher run";
+
+  private static MatterCallbackDispatcher sInstance;
+
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentHashMap<Object, Runnable> pendingLatest = new ConcurrentHashMap<>();
+  private volatile Thread dispatchThread;
+
+  private final AtomicLong dispatchedCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong totalDispatchLatencyNanos = new AtomicLong();
+  private final AtomicLong maxDispatchLatencyNanos = new AtomicLong();
+  private final AtomicLong maxQueueDepth = new AtomicLong();
+
+  private MatterCallbackDispatcher() {
+    executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, TAG);
+              thread.setDaemon(true);
+              dispatchThread = thread;
+              return thread;
+            });
+  }
+
+  public static synchronized MatterCallbackDispatcher getInstance() {
+    if (sInstance == null) {
+      sInstance = new MatterCallbackDispatcher();
+    }
+    return sInstance;
+  }
+
+  /** @return true if the caller is running on the dispatch thread. */
+  public boolean isDispatchThread() {
+    return Thread.currentThread() == dispatchThread;
+  }
+
+  /**
+   * Queues a callback to be run on the dispatch thread. Callbacks are run in the order they were
+   * queued. If called from the dispatch thread itself, the callback is run immediately, which
+   * preserves ordering and avoids re-queueing callbacks that fan out to other callbacks.
+   *
+   * @param callback the callback to run.
+   */
+  public void dispatch(Runnable callback) {
+    if (isDispatchThread()) {
+      callback.run();
+      return;
+    }
+    enqueue(callback);
+  }
+
+  // @return false if the executor rejected the callback, which it only does once shut down
+  private boolean enqueue(Runnable callback) {
+    final long enqueuedAtNanos = System.nanoTime();
+    // links the thread queueing the callback, usually the Matter thread, to the dispatch thread
+    final int traceCookie = Tracing.beginAsyncSection(QUEUED_TRACE_SECTION);
+    try {
+      executor.execute(
+          () -> {
+            recordDispatchLatency(System.nanoTime() - enqueuedAtNanos);
+            Tracing.endAsyncSection(QUEUED_TRACE_SECTION, traceCookie);
+            Tracing.beginSection(RUN_TRACE_SECTION);
+            try {
+              callback.run();
+            } finally {
+              Tracing.endSection();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      Tracing.endAsyncSection(QUEUED_TRACE_SECTION, traceCookie);
+      Log.e(TAG, "dispatch() callback rejected: " + e);
+      return false;
+    }
+    updateMaxQueueDepth(executor.getQueue().size());
+    return true;
+  }
+
+  /**
+   * Queues a callback that supersedes any callback still pending for the same key. Use this for
+   * high-rate events such as subscription reports, where only the latest value is of interest.
+   *
+   * @param key identifies the stream of events, e.g. the client callback object.
+   * @param callback the callback to run.
+   */
+  public void dispatchLatest(Object key, Runnable callback) {
+    if (isDispatchThread()) {
+      callback.run();
+      return;
+    }
+
+    if (pendingLatest.put(key, callback) != null) {
+      // a callback for this key is already queued, and will now run this newer one instead
+      coalescedCount.incrementAndGet();
+      return;
+    }
+
+    boolean queued =
+        enqueue(
+            () -> {
+              Runnable latest = pendingLatest.remove(key);
+              if (latest != null) {
+                latest.run();
+              }
+            });
+    if (!queued) {
+      // otherwise every later event of this key would be coalesced into a callback never run
+      pendingLatest.remove(key);
+    }
+  }
+
+  /** @return the number of callbacks currently waiting to be dispatched. */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /** @return the highest number of callbacks observed waiting to be dispatched. */
+  public long getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  /** @return the number of callbacks run by the dispatch thread. */
+  public long getDispatchedCount() {
+    return dispatchedCount.get();
+  }
+
+  /** @return the number of callbacks superseded by a newer one with the same key. */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /** @return the average time, in nanoseconds, that a callback spent queued before running. */
+  public long getAverageDispatchLatencyNanos() {
+    long dispatched = dispatchedCount.get();
+    return dispatched == 0 ? 0 : totalDispatchLatencyNanos.get() / dispatched;
+  }
+
+  /** @return the longest time, in nanoseconds, that a callback spent queued before running. */
+  public long getMaxDispatchLatencyNanos() {
+    return maxDispatchLatencyNanos.get();
+  }
+
+  private void recordDispatchLatency(long latencyNanos) {
+    dispatchedCount.incrementAndGet();
+    totalDispatchLatencyNanos.addAndGet(latencyNanos);
+    long max;
+    while (latencyNanos > (max = maxDispatchLatencyNanos.get())
+        && !maxDispatchLatencyNanos.compareAndSet(max, latencyNanos)) {}
+  }
+
+  private void updateMaxQueueDepth(long depth) {
+    long max;
+    while (depth > (max = maxQueueDepth.get())) {
+      if (maxQueueDepth.compareAndSet(max, depth)) {
+        if (max < BACKLOG_WARNING_DEPTH && depth >= BACKLOG_WARNING_DEPTH) {
+          Log.w(TAG, "dispatch() " + depth + " callbacks queued, the client is falling behind");
+        }
+        return;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MatterCallbackDispatcher{"
+        + "queueDepth="
+        + getQueueDepth()
+        + ", maxQueueDepth="
+        + getMaxQueueDepth()
+        + ", dispatched="
+        + getDispatchedCount()
+        + ", coalesced="
+        + getCoalescedCount()
+        + ", avgDispatchLatencyUs="
+        + TimeUnit.NANOSECONDS.toMicros(getAverageDispatchLatencyNanos())
+        + ", maxDispatchLatencyUs="
+        + TimeUnit.NANOSECONDS.toMicros(getMaxDispatchLatencyNanos())
+        + '}';
+  }
+}
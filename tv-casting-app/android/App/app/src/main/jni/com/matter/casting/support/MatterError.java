@@ -31,6 +31,9 @@ public class MatterError {
   public static final MatterError CHIP_ERROR_INCORRECT_STATE =
       new MatterError(0x03, "CHIP_ERROR_INCORRECT_STATE");
 
+  public static final MatterError CHIP_ERROR_NOT_IMPLEMENTED =
+      new MatterError(0x2d, "CHIP_ERROR_NOT_IMPLEMENTED");
+
   public MatterError(long errorCode, String errorMessage) {
     this.errorCode = errorCode;
     this.errorMessage = errorMessage;
@@ -0,0 +1,242 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MetricsRegistry holds the counters and LatencyHistograms of the casting app, by name. Latencies
+ * measured in the native layer, such as those of cluster commands and of connecting to a
+ * CastingPlayer, are buffered there and recorded here in batches, through
+ * recordLatenciesFromNative(). The latencies of the commands sent through ChipClusters are recorded
+ * by their response callbacks, through a CommandTimer. The metrics can be read with getHistograms()
+ * and getCounters(), which first take in the latencies still buffered natively, and are printed by
+ * dump(), e.g. from `adb shell dumpsys activity service MatterKeepAliveService`. This class is a
+ * singleton.
+ */
+public final class MetricsRegistry {
+  /**
+   * Latency of a cluster command, from send to response, followed by "Cluster.Command", e.g.
+   * "KeypadInput.SendKey", or by "0xCLUSTER.0xCOMMAND" for the commands sent by tv-casting-common
+   */
+  public static final String COMMAND_PREFIX = "command.";
+
+  /** Latency of connecting to a CastingPlayer, commissioning included if it was needed */
+  public static final String CONNECTION_TOTAL = "connection.total";
+
+  /** Latency of commissioning, from the UDC request to the end of commissioning */
+  public static final String CONNECTION_COMMISSIONING = "connection.commissioning";
+
+  /** Latency from the UDC request to the CastingPlayer's CommissionerDeclaration */
+  public static final String CONNECTION_COMMISSIONER_DECLARATION =
+      "connection.commissioner_declaration";
+
+  /** Latency of CASE session establishment with a commissioned CastingPlayer */
+  public static final String CONNECTION_CASE = "connection.case";
+
+  /**
+   * Time from the start of discovery to each CastingPlayer being added. It includes the time until
+   * the CastingPlayer advertised itself, so it is not the time its DNS-SD resolution took.
+   */
+  public static final String DISCOVERY_TIME_TO_ADDED = "discovery.time_to_added";
+
+  /** Time between reports of a subscription, followed by "0xCLUSTER.0xATTRIBUTE" */
+  public static final String SUBSCRIPTION_REPORT_INTERVAL_PREFIX = "subscription.report_interval.";
+
+  /** Time the Matter thread spends in a JNI upcall delivering a MatterCallback */
+  public static final String JNI_UPCALL = "jni.upcall";
+
+  /** Suffix of the counters of failed operations, e.g. "command.KeypadInput.SendKey.errors" */
+  public static final String ERRORS_SUFFIX = ".errors";
+
+  private static MetricsRegistry sInstance;
+
+  private final ConcurrentHashMap<String, LatencyHistogram> histograms =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+  // the names of the latencies recorded natively, by the ids recordLatenciesFromNative() gets
+  private static final ArrayList<String> nativeNames = new ArrayList<>();
+
+  private MetricsRegistry() {}
+
+  public static synchronized MetricsRegistry getInstance() {
+    if (sInstance == null) {
+      sInstance = new MetricsRegistry();
+    }
+    return sInstance;
+  }
+
+  /** @return the histogram of the given name, created empty if there was none */
+  public LatencyHistogram histogram(String name) {
+    LatencyHistogram histogram = histograms.get(name);
+    return histogram != null
+        ? histogram
+        : histograms.computeIfAbsent(name, unused -> new LatencyHistogram());
+  }
+
+  /** Records a latency, e.g. the difference of two System.nanoTime(), in the named histogram */
+  public void recordLatencyNanos(String name, long latencyNanos) {
+    histogram(name).recordNanos(latencyNanos);
+  }
+
+  /** Adds delta to the named counter */
+  public void increment(String name, long delta) {
+    AtomicLong counter = counters.get(name);
+    if (counter == null) {
+      counter = counters.computeIfAbsent(name, unused -> new AtomicLong());
+    }
+    counter.addAndGet(delta);
+  }
+
+  public void increment(String name) {
+    increment(name, 1);
+  }
+
+  /** @return the value of the named counter, 0 if it was never incremented */
+  public long getCounter(String name) {
+    AtomicLong counter = counters.get(name);
+    return counter == null ? 0 : counter.get();
+  }
+
+  /** @return a snapshot of every histogram, sorted by name */
+  public Map<String, LatencyHistogram.Snapshot> getHistograms() {
+    flushNativeLatencies();
+    Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+    for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+      snapshots.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return snapshots;
+  }
+
+  /** @return the value of every counter, sorted by name */
+  public Map<String, Long> getCounters() {
+    flushNativeLatencies();
+    Map<String, Long> values = new TreeMap<>();
+    for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+      values.put(entry.getKey(), entry.getValue().get());
+    }
+    return values;
+  }
+
+  /** Clears every histogram and counter */
+  public void reset() {
+    flushNativeLatencies();
+    for (LatencyHistogram histogram : histograms.values()) {
+      histogram.reset();
+    }
+    for (AtomicLong counter : counters.values()) {
+      counter.set(0);
+    }
+  }
+
+  /** Prints every histogram, with latencies in milliseconds, then every counter */
+  public void dump(PrintWriter writer) {
+    writer.println("Latencies (ms):");
+    writer.println(
+        String.format(
+            Locale.US,
+            "  %-48s %8s %9s %9s %9s %9s %9s %9s",
+            "name",
+            "count",
+            "min",
+            "p50",
+            "p90",
+            "p99",
+            "max",
+            "mean"));
+    for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getHistograms().entrySet()) {
+      LatencyHistogram.Snapshot snapshot = entry.getValue();
+      writer.println(
+          String.format(
+              Locale.US,
+              "  %-48s %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f",
+              entry.getKey(),
+              snapshot.getCount(),
+              snapshot.getMinMicros() / 1000.0,
+              snapshot.getPercentileMicros(50) / 1000.0,
+              snapshot.getPercentileMicros(90) / 1000.0,
+              snapshot.getPercentileMicros(99) / 1000.0,
+              snapshot.getMaxMicros() / 1000.0,
+              snapshot.getMeanMicros() / 1000.0));
+    }
+    writer.println("Counters:");
+    for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+      writer.println(String.format(Locale.US, "  %-48s %8d", entry.getKey(), entry.getValue()));
+    }
+  }
+
+  /**
+   * Records the latency of a cluster command, and counts it as failed if it did not succeed.
+   *
+   * @param command e.g. "KeypadInput.SendKey"
+   */
+  public void recordCommandLatencyNanos(String command, long latencyNanos, boolean success) {
+    String name = COMMAND_PREFIX + command;
+    recordLatencyNanos(name, latencyNanos);
+    if (!success) {
+      increment(name + ERRORS_SUFFIX);
+    } else {
+      StartupTrace.getInstance().mark(StartupTrace.Phase.FIRST_COMMAND);
+    }
+  }
+
+  // takes in the latencies still buffered by the native layer, if it is loaded
+  private static void flushNativeLatencies() {
+    if (NativeLibrary.isLoaded()) {
+      flushNativeLatenciesNative();
+    }
+  }
+
+  private static native void flushNativeLatenciesNative();
+
+  /**
+   * Called by the native layer with a batch of latencies measured there, from the Matter thread or
+   * from a thread reading the metrics.
+   *
+   * @param newNames the names the batch introduces, whose ids follow those of the previous batches
+   * @param nameIds the id of the name of each latency
+   * @param latenciesMicros each latency
+   * @param successes whether each operation succeeded, or is to be counted as failed
+   */
+  static synchronized void recordLatenciesFromNative(
+      String[] newNames, int[] nameIds, long[] latenciesMicros, boolean[] successes) {
+    Collections.addAll(nativeNames, newNames);
+    MetricsRegistry registry = getInstance();
+    for (int i = 0; i < nameIds.length; i++) {
+      if (nameIds[i] < 0 || nameIds[i] >= nativeNames.size()) {
+        // the batch that introduced the name was lost
+        continue;
+      }
+      String name = nativeNames.get(nameIds[i]);
+      registry.histogram(name).recordMicros(latenciesMicros[i]);
+      if (!successes[i]) {
+        registry.increment(name + ERRORS_SUFFIX);
+      } else if (name.startsWith(COMMAND_PREFIX)) {
+        StartupTrace.getInstance().mark(StartupTrace.Phase.FIRST_COMMAND);
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+/**
+ * NativeLibrary loads the native TvCastingApp library, once per process. The first call to load()
+ * loads it, ideally early and on a background thread, e.g. from Application.onCreate(); any other
+ * call waits for that load to complete, then returns right away.
+ */
+public final class NativeLibrary {
+  public static final String NAME = "TvCastingApp";
+
+  private static volatile boolean loaded = false;
+
+  private NativeLibrary() {}
+
+  public static void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (NativeLibrary.class) {
+      if (loaded) {
+        return;
+      }
+      try (StartupTrace.Section section =
+          StartupTrace.getInstance().begin(StartupTrace.Phase.LOAD_NATIVE_LIBRARY)) {
+        System.loadLibrary(NAME);
+      }
+      loaded = true;
+    }
+  }
+
+  public static boolean isLoaded() {
+    return loaded;
+  }
+}
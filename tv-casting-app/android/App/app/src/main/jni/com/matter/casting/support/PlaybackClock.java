@@ -0,0 +1,243 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import chip.devicecontroller.ChipStructs;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaybackClock estimates the current playback position of a CastingPlayer locally, from sparse
+ * reports of the MediaPlayback cluster's SampledPosition, PlaybackSpeed and CurrentState
+ * attributes. A UI can call getPositionMs() on every frame to drive a smooth scrub bar, while
+ * subscribing to SampledPosition with a long max interval.
+ *
+ * <p>Each new sample is compared with the position predicted for it. While playing, small errors
+ * are slewed out over at least CORRECTION_WINDOW_MS, and slowly enough that the displayed position
+ * never runs backwards. Errors larger than SNAP_THRESHOLD_MS, e.g. after a seek, are applied at
+ * once.
+ *
+ * <p>This class is thread safe: samples are typically fed from Matter callbacks and the position
+ * is read from the UI thread.
+ */
+public class PlaybackClock {
+  /** Values of the MediaPlayback cluster's CurrentState attribute */
+  public static final int STATE_PLAYING = 0;
+
+  public static final int STATE_PAUSED = 1;
+  public static final int STATE_NOT_PLAYING = 2;
+  public static final int STATE_BUFFERING = 3;
+
+  static final long CORRECTION_WINDOW_MS = 500;
+  static final long SNAP_THRESHOLD_MS = 2000;
+
+  /** Longest time a sample is assumed to have been in flight, to bound clock skew with the TV */
+  static final long MAX_SAMPLE_AGE_MS = 2000;
+
+  /** Seconds from the Unix epoch, 1970-01-01, to the Matter epoch, 2000-01-01, both in UTC */
+  static final long MATTER_EPOCH_OFFSET_SEC = 946684800L;
+
+  private final Ticker ticker;
+
+  private boolean hasSample = false;
+  private long anchorPositionMs;
+  private long anchorTimeNanos;
+  private float speed = 1.0f;
+  private int state = STATE_NOT_PLAYING;
+  private Long durationMs;
+
+  private long correctionMs = 0;
+  private long correctionWindowMs = CORRECTION_WINDOW_MS;
+  private long sampleCount = 0;
+  private long lastDriftMs = 0;
+  private long maxDriftMs = 0;
+
+  /** Source of monotonic time, replaceable so that the interpolation can be driven in isolation */
+  interface Ticker {
+    long nanoTime();
+  }
+
+  public PlaybackClock() {
+    this(System::nanoTime);
+  }
+
+  PlaybackClock(Ticker ticker) {
+    this.ticker = ticker;
+  }
+
+  /** Feeds a report of the SampledPosition attribute */
+  public void onSampledPosition(ChipStructs.MediaPlaybackClusterPlaybackPositionStruct sample) {
+    onSampledPosition(sample, System.currentTimeMillis());
+  }
+
+  /** Feeds a report of the SampledPosition attribute received at nowMs, since the Unix epoch */
+  void onSampledPosition(
+      ChipStructs.MediaPlaybackClusterPlaybackPositionStruct sample, long nowMs) {
+    if (sample == null || sample.position == null) {
+      return;
+    }
+    onSampledPosition(sample.position, matterEpochUsToUnixMs(sample.updatedAt), nowMs);
+  }
+
+  /**
+   * @param epochUs a Matter epoch_us value, in microseconds since 2000-01-01, or 0 if unknown
+   * @return the same time in milliseconds since the Unix epoch, or 0 if unknown
+   */
+  static long matterEpochUsToUnixMs(long epochUs) {
+    if (epochUs <= 0) {
+      return 0;
+    }
+    return TimeUnit.MICROSECONDS.toMillis(epochUs)
+        + TimeUnit.SECONDS.toMillis(MATTER_EPOCH_OFFSET_SEC);
+  }
+
+  /**
+   * Feeds a position sample.
+   *
+   * @param positionMs the playback position, in milliseconds
+   * @param updatedAtMs when the TV took the sample, in milliseconds since the Unix epoch, or 0 if
+   *     unknown
+   * @param nowMs the local wall-clock time, in milliseconds since the Unix epoch
+   */
+  public synchronized void onSampledPosition(long positionMs, long updatedAtMs, long nowMs) {
+    long nowNanos = ticker.nanoTime();
+
+    // account for the time the sample spent in flight, as far as the two clocks can be trusted
+    long ageMs = updatedAtMs > 0 ? nowMs - updatedAtMs : 0;
+    ageMs = Math.max(0, Math.min(ageMs, MAX_SAMPLE_AGE_MS));
+    long samplePositionMs = positionMs + (isAdvancing() ? (long) (ageMs * speed) : 0);
+
+    if (hasSample) {
+      long predictedMs = estimate(nowNanos);
+      long driftMs = predictedMs - samplePositionMs;
+      lastDriftMs = driftMs;
+      maxDriftMs = Math.max(maxDriftMs, Math.abs(driftMs));
+      correctionMs = 0;
+      if (isAdvancing() && speed > 0 && Math.abs(driftMs) < SNAP_THRESHOLD_MS) {
+        // slew at no more than half the playback speed, so the position keeps moving forward
+        correctionMs = driftMs;
+        correctionWindowMs = Math.max(CORRECTION_WINDOW_MS, (long) (2 * Math.abs(driftMs) / speed));
+      }
+    }
+
+    anchor(samplePositionMs, nowNanos);
+    hasSample = true;
+    sampleCount++;
+  }
+
+  /** Feeds a report of the PlaybackSpeed attribute */
+  public synchronized void onPlaybackSpeed(float playbackSpeed) {
+    rebase();
+    speed = playbackSpeed;
+  }
+
+  /** Feeds a report of the CurrentState attribute, see the STATE_ constants */
+  public synchronized void onCurrentState(int currentState) {
+    rebase();
+    state = currentState;
+  }
+
+  /** Feeds a report of the Duration attribute, used to bound the position. Null if unknown. */
+  public synchronized void onDuration(Long duration) {
+    durationMs = duration;
+  }
+
+  /** Forgets all samples, e.g. when the content changes */
+  public synchronized void reset() {
+    hasSample = false;
+    correctionMs = 0;
+    speed = 1.0f;
+    state = STATE_NOT_PLAYING;
+    durationMs = null;
+  }
+
+  /** @return true once a position sample was received */
+  public synchronized boolean hasPosition() {
+    return hasSample;
+  }
+
+  /** @return the estimated current playback position in milliseconds, or 0 without samples */
+  public synchronized long getPositionMs() {
+    if (!hasSample) {
+      return 0;
+    }
+    long nowNanos = ticker.nanoTime();
+    long positionMs = estimate(nowNanos) + pendingCorrection(nowNanos);
+    positionMs = Math.max(0, positionMs);
+    return durationMs != null ? Math.min(positionMs, durationMs) : positionMs;
+  }
+
+  /** @return the number of position samples received */
+  public synchronized long getSampleCount() {
+    return sampleCount;
+  }
+
+  /**
+   * @return the difference between the predicted and the reported position at the last sample, in
+   *     milliseconds. Positive if the estimate was ahead.
+   */
+  public synchronized long getLastDriftMs() {
+    return lastDriftMs;
+  }
+
+  /** @return the largest absolute drift observed at a sample, in milliseconds */
+  public synchronized long getMaxDriftMs() {
+    return maxDriftMs;
+  }
+
+  private boolean isAdvancing() {
+    return state == STATE_PLAYING;
+  }
+
+  /** The position predicted from the last anchor, ignoring any pending correction */
+  private long estimate(long nowNanos) {
+    if (!isAdvancing()) {
+      return anchorPositionMs;
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(nowNanos - anchorTimeNanos);
+    return anchorPositionMs + (long) (elapsedMs * speed);
+  }
+
+  /** The share of the drift at the last sample that is still to be slewed out */
+  private long pendingCorrection(long nowNanos) {
+    if (correctionMs == 0) {
+      return 0;
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(nowNanos - anchorTimeNanos);
+    if (elapsedMs >= correctionWindowMs) {
+      correctionMs = 0;
+      return 0;
+    }
+    return correctionMs * (correctionWindowMs - elapsedMs) / correctionWindowMs;
+  }
+
+  /** Re-anchors at the current estimate, before the speed or state it depends on changes */
+  private void rebase() {
+    if (!hasSample) {
+      return;
+    }
+    long nowNanos = ticker.nanoTime();
+    long positionMs = estimate(nowNanos) + pendingCorrection(nowNanos);
+    correctionMs = 0;
+    anchor(Math.max(0, positionMs), nowNanos);
+  }
+
+  private void anchor(long positionMs, long nowNanos) {
+    anchorPositionMs = positionMs;
+    anchorTimeNanos = nowNanos;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StartupTrace times the cold start of the casting app, phase by phase, against a time budget per
+ * phase. Phases are timed the first time they run in the process, milestones from the start of the
+ * process. A phase over its budget is logged as a warning. Each phase is also a section of the
+ * system trace, and a "startup." histogram of the MetricsRegistry. This class is a singleton.
+ */
+public final class StartupTrace {
+  private static final String TAG = StartupTrace.class.getSimpleName();
+
+  /** The phases of the cold start, with their time budgets */
+  public enum Phase {
+    /** System.loadLibrary() of the native TvCastingApp library */
+    LOAD_NATIVE_LIBRARY("load_native_library", 150),
+    /** Building the AndroidChipPlatform and its components */
+    BUILD_PLATFORM("build_platform", 100),
+    /** The native initialization of the CastingApp, once the platform is built */
+    INITIALIZE("initialize", 50),
+    /** Starting the Matter server, and the native startup of the CastingApp */
+    START_SERVER("start_server", 300),
+    /** Milestone: the first frame of the app was drawn */
+    FIRST_FRAME("first_frame", 1000, true),
+    /** Milestone: the response to the first command sent to a CastingPlayer was received */
+    FIRST_COMMAND("first_command", 3000, true);
+
+    private final String metricName;
+    private final long budgetMillis;
+    private final boolean milestone;
+
+    Phase(String name, long budgetMillis) {
+      this(name, budgetMillis, false);
+    }
+
+    Phase(String name, long budgetMillis, boolean milestone) {
+      this.metricName = "startup." + name;
+      this.budgetMillis = budgetMillis;
+      this.milestone = milestone;
+    }
+
+    public long getBudgetMillis() {
+      return budgetMillis;
+    }
+
+    /** @return true if the phase is timed from the start of the process */
+    public boolean isMilestone() {
+      return milestone;
+    }
+  }
+
+  private static StartupTrace sInstance;
+
+  private final Map<Phase, Long> durationsMillis = new EnumMap<>(Phase.class);
+  // bit i set once Phase.values()[i] is recorded, so that mark() can be called on hot paths, e.g.
+  // on every command response, without taking the lock
+  private volatile long recordedPhases = 0;
+
+  private StartupTrace() {}
+
+  public static synchronized StartupTrace getInstance() {
+    if (sInstance == null) {
+      sInstance = new StartupTrace();
+    }
+    return sInstance;
+  }
+
+  /**
+   * Begins timing a phase, e.g. try (StartupTrace.Section section = begin(Phase.INITIALIZE)) {..}.
+   * Only the first run of a phase is recorded.
+   */
+  public Section begin(Phase phase) {
+    return new Section(phase);
+  }
+
+  /** Records that a milestone was reached, unless it was already */
+  public void mark(Phase milestone) {
+    if ((recordedPhases & (1L << milestone.ordinal())) != 0) {
+      return;
+    }
+    record(milestone, SystemClock.uptimeMillis() - Process.getStartUptimeMillis());
+  }
+
+  /** @return the duration of every phase recorded so far, in milliseconds */
+  public synchronized Map<Phase, Long> getDurationsMillis() {
+    return new EnumMap<>(durationsMillis);
+  }
+
+  /** Prints every phase, with its duration and budget */
+  public synchronized void dump(PrintWriter writer) {
+    writer.println("Startup (ms):");
+    for (Phase phase : Phase.values()) {
+      Long duration = durationsMillis.get(phase);
+      writer.println(
+          String.format(
+              Locale.US,
+              "  %-32s %8s / %6d%s",
+              phase.metricName,
+              duration == null ? "-" : String.valueOf(duration),
+              phase.budgetMillis,
+              duration != null && duration > phase.budgetMillis ? "  OVER BUDGET" : ""));
+    }
+  }
+
+  private void record(Phase phase, long durationMillis) {
+    synchronized (this) {
+      if (durationsMillis.containsKey(phase)) {
+        return;
+      }
+      durationsMillis.put(phase, durationMillis);
+      recordedPhases |= 1L << phase.ordinal();
+    }
+    MetricsRegistry.getInstance()
+        .recordLatencyNanos(phase.metricName, TimeUnit.MILLISECONDS.toNanos(durationMillis));
+    if (durationMillis > phase.budgetMillis) {
+      Log.w(
+          TAG,
+          phase.metricName
+              + " took "
+              + durationMillis
+              + "ms, over its budget of "
+              + phase.budgetMillis
+              + "ms");
+    } else {
+      Log.i(TAG, phase.metricName + " took " + durationMillis + "ms");
+    }
+  }
+
+  /** A phase being timed, and traced, until closed on the thread that began it */
+  public final class Section implements AutoCloseable {
+    private final Phase phase;
+    private final long startMillis;
+
+    private Section(Phase phase) {
+      this.phase = phase;
+      this.startMillis = SystemClock.uptimeMillis();
+      Tracing.beginSection(phase.metricName);
+    }
+
+    @Override
+    public void close() {
+      Tracing.endSection();
+      record(phase, SystemClock.uptimeMillis() - startMillis);
+    }
+  }
+}
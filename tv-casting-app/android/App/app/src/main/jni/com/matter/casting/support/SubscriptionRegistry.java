@@ -0,0 +1,654 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.util.Log;
+import com.matter.casting.core.CastingPlayer;
+import com.matter.casting.core.Endpoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * SubscriptionRegistry shares attribute subscriptions between listeners. Listeners of the same
+ * attribute, on the same Endpoint of the same CastingPlayer, are backed by a single native
+ * subscription, which is shut down when the last of their handles is closed. A listener joining
+ * an existing subscription is handed the latest reported value right away, without any traffic to
+ * the CastingPlayer. A native subscription uses the tightest intervals asked for by its current
+ * listeners, and is relaxed again once the listeners that asked for tighter ones are gone.
+ *
+ * <p>The reporting intervals of the native subscriptions follow the visibility of the app: the
+ * intervals asked for by the listeners are used in the foreground, relaxed ones in the background,
+ * and native subscriptions are parked, i.e. shut down while their listeners are kept, when the
+ * device is idle or park() is called. Changing intervals or resuming re-establishes the native
+ * subscriptions, and their priming reports bring the listeners up to date.
+ *
+ * <p>Listener callbacks are run on the MatterCallbackDispatcher thread, and reports a listener has
+ * not caught up with yet are coalesced to the latest value. This class is a singleton.
+ */
+public final class SubscriptionRegistry {
+  private static final String TAG = SubscriptionRegistry.class.getSimpleName();
+
+  /** Default reporting intervals, in seconds, that subscriptions are relaxed to in the background */
+  public static final int DEFAULT_BACKGROUND_MIN_INTERVAL = 30;
+
+  public static final int DEFAULT_BACKGROUND_MAX_INTERVAL = 300;
+
+  /** How the app is currently used, which decides the reporting intervals */
+  public enum Visibility {
+    /** The app is visible: listeners get the intervals they asked for */
+    FOREGROUND,
+    /** The app is not visible, or the screen is off: intervals are relaxed */
+    BACKGROUND,
+    /** The device is idle (doze): native subscriptions are parked */
+    IDLE,
+  }
+
+  private static SubscriptionRegistry sInstance;
+
+  private final Map<Key, Entry<?>> entries = new HashMap<>();
+
+  private Visibility visibility = Visibility.FOREGROUND;
+  private boolean parked = false;
+  private int backgroundMinInterval = DEFAULT_BACKGROUND_MIN_INTERVAL;
+  private int backgroundMaxInterval = DEFAULT_BACKGROUND_MAX_INTERVAL;
+
+  private long nativeSubscriptionCount = 0;
+  private long sharedJoinCount = 0;
+  private long renegotiationCount = 0;
+
+  /** Starts the native subscription backing a shared subscription, reporting to the sink */
+  public interface Subscriber<T> {
+    void subscribe(int minInterval, int maxInterval, Sink<T> sink);
+  }
+
+  /** Receives the reports of a shared subscription */
+  public interface Listener<T> {
+    void onValue(T value);
+
+    void onError(Exception error);
+
+    default void onSubscriptionEstablished() {}
+  }
+
+  private SubscriptionRegistry() {}
+
+  public static synchronized SubscriptionRegistry getInstance() {
+    if (sInstance == null) {
+      sInstance = new SubscriptionRegistry();
+    }
+    return sInstance;
+  }
+
+  /**
+   * Registers a listener of an attribute, and subscribes to it unless a shared subscription to the
+   * attribute already exists with a reporting interval at least as tight. A new listener needs
+   * reports, so subscriptions parked by park() are resumed. While the device is idle, the native
+   * subscription is only started once it no longer is.
+   *
+   * @param endpoint the Endpoint of the CastingPlayer the attribute is on
+   * @param clusterId the ID of the cluster the attribute is in
+   * @param attributeId the ID of the attribute
+   * @param minInterval the minimum reporting interval in the foreground, in seconds
+   * @param maxInterval the maximum reporting interval in the foreground, in seconds
+   * @param subscriber starts the native subscription to the attribute, e.g. by calling the
+   *     subscribe method of a ChipClusters cluster object
+   * @param listener receives the reports
+   * @return a handle to close once the listener no longer needs reports
+   */
+  public <T> Handle subscribe(
+      Endpoint endpoint,
+      long clusterId,
+      long attributeId,
+      int minInterval,
+      int maxInterval,
+      Subscriber<T> subscriber,
+      Listener<T> listener) {
+    resume();
+
+    CastingPlayer castingPlayer = endpoint.getCastingPlayer();
+    Key key = new Key(castingPlayer.getDeviceId(), endpoint.getId(), clusterId, attributeId);
+
+    Registration<T> registration;
+    Transition<T> transition;
+    boolean replayValue;
+    T lastValue;
+    boolean replayEstablished;
+    synchronized (this) {
+      @SuppressWarnings("unchecked")
+      Entry<T> entry = (Entry<T>) entries.get(key);
+      if (entry == null) {
+        entry = new Entry<>(key, castingPlayer);
+        entries.put(key, entry);
+      }
+      // the latest subscriber is the one most likely to hold a live cluster object
+      entry.subscriber = subscriber;
+      registration = new Registration<>(entry, listener, minInterval, maxInterval);
+      entry.registrations.add(registration);
+      entry.updateIntervals();
+      transition = applyPolicy(entry);
+      if (transition == null && entry.isRunning()) {
+        sharedJoinCount++;
+      }
+
+      replayValue = entry.hasValue;
+      lastValue = entry.lastValue;
+      replayEstablished = entry.subscriptionId != -1;
+    }
+
+    if (replayValue) {
+      registration.deliverValue(lastValue);
+    }
+    if (replayEstablished) {
+      registration.deliverEstablished();
+    }
+    if (transition != null) {
+      transition.run();
+    }
+    return new Handle(registration);
+  }
+
+  /**
+   * Sets how the app is currently used, and renegotiates the reporting intervals of the native
+   * subscriptions accordingly.
+   */
+  public void setVisibility(Visibility visibility) {
+    synchronized (this) {
+      if (this.visibility == visibility) {
+        return;
+      }
+      Log.d(TAG, "setVisibility() " + this.visibility + " -> " + visibility);
+      this.visibility = visibility;
+    }
+    applyPolicyToAll();
+  }
+
+  public synchronized Visibility getVisibility() {
+    return visibility;
+  }
+
+  /**
+   * Sets the reporting intervals, in seconds, that subscriptions are relaxed to in the background.
+   * Listeners that asked for longer intervals keep theirs.
+   */
+  public void setBackgroundIntervals(int minInterval, int maxInterval) {
+    synchronized (this) {
+      backgroundMinInterval = minInterval;
+      backgroundMaxInterval = Math.max(minInterval, maxInterval);
+    }
+    applyPolicyToAll();
+  }
+
+  /**
+   * Shuts down the native subscriptions while keeping their listeners, and the latest reported
+   * values, until resume() is called.
+   */
+  public void park() {
+    synchronized (this) {
+      if (parked) {
+        return;
+      }
+      Log.d(TAG, "park() parking " + entries.size() + " subscription(s)");
+      parked = true;
+    }
+    applyPolicyToAll();
+  }
+
+  /** Re-establishes the native subscriptions parked by park() */
+  public void resume() {
+    synchronized (this) {
+      if (!parked) {
+        return;
+      }
+      Log.d(TAG, "resume() resuming " + entries.size() + " subscription(s)");
+      parked = false;
+    }
+    applyPolicyToAll();
+  }
+
+  public synchronized boolean isParked() {
+    return parked;
+  }
+
+  /**
+   * Drops all shared subscriptions and closes their handles, e.g. after all subscriptions were
+   * torn down natively.
+   */
+  public void clear() {
+    synchronized (this) {
+      for (Entry<?> entry : entries.values()) {
+        entry.closed = true;
+        for (Registration<?> registration : entry.registrations) {
+          registration.closed = true;
+        }
+        entry.registrations.clear();
+      }
+      entries.clear();
+    }
+  }
+
+  /** @return the number of shared subscriptions currently held */
+  public synchronized int getSubscriptionCount() {
+    return entries.size();
+  }
+
+  /** @return the number of native subscriptions started */
+  public synchronized long getNativeSubscriptionCount() {
+    return nativeSubscriptionCount;
+  }
+
+  /** @return the number of listeners that joined an existing native subscription */
+  public synchronized long getSharedJoinCount() {
+    return sharedJoinCount;
+  }
+
+  /** @return the number of native subscriptions re-established, parked or resumed by the policy */
+  public synchronized long getRenegotiationCount() {
+    return renegotiationCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "SubscriptionRegistry{"
+        + "subscriptions="
+        + entries.size()
+        + ", visibility="
+        + visibility
+        + ", parked="
+        + parked
+        + ", nativeSubscriptions="
+        + nativeSubscriptionCount
+        + ", sharedJoins="
+        + sharedJoinCount
+        + ", renegotiations="
+        + renegotiationCount
+        + '}';
+  }
+
+  private void applyPolicyToAll() {
+    List<Transition<?>> transitions = new ArrayList<>();
+    synchronized (this) {
+      for (Entry<?> entry : entries.values()) {
+        Transition<?> transition = applyPolicy(entry);
+        if (transition != null) {
+          transitions.add(transition);
+        }
+      }
+    }
+    for (Transition<?> transition : transitions) {
+      transition.run();
+    }
+  }
+
+  /**
+   * Works out the reporting intervals the entry should currently be subscribed with and, if its
+   * native subscription does not match, supersedes it. Must be called with this object locked.
+   *
+   * @return what to do, outside of the lock, to bring the native subscription in line, or null if
+   *     it already is
+   */
+  private <T> Transition<T> applyPolicy(Entry<T> entry) {
+    boolean run = !parked && visibility != Visibility.IDLE;
+    int minInterval = entry.minInterval;
+    int maxInterval = entry.maxInterval;
+    if (visibility == Visibility.BACKGROUND) {
+      minInterval = Math.max(minInterval, backgroundMinInterval);
+      maxInterval = Math.max(Math.max(maxInterval, backgroundMaxInterval), minInterval);
+    }
+
+    if (run
+        && entry.isRunning()
+        && entry.activeMinInterval == minInterval
+        && entry.activeMaxInterval == maxInterval) {
+      return null;
+    }
+    if (!run && !entry.isRunning()) {
+      return null;
+    }
+
+    Transition<T> transition = new Transition<>(entry);
+    if (entry.isRunning()) {
+      renegotiationCount++;
+      transition.supersededSubscriptionId = entry.subscriptionId;
+    }
+    // sinks of the superseded native subscription, if any, are ignored from now on
+    entry.generation++;
+    entry.subscriptionId = -1;
+    entry.activeMinInterval = -1;
+    entry.activeMaxInterval = -1;
+    entry.lastReportNanos = 0;
+    if (run) {
+      entry.activeMinInterval = minInterval;
+      entry.activeMaxInterval = maxInterval;
+      transition.sink = new Sink<>(entry, entry.generation);
+      transition.subscriber = entry.subscriber;
+      transition.minInterval = minInterval;
+      transition.maxInterval = maxInterval;
+      nativeSubscriptionCount++;
+    }
+    return transition;
+  }
+
+  private void close(Registration<?> registration) {
+    Entry<?> entry = registration.entry;
+    boolean lastListener;
+    long subscriptionId = -1;
+    Transition<?> transition = null;
+    synchronized (this) {
+      if (registration.closed) {
+        return;
+      }
+      registration.closed = true;
+      entry.registrations.remove(registration);
+      if (entry.closed) {
+        return;
+      }
+      lastListener = entry.registrations.isEmpty();
+      if (lastListener) {
+        entry.closed = true;
+        entries.remove(entry.key);
+        // a subscription that is not established yet is shut down by its sink once it is
+        subscriptionId = entry.subscriptionId;
+      } else {
+        // the remaining listeners may all have asked for longer intervals
+        entry.updateIntervals();
+        transition = applyPolicy(entry);
+      }
+    }
+
+    if (transition != null) {
+      transition.run();
+    }
+    if (!lastListener) {
+      return;
+    }
+    Log.d(TAG, "close() last listener gone, shutting down the subscription to " + entry.key);
+    if (subscriptionId != -1) {
+      shutdownNativeSubscription(entry.castingPlayer, subscriptionId);
+    }
+  }
+
+  private static void shutdownNativeSubscription(
+      CastingPlayer castingPlayer, long subscriptionId) {
+    MatterError err = castingPlayer.shutdownSubscription(subscriptionId);
+    if (err.hasError()) {
+      Log.e(TAG, "shutdownNativeSubscription() failed for ID " + subscriptionId + ". Err: " + err);
+    }
+  }
+
+  /** A listener's hold on a shared subscription */
+  public final class Handle implements AutoCloseable {
+    private final Registration<?> registration;
+
+    private Handle(Registration<?> registration) {
+      this.registration = registration;
+    }
+
+    /** Stops reports to the listener. Closing a handle more than once has no effect. */
+    @Override
+    public void close() {
+      SubscriptionRegistry.this.close(registration);
+    }
+
+    public boolean isClosed() {
+      return registration.closed;
+    }
+  }
+
+  /**
+   * Where a native subscription reports to. Reports to a sink whose subscription was superseded or
+   * shut down are ignored.
+   */
+  public final class Sink<T> {
+    private final Entry<T> entry;
+    private final int generation;
+
+    private Sink(Entry<T> entry, int generation) {
+      this.entry = entry;
+      this.generation = generation;
+    }
+
+    public void onValue(T value) {
+      List<Registration<T>> registrations;
+      long now = System.nanoTime();
+      long reportIntervalNanos = -1;
+      synchronized (SubscriptionRegistry.this) {
+        if (!isCurrent()) {
+          return;
+        }
+        // the priming report of a native subscription has no interval
+        if (entry.lastReportNanos != 0) {
+          reportIntervalNanos = now - entry.lastReportNanos;
+        }
+        entry.lastReportNanos = now;
+        entry.lastValue = value;
+        entry.hasValue = true;
+        registrations = new ArrayList<>(entry.registrations);
+      }
+      if (reportIntervalNanos != -1) {
+        MetricsRegistry.getInstance()
+            .recordLatencyNanos(entry.reportIntervalMetric, reportIntervalNanos);
+      }
+      for (Registration<T> registration : registrations) {
+        registration.deliverValue(value);
+      }
+    }
+
+    public void onError(Exception error) {
+      List<Registration<T>> registrations;
+      synchronized (SubscriptionRegistry.this) {
+        if (!isCurrent()) {
+          return;
+        }
+        registrations = new ArrayList<>(entry.registrations);
+      }
+      for (Registration<T> registration : registrations) {
+        registration.deliverError(error);
+      }
+    }
+
+    public void onSubscriptionEstablished(long subscriptionId) {
+      List<Registration<T>> registrations = null;
+      synchronized (SubscriptionRegistry.this) {
+        if (isCurrent()) {
+          entry.subscriptionId = subscriptionId;
+          registrations = new ArrayList<>(entry.registrations);
+        }
+      }
+      if (registrations == null) {
+        Log.d(TAG, "onSubscriptionEstablished() shutting down stale subscription to " + entry.key);
+        shutdownNativeSubscription(entry.castingPlayer, subscriptionId);
+        return;
+      }
+      for (Registration<T> registration : registrations) {
+        registration.deliverEstablished();
+      }
+    }
+
+    private boolean isCurrent() {
+      return !entry.closed && generation == entry.generation;
+    }
+  }
+
+  private static final class Key {
+    final String deviceId;
+    final int endpointId;
+    final long clusterId;
+    final long attributeId;
+
+    Key(String deviceId, int endpointId, long clusterId, long attributeId) {
+      this.deviceId = deviceId;
+      this.endpointId = endpointId;
+      this.clusterId = clusterId;
+      this.attributeId = attributeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      return endpointId == that.endpointId
+          && clusterId == that.clusterId
+          && attributeId == that.attributeId
+          && Objects.equals(deviceId, that.deviceId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(deviceId, endpointId, clusterId, attributeId);
+    }
+
+    @Override
+    public String toString() {
+      return "Key{"
+          + "deviceId="
+          + deviceId
+          + ", endpointId="
+          + endpointId
+          + ", clusterId="
+          + clusterId
+          + ", attributeId="
+          + attributeId
+          + '}';
+    }
+  }
+
+  private static final class Entry<T> {
+    final Key key;
+    final CastingPlayer castingPlayer;
+    final List<Registration<T>> registrations = new ArrayList<>();
+    // name of the MetricsRegistry histogram of the time between reports of the attribute
+    final String reportIntervalMetric;
+    Subscriber<T> subscriber;
+    // the tightest intervals asked for by the listeners
+    int minInterval = Integer.MAX_VALUE;
+    int maxInterval = Integer.MAX_VALUE;
+    // the intervals the native subscription was started with, -1 if there is none
+    int activeMinInterval = -1;
+    int activeMaxInterval = -1;
+    int generation = 0;
+    // ID of the current native subscription once established, -1 until then
+    long subscriptionId = -1;
+    boolean closed = false;
+    boolean hasValue = false;
+    T lastValue;
+    // System.nanoTime() of the latest report of the current native subscription, 0 before the first
+    long lastReportNanos = 0;
+
+    Entry(Key key, CastingPlayer castingPlayer) {
+      this.key = key;
+      this.castingPlayer = castingPlayer;
+      this.reportIntervalMetric =
+          MetricsRegistry.SUBSCRIPTION_REPORT_INTERVAL_PREFIX
+              + String.format(Locale.US, "0x%04X.0x%04X", key.clusterId, key.attributeId);
+    }
+
+    /** Recomputes the tightest intervals from those asked for by the current listeners */
+    void updateIntervals() {
+      minInterval = Integer.MAX_VALUE;
+      maxInterval = Integer.MAX_VALUE;
+      for (Registration<T> registration : registrations) {
+        minInterval = Math.min(minInterval, registration.minInterval);
+        maxInterval = Math.min(maxInterval, registration.maxInterval);
+      }
+    }
+
+    boolean isRunning() {
+      return activeMaxInterval != -1;
+    }
+  }
+
+  /** Starts and shuts down native subscriptions, outside of the lock, as decided by applyPolicy() */
+  private static final class Transition<T> {
+    final Entry<T> entry;
+    long supersededSubscriptionId = -1;
+    Sink<T> sink;
+    Subscriber<T> subscriber;
+    int minInterval;
+    int maxInterval;
+
+    Transition(Entry<T> entry) {
+      this.entry = entry;
+    }
+
+    void run() {
+      if (sink != null) {
+        Log.d(
+            TAG,
+            "Transition::run() starting a native subscription to "
+                + entry.key
+                + " with intervals ["
+                + minInterval
+                + ", "
+                + maxInterval
+                + "]");
+        subscriber.subscribe(minInterval, maxInterval, sink);
+      }
+      if (supersededSubscriptionId != -1) {
+        shutdownNativeSubscription(entry.castingPlayer, supersededSubscriptionId);
+      }
+    }
+  }
+
+  private static final class Registration<T> {
+    final Entry<T> entry;
+    final Listener<T> listener;
+    // the intervals asked for by the listener
+    final int minInterval;
+    final int maxInterval;
+    volatile boolean closed = false;
+
+    Registration(Entry<T> entry, Listener<T> listener, int minInterval, int maxInterval) {
+      this.entry = entry;
+      this.listener = listener;
+      this.minInterval = minInterval;
+      this.maxInterval = maxInterval;
+    }
+
+    void deliverValue(T value) {
+      MatterCallbackDispatcher.getInstance()
+          .dispatchLatest(this, () -> runSafely(() -> listener.onValue(value)));
+    }
+
+    void deliverError(Exception error) {
+      MatterCallbackDispatcher.getInstance()
+          .dispatch(() -> runSafely(() -> listener.onError(error)));
+    }
+
+    void deliverEstablished() {
+      MatterCallbackDispatcher.getInstance()
+          .dispatch(() -> runSafely(listener::onSubscriptionEstablished));
+    }
+
+    private void runSafely(Runnable callback) {
+      // the handle may have been closed while the callback was queued
+      if (closed) {
+        return;
+      }
+      try {
+        callback.run();
+      } catch (Throwable t) {
+        Log.e(TAG, "Registration::Caught an unhandled Throwable from the client: " + t);
+      }
+    }
+  }
+}
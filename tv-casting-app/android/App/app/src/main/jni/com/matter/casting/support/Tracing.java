@@ -0,0 +1,71 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.matter.casting.support;
+
+import android.os.Build;
+import android.os.Trace;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracing writes the trace sections of the casting app to the Android system trace, where a
+ * Perfetto or systrace capture shows them next to those of the native layer and of the Matter
+ * thread. Sections cost next to nothing while no trace is being captured.
+ */
+public final class Tracing {
+  // ATrace truncates longer section names
+  private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+  private static final AtomicInteger nextCookie = new AtomicInteger();
+
+  private Tracing() {}
+
+  /** Begins a section of the current thread, to be ended by endSection() on the same thread */
+  public static void beginSection(String name) {
+    Trace.beginSection(truncate(name));
+  }
+
+  public static void endSection() {
+    Trace.endSection();
+  }
+
+  /**
+   * Begins an async section, e.g. from a request to its response, which may end on another thread.
+   * Async sections are only traced from Android 10 on.
+   *
+   * @return the cookie to pass to endAsyncSection()
+   */
+  public static int beginAsyncSection(String name) {
+    int cookie = nextCookie.incrementAndGet();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.beginAsyncSection(truncate(name), cookie);
+    }
+    return cookie;
+  }
+
+  public static void endAsyncSection(String name, int cookie) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.endAsyncSection(truncate(name), cookie);
+    }
+  }
+
+  private static String truncate(String name) {
+    return name.length() > MAX_SECTION_NAME_LENGTH
+        ? name.substring(0, MAX_SECTION_NAME_LENGTH)
+        : name;
+  }
+}
@@ -19,8 +19,11 @@
 #include "CastingApp-JNI.h"
 
 #include "../support/Converters-JNI.h"
+#include "../support/DurabilityBarrier-JNI.h"
 #include "../support/JNIDACProvider.h"
+#include "../support/Metrics-JNI.h"
 #include "../support/RotatingDeviceIdUniqueIdProvider-JNI.h"
+#include "../support/Trace-JNI.h"
 
 // from tv-casting-common
 #include "core/CastingApp.h"
@@ -59,7 +62,10 @@ jobject extractJAppParameter(jobject jAppParameters, const char * methodName, co
 JNI_METHOD(jobject, finishInitialization)(JNIEnv *, jobject, jobject jAppParameters)
 {
     chip::DeviceLayer::StackLock lock;
+    support::TraceJNI::Scope trace("CastingApp-JNI::finishInitialization");
     ChipLogProgress(AppServer, "CastingApp-JNI::finishInitialization() called");
+    support::TraceJNI::RegisterMatterTracingBackend();
+    support::MetricsJNI::RegisterCommandObserver();
     VerifyOrReturnValue(jAppParameters != nullptr, support::convertMatterErrorFromCppToJava(CHIP_ERROR_INVALID_ARGUMENT));
     CHIP_ERROR err = CHIP_NO_ERROR;
 
@@ -93,6 +99,7 @@ JNI_METHOD(jobject, finishInitialization)(JNIEnv *, jobject, jobject jAppParamet
 JNI_METHOD(jobject, finishStartup)(JNIEnv *, jobject)
 {
     chip::DeviceLayer::StackLock lock;
+    support::TraceJNI::Scope trace("CastingApp-JNI::finishStartup");
     ChipLogProgress(AppServer, "CastingApp-JNI::finishStartup() called");
 
     CHIP_ERROR err = CHIP_NO_ERROR;
@@ -114,6 +121,11 @@ JNI_METHOD(jobject, finishStartup)(JNIEnv *, jobject)
     VerifyOrReturnValue(err == CHIP_NO_ERROR, support::convertMatterErrorFromCppToJava(err),
                         ChipLogError(AppServer, "Failed to register ChipDeviceEventHandler %" CHIP_ERROR_FORMAT, err.Format()));
 
+    // commissioning and fabric changes are flushed to the Java stores as soon as they are made
+    err = support::DurabilityBarrierJNI::GetInstance().Register();
+    VerifyOrReturnValue(err == CHIP_NO_ERROR, support::convertMatterErrorFromCppToJava(err),
+                        ChipLogError(AppServer, "Failed to register DurabilityBarrierJNI %" CHIP_ERROR_FORMAT, err.Format()));
+
     ChipLogProgress(AppServer,
                     "CastingApp-JNI::finishStartup() calling "
                     "GetUserDirectedCommissioningClient()->SetCommissionerDeclarationHandler()");
@@ -132,25 +144,27 @@ JNI_METHOD(void, finishStopping)(JNIEnv *, jobject)
     chip::DeviceLayer::StackLock lock;
     ChipLogProgress(AppServer, "CastingApp-JNI::finishStopping() called");
 
+    support::DurabilityBarrierJNI::GetInstance().Unregister();
+
 #if CHIP_DEVICE_CONFIG_ENABLE_COMMISSIONER_DISCOVERY_CLIENT
     // Remove the handler previously set for Commissioner's CommissionerDeclaration messages.
     chip::Server::GetInstance().GetUserDirectedCommissioningClient()->SetCommissionerDeclarationHandler(nullptr);
 #endif // CHIP_DEVICE_CONFIG_ENABLE_COMMISSIONER_DISCOVERY_CLIENT
 }
 
-JNI_METHOD(jobject, shutdownAllSubscriptions)(JNIEnv * env, jobject)
+JNI_METHOD(jobject, shutdownAllSubscriptionsNative)(JNIEnv * env, jobject)
 {
     chip::DeviceLayer::StackLock lock;
-    ChipLogProgress(AppServer, "CastingApp-JNI::shutdownAllSubscriptions() called");
+    ChipLogProgress(AppServer, "CastingApp-JNI::shutdownAllSubscriptionsNative() called");
 
     CHIP_ERROR err = matter::casting::core::CastingApp::GetInstance()->ShutdownAllSubscriptions();
     return support::convertMatterErrorFromCppToJava(err);
 }
 
-JNI_METHOD(jobject, clearCache)(JNIEnv * env, jobject)
+JNI_METHOD(jobject, clearCacheNative)(JNIEnv * env, jobject)
 {
     chip::DeviceLayer::StackLock lock;
-    ChipLogProgress(AppServer, "CastingApp-JNI::clearCache called");
+    ChipLogProgress(AppServer, "CastingApp-JNI::clearCacheNative() called");
 
     CHIP_ERROR err = matter::casting::core::CastingApp::GetInstance()->ClearCache();
     return support::convertMatterErrorFromCppToJava(err);
@@ -19,6 +19,7 @@
 #include "CastingPlayerDiscovery-JNI.h"
 
 #include "../support/Converters-JNI.h"
+#include "../support/Metrics-JNI.h"
 #include "../support/RotatingDeviceIdUniqueIdProvider-JNI.h"
 #include "core/CastingApp.h"             // from tv-casting-common
 #include "core/CastingPlayerDiscovery.h" // from tv-casting-common
@@ -53,7 +54,9 @@ public:
     JniGlobalReference castingPlayerChangeListenerJavaObject;
     jmethodID onAddedCallbackJavaMethodID   = nullptr;
     jmethodID onChangedCallbackJavaMethodID = nullptr;
-    // jmethodID onRemovedCallbackJavaMethodID = nullptr;
+    jmethodID onRemovedCallbackJavaMethodID = nullptr;
+    // start of the current discovery, from which the time until each CastingPlayer is added is recorded
+    chip::System::Clock::Microseconds64 discoveryStartTime;
 
     static DiscoveryDelegateImpl * GetInstance()
     {
@@ -69,6 +72,7 @@ public:
         ChipLogProgress(AppServer,
                         "CastingPlayerDiscovery-JNI::DiscoveryDelegateImpl::HandleOnAdded() called with CastingPlayer, ID: %s",
                         player->GetId());
+        support::MetricsJNI::RecordLatency("discovery.time_to_added", discoveryStartTime);
 
         VerifyOrReturn(castingPlayerChangeListenerJavaObject.HasValidObjectRef(),
                        ChipLogError(AppServer,
@@ -118,22 +122,43 @@ public:
                             matterCastingPlayerJavaObject);
     }
 
-    // TODO: In following PRs. Implement HandleOnRemoved after implemented in tv-casting-commom CastingPlayerDiscovery.h/cpp
-    // void HandleOnRemoved(matter::casting::memory::Strong<CastingPlayer> player) override
-    // {
-    //     ChipLogProgress(AppServer, "CastingPlayerDiscovery-JNI DiscoveryDelegateImpl::HandleOnRemoved() called with
-    //     CastingPlayer, ID: %s", player->GetId());
-    // }
+    void HandleOnRemoved(matter::casting::memory::Strong<CastingPlayer> player) override
+    {
+        ChipLogProgress(AppServer,
+                        "CastingPlayerDiscovery-JNI DiscoveryDelegateImpl::HandleOnRemoved() called with CastingPlayer, ID: %s",
+                        player->GetId());
+
+        VerifyOrReturn(castingPlayerChangeListenerJavaObject.HasValidObjectRef(),
+                       ChipLogError(AppServer,
+                                    "CastingPlayerDiscovery-JNI::DiscoveryDelegateImpl::HandleOnRemoved() Not set, "
+                                    "CastingPlayerChangeListener == nullptr"));
+        VerifyOrReturn(onRemovedCallbackJavaMethodID != nullptr,
+                       ChipLogError(AppServer,
+                                    "CastingPlayerDiscovery-JNI::DiscoveryDelegateImpl::HandleOnRemoved() Not set, "
+                                    "onRemovedCallbackJavaMethodID == nullptr"));
+
+        jobject matterCastingPlayerJavaObject = support::convertCastingPlayerFromCppToJava(player);
+        VerifyOrReturn(matterCastingPlayerJavaObject != nullptr,
+                       ChipLogError(AppServer,
+                                    "CastingPlayerDiscovery-JNI::DiscoveryDelegateImpl::HandleOnRemoved() Could not "
+                                    "create CastingPlayer jobject"));
+
+        JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
+        chip::DeviceLayer::StackUnlock unlock;
+        env->CallVoidMethod(castingPlayerChangeListenerJavaObject.ObjectRef(), onRemovedCallbackJavaMethodID,
+                            matterCastingPlayerJavaObject);
+    }
 };
 
 // Initialize the static instance to nullptr
 DiscoveryDelegateImpl * DiscoveryDelegateImpl::discoveryDelegateImplSingletonInstance = nullptr;
 
-JNI_METHOD(jobject, startDiscovery)(JNIEnv * env, jobject, jobject targetDeviceTypeLong = nullptr)
+JNI_METHOD(jobject, startDiscoveryNative)(JNIEnv * env, jobject, jobject targetDeviceTypeLong = nullptr)
 {
     chip::DeviceLayer::StackLock lock;
     ChipLogProgress(AppServer, "CastingPlayerDiscovery-JNI::startDiscovery() called");
     CastingPlayerDiscovery::GetInstance()->SetDelegate(DiscoveryDelegateImpl::GetInstance());
+    DiscoveryDelegateImpl::GetInstance()->discoveryStartTime = support::MetricsJNI::Now();
 
     // Start CastingPlayer discovery
     CHIP_ERROR err = CHIP_NO_ERROR;
@@ -206,9 +231,9 @@ JNI_METHOD(jobject, addCastingPlayerChangeListener)(JNIEnv * env, jobject, jobje
     jmethodID onChangedJavaMethodID =
         env->GetMethodID(castingPlayerChangeListenerJavaClass, "_onChanged", "(Lcom/matter/casting/core/CastingPlayer;)V");
     VerifyOrReturnValue(onChangedJavaMethodID != nullptr, support::convertMatterErrorFromCppToJava(CHIP_ERROR_INCORRECT_STATE));
-    // jmethodID onRemovedJavaMethodID = env->GetMethodID(castingPlayerChangeListenerJavaClass, "_onRemoved",
-    // "(Lcom/matter/casting/core/CastingPlayer;)V"); VerifyOrReturnValue(onRemovedJavaMethodID != nullptr,
-    // support::convertMatterErrorFromCppToJava(CHIP_ERROR_INCORRECT_STATE));
+    jmethodID onRemovedJavaMethodID =
+        env->GetMethodID(castingPlayerChangeListenerJavaClass, "_onRemoved", "(Lcom/matter/casting/core/CastingPlayer;)V");
+    VerifyOrReturnValue(onRemovedJavaMethodID != nullptr, support::convertMatterErrorFromCppToJava(CHIP_ERROR_INCORRECT_STATE));
 
     // Set Java callbacks in the DiscoveryDelegateImpl Singleton
     CHIP_ERROR err =
@@ -220,7 +245,7 @@ JNI_METHOD(jobject, addCastingPlayerChangeListener)(JNIEnv * env, jobject, jobje
 
     DiscoveryDelegateImpl::GetInstance()->onAddedCallbackJavaMethodID   = onAddedJavaMethodID;
     DiscoveryDelegateImpl::GetInstance()->onChangedCallbackJavaMethodID = onChangedJavaMethodID;
-    // DiscoveryDelegateImpl::GetInstance()->onRemovedCallbackJavaMethodID = onRemovedJavaMethodID;
+    DiscoveryDelegateImpl::GetInstance()->onRemovedCallbackJavaMethodID = onRemovedJavaMethodID;
 
     return support::convertMatterErrorFromCppToJava(CHIP_NO_ERROR);
 }
@@ -241,7 +266,7 @@ JNI_METHOD(jobject, removeCastingPlayerChangeListener)(JNIEnv * env, jobject, jo
         // No explicit cleanup required
         DiscoveryDelegateImpl::GetInstance()->onAddedCallbackJavaMethodID   = nullptr;
         DiscoveryDelegateImpl::GetInstance()->onChangedCallbackJavaMethodID = nullptr;
-        // DiscoveryDelegateImpl::GetInstance()->onRemovedCallbackJavaMethodID = nullptr;
+        DiscoveryDelegateImpl::GetInstance()->onRemovedCallbackJavaMethodID = nullptr;
 
         return support::convertMatterErrorFromCppToJava(CHIP_NO_ERROR);
     }
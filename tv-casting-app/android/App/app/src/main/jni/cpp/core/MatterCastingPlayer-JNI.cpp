@@ -19,7 +19,9 @@
 #include "MatterCastingPlayer-JNI.h"
 
 #include "../support/Converters-JNI.h"
+#include "../support/Metrics-JNI.h"
 #include "../support/RotatingDeviceIdUniqueIdProvider-JNI.h"
+#include "../support/Trace-JNI.h"
 #include "core/CastingApp.h"                       // from tv-casting-common
 #include "core/CastingPlayer.h"                    // from tv-casting-common
 #include "core/CastingPlayerDiscovery.h"           // from tv-casting-common
@@ -27,6 +29,7 @@
 #include "core/ConnectionCallbacks.h"              // from tv-casting-common
 #include "core/IdentificationDeclarationOptions.h" // from tv-casting-common
 
+#include <app/InteractionModelEngine.h>
 #include <app/clusters/bindings/BindingManager.h>
 #include <app/server/Server.h>
 #include <jni.h>
@@ -44,11 +47,12 @@ namespace core {
 
 MatterCastingPlayerJNI MatterCastingPlayerJNI::sInstance;
 
-JNI_METHOD(jobject, verifyOrEstablishConnection)
+JNI_METHOD(jobject, verifyOrEstablishConnectionNative)
 (JNIEnv * env, jobject thiz, jobject jconnectionCallbacks, jlong commissioningWindowTimeoutSec,
  jobject jIdentificationDeclarationOptions)
 {
     chip::DeviceLayer::StackLock lock;
+    support::TraceJNI::Scope trace("MatterCastingPlayer-JNI::verifyOrEstablishConnection");
     ChipLogProgress(AppServer, "MatterCastingPlayer-JNI::verifyOrEstablishConnection() called with a timeout of: %d seconds",
                     static_cast<int>(commissioningWindowTimeoutSec));
 
@@ -122,6 +126,7 @@ JNI_METHOD(jobject, verifyOrEstablishConnection)
     connectionCallbacks.mCommissionerDeclarationCallback =
         MatterCastingPlayerJNI::getInstance().getCommissionerDeclarationCallback();
 
+    MatterCastingPlayerJNIMgr().OnConnectionStarted();
     castingPlayer->VerifyOrEstablishConnection(connectionCallbacks, static_cast<uint16_t>(commissioningWindowTimeoutSec),
                                                *idOptions);
 
@@ -165,6 +170,22 @@ JNI_METHOD(void, disconnect)
     castingPlayer->Disconnect();
 }
 
+JNI_METHOD(jobject, shutdownSubscription)
+(JNIEnv * env, jobject thiz, jlong subscriptionId)
+{
+    chip::DeviceLayer::StackLock lock;
+    ChipLogProgress(AppServer, "MatterCastingPlayer-JNI::shutdownSubscription() called with subscriptionId: 0x%08" PRIx32,
+                    static_cast<uint32_t>(subscriptionId));
+
+    CastingPlayer * castingPlayer = support::convertCastingPlayerFromJavaToCpp(thiz);
+    VerifyOrReturnValue(castingPlayer != nullptr, support::convertMatterErrorFromCppToJava(CHIP_ERROR_INVALID_ARGUMENT));
+
+    CHIP_ERROR err = chip::app::InteractionModelEngine::GetInstance()->ShutdownSubscription(
+        chip::ScopedNodeId(castingPlayer->GetNodeId(), castingPlayer->GetFabricIndex()),
+        static_cast<chip::SubscriptionId>(subscriptionId));
+    return support::convertMatterErrorFromCppToJava(err);
+}
+
 JNI_METHOD(jstring, getConnectionStateNative)
 (JNIEnv * env, jobject thiz)
 {
@@ -227,9 +248,35 @@ JNI_METHOD(jobject, getEndpoints)
     return jEndpointList;
 }
 
+void MatterCastingPlayerJNI::OnConnectionStarted()
+{
+    if (!mDeviceEventHandlerAdded)
+    {
+        CHIP_ERROR err = chip::DeviceLayer::PlatformMgrImpl().AddEventHandler(HandleDeviceEvent, 0);
+        LogErrorOnFailure(err);
+        mDeviceEventHandlerAdded = (err == CHIP_NO_ERROR);
+    }
+    mConnectionStartTime = support::MetricsJNI::Now();
+    // the connection only goes through commissioning if the CastingPlayer was not already commissioned
+    mCaseStartTime         = mConnectionStartTime;
+    mConnectionTraceCookie = support::TraceJNI::BeginAsyncSection("MatterCastingPlayer-JNI::connection");
+}
+
+void MatterCastingPlayerJNI::HandleDeviceEvent(const chip::DeviceLayer::ChipDeviceEvent * event, intptr_t arg)
+{
+    if (event->Type == chip::DeviceLayer::DeviceEventType::kCommissioningComplete)
+    {
+        support::MetricsJNI::RecordLatency("connection.commissioning", MatterCastingPlayerJNIMgr().mConnectionStartTime);
+        MatterCastingPlayerJNIMgr().mCaseStartTime = support::MetricsJNI::Now();
+    }
+}
+
 void MatterCastingPlayerJNI::ConnectCallback(CHIP_ERROR err, CastingPlayer * playerPtr)
 {
     ChipLogProgress(AppServer, "MatterCastingPlayer-JNI::verifyOrEstablishConnection() ConnectCallback()");
+    support::MetricsJNI::RecordLatency("connection.case", MatterCastingPlayerJNIMgr().mCaseStartTime, err);
+    support::MetricsJNI::RecordLatency("connection.total", MatterCastingPlayerJNIMgr().mConnectionStartTime, err);
+    support::TraceJNI::EndAsyncSection("MatterCastingPlayer-JNI::connection", MatterCastingPlayerJNIMgr().mConnectionTraceCookie);
     if (err == CHIP_NO_ERROR)
     {
         ChipLogProgress(AppServer,
@@ -254,6 +301,7 @@ void MatterCastingPlayerJNI::CommissionerDeclarationCallback(const chip::Transpo
                                                              chip::Protocols::UserDirectedCommissioning::CommissionerDeclaration cd)
 {
     ChipLogProgress(AppServer, "MatterCastingPlayer-JNI::verifyOrEstablishConnection() CommissionerDeclarationCallback()");
+    support::MetricsJNI::RecordLatency("connection.commissioner_declaration", MatterCastingPlayerJNIMgr().mConnectionStartTime);
     cd.DebugLog();
 
     char addressStr[chip::Transport::PeerAddress::kMaxToStringSize];
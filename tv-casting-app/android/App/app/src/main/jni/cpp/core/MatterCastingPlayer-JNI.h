@@ -47,6 +47,10 @@ public:
     auto getConnectCallback() const { return ConnectCallback; }
     auto getCommissionerDeclarationCallback() const { return CommissionerDeclarationCallback; }
 
+    // Marks the start of a connection attempt, from which the latency of each phase of the connection is recorded in the
+    // MetricsRegistry. Must be called on the Matter thread.
+    void OnConnectionStarted();
+
 private:
     friend MatterCastingPlayerJNI & MatterCastingPlayerJNIMgr();
     static MatterCastingPlayerJNI sInstance;
@@ -60,6 +64,13 @@ private:
     // from the CastingPlayer/Commissioner.
     static void CommissionerDeclarationCallback(const chip::Transport::PeerAddress & source,
                                                 chip::Protocols::UserDirectedCommissioning::CommissionerDeclaration cd);
+    // Marks the end of commissioning, and so the start of CASE session establishment, of a connection attempt.
+    static void HandleDeviceEvent(const chip::DeviceLayer::ChipDeviceEvent * event, intptr_t arg);
+
+    chip::System::Clock::Microseconds64 mConnectionStartTime;
+    chip::System::Clock::Microseconds64 mCaseStartTime;
+    int32_t mConnectionTraceCookie = 0;
+    bool mDeviceEventHandlerAdded = false;
 };
 
 inline class MatterCastingPlayerJNI & MatterCastingPlayerJNIMgr()
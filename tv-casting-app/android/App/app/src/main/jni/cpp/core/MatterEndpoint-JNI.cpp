@@ -20,6 +20,7 @@
 
 #include "../support/MatterCallback-JNI.h"
 #include "../support/RotatingDeviceIdUniqueIdProvider-JNI.h"
+#include "../support/Trace-JNI.h"
 #include "clusters/Clusters.h"           // from tv-casting-common
 #include "core/CastingApp.h"             // from tv-casting-common
 #include "core/CastingPlayer.h"          // from tv-casting-common
@@ -88,6 +89,7 @@ JNI_METHOD(void, getDeviceProxy)
 (JNIEnv * env, jobject thiz, jobject jSuccessCallback, jobject jFailureCallback)
 {
     chip::DeviceLayer::StackLock lock;
+    support::TraceJNI::Scope trace("MatterEndpoint-JNI::getDeviceProxy");
     ChipLogProgress(AppServer, "MatterEndpoint-JNI::getDeviceProxy() called");
     Endpoint * endpoint = support::convertEndpointFromJavaToCpp(thiz);
     VerifyOrReturn(endpoint != nullptr, ChipLogError(AppServer, "MatterEndpoint-JNI::getDeviceProxy() endpoint == nullptr"));
@@ -95,14 +97,20 @@ JNI_METHOD(void, getDeviceProxy)
     ReturnOnFailure(MatterEndpointJNIMgr().mGetDeviceProxySuccessHandler.SetUp(env, jSuccessCallback));
     ReturnOnFailure(MatterEndpointJNIMgr().mGetDeviceProxyFailureHandler.SetUp(env, jFailureCallback));
 
+    // the cookie of the async trace section, from the request to the session, is passed as the context
+    int32_t traceCookie = support::TraceJNI::BeginAsyncSection("MatterEndpoint-JNI::getDeviceProxy");
     endpoint->GetCastingPlayer()->FindOrEstablishSession(
-        nullptr,
+        reinterpret_cast<void *>(static_cast<intptr_t>(traceCookie)),
         [](void * context, chip::Messaging::ExchangeManager & exchangeMgr, const chip::SessionHandle & sessionHandle) {
+            support::TraceJNI::EndAsyncSection("MatterEndpoint-JNI::getDeviceProxy",
+                                               static_cast<int32_t>(reinterpret_cast<intptr_t>(context)));
             ChipLogProgress(AppServer, "MatterEndpointJNI FindOrEstablishSession success");
             OperationalDeviceProxy * device = new OperationalDeviceProxy(&exchangeMgr, sessionHandle); // TODO: delete *device
             MatterEndpointJNIMgr().mGetDeviceProxySuccessHandler.Handle(device);
         },
         [](void * context, const chip::ScopedNodeId & peerId, CHIP_ERROR error) {
+            support::TraceJNI::EndAsyncSection("MatterEndpoint-JNI::getDeviceProxy",
+                                               static_cast<int32_t>(reinterpret_cast<intptr_t>(context)));
             ChipLogError(AppServer, "MatterEndpointJNI FindOrEstablishSession failure %" CHIP_ERROR_FORMAT, error.Format());
             MatterEndpointJNIMgr().mGetDeviceProxyFailureHandler.Handle(error);
         });
@@ -17,6 +17,8 @@
  */
 
 #include "Converters-JNI.h"
+#include "Trace-JNI.h"
+
 #include <lib/support/JniReferences.h>
 
 namespace matter {
@@ -84,6 +86,7 @@ jobject convertMatterErrorFromCppToJava(CHIP_ERROR inErr)
 
 jobject convertEndpointFromCppToJava(matter::casting::memory::Strong<core::Endpoint> endpoint)
 {
+    TraceJNI::Scope trace("convertEndpointFromCppToJava");
     ChipLogProgress(AppServer, "convertEndpointFromCppToJava() called");
     JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
     VerifyOrReturnValue(env != nullptr, nullptr, ChipLogError(AppServer, "Could not get JNIEnv for current thread"));
@@ -146,6 +149,7 @@ core::Endpoint * convertEndpointFromJavaToCpp(jobject jEndpointObject)
 
 jobject convertCastingPlayerFromCppToJava(matter::casting::memory::Strong<core::CastingPlayer> player)
 {
+    TraceJNI::Scope trace("convertCastingPlayerFromCppToJava");
     ChipLogProgress(AppServer, "convertCastingPlayerFromCppToJava() called");
     JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
     VerifyOrReturnValue(env != nullptr, nullptr, ChipLogError(AppServer, "Could not get JNIEnv for current thread"));
@@ -234,6 +238,7 @@ core::CastingPlayer * convertCastingPlayerFromJavaToCpp(jobject jCastingPlayerOb
 
 jobject convertClusterFromCppToJava(matter::casting::memory::Strong<core::BaseCluster> cluster, const char * className)
 {
+    TraceJNI::Scope trace("convertClusterFromCppToJava");
     ChipLogProgress(AppServer, "convertClusterFromCppToJava() called");
     VerifyOrReturnValue(cluster.get() != nullptr, nullptr,
                         ChipLogError(AppServer, "convertClusterFromCppToJava() cluster.get() == nullptr"));
@@ -298,6 +303,7 @@ core::BaseCluster * convertClusterFromJavaToCpp(jobject jClusterObject)
 
 jobject convertCommandFromCppToJava(void * command, const char * className)
 {
+    TraceJNI::Scope trace("convertCommandFromCppToJava");
     ChipLogProgress(AppServer, "convertCommandFromCppToJava() called");
     VerifyOrReturnValue(command != nullptr, nullptr, ChipLogError(AppServer, "convertCommandFromCppToJava() command == nullptr"));
     JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
@@ -516,6 +522,7 @@ matter::casting::core::IdentificationDeclarationOptions * convertIdentificationD
 jobject
 convertCommissionerDeclarationFromCppToJava(const chip::Protocols::UserDirectedCommissioning::CommissionerDeclaration & cppCd)
 {
+    TraceJNI::Scope trace("convertCommissionerDeclarationFromCppToJava");
     ChipLogProgress(AppServer, "convertCommissionerDeclarationFromCppToJava() called");
 
     JNIEnv * env = chip::JniReferences::GetInstance().GetEnvForCurrentThread();
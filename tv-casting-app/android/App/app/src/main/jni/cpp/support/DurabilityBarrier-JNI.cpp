@@ -0,0 +1,171 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "DurabilityBarrier-JNI.h"
+
+#include "Trace-JNI.h"
+
+#include <cinttypes>
+
+#include <app/server/Server.h>
+#include <lib/support/CodeUtils.h>
+#include <lib/support/JniReferences.h>
+#include <lib/support/logging/CHIPLogging.h>
+
+namespace matter {
+namespace casting {
+namespace support {
+
+DurabilityBarrierJNI DurabilityBarrierJNI::sInstance;
+jclass DurabilityBarrierJNI::sCastingAppClass = nullptr;
+jmethodID DurabilityBarrierJNI::sFlushMethod  = nullptr;
+
+CHIP_ERROR DurabilityBarrierJNI::Register()
+{
+    VerifyOrReturnError(!mRegistered, CHIP_NO_ERROR);
+    ReturnErrorOnFailure(chip::DeviceLayer::PlatformMgrImpl().AddEventHandler(HandleDeviceEvent, 0));
+    CHIP_ERROR err = chip::Server::GetInstance().GetFabricTable().AddFabricDelegate(this);
+    if (err != CHIP_NO_ERROR)
+    {
+        chip::DeviceLayer::PlatformMgrImpl().RemoveEventHandler(HandleDeviceEvent, 0);
+        return err;
+    }
+    mRegistered = true;
+    return CHIP_NO_ERROR;
+}
+
+void DurabilityBarrierJNI::Unregister()
+{
+    VerifyOrReturn(mRegistered);
+    chip::Server::GetInstance().GetFabricTable().RemoveFabricDelegate(this);
+    chip::DeviceLayer::PlatformMgrImpl().RemoveEventHandler(HandleDeviceEvent, 0);
+    mRegistered = false;
+}
+
+void DurabilityBarrierJNI::OnFabricCommitted(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex)
+{
+    Flush("fabric committed");
+}
+
+void DurabilityBarrierJNI::OnFabricUpdated(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex)
+{
+    Flush("fabric updated");
+}
+
+void DurabilityBarrierJNI::OnFabricRemoved(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex)
+{
+    Flush("fabric removed");
+}
+
+void DurabilityBarrierJNI::HandleDeviceEvent(const chip::DeviceLayer::ChipDeviceEvent * event, intptr_t arg)
+{
+    if (event->Type == chip::DeviceLayer::DeviceEventType::kCommissioningComplete)
+    {
+        Flush("commissioning complete");
+    }
+}
+
+CHIP_ERROR DurabilityBarrierJNI::SetUp(JNIEnv * env)
+{
+    jclass castingAppClass;
+    ReturnErrorOnFailure(
+        chip::JniReferences::GetInstance().GetLocalClassRef(env, "com/matter/casting/core/CastingApp", castingAppClass));
+
+    jmethodID flushMethod = env->GetStaticMethodID(castingAppClass, "flushFromNative", "()V");
+    if (flushMethod == nullptr)
+    {
+        env->ExceptionClear();
+        env->DeleteLocalRef(castingAppClass);
+        return CHIP_JNI_ERROR_METHOD_NOT_FOUND;
+    }
+
+    sCastingAppClass = static_cast<jclass>(env->NewGlobalRef(castingAppClass));
+    sFlushMethod     = flushMethod;
+    env->DeleteLocalRef(castingAppClass);
+    return CHIP_NO_ERROR;
+}
+
+void DurabilityBarrierJNI::Flush(const char * reason)
+{
+    ChipLogProgress(AppServer, "DurabilityBarrierJNI::Flush() %s", reason);
+    if (sInstance.mFlushRunning)
+    {
+        // the writes made so far may be after the running flush read the stores, so flush again once it completes
+        sInstance.mFlushRequested = true;
+        return;
+    }
+    sInstance.StartFlush();
+}
+
+void DurabilityBarrierJNI::StartFlush()
+{
+    TraceJNI::Scope trace("DurabilityBarrierJNI::StartFlush");
+    JNIEnv * env = chip::JniReferences::GetInstance().GetEnvForCurrentThread();
+    VerifyOrReturn(env != nullptr, ChipLogError(AppServer, "DurabilityBarrierJNI::StartFlush() could not get JNIEnv"));
+    if (sFlushMethod == nullptr)
+    {
+        CHIP_ERROR setUpErr = SetUp(env);
+        VerifyOrReturn(setUpErr == CHIP_NO_ERROR,
+                       ChipLogError(AppServer, "DurabilityBarrierJNI::StartFlush() set up failed: %" CHIP_ERROR_FORMAT,
+                                    setUpErr.Format()));
+    }
+
+    mFlushRunning   = true;
+    mFlushRequested = false;
+    mFlushStartTime = chip::System::SystemClock().GetMonotonicTimestamp();
+    // only posts the flush to the Java background thread, which calls OnFlushComplete() once it is done
+    env->CallStaticVoidMethod(sCastingAppClass, sFlushMethod);
+    if (env->ExceptionCheck())
+    {
+        env->ExceptionDescribe();
+        env->ExceptionClear();
+        mFlushRunning = false;
+    }
+}
+
+void DurabilityBarrierJNI::OnFlushComplete()
+{
+    CHIP_ERROR err = chip::DeviceLayer::PlatformMgr().ScheduleWork(HandleFlushComplete, 0);
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "DurabilityBarrierJNI::OnFlushComplete() failed to schedule: %" CHIP_ERROR_FORMAT,
+                     err.Format());
+    }
+}
+
+void DurabilityBarrierJNI::HandleFlushComplete(intptr_t arg)
+{
+    chip::System::Clock::Milliseconds64 duration =
+        chip::System::SystemClock().GetMonotonicTimestamp() - sInstance.mFlushStartTime;
+    ChipLogProgress(AppServer, "DurabilityBarrierJNI flush completed in %" PRIu64 " ms", duration.count());
+
+    sInstance.mFlushRunning = false;
+    if (sInstance.mFlushRequested)
+    {
+        sInstance.StartFlush();
+    }
+}
+
+extern "C" JNIEXPORT void JNICALL Java_com_matter_casting_core_CastingApp_onFlushCompleteNative(JNIEnv *, jclass)
+{
+    DurabilityBarrierJNI::OnFlushComplete();
+}
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
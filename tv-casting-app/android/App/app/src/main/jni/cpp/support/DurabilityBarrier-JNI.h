@@ -0,0 +1,88 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#pragma once
+
+#include <credentials/FabricTable.h>
+#include <lib/core/CHIPError.h>
+#include <platform/CHIPDeviceLayer.h>
+#include <system/SystemClock.h>
+
+#include <jni.h>
+
+namespace matter {
+namespace casting {
+namespace support {
+
+/**
+ * @brief DurabilityBarrierJNI flushes the config and key-value stores of the Java platform at the points the Matter stack
+ * needs its state to be on disk: once commissioning completes, and whenever a fabric is committed, updated or removed.
+ * The stores otherwise commit their writes lazily, in batches.
+ *
+ * The flush, which syncs the stores to disk, runs on a Java background thread so that it does not stall the Matter
+ * thread, and completes on the Matter thread through OnFlushComplete(). Flushes requested while one is running are
+ * coalesced into a single flush, started once it completes.
+ */
+class DurabilityBarrierJNI : public chip::FabricTable::Delegate
+{
+public:
+    static DurabilityBarrierJNI & GetInstance() { return sInstance; }
+
+    /**
+     * @brief Starts flushing on commissioning and fabric changes. Must be called on the Matter thread, once the server is
+     * started.
+     */
+    CHIP_ERROR Register();
+    void Unregister();
+
+    /**
+     * @brief Starts flushing the Java stores on a background thread. Must be called on the Matter thread.
+     */
+    static void Flush(const char * reason);
+
+    /**
+     * @brief Completes the flush started last. May be called on any thread.
+     */
+    static void OnFlushComplete();
+
+    void OnFabricCommitted(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex) override;
+    void OnFabricUpdated(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex) override;
+    void OnFabricRemoved(const chip::FabricTable & fabricTable, chip::FabricIndex fabricIndex) override;
+
+private:
+    static DurabilityBarrierJNI sInstance;
+
+    static void HandleDeviceEvent(const chip::DeviceLayer::ChipDeviceEvent * event, intptr_t arg);
+    static void HandleFlushComplete(intptr_t arg);
+    static CHIP_ERROR SetUp(JNIEnv * env);
+
+    void StartFlush();
+
+    static jclass sCastingAppClass;
+    static jmethodID sFlushMethod;
+
+    bool mRegistered = false;
+    // state of the flushes, only accessed on the Matter thread
+    bool mFlushRunning   = false;
+    bool mFlushRequested = false;
+    chip::System::Clock::Timestamp mFlushStartTime;
+};
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
@@ -288,6 +288,18 @@ JNI_METHOD(jobject, sendLaunchURLCommand)(JNIEnv * env, jclass, jstring contentU
     return matter::casting::support::convertMatterErrorFromCppToJava(err);
 }
 
+JNI_METHOD(jboolean, hasCachedPlayer)(JNIEnv *, jclass)
+{
+    chip::DeviceLayer::StackLock lock;
+    ChipLogProgress(AppServer, "ManualCommissioningHelper::hasCachedPlayer() called");
+
+    if (matter::casting::core::CastingPlayer::GetTargetCastingPlayer() != nullptr)
+    {
+        return JNI_TRUE;
+    }
+    return matter::casting::support::CastingStore::GetInstance()->ReadAll().empty() ? JNI_FALSE : JNI_TRUE;
+}
+
 JNI_METHOD(jobject, attemptReconnectToLastPlayer)(JNIEnv * env, jclass)
 {
     chip::DeviceLayer::StackLock lock;
@@ -17,6 +17,8 @@
 #pragma once
 
 #include "Converters-JNI.h"
+#include "Metrics-JNI.h"
+#include "Trace-JNI.h"
 
 #include <jni.h>
 #include <lib/support/JniReferences.h>
@@ -66,6 +68,7 @@ public:
 
     void Handle(T responseData)
     {
+        TraceJNI::Scope trace("MatterCallbackJNI::Handle");
         ChipLogProgress(AppServer, "MatterCallbackJNI::Handle called");
 
         JNIEnv * env = chip::JniReferences::GetInstance().GetEnvForCurrentThread();
@@ -77,7 +80,11 @@ public:
         VerifyOrReturn(mCallbackObject.HasValidObjectRef(),
                        ChipLogError(AppServer, "MatterCallbackJNI::Handle mCallbackObject has no valid ObjectRef"));
         VerifyOrReturn(mMethod != nullptr, ChipLogError(AppServer, "MatterCallbackJNI::Handle mMethod is nullptr"));
+        // handleInternal() only queues the client's handler on the Java MatterCallbackDispatcher, so this upcall
+        // returns without running client code on the Matter thread
+        chip::System::Clock::Microseconds64 startTime = MetricsJNI::Now();
         env->CallVoidMethod(mCallbackObject.ObjectRef(), mMethod, jResponseData);
+        MetricsJNI::RecordLatency("jni.upcall", startTime);
     }
 
 protected:
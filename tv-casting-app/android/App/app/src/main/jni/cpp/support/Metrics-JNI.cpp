@@ -0,0 +1,252 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "Metrics-JNI.h"
+
+#include "Trace-JNI.h"
+
+#include <lib/support/CodeUtils.h>
+#include <lib/support/JniReferences.h>
+#include <lib/support/logging/CHIPLogging.h>
+
+#include <cinttypes>
+#include <cstdio>
+#include <cstring>
+
+#define JNI_METHOD(RETURN, METHOD_NAME)                                                                                            \
+    extern "C" JNIEXPORT RETURN JNICALL Java_com_matter_casting_support_MetricsRegistry_##METHOD_NAME
+
+namespace matter {
+namespace casting {
+namespace support {
+
+namespace {
+
+constexpr char kCommandPrefix[] = "command.";
+
+/**
+ * @brief A command sent with Command::Invoke(), until it completes
+ */
+struct PendingCommand
+{
+    std::string name;
+    chip::System::Clock::Microseconds64 startTime;
+    int32_t traceCookie;
+};
+
+} // namespace
+
+jclass MetricsJNI::sMetricsRegistryClass      = nullptr;
+jmethodID MetricsJNI::sRecordLatenciesMethod = nullptr;
+
+std::mutex MetricsJNI::sBufferMutex;
+std::mutex MetricsJNI::sFlushMutex;
+std::unordered_map<std::string, jint> MetricsJNI::sNameIds;
+std::vector<std::string> MetricsJNI::sNames;
+size_t MetricsJNI::sFlushedNameCount = 0;
+std::vector<jint> MetricsJNI::sNameIdBuffer;
+std::vector<jlong> MetricsJNI::sLatencyBuffer;
+std::vector<jboolean> MetricsJNI::sSuccessBuffer;
+bool MetricsJNI::sCommandRecorded = false;
+
+MetricsJNI::CommandObserverImpl MetricsJNI::sCommandObserver;
+
+chip::System::Clock::Microseconds64 MetricsJNI::Now()
+{
+    return chip::System::SystemClock().GetMonotonicMicroseconds64();
+}
+
+CHIP_ERROR MetricsJNI::SetUp(JNIEnv * env)
+{
+    jclass metricsRegistryClass;
+    ReturnErrorOnFailure(chip::JniReferences::GetInstance().GetLocalClassRef(env, "com/matter/casting/support/MetricsRegistry",
+                                                                             metricsRegistryClass));
+
+    jmethodID recordLatenciesMethod =
+        env->GetStaticMethodID(metricsRegistryClass, "recordLatenciesFromNative", "([Ljava/lang/String;[I[J[Z)V");
+    if (recordLatenciesMethod == nullptr)
+    {
+        env->ExceptionClear();
+        env->DeleteLocalRef(metricsRegistryClass);
+        return CHIP_JNI_ERROR_METHOD_NOT_FOUND;
+    }
+
+    sMetricsRegistryClass  = static_cast<jclass>(env->NewGlobalRef(metricsRegistryClass));
+    sRecordLatenciesMethod = recordLatenciesMethod;
+    env->DeleteLocalRef(metricsRegistryClass);
+    return CHIP_NO_ERROR;
+}
+
+void MetricsJNI::RecordLatency(const char * name, chip::System::Clock::Microseconds64 startTime, CHIP_ERROR err)
+{
+    uint64_t latencyUs = (Now() - startTime).count();
+    bool success       = err == CHIP_NO_ERROR;
+
+    bool flush;
+    {
+        std::lock_guard<std::mutex> lock(sBufferMutex);
+        auto it = sNameIds.find(name);
+        jint nameId;
+        if (it != sNameIds.end())
+        {
+            nameId = it->second;
+        }
+        else
+        {
+            nameId = static_cast<jint>(sNames.size());
+            sNames.emplace_back(name);
+            sNameIds.emplace(sNames.back(), nameId);
+        }
+        sNameIdBuffer.push_back(nameId);
+        sLatencyBuffer.push_back(static_cast<jlong>(latencyUs));
+        sSuccessBuffer.push_back(static_cast<jboolean>(success));
+
+        // the first command to succeed marks the end of startup in the StartupTrace, so it is handed over right away
+        bool firstCommand = false;
+        if (success && !sCommandRecorded && strncmp(name, kCommandPrefix, sizeof(kCommandPrefix) - 1) == 0)
+        {
+            sCommandRecorded = true;
+            firstCommand     = true;
+        }
+        flush = firstCommand || sNameIdBuffer.size() >= kBatchSize;
+    }
+
+    if (flush)
+    {
+        JNIEnv * env = chip::JniReferences::GetInstance().GetEnvForCurrentThread();
+        VerifyOrReturn(env != nullptr, ChipLogError(AppServer, "MetricsJNI::RecordLatency() could not get JNIEnv"));
+        Flush(env);
+    }
+}
+
+void MetricsJNI::Flush(JNIEnv * env)
+{
+    std::lock_guard<std::mutex> flushLock(sFlushMutex);
+
+    if (sRecordLatenciesMethod == nullptr)
+    {
+        CHIP_ERROR setUpErr = SetUp(env);
+        VerifyOrReturn(setUpErr == CHIP_NO_ERROR,
+                       ChipLogError(AppServer, "MetricsJNI::Flush() set up failed: %" CHIP_ERROR_FORMAT, setUpErr.Format()));
+    }
+
+    std::vector<jint> nameIds;
+    std::vector<jlong> latencies;
+    std::vector<jboolean> successes;
+    std::vector<std::string> newNames;
+    {
+        std::lock_guard<std::mutex> lock(sBufferMutex);
+        VerifyOrReturn(!sNameIdBuffer.empty());
+        nameIds.swap(sNameIdBuffer);
+        latencies.swap(sLatencyBuffer);
+        successes.swap(sSuccessBuffer);
+        newNames.assign(sNames.begin() + static_cast<std::ptrdiff_t>(sFlushedNameCount), sNames.end());
+        sFlushedNameCount = sNames.size();
+        sNameIdBuffer.reserve(kBatchSize);
+        sLatencyBuffer.reserve(kBatchSize);
+        sSuccessBuffer.reserve(kBatchSize);
+    }
+
+    // the calling thread may never return to Java, e.g. the Matter thread, so every local reference is deleted
+    jsize count            = static_cast<jsize>(nameIds.size());
+    jclass stringClass     = env->FindClass("java/lang/String");
+    jobjectArray jNewNames = nullptr;
+    if (stringClass != nullptr)
+    {
+        jNewNames = env->NewObjectArray(static_cast<jsize>(newNames.size()), stringClass, nullptr);
+    }
+    jintArray jNameIds       = env->NewIntArray(count);
+    jlongArray jLatencies    = env->NewLongArray(count);
+    jbooleanArray jSuccesses = env->NewBooleanArray(count);
+    if (jNewNames != nullptr && jNameIds != nullptr && jLatencies != nullptr && jSuccesses != nullptr)
+    {
+        for (size_t i = 0; i < newNames.size(); i++)
+        {
+            jstring jName = env->NewStringUTF(newNames[i].c_str());
+            env->SetObjectArrayElement(jNewNames, static_cast<jsize>(i), jName);
+            env->DeleteLocalRef(jName);
+        }
+        env->SetIntArrayRegion(jNameIds, 0, count, nameIds.data());
+        env->SetLongArrayRegion(jLatencies, 0, count, latencies.data());
+        env->SetBooleanArrayRegion(jSuccesses, 0, count, successes.data());
+        env->CallStaticVoidMethod(sMetricsRegistryClass, sRecordLatenciesMethod, jNewNames, jNameIds, jLatencies, jSuccesses);
+    }
+    else
+    {
+        ChipLogError(AppServer, "MetricsJNI::Flush() could not allocate the batch of %d latencies", static_cast<int>(count));
+    }
+    if (env->ExceptionCheck())
+    {
+        env->ExceptionDescribe();
+        env->ExceptionClear();
+    }
+    env->DeleteLocalRef(stringClass);
+    env->DeleteLocalRef(jNewNames);
+    env->DeleteLocalRef(jNameIds);
+    env->DeleteLocalRef(jLatencies);
+    env->DeleteLocalRef(jSuccesses);
+}
+
+std::function<void(CHIP_ERROR)> MetricsJNI::TimeCommand(const char * command, std::function<void(CHIP_ERROR)> responseCallback)
+{
+    std::string name                              = std::string(kCommandPrefix) + command;
+    chip::System::Clock::Microseconds64 startTime = Now();
+    // links the request to its response in the system trace
+    int32_t traceCookie = TraceJNI::BeginAsyncSection(name.c_str());
+    return [name, startTime, traceCookie, responseCallback](CHIP_ERROR err) {
+        TraceJNI::EndAsyncSection(name.c_str(), traceCookie);
+        RecordLatency(name.c_str(), startTime, err);
+        if (responseCallback)
+        {
+            responseCallback(err);
+        }
+    };
+}
+
+void MetricsJNI::RegisterCommandObserver()
+{
+    core::CommandObserver::SetInstance(&sCommandObserver);
+}
+
+uintptr_t MetricsJNI::CommandObserverImpl::OnCommandStarted(chip::ClusterId clusterId, chip::CommandId commandId)
+{
+    char name[sizeof(kCommandPrefix) + 24];
+    snprintf(name, sizeof(name), "%s0x%04" PRIX32 ".0x%02" PRIX32, kCommandPrefix, clusterId, commandId);
+    // links the request to its response in the system trace
+    int32_t traceCookie = TraceJNI::BeginAsyncSection(name);
+    return reinterpret_cast<uintptr_t>(new PendingCommand{ name, Now(), traceCookie });
+}
+
+void MetricsJNI::CommandObserverImpl::OnCommandCompleted(uintptr_t token, CHIP_ERROR err)
+{
+    PendingCommand * command = reinterpret_cast<PendingCommand *>(token);
+    VerifyOrReturn(command != nullptr);
+    TraceJNI::EndAsyncSection(command->name.c_str(), command->traceCookie);
+    RecordLatency(command->name.c_str(), command->startTime, err);
+    delete command;
+}
+
+// Called by the MetricsRegistry before it is read, so that it includes the latencies still buffered natively
+JNI_METHOD(void, flushNativeLatenciesNative)(JNIEnv * env, jclass)
+{
+    MetricsJNI::Flush(env);
+}
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
@@ -0,0 +1,110 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#pragma once
+
+#include "core/CommandObserver.h"
+
+#include <lib/core/CHIPError.h>
+#include <system/SystemClock.h>
+
+#include <functional>
+#include <jni.h>
+#include <mutex>
+#include <string>
+#include <unordered_map>
+#include <vector>
+
+namespace matter {
+namespace casting {
+namespace support {
+
+/**
+ * @brief MetricsJNI records latencies measured in the native layer in the Java MetricsRegistry. Names are those of the
+ * MetricsRegistry constants, e.g. "connection.total".
+ *
+ * Latencies are buffered natively, and handed to the MetricsRegistry in batches of kBatchSize, or when it is read, so that
+ * recording one, e.g. on every MatterCallback delivered, costs the Matter thread no JNI upcall. Each name is only converted
+ * to a Java string once.
+ */
+class MetricsJNI
+{
+public:
+    static constexpr size_t kBatchSize = 64;
+
+    /**
+     * @return the current time, to pass to RecordLatency() once the operation completes
+     */
+    static chip::System::Clock::Microseconds64 Now();
+
+    /**
+     * @brief Records the latency of an operation started at startTime, counting it as failed if err is an error. Names are
+     * kept for the life of the process, so they must come from a bounded set.
+     */
+    static void RecordLatency(const char * name, chip::System::Clock::Microseconds64 startTime, CHIP_ERROR err = CHIP_NO_ERROR);
+
+    /**
+     * @brief Hands the latencies buffered so far to the MetricsRegistry
+     */
+    static void Flush(JNIEnv * env);
+
+    /**
+     * @brief Wraps the response callback of a cluster command so that the latency of the command, from now until the
+     * response, is recorded as "command.<command>", e.g. command "KeypadInput.SendKey", and traced as an async section of
+     * the same name
+     */
+    static std::function<void(CHIP_ERROR)> TimeCommand(const char * command, std::function<void(CHIP_ERROR)> responseCallback);
+
+    /**
+     * @brief Records the latency of the commands sent with tv-casting-common's Command::Invoke(), as
+     * "command.0x<cluster>.0x<command>", and traces each as an async section of that name, from the request to its
+     * response. Must be called on the Matter thread.
+     */
+    static void RegisterCommandObserver();
+
+private:
+    class CommandObserverImpl : public core::CommandObserver
+    {
+    public:
+        uintptr_t OnCommandStarted(chip::ClusterId clusterId, chip::CommandId commandId) override;
+        void OnCommandCompleted(uintptr_t token, CHIP_ERROR err) override;
+    };
+
+    static CHIP_ERROR SetUp(JNIEnv * env);
+
+    static jclass sMetricsRegistryClass;
+    static jmethodID sRecordLatenciesMethod;
+
+    // guards the buffer and the names, which latencies may be recorded to while the Matter thread has released the stack lock
+    static std::mutex sBufferMutex;
+    // held while handing a batch to the MetricsRegistry, so that batches, and the names they introduce, arrive in order
+    static std::mutex sFlushMutex;
+    static std::unordered_map<std::string, jint> sNameIds;
+    static std::vector<std::string> sNames;
+    static size_t sFlushedNameCount;
+    static std::vector<jint> sNameIdBuffer;
+    static std::vector<jlong> sLatencyBuffer;
+    static std::vector<jboolean> sSuccessBuffer;
+    static bool sCommandRecorded;
+
+    static CommandObserverImpl sCommandObserver;
+};
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
@@ -0,0 +1,144 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "Trace-JNI.h"
+
+#include <lib/support/CodeUtils.h>
+#include <lib/support/logging/CHIPLogging.h>
+#include <matter/tracing/build_config.h>
+#include <tracing/backend.h>
+#include <tracing/registry.h>
+
+#include <android/trace.h>
+#include <atomic>
+#include <dlfcn.h>
+#include <stdio.h>
+
+namespace matter {
+namespace casting {
+namespace support {
+
+namespace {
+
+using AsyncSectionFn = void (*)(const char * sectionName, int32_t cookie);
+
+struct AsyncSectionFunctions
+{
+    AsyncSectionFn begin = nullptr;
+    AsyncSectionFn end   = nullptr;
+};
+
+// ATrace_beginAsyncSection() and ATrace_endAsyncSection() were added to libandroid in API level 29, above the minSdkVersion
+// of the app, so they are looked up at runtime
+const AsyncSectionFunctions & GetAsyncSectionFunctions()
+{
+    static const AsyncSectionFunctions sFunctions = [] {
+        AsyncSectionFunctions functions;
+        void * libandroid = dlopen("libandroid.so", RTLD_NOW | RTLD_NOLOAD);
+        if (libandroid != nullptr)
+        {
+            AsyncSectionFn begin = reinterpret_cast<AsyncSectionFn>(dlsym(libandroid, "ATrace_beginAsyncSection"));
+            AsyncSectionFn end   = reinterpret_cast<AsyncSectionFn>(dlsym(libandroid, "ATrace_endAsyncSection"));
+            if (begin != nullptr && end != nullptr)
+            {
+                functions.begin = begin;
+                functions.end   = end;
+            }
+        }
+        return functions;
+    }();
+    return sFunctions;
+}
+
+std::atomic<int32_t> sNextCookie(0);
+
+#if MATTER_TRACING_ENABLED
+// ATrace truncates section names to 127 characters
+constexpr size_t kMaxSectionNameLength = 128;
+
+class AtraceBackend : public chip::Tracing::Backend
+{
+public:
+    void TraceBegin(const char * label, const char * group) override
+    {
+        if (!ATrace_isEnabled())
+        {
+            return;
+        }
+        char name[kMaxSectionNameLength];
+        snprintf(name, sizeof(name), "%s::%s", group, label);
+        ATrace_beginSection(name);
+    }
+
+    void TraceEnd(const char * label, const char * group) override { ATrace_endSection(); }
+
+    void TraceInstant(const char * label, const char * group) override
+    {
+        TraceBegin(label, group);
+        TraceEnd(label, group);
+    }
+};
+
+AtraceBackend sAtraceBackend;
+bool sAtraceBackendRegistered = false;
+#endif // MATTER_TRACING_ENABLED
+
+} // namespace
+
+void TraceJNI::BeginSection(const char * name)
+{
+    ATrace_beginSection(name);
+}
+
+void TraceJNI::EndSection()
+{
+    ATrace_endSection();
+}
+
+int32_t TraceJNI::BeginAsyncSection(const char * name)
+{
+    int32_t cookie = ++sNextCookie;
+    if (GetAsyncSectionFunctions().begin != nullptr)
+    {
+        GetAsyncSectionFunctions().begin(name, cookie);
+    }
+    return cookie;
+}
+
+void TraceJNI::EndAsyncSection(const char * name, int32_t cookie)
+{
+    if (GetAsyncSectionFunctions().end != nullptr)
+    {
+        GetAsyncSectionFunctions().end(name, cookie);
+    }
+}
+
+void TraceJNI::RegisterMatterTracingBackend()
+{
+#if MATTER_TRACING_ENABLED
+    VerifyOrReturn(!sAtraceBackendRegistered);
+    chip::Tracing::Register(sAtraceBackend);
+    sAtraceBackendRegistered = true;
+#else
+    ChipLogProgress(AppServer, "TraceJNI::RegisterMatterTracingBackend() Matter tracing is not enabled in this build");
+#endif // MATTER_TRACING_ENABLED
+}
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
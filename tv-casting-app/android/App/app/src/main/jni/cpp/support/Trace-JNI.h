@@ -0,0 +1,70 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#pragma once
+
+#include <cstdint>
+
+namespace matter {
+namespace casting {
+namespace support {
+
+/**
+ * @brief TraceJNI writes trace sections to the Android system trace (ATrace), next to the android.os.Trace sections of
+ * the Java layer, so that a Perfetto or systrace capture shows the native layer and the Matter thread on the same
+ * timeline. Sections cost next to nothing while no trace is being captured.
+ */
+class TraceJNI
+{
+public:
+    /**
+     * @brief Traces the enclosing scope as a section of the current thread
+     */
+    class Scope
+    {
+    public:
+        Scope(const char * name) { BeginSection(name); }
+        ~Scope() { EndSection(); }
+
+        Scope(const Scope &)             = delete;
+        Scope & operator=(const Scope &) = delete;
+    };
+
+    static void BeginSection(const char * name);
+    static void EndSection();
+
+    /**
+     * @brief Begins an async section, e.g. from a request to its response, which may end on another thread or while other
+     * sections are open. Async sections are only traced from Android 10 on.
+     *
+     * @return the cookie to pass to EndAsyncSection()
+     */
+    static int32_t BeginAsyncSection(const char * name);
+    static void EndAsyncSection(const char * name, int32_t cookie);
+
+    /**
+     * @brief Registers a tracing backend that writes the MATTER_TRACE_* sections of the Matter SDK and of
+     * tv-casting-common, e.g. around Command::Invoke() and EndpointListLoader::Load(), to the system trace. Must be called
+     * on the Matter thread.
+     */
+    static void RegisterMatterTracingBackend();
+};
+
+}; // namespace support
+}; // namespace casting
+}; // namespace matter
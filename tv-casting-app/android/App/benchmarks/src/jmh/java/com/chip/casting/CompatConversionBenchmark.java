@@ -0,0 +1,77 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.chip.casting;
+
+import chip.devicecontroller.ChipStructs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the conversions the compat TvCastingApp does on every call: a ContentSearch into the
+ * ContentLauncher cluster's ContentSearchStruct, and a TargetList report into TargetInfos.
+ */
+@SuppressWarnings("deprecation") // the compat API is deprecated, not yet unused
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompatConversionBenchmark {
+  /** The number of search parameters, and of targets in the TargetList */
+  @Param({"1", "8", "32"})
+  public int size;
+
+  private ContentLauncherTypes.ContentSearch contentSearch;
+  private List<ChipStructs.TargetNavigatorClusterTargetInfoStruct> targetList;
+
+  @Setup
+  public void setUp() {
+    ArrayList<ContentLauncherTypes.Parameter> parameterList = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      ArrayList<ContentLauncherTypes.AdditionalInfo> externalIDList = new ArrayList<>();
+      externalIDList.add(new ContentLauncherTypes.AdditionalInfo("imdb", "tt00" + i));
+      externalIDList.add(new ContentLauncherTypes.AdditionalInfo("tmdb", "10" + i));
+      parameterList.add(
+          new ContentLauncherTypes.Parameter(
+              i % 14, "Search term " + i, Optional.of(externalIDList)));
+    }
+    contentSearch = new ContentLauncherTypes.ContentSearch(parameterList);
+
+    targetList = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      targetList.add(new ChipStructs.TargetNavigatorClusterTargetInfoStruct(i, "Target " + i));
+    }
+  }
+
+  @Benchmark
+  public ChipStructs.ContentLauncherClusterContentSearchStruct contentSearchToStruct() {
+    return TvCastingApp.toContentSearchStruct(contentSearch);
+  }
+
+  @Benchmark
+  public List<TargetNavigatorTypes.TargetInfo> targetListToTargetInfos() {
+    return TvCastingApp.toTargetInfoList(targetList);
+  }
+}
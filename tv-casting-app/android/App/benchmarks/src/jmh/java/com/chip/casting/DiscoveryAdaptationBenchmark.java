@@ -0,0 +1,102 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.chip.casting;
+
+import android.net.nsd.NsdServiceInfo;
+import com.matter.casting.core.SimulatedCastingPlayer;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the adaptation of discovery events for the compat API: a DiscoveredNodeData built from
+ * a resolved commissioner service, parsing its TXT record, and from a discovered CastingPlayer. The
+ * numeric TXT fields are also parsed on their own, by TxtRecordParser and by the String-based
+ * parsing it replaced, for comparison.
+ */
+@SuppressWarnings("deprecation") // the compat API is deprecated, not yet unused
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DiscoveryAdaptationBenchmark {
+  private NsdServiceInfo serviceInfo;
+  private SimulatedCastingPlayer castingPlayer;
+
+  @Setup
+  public void setUp() throws UnknownHostException {
+    // the TXT record a Matter commissioner (_matterd._udp) advertises
+    serviceInfo = new NsdServiceInfo();
+    serviceInfo.setServiceName("E3A8B1C2D4F60718");
+    serviceInfo.setServiceType("_matterd._udp");
+    serviceInfo.setHost(
+        InetAddress.getByAddress("tv.local", new byte[] {(byte) 192, (byte) 168, 1, 20}));
+    serviceInfo.setPort(5540);
+    serviceInfo.setAttribute("D", "3840");
+    serviceInfo.setAttribute("VP", "65521+32769");
+    serviceInfo.setAttribute("CM", "2");
+    serviceInfo.setAttribute("DT", "35");
+    serviceInfo.setAttribute("DN", "Living Room TV");
+    serviceInfo.setAttribute("RI", "0100B6B8A5DF4D8D3B8C6A2E5C1E2F3A4B5C6D7E8F");
+    serviceInfo.setAttribute("PH", "33");
+    serviceInfo.setAttribute("PI", "");
+    serviceInfo.setAttribute("SII", "5000");
+    serviceInfo.setAttribute("SAI", "300");
+
+    castingPlayer =
+        new SimulatedCastingPlayer("E3A8B1C2D4F60718", "Living Room TV", 0xFFF1, 0x8001, 35);
+  }
+
+  @Benchmark
+  public DiscoveredNodeData fromServiceInfo() {
+    return new DiscoveredNodeData(serviceInfo);
+  }
+
+  @Benchmark
+  public DiscoveredNodeData fromCastingPlayer() {
+    return new DiscoveredNodeData(castingPlayer);
+  }
+
+  /** DT and VP parsed in place from their bytes, as DiscoveredNodeData does */
+  @Benchmark
+  public long parseNumericFieldsInPlace() {
+    Map<String, byte[]> attributes = serviceInfo.getAttributes();
+    byte[] vendorProduct = attributes.get("VP");
+    int plus = TxtRecordParser.indexOf(vendorProduct, (byte) '+', 0, vendorProduct.length);
+    return TxtRecordParser.parseDecimal(attributes.get("DT"))
+        + TxtRecordParser.parseDecimal(vendorProduct, 0, plus)
+        + TxtRecordParser.parseDecimal(vendorProduct, plus + 1, vendorProduct.length);
+  }
+
+  /** DT and VP decoded to Strings, then parsed, as DiscoveredNodeData used to */
+  @Benchmark
+  public long parseNumericFieldsFromStrings() {
+    Map<String, byte[]> attributes = serviceInfo.getAttributes();
+    String[] vendorProduct = new String(attributes.get("VP"), StandardCharsets.UTF_8).split("\\+");
+    return Long.parseLong(new String(attributes.get("DT"), StandardCharsets.UTF_8))
+        + Long.parseLong(vendorProduct[0])
+        + Long.parseLong(vendorProduct[1]);
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import chip.platform.AndroidChipPlatformException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the config store of the Matter stack with binary values the size of a certificate:
+ * reads, writes committed to disk, and the load of the store at startup. The
+ * PreferencesConfigurationManager, which keeps them as raw bytes in a BinaryConfigFile, is measured
+ * against the Base64 strings in SharedPreferences of earlier versions. Like Android's, the
+ * SharedPreferences here rewrite their whole XML file on each commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigStoreBenchmark {
+  private static final String NAMESPACE = "chip-config";
+  private static final String MAPPED_STORE = "mapped";
+  private static final String BASE64_STORE = "base64";
+  // about the size of an operational certificate
+  private static final int VALUE_SIZE = 400;
+
+  /** The number of binary values in the store */
+  @Param({"16", "64"})
+  public int valueCount;
+
+  private File filesDir;
+  private BenchmarkContext context;
+  private PreferencesConfigurationManager configurationManager;
+  private SharedPreferences base64Preferences;
+  private byte[] value;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, AndroidChipPlatformException {
+    filesDir = Files.createTempDirectory("config-store-benchmark").toFile();
+    context = new BenchmarkContext(filesDir);
+    value = new byte[VALUE_SIZE];
+    new Random(42).nextBytes(value);
+
+    configurationManager = new PreferencesConfigurationManager(context, MAPPED_STORE);
+    base64Preferences = context.getSharedPreferences(BASE64_STORE, Context.MODE_PRIVATE);
+    SharedPreferences.Editor editor = base64Preferences.edit();
+    for (int i = 0; i < valueCount; i++) {
+      configurationManager.writeConfigValueBin(NAMESPACE, name(i), value);
+      editor.putString(NAMESPACE + ":" + name(i), Base64.getEncoder().encodeToString(value));
+    }
+    editor.commit();
+    configurationManager.flush();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    File[] files = filesDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    filesDir.delete();
+  }
+
+  @Benchmark
+  public byte[] readBinary() throws AndroidChipPlatformException {
+    return configurationManager.readConfigValueBin(NAMESPACE, name(nextIndex()));
+  }
+
+  @Benchmark
+  public byte[] readBinaryBase64() {
+    String encoded = base64Preferences.getString(NAMESPACE + ":" + name(nextIndex()), null);
+    return Base64.getDecoder().decode(encoded);
+  }
+
+  /** A write made durable with flush(), as after commissioning */
+  @Benchmark
+  public void writeBinary() throws AndroidChipPlatformException {
+    configurationManager.writeConfigValueBin(NAMESPACE, name(nextIndex()), value);
+    configurationManager.flush();
+  }
+
+  @Benchmark
+  public boolean writeBinaryBase64() {
+    return base64Preferences
+        .edit()
+        .putString(NAMESPACE + ":" + name(nextIndex()), Base64.getEncoder().encodeToString(value))
+        .commit();
+  }
+
+  /** Loading the store, and reading every value, as the Matter stack does at startup */
+  @Benchmark
+  public int loadStore() throws AndroidChipPlatformException {
+    // a new context, so that the SharedPreferences are loaded from disk again
+    PreferencesConfigurationManager loaded =
+        new PreferencesConfigurationManager(new BenchmarkContext(filesDir), MAPPED_STORE);
+    int bytes = 0;
+    for (int i = 0; i < valueCount; i++) {
+      bytes += loaded.readConfigValueBin(NAMESPACE, name(i)).length;
+    }
+    return bytes;
+  }
+
+  @Benchmark
+  public int loadStoreBase64() {
+    SharedPreferences loaded =
+        new BenchmarkContext(filesDir).getSharedPreferences(BASE64_STORE, Context.MODE_PRIVATE);
+    int bytes = 0;
+    for (int i = 0; i < valueCount; i++) {
+      String encoded = loaded.getString(NAMESPACE + ":" + name(i), null);
+      bytes += Base64.getDecoder().decode(encoded).length;
+    }
+    return bytes;
+  }
+
+  private int nextIndex() {
+    next = (next + 1) % valueCount;
+    return next;
+  }
+
+  private static String name(int index) {
+    return "cert-" + index;
+  }
+
+  /** A Context whose SharedPreferences are files in filesDir, loaded once per Context */
+  private static final class BenchmarkContext extends ContextWrapper {
+    private final File filesDir;
+    private final Map<String, FilePreferences> preferences = new HashMap<>();
+
+    BenchmarkContext(File filesDir) {
+      super(null);
+      this.filesDir = filesDir;
+    }
+
+    @Override
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+      FilePreferences filePreferences = preferences.get(name);
+      if (filePreferences == null) {
+        filePreferences = new FilePreferences(new File(filesDir, name + ".xml"));
+        preferences.put(name, filePreferences);
+      }
+      return filePreferences;
+    }
+
+    @Override
+    public File getFilesDir() {
+      return filesDir;
+    }
+  }
+
+  /**
+   * SharedPreferences kept in memory and in an XML file, which each commit() or apply() rewrites
+   * and syncs, as Android's do. Only the String and long values the config store uses are
+   * supported.
+   */
+  private static final class FilePreferences implements SharedPreferences {
+    private static final String STRING_PREFIX = "s";
+    private static final String LONG_PREFIX = "l";
+
+    private final File file;
+    private final Map<String, Object> values = new HashMap<>();
+
+    FilePreferences(File file) {
+      this.file = file;
+      if (!file.exists()) {
+        return;
+      }
+      Properties properties = new Properties();
+      try (InputStream in = new FileInputStream(file)) {
+        properties.loadFromXML(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      for (String key : properties.stringPropertyNames()) {
+        String stored = properties.getProperty(key);
+        String content = stored.substring(1);
+        values.put(key, stored.startsWith(LONG_PREFIX) ? (Object) Long.valueOf(content) : content);
+      }
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+      return new HashMap<>(values);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+      Object value = values.get(key);
+      return value instanceof String ? (String) value : defValue;
+    }
+
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+      Object value = values.get(key);
+      return value instanceof Long ? (Long) value : defValue;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+      return new FileEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(
+        OnSharedPreferenceChangeListener listener) {}
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(
+        OnSharedPreferenceChangeListener listener) {}
+
+    private void write() throws IOException {
+      Properties properties = new Properties();
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+        Object value = entry.getValue();
+        properties.setProperty(
+            entry.getKey(), (value instanceof Long ? LONG_PREFIX : STRING_PREFIX) + value);
+      }
+      File tmpFile = new File(file.getPath() + ".tmp");
+      try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+        properties.storeToXML(out, null);
+        out.getFD().sync();
+      }
+      if (!tmpFile.renameTo(file)) {
+        throw new IOException("Failed to rename " + tmpFile);
+      }
+    }
+
+    private final class FileEditor implements Editor {
+      private final Map<String, Object> edits = new HashMap<>();
+      private boolean clear = false;
+
+      @Override
+      public Editor putString(String key, String value) {
+        edits.put(key, value);
+        return this;
+      }
+
+      @Override
+      public Editor putStringSet(String key, Set<String> values) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putInt(String key, int value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putLong(String key, long value) {
+        edits.put(key, value);
+        return this;
+      }
+
+      @Override
+      public Editor putFloat(String key, float value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putBoolean(String key, boolean value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor remove(String key) {
+        edits.put(key, this);
+        return this;
+      }
+
+      @Override
+      public Editor clear() {
+        clear = true;
+        return this;
+      }
+
+      @Override
+      public boolean commit() {
+        synchronized (FilePreferences.this) {
+          if (clear) {
+            values.clear();
+          }
+          for (Map.Entry<String, Object> edit : edits.entrySet()) {
+            // the editor itself marks a removed key
+            if (edit.getValue() == this) {
+              values.remove(edit.getKey());
+            } else {
+              values.put(edit.getKey(), edit.getValue());
+            }
+          }
+          try {
+            write();
+            return true;
+          } catch (IOException e) {
+            return false;
+          }
+        }
+      }
+
+      @Override
+      public void apply() {
+        commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks parsing a corpus of voice commands, as recognized, into VoiceIntents. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VoiceCommandBenchmark {
+  private static final String[] CORPUS = {
+    "up",
+    "down down down",
+    "select",
+    "go back",
+    "home",
+    "volume up",
+    "turn it down",
+    "mute",
+    "pause",
+    "play",
+    "fast forward",
+    "rewind",
+    "next channel",
+    "channel seven",
+    "go to channel one two three",
+    "tune to 42",
+    "five",
+    "open netflix",
+    "launch you tube",
+    "start amazon prime",
+    "close disney plus",
+    "stop",
+    "stop netflix",
+    "turn off",
+    "please turn the volume up a little bit",
+    "left left right select",
+    "open the app",
+    "what is the weather like today",
+  };
+
+  @Benchmark
+  @OperationsPerInvocation(28) // CORPUS.length
+  public void parseCorpus(Blackhole blackhole) {
+    for (String utterance : CORPUS) {
+      blackhole.consume(VoiceIntent.parse(utterance));
+    }
+  }
+
+  @Benchmark
+  public VoiceIntent parseShortCommand() {
+    return VoiceIntent.parse("volume up");
+  }
+
+  @Benchmark
+  public VoiceIntent parseUnrecognizedCommand() {
+    return VoiceIntent.parse("what is the weather like today");
+  }
+}
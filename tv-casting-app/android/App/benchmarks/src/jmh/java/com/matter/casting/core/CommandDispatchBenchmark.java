@@ -0,0 +1,127 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import com.chip.casting.ContentApp;
+import com.chip.casting.DiscoveredNodeData;
+import com.chip.casting.MatterError;
+import com.chip.casting.SimulatedTvCastingApp;
+import com.matter.casting.support.MatterCallback;
+import com.matter.casting.support.SimulatedCallbacks;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the round trip of a command: a MatterCallback delivered through the
+ * MatterCallbackDispatcher, and a KeypadInput SendKey command sent through the compat TvCastingApp
+ * to a SimulatedCastingBackend installed on the CastingApp, with no simulated latency, so only the
+ * Java layer's own cost is measured. The CastingApp can only be started once per process, which
+ * JMH's fork per benchmark allows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandDispatchBenchmark {
+  private static final int VENDOR_ID = 0xFFF1;
+  private static final short ENDPOINT_ID = 1;
+  private static final byte KEY_CODE_SELECT = 0x00;
+  // the keys of a multi-key voice command, e.g. a three digit channel number and Select
+  private static final int PIPELINED_COMMAND_COUNT = 4;
+
+  private SimulatedTvCastingApp app;
+  private ContentApp contentApp;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SimulatedEndpoint endpoint =
+        new SimulatedEndpoint(ENDPOINT_ID, VENDOR_ID, 0x8001, new ArrayList<>());
+    SimulatedCastingPlayer castingPlayer =
+        new SimulatedCastingPlayer("benchmark-tv", "Benchmark TV", VENDOR_ID, 0x8001, 35)
+            .addEndpoint(endpoint);
+    SimulatedCastingBackend backend =
+        SimulatedCastingBackend.builder().addCastingPlayer(castingPlayer).build();
+    File filesDir = Files.createTempDirectory("command-dispatch-benchmark").toFile();
+
+    app = SimulatedTvCastingApp.start(backend, filesDir);
+    DiscoveredNodeData commissioner = app.discover();
+    contentApp = app.connect(commissioner, VENDOR_ID, ENDPOINT_ID);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    app.stop();
+  }
+
+  /** A callback handled on the MatterCallbackDispatcher thread, as app callbacks are by default */
+  @Benchmark
+  public void callbackDispatch() throws InterruptedException {
+    CountDownLatch handled = new CountDownLatch(1);
+    SimulatedCallbacks.deliver(
+        new MatterCallback<Void>() {
+          @Override
+          public void handle(Void response) {
+            handled.countDown();
+          }
+        },
+        null);
+    handled.await();
+  }
+
+  /** A callback handled directly on the delivering thread */
+  @Benchmark
+  public void callbackOnCallingThread() throws InterruptedException {
+    CountDownLatch handled = new CountDownLatch(1);
+    SimulatedCallbacks.deliver(
+        new MatterCallback<Void>(true) {
+          @Override
+          public void handle(Void response) {
+            handled.countDown();
+          }
+        },
+        null);
+    handled.await();
+  }
+
+  /** A command sent through TvCastingApp, its response dispatched to the app */
+  @Benchmark
+  public MatterError invokeCommand() throws Exception {
+    return app.sendKey(contentApp, KEY_CODE_SELECT).get();
+  }
+
+  /** Commands sent back to back, as the keys of a multi-key voice command are */
+  @Benchmark
+  public void invokePipelinedCommands() throws Exception {
+    CompletableFuture<?>[] responses = new CompletableFuture<?>[PIPELINED_COMMAND_COUNT];
+    for (int i = 0; i < PIPELINED_COMMAND_COUNT; i++) {
+      responses[i] = app.sendKey(contentApp, KEY_CODE_SELECT);
+    }
+    CompletableFuture.allOf(responses).get();
+  }
+}
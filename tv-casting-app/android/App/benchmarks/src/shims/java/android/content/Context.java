@@ -0,0 +1,31 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.content;
+
+import java.io.File;
+
+/**
+ * JVM shim of android.content.Context for the benchmarks, with only the storage methods the config
+ * stores use. Benchmarks provide them through a ContextWrapper.
+ */
+public abstract class Context {
+  public static final int MODE_PRIVATE = 0x0000;
+
+  public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+  public abstract File getFilesDir();
+}
@@ -0,0 +1,76 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.net.nsd;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/** JVM shim of android.net.nsd.NsdServiceInfo for the benchmarks, holding a resolved service */
+public class NsdServiceInfo {
+  private String serviceName;
+  private String serviceType;
+  private InetAddress host;
+  private int port;
+  private final Map<String, byte[]> txtRecord = new HashMap<>();
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  public void setServiceName(String serviceName) {
+    this.serviceName = serviceName;
+  }
+
+  public String getServiceType() {
+    return serviceType;
+  }
+
+  public void setServiceType(String serviceType) {
+    this.serviceType = serviceType;
+  }
+
+  public InetAddress getHost() {
+    return host;
+  }
+
+  public void setHost(InetAddress host) {
+    this.host = host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public void setPort(int port) {
+    this.port = port;
+  }
+
+  public void setAttribute(String key, String value) {
+    txtRecord.put(key, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public void removeAttribute(String key) {
+    txtRecord.remove(key);
+  }
+
+  public Map<String, byte[]> getAttributes() {
+    return Collections.unmodifiableMap(txtRecord);
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+/**
+ * JVM shim of android.os.Build for the benchmarks. SDK_INT is that of the app's minSdk, so that
+ * code paths for later versions, such as async trace sections, are skipped.
+ */
+public class Build {
+  private Build() {}
+
+  public static class VERSION {
+    public static final int SDK_INT = 26;
+
+    private VERSION() {}
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+/** JVM shim of android.os.Trace for the benchmarks. There is no system trace to write to. */
+public final class Trace {
+  private Trace() {}
+
+  public static void beginSection(String sectionName) {}
+
+  public static void endSection() {}
+
+  public static void beginAsyncSection(String methodName, int cookie) {}
+
+  public static void endAsyncSection(String methodName, int cookie) {}
+}
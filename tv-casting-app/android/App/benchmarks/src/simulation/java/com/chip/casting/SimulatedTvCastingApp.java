@@ -0,0 +1,178 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.chip.casting;
+
+import com.matter.casting.PreferencesConfigurationManager;
+import com.matter.casting.SimulatedContext;
+import com.matter.casting.core.CastingApp;
+import com.matter.casting.core.SimulatedCastingBackend;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drives the compat TvCastingApp on a SimulatedCastingBackend, as an app using the legacy API
+ * would: the backend is installed on the CastingApp, which TvCastingApp.initApp() initializes and
+ * starts, and discovery, connection and commands go through TvCastingApp, its callbacks and its
+ * adapters. As the CastingApp is a singleton, which cannot be initialized again, start() can only
+ * be called once per process.
+ */
+public final class SimulatedTvCastingApp {
+  private static final long TIMEOUT_SEC = 5;
+  private static final String CONFIGURATION_FILE_KEY = "chip.platform.ConfigurationManager";
+  private static final int COMMISSIONING_WINDOW_TIMEOUT_SEC = 180;
+
+  private final TvCastingApp tvCastingApp = TvCastingApp.getInstance();
+  private final SimulatedContext context;
+
+  private SimulatedTvCastingApp(SimulatedContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Installs the backend on the CastingApp, then initializes and starts it with
+   * TvCastingApp.initApp()
+   *
+   * @param filesDir where the app stores its files
+   */
+  public static SimulatedTvCastingApp start(SimulatedCastingBackend backend, File filesDir) {
+    com.matter.casting.support.MatterError err = CastingApp.getInstance().setBackend(backend);
+    if (err.hasError()) {
+      throw new IllegalStateException("CastingApp.setBackend() failed: " + err);
+    }
+
+    SimulatedContext context = new SimulatedContext(filesDir);
+    AppParameters appParameters = new AppParameters();
+    appParameters.setConfigurationManager(
+        new PreferencesConfigurationManager(context, CONFIGURATION_FILE_KEY));
+    appParameters.setRotatingDeviceIdUniqueId(
+        new byte[AppParameters.MIN_ROTATING_DEVICE_ID_UNIQUE_ID_LENGTH]);
+    if (!TvCastingApp.getInstance().initApp(context, appParameters)) {
+      throw new IllegalStateException("TvCastingApp.initApp() failed");
+    }
+    return new SimulatedTvCastingApp(context);
+  }
+
+  /** @return the first commissioner TvCastingApp discovers */
+  public DiscoveredNodeData discover() throws Exception {
+    CompletableFuture<DiscoveredNodeData> discovered = new CompletableFuture<>();
+    tvCastingApp.discoverVideoPlayerCommissioners(
+        new SuccessCallback<DiscoveredNodeData>() {
+          @Override
+          public void handle(DiscoveredNodeData discoveredNodeData) {
+            discovered.complete(discoveredNodeData);
+          }
+        },
+        new FailureCallback() {
+          @Override
+          public void handle(MatterError err) {
+            discovered.completeExceptionally(
+                new IllegalStateException("Discovery failed: " + err));
+          }
+        });
+    try {
+      return await(discovered);
+    } finally {
+      tvCastingApp.stopVideoPlayerDiscovery();
+    }
+  }
+
+  /**
+   * Connects to the commissioner with TvCastingApp.sendCommissioningRequest()
+   *
+   * @return the ContentApp of the commissioner's endpoint with this id
+   */
+  public ContentApp connect(DiscoveredNodeData commissioner, int vendorId, short endpointId)
+      throws Exception {
+    CompletableFuture<ContentApp> contentAppFuture = new CompletableFuture<>();
+    CommissioningCallbacks commissioningCallbacks =
+        new CommissioningCallbacks.Builder()
+            .commissioningComplete(
+                new MatterCallbackHandler() {
+                  @Override
+                  public void handle(MatterError err) {}
+                })
+            .build();
+    tvCastingApp.openBasicCommissioningWindow(
+        COMMISSIONING_WINDOW_TIMEOUT_SEC,
+        commissioningCallbacks,
+        new SuccessCallback<VideoPlayer>() {
+          @Override
+          public void handle(VideoPlayer videoPlayer) {}
+        },
+        new FailureCallback() {
+          @Override
+          public void handle(MatterError err) {
+            contentAppFuture.completeExceptionally(
+                new IllegalStateException("Connection failed: " + err));
+          }
+        },
+        new SuccessCallback<ContentApp>() {
+          @Override
+          public void handle(ContentApp contentApp) {
+            if (contentApp.getEndpointId() == endpointId) {
+              contentAppFuture.complete(contentApp);
+            }
+          }
+        });
+    if (!tvCastingApp.sendCommissioningRequest(commissioner, vendorId)) {
+      throw new IllegalStateException("TvCastingApp.sendCommissioningRequest() failed");
+    }
+    return await(contentAppFuture);
+  }
+
+  /**
+   * Sends a key with TvCastingApp.keypadInput_sendKey()
+   *
+   * @return completed with the error the command completed with, once it completes
+   */
+  public CompletableFuture<MatterError> sendKey(ContentApp contentApp, byte keyCode) {
+    CompletableFuture<MatterError> result = new CompletableFuture<>();
+    boolean sent =
+        tvCastingApp.keypadInput_sendKey(
+            contentApp,
+            keyCode,
+            new MatterCallbackHandler() {
+              @Override
+              public void handle(MatterError err) {
+                result.complete(err);
+              }
+            });
+    if (!sent) {
+      result.completeExceptionally(
+          new IllegalStateException("TvCastingApp.keypadInput_sendKey() failed"));
+    }
+    return result;
+  }
+
+  /** Stops the CastingApp, and deletes the files of the app */
+  public void stop() {
+    CastingApp.getInstance().stop();
+    context.delete();
+  }
+
+  private static <T> T await(CompletableFuture<T> future)
+      throws InterruptedException, TimeoutException {
+    try {
+      return future.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
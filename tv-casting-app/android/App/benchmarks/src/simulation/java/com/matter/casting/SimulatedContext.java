@@ -0,0 +1,204 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Context for the tests and benchmarks, with its files in filesDir and its SharedPreferences in
+ * memory. The SharedPreferences of a name are shared by every SimulatedContext with the same
+ * filesDir, so a store can be reopened from a new SimulatedContext, as after a restart of the app.
+ */
+public class SimulatedContext extends ContextWrapper {
+  private static final Map<String, MemoryPreferences> preferences = new HashMap<>();
+
+  private final File filesDir;
+
+  public SimulatedContext(File filesDir) {
+    super(null);
+    this.filesDir = filesDir;
+  }
+
+  @Override
+  public SharedPreferences getSharedPreferences(String name, int mode) {
+    synchronized (preferences) {
+      String path = new File(filesDir, name).getPath();
+      MemoryPreferences memoryPreferences = preferences.get(path);
+      if (memoryPreferences == null) {
+        memoryPreferences = new MemoryPreferences();
+        preferences.put(path, memoryPreferences);
+      }
+      return memoryPreferences;
+    }
+  }
+
+  @Override
+  public File getFilesDir() {
+    return filesDir;
+  }
+
+  /** Deletes the files and forgets the SharedPreferences of this SimulatedContext */
+  public void delete() {
+    synchronized (preferences) {
+      preferences.keySet().removeIf(path -> new File(path).getParentFile().equals(filesDir));
+    }
+    File[] files = filesDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    filesDir.delete();
+  }
+
+  /** SharedPreferences kept in memory. Only the String and long values of the app are supported. */
+  private static final class MemoryPreferences implements SharedPreferences {
+    private final Map<String, Object> values = new HashMap<>();
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+      return new HashMap<>(values);
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+      Object value = values.get(key);
+      return value instanceof String ? (String) value : defValue;
+    }
+
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+      Object value = values.get(key);
+      return value instanceof Long ? (Long) value : defValue;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+      return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+      return new MemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(
+        OnSharedPreferenceChangeListener listener) {}
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(
+        OnSharedPreferenceChangeListener listener) {}
+
+    private final class MemoryEditor implements Editor {
+      private final Map<String, Object> edits = new HashMap<>();
+      private boolean clear = false;
+
+      @Override
+      public Editor putString(String key, String value) {
+        edits.put(key, value);
+        return this;
+      }
+
+      @Override
+      public Editor putStringSet(String key, Set<String> values) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putInt(String key, int value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putLong(String key, long value) {
+        edits.put(key, value);
+        return this;
+      }
+
+      @Override
+      public Editor putFloat(String key, float value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor putBoolean(String key, boolean value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Editor remove(String key) {
+        edits.put(key, this);
+        return this;
+      }
+
+      @Override
+      public Editor clear() {
+        clear = true;
+        return this;
+      }
+
+      @Override
+      public boolean commit() {
+        synchronized (MemoryPreferences.this) {
+          if (clear) {
+            values.clear();
+          }
+          for (Map.Entry<String, Object> edit : edits.entrySet()) {
+            // the editor itself marks a removed key
+            if (edit.getValue() == this) {
+              values.remove(edit.getKey());
+            } else {
+              values.put(edit.getKey(), edit.getValue());
+            }
+          }
+          return true;
+        }
+      }
+
+      @Override
+      public void apply() {
+        commit();
+      }
+    }
+  }
+}
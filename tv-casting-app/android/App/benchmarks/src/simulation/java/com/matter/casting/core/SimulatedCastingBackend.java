@@ -0,0 +1,297 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import android.util.Log;
+import com.matter.casting.support.AppParameters;
+import com.matter.casting.support.CommissionableData;
+import com.matter.casting.support.MatterError;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SimulatedCastingBackend is an in-process CastingBackend that simulates the Matter stack and a
+ * set of SimulatedCastingPlayers: discovery, connection, endpoints, cluster commands and attribute
+ * subscriptions. Each operation completes on a single simulated Matter thread after a latency drawn
+ * between the configured bounds, and fails with the configured probability, so the Java layer
+ * (CastingApp, callbacks, the SubscriptionRegistry and the compat TvCastingApp) can be exercised
+ * and load tested on a JVM, without the native library or a device.
+ *
+ * <p>To run the whole Java stack, install the backend with CastingApp.setBackend() before the
+ * CastingApp is initialized, as SimulatedTvCastingApp does for the compat TvCastingApp.
+ * ChipClusters objects send their commands through the native Matter stack, so
+ * SimulatedEndpoint.getCluster() only simulates the KeypadInputCluster's SendKey command. Other
+ * cluster commands and subscriptions are simulated by SimulatedEndpoint.invoke() and
+ * SimulatedEndpoint.subscriber().
+ */
+public final class SimulatedCastingBackend implements CastingBackend {
+  private static final String TAG = SimulatedCastingBackend.class.getSimpleName();
+
+  /** The error simulated operations fail with */
+  public static final MatterError CHIP_ERROR_TIMEOUT = new MatterError(0x32, "CHIP_ERROR_TIMEOUT");
+
+  private static final short UDC_MAX_TARGET_APPS = 10;
+
+  private final long minLatencyMs;
+  private final long maxLatencyMs;
+  private final double failureRate;
+  private final Random random;
+  private final SimulatedCastingPlayerDiscovery discovery =
+      new SimulatedCastingPlayerDiscovery(this);
+
+  private ScheduledExecutorService matterThread;
+  private CommissionableData commissionableData;
+
+  private final AtomicLong operationCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+
+  public static final class Builder {
+    private long minLatencyMs = 0;
+    private long maxLatencyMs = 0;
+    private double failureRate = 0;
+    private long seed = 0;
+    private final List<SimulatedCastingPlayer> castingPlayers = new ArrayList<>();
+
+    /** Sets the bounds of the latency of every simulated operation, 0 by default */
+    public Builder setLatencyMs(long minLatencyMs, long maxLatencyMs) {
+      if (minLatencyMs < 0 || maxLatencyMs < minLatencyMs) {
+        throw new IllegalArgumentException(
+            "Invalid latency bounds " + minLatencyMs + ", " + maxLatencyMs);
+      }
+      this.minLatencyMs = minLatencyMs;
+      this.maxLatencyMs = maxLatencyMs;
+      return this;
+    }
+
+    /** Sets the probability, between 0 and 1, that a connection or command fails, 0 by default */
+    public Builder setFailureRate(double failureRate) {
+      if (failureRate < 0 || failureRate > 1) {
+        throw new IllegalArgumentException("Invalid failure rate " + failureRate);
+      }
+      this.failureRate = failureRate;
+      return this;
+    }
+
+    /** Sets the seed of the latencies and failures drawn, for reproducible runs */
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /** Adds a CastingPlayer that discovery finds */
+    public Builder addCastingPlayer(SimulatedCastingPlayer castingPlayer) {
+      castingPlayers.add(castingPlayer);
+      return this;
+    }
+
+    public SimulatedCastingBackend build() {
+      SimulatedCastingBackend backend = new SimulatedCastingBackend(this);
+      for (SimulatedCastingPlayer castingPlayer : castingPlayers) {
+        backend.addCastingPlayer(castingPlayer);
+      }
+      return backend;
+    }
+  }
+
+  private SimulatedCastingBackend(Builder builder) {
+    this.minLatencyMs = builder.minLatencyMs;
+    this.maxLatencyMs = builder.maxLatencyMs;
+    this.failureRate = builder.failureRate;
+    this.random = new Random(builder.seed);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Adds a CastingPlayer to the simulated network. If discovery is running, listeners are told it
+   * was added.
+   */
+  public void addCastingPlayer(SimulatedCastingPlayer castingPlayer) {
+    castingPlayer.attach(this);
+    discovery.add(castingPlayer);
+  }
+
+  /**
+   * Removes a CastingPlayer from the simulated network. If discovery is running, listeners are told
+   * it was removed.
+   */
+  public void removeCastingPlayer(SimulatedCastingPlayer castingPlayer) {
+    discovery.remove(castingPlayer);
+  }
+
+  @Override
+  public MatterError initialize(AppParameters appParameters) {
+    return updateCommissionableData(appParameters.getCommissionableDataProvider().get());
+  }
+
+  @Override
+  public synchronized MatterError updateCommissionableData(CommissionableData commissionableData) {
+    if (commissionableData == null) {
+      return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+    }
+    this.commissionableData = commissionableData;
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public synchronized MatterError start() {
+    if (matterThread != null) {
+      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    }
+    matterThread =
+        Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, TAG));
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError stop() {
+    ScheduledExecutorService stopped;
+    synchronized (this) {
+      if (matterThread == null) {
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
+      stopped = matterThread;
+      matterThread = null;
+    }
+    discovery.stopDiscovery();
+    for (SimulatedCastingPlayer castingPlayer : discovery.getAllCastingPlayers()) {
+      castingPlayer.disconnect();
+    }
+    stopped.shutdownNow();
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError shutdownAllSubscriptions() {
+    for (SimulatedCastingPlayer castingPlayer : discovery.getAllCastingPlayers()) {
+      castingPlayer.shutdownAllSubscriptions();
+    }
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError clearCache() {
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public CastingPlayerDiscovery getCastingPlayerDiscovery() {
+    return discovery;
+  }
+
+  /** @return CHIP_DEVICE_CONFIG_UDC_MAX_TARGET_APPS of tv-casting-common's CHIPProjectAppConfig.h */
+  @Override
+  public short getUdcMaxTargetApps() {
+    return UDC_MAX_TARGET_APPS;
+  }
+
+  /** @return the commissionable data the backend was last given */
+  public synchronized CommissionableData getCommissionableData() {
+    return commissionableData;
+  }
+
+  /** @return the number of simulated operations scheduled */
+  public long getOperationCount() {
+    return operationCount.get();
+  }
+
+  /** @return the number of simulated operations that failed */
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "SimulatedCastingBackend{"
+        + "latencyMs=["
+        + minLatencyMs
+        + ", "
+        + maxLatencyMs
+        + "], failureRate="
+        + failureRate
+        + ", operations="
+        + operationCount.get()
+        + ", failures="
+        + failureCount.get()
+        + '}';
+  }
+
+  /** @return true if the backend is started, i.e. operations can be scheduled */
+  synchronized boolean isRunning() {
+    return matterThread != null;
+  }
+
+  /**
+   * Runs the operation on the simulated Matter thread after a simulated latency.
+   *
+   * @return false if the backend is not running
+   */
+  boolean schedule(Runnable operation) {
+    ScheduledExecutorService executor;
+    long latencyMs;
+    synchronized (this) {
+      if (matterThread == null) {
+        return false;
+      }
+      executor = matterThread;
+      latencyMs =
+          minLatencyMs == maxLatencyMs
+              ? minLatencyMs
+              : minLatencyMs + (long) (random.nextDouble() * (maxLatencyMs - minLatencyMs));
+    }
+    operationCount.incrementAndGet();
+    Runnable safeOperation =
+        () -> {
+          try {
+            operation.run();
+          } catch (Throwable t) {
+            Log.e(TAG, "Simulated operation threw: " + t);
+          }
+        };
+    try {
+      if (latencyMs == 0) {
+        executor.execute(safeOperation);
+      } else {
+        executor.schedule(safeOperation, latencyMs, TimeUnit.MILLISECONDS);
+      }
+    } catch (RejectedExecutionException e) {
+      // stopped concurrently
+      return false;
+    }
+    return true;
+  }
+
+  /** @return true if the simulated operation should fail, as drawn from the failure rate */
+  boolean drawFailure() {
+    boolean failed;
+    synchronized (this) {
+      failed = failureRate > 0 && random.nextDouble() < failureRate;
+    }
+    if (failed) {
+      failureCount.incrementAndGet();
+    }
+    return failed;
+  }
+}
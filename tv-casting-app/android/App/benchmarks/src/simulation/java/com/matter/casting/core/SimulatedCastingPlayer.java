@@ -0,0 +1,274 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import com.matter.casting.support.ConnectionCallbacks;
+import com.matter.casting.support.IdentificationDeclarationOptions;
+import com.matter.casting.support.MatterError;
+import com.matter.casting.support.SimulatedCallbacks;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A CastingPlayer of a SimulatedCastingBackend. Connecting succeeds or fails after the backend's
+ * simulated latency, without commissioning, and the CastingPlayer's SimulatedEndpoints are
+ * available once connected.
+ */
+public final class SimulatedCastingPlayer implements CastingPlayer {
+  private final String deviceId;
+  private final String deviceName;
+  private final int vendorId;
+  private final int productId;
+  private final long deviceType;
+  private final List<SimulatedEndpoint> endpoints = new ArrayList<>();
+
+  private SimulatedCastingBackend backend;
+  private ConnectionState connectionState = ConnectionState.NOT_CONNECTED;
+  // incremented by each connection attempt, so that a stopped attempt does not complete
+  private int connectionAttempt = 0;
+
+  /**
+   * @param deviceId must be unique among the CastingPlayers of the backend
+   * @param deviceType e.g. 35 for a Matter Casting Video Player
+   */
+  public SimulatedCastingPlayer(
+      String deviceId, String deviceName, int vendorId, int productId, long deviceType) {
+    this.deviceId = deviceId;
+    this.deviceName = deviceName;
+    this.vendorId = vendorId;
+    this.productId = productId;
+    this.deviceType = deviceType;
+  }
+
+  /** Adds an endpoint, typically before the CastingPlayer is added to the backend */
+  public synchronized SimulatedCastingPlayer addEndpoint(SimulatedEndpoint endpoint) {
+    endpoint.attach(this);
+    endpoints.add(endpoint);
+    return this;
+  }
+
+  @Override
+  public synchronized boolean isConnected() {
+    return connectionState == ConnectionState.CONNECTED;
+  }
+
+  @Override
+  public String getDeviceId() {
+    return deviceId;
+  }
+
+  @Override
+  public String getHostName() {
+    return deviceId + ".local";
+  }
+
+  @Override
+  public String getDeviceName() {
+    return deviceName;
+  }
+
+  @Override
+  public String getInstanceName() {
+    return deviceId;
+  }
+
+  @Override
+  public List<InetAddress> getIpAddresses() {
+    return Collections.singletonList(InetAddress.getLoopbackAddress());
+  }
+
+  @Override
+  public int getPort() {
+    return 5540;
+  }
+
+  @Override
+  public int getVendorId() {
+    return vendorId;
+  }
+
+  @Override
+  public int getProductId() {
+    return productId;
+  }
+
+  @Override
+  public long getDeviceType() {
+    return deviceType;
+  }
+
+  @Override
+  public boolean getSupportsCommissionerGeneratedPasscode() {
+    return false;
+  }
+
+  /** @return the endpoints of the CastingPlayer, or null if it is not connected */
+  @Override
+  public synchronized List<Endpoint> getEndpoints() {
+    return isConnected() ? new ArrayList<>(endpoints) : null;
+  }
+
+  @Override
+  public String toString() {
+    return deviceId;
+  }
+
+  @Override
+  public int hashCode() {
+    return deviceId.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SimulatedCastingPlayer that = (SimulatedCastingPlayer) o;
+    return Objects.equals(deviceId, that.deviceId);
+  }
+
+  @Override
+  public MatterError verifyOrEstablishConnection(
+      ConnectionCallbacks connectionCallbacks,
+      short commissioningWindowTimeoutSec,
+      IdentificationDeclarationOptions idOptions) {
+    if (connectionCallbacks == null
+        || connectionCallbacks.onSuccess == null
+        || connectionCallbacks.onFailure == null) {
+      return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+    }
+
+    int attempt;
+    boolean connected;
+    synchronized (this) {
+      if (backend == null || connectionState == ConnectionState.CONNECTING) {
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
+      connected = connectionState == ConnectionState.CONNECTED;
+      if (!connected) {
+        connectionState = ConnectionState.CONNECTING;
+      }
+      attempt = ++connectionAttempt;
+    }
+    if (connected) {
+      SimulatedCallbacks.deliver(connectionCallbacks.onSuccess, null);
+      return MatterError.NO_ERROR;
+    }
+
+    boolean scheduled =
+        backend.schedule(
+            () -> {
+              boolean failed = backend.drawFailure();
+              synchronized (this) {
+                if (attempt != connectionAttempt
+                    || connectionState != ConnectionState.CONNECTING) {
+                  return;
+                }
+                connectionState =
+                    failed ? ConnectionState.NOT_CONNECTED : ConnectionState.CONNECTED;
+              }
+              if (failed) {
+                SimulatedCallbacks.deliver(
+                    connectionCallbacks.onFailure, SimulatedCastingBackend.CHIP_ERROR_TIMEOUT);
+              } else {
+                SimulatedCallbacks.deliver(connectionCallbacks.onSuccess, null);
+              }
+            });
+    if (!scheduled) {
+      synchronized (this) {
+        connectionState = ConnectionState.NOT_CONNECTED;
+      }
+      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    }
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError verifyOrEstablishConnection(ConnectionCallbacks connectionCallbacks) {
+    return verifyOrEstablishConnection(
+        connectionCallbacks, MatterCastingPlayer.MIN_CONNECTION_TIMEOUT_SEC, null);
+  }
+
+  /** The simulation does not use Commissioner-Generated passcodes: there is nothing to continue */
+  @Override
+  public MatterError continueConnecting() {
+    return continueConnectingNative();
+  }
+
+  @Override
+  public MatterError continueConnectingNative() {
+    return MatterError.CHIP_ERROR_INCORRECT_STATE;
+  }
+
+  @Override
+  public synchronized MatterError stopConnecting() {
+    if (connectionState != ConnectionState.CONNECTING) {
+      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    }
+    connectionState = ConnectionState.NOT_CONNECTED;
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public void disconnect() {
+    synchronized (this) {
+      connectionState = ConnectionState.NOT_CONNECTED;
+      connectionAttempt++;
+    }
+    shutdownAllSubscriptions();
+  }
+
+  @Override
+  public MatterError shutdownSubscription(long subscriptionId) {
+    for (SimulatedEndpoint endpoint : snapshotEndpoints()) {
+      if (endpoint.shutdownSubscription(subscriptionId)) {
+        return MatterError.NO_ERROR;
+      }
+    }
+    return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+  }
+
+  @Override
+  public synchronized ConnectionState getConnectionState() {
+    return connectionState;
+  }
+
+  @Override
+  public String getConnectionStateNative() {
+    return getConnectionState().name();
+  }
+
+  synchronized void attach(SimulatedCastingBackend backend) {
+    this.backend = backend;
+  }
+
+  synchronized SimulatedCastingBackend getBackend() {
+    return backend;
+  }
+
+  void shutdownAllSubscriptions() {
+    for (SimulatedEndpoint endpoint : snapshotEndpoints()) {
+      endpoint.shutdownAllSubscriptions();
+    }
+  }
+
+  private synchronized List<SimulatedEndpoint> snapshotEndpoints() {
+    return new ArrayList<>(endpoints);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import com.matter.casting.support.MatterError;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The CastingPlayerDiscovery of a SimulatedCastingBackend. Starting discovery reports the
+ * CastingPlayers on the simulated network, each after a simulated latency, and CastingPlayers
+ * added to or removed from the network while discovery runs are reported as they come and go.
+ */
+final class SimulatedCastingPlayerDiscovery implements CastingPlayerDiscovery {
+  private final SimulatedCastingBackend backend;
+  private final List<CastingPlayerChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  // the CastingPlayers on the simulated network, and those found by the current discovery
+  private final List<SimulatedCastingPlayer> network = new ArrayList<>();
+  private final List<CastingPlayer> discovered = new ArrayList<>();
+  private boolean discovering = false;
+  private Long discoveryTargetDeviceType;
+
+  SimulatedCastingPlayerDiscovery(SimulatedCastingBackend backend) {
+    this.backend = backend;
+  }
+
+  @Override
+  public synchronized List<CastingPlayer> getCastingPlayers() {
+    return new ArrayList<>(discovered);
+  }
+
+  @Override
+  public MatterError startDiscovery(Long discoveryTargetDeviceType) {
+    List<SimulatedCastingPlayer> castingPlayers;
+    synchronized (this) {
+      if (!backend.isRunning() || discovering) {
+        return MatterError.CHIP_ERROR_INCORRECT_STATE;
+      }
+      discovering = true;
+      this.discoveryTargetDeviceType = discoveryTargetDeviceType;
+      castingPlayers = new ArrayList<>(network);
+    }
+    for (SimulatedCastingPlayer castingPlayer : castingPlayers) {
+      announce(castingPlayer);
+    }
+    return MatterError.NO_ERROR;
+  }
+
+  /** Like the native discovery, removes every CastingPlayer found, reporting it to the listeners */
+  @Override
+  public MatterError stopDiscovery() {
+    List<CastingPlayer> removed;
+    synchronized (this) {
+      discovering = false;
+      removed = new ArrayList<>(discovered);
+      discovered.clear();
+    }
+    for (CastingPlayer castingPlayer : removed) {
+      for (CastingPlayerChangeListener listener : listeners) {
+        listener._onRemoved(castingPlayer);
+      }
+    }
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError addCastingPlayerChangeListener(CastingPlayerChangeListener listener) {
+    if (listener == null || listeners.contains(listener)) {
+      return MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+    }
+    listeners.add(listener);
+    return MatterError.NO_ERROR;
+  }
+
+  @Override
+  public MatterError removeCastingPlayerChangeListener(CastingPlayerChangeListener listener) {
+    return listeners.remove(listener)
+        ? MatterError.NO_ERROR
+        : MatterError.CHIP_ERROR_INVALID_ARGUMENT;
+  }
+
+  synchronized List<SimulatedCastingPlayer> getAllCastingPlayers() {
+    return new ArrayList<>(network);
+  }
+
+  void add(SimulatedCastingPlayer castingPlayer) {
+    boolean announce;
+    synchronized (this) {
+      if (network.contains(castingPlayer)) {
+        return;
+      }
+      network.add(castingPlayer);
+      announce = discovering;
+    }
+    if (announce) {
+      announce(castingPlayer);
+    }
+  }
+
+  void remove(SimulatedCastingPlayer castingPlayer) {
+    synchronized (this) {
+      network.remove(castingPlayer);
+    }
+    backend.schedule(
+        () -> {
+          synchronized (this) {
+            if (!discovered.remove(castingPlayer)) {
+              return;
+            }
+          }
+          for (CastingPlayerChangeListener listener : listeners) {
+            listener._onRemoved(castingPlayer);
+          }
+        });
+  }
+
+  /** Reports the CastingPlayer to the listeners after a simulated latency, as found or changed */
+  private void announce(SimulatedCastingPlayer castingPlayer) {
+    backend.schedule(
+        () -> {
+          boolean changed;
+          synchronized (this) {
+            if (!discovering
+                || !network.contains(castingPlayer)
+                || (discoveryTargetDeviceType != null
+                    && castingPlayer.getDeviceType() != discoveryTargetDeviceType)) {
+              return;
+            }
+            changed = discovered.contains(castingPlayer);
+            if (!changed) {
+              discovered.add(castingPlayer);
+            }
+          }
+          for (CastingPlayerChangeListener listener : listeners) {
+            if (changed) {
+              listener._onChanged(castingPlayer);
+            } else {
+              listener._onAdded(castingPlayer);
+            }
+          }
+        });
+  }
+}
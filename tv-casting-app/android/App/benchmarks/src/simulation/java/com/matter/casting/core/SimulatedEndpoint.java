@@ -0,0 +1,314 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import android.util.Log;
+import chip.devicecontroller.ChipClusters;
+import com.matter.casting.support.DeviceTypeStruct;
+import com.matter.casting.support.MatterCallback;
+import com.matter.casting.support.MatterError;
+import com.matter.casting.support.SimulatedCallbacks;
+import com.matter.casting.support.SubscriptionRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An Endpoint of a SimulatedCastingPlayer. It holds attribute values, set with setAttribute(), that
+ * subscriptions made through subscriber() report on, and simulates cluster commands with invoke(),
+ * all with the latency and failure rate of the SimulatedCastingBackend. getCluster() returns a
+ * KeypadInputCluster whose SendKey command is simulated with invoke(), so that commands sent
+ * through the compat TvCastingApp reach the endpoint.
+ */
+public final class SimulatedEndpoint implements Endpoint {
+  private static final String TAG = SimulatedEndpoint.class.getSimpleName();
+  private static final AtomicLong nextSubscriptionId = new AtomicLong(1);
+  private static final long SEND_KEY_COMMAND_ID = 0x00;
+  // the Status of a SendKeyResponse, see the KeypadInput cluster's StatusEnum
+  private static final int SEND_KEY_STATUS_SUCCESS = 0;
+
+  private final int id;
+  private final int vendorId;
+  private final int productId;
+  private final List<DeviceTypeStruct> deviceTypeList;
+
+  private SimulatedCastingPlayer castingPlayer;
+  private final Map<Long, Object> attributes = new HashMap<>();
+  private final List<Subscription<?>> subscriptions = new ArrayList<>();
+  private final AtomicLong invokedCommandCount = new AtomicLong();
+
+  private static final class Subscription<T> {
+    final long id;
+    final long attributeKey;
+    final SubscriptionRegistry.Sink<T> sink;
+
+    Subscription(long id, long attributeKey, SubscriptionRegistry.Sink<T> sink) {
+      this.id = id;
+      this.attributeKey = attributeKey;
+      this.sink = sink;
+    }
+
+    @SuppressWarnings("unchecked")
+    void report(Object value) {
+      sink.onValue((T) value);
+    }
+  }
+
+  public SimulatedEndpoint(
+      int id, int vendorId, int productId, List<DeviceTypeStruct> deviceTypeList) {
+    this.id = id;
+    this.vendorId = vendorId;
+    this.productId = productId;
+    this.deviceTypeList = deviceTypeList;
+  }
+
+  @Override
+  public int getId() {
+    return id;
+  }
+
+  @Override
+  public int getVendorId() {
+    return vendorId;
+  }
+
+  @Override
+  public int getProductId() {
+    return productId;
+  }
+
+  @Override
+  public List<DeviceTypeStruct> getDeviceTypeList() {
+    return deviceTypeList;
+  }
+
+  /**
+   * ChipClusters objects send their commands through the native Matter stack, so only those
+   * overridden here are simulated: the KeypadInputCluster's sendKey(). This returns null for the
+   * other clusters. Use invoke() and subscriber() for those.
+   */
+  @Override
+  public <T extends ChipClusters.BaseChipCluster> T getCluster(Class<T> clusterClass) {
+    if (clusterClass == ChipClusters.KeypadInputCluster.class) {
+      return clusterClass.cast(new SimulatedKeypadInputCluster());
+    }
+    Log.e(TAG, "getCluster() " + clusterClass.getSimpleName() + " is not simulated");
+    return null;
+  }
+
+  @Override
+  public synchronized CastingPlayer getCastingPlayer() {
+    return castingPlayer;
+  }
+
+  /**
+   * Sets the value of an attribute. Subscriptions to the attribute report it after a simulated
+   * latency.
+   */
+  public void setAttribute(long clusterId, long attributeId, Object value) {
+    long attributeKey = attributeKey(clusterId, attributeId);
+    List<Subscription<?>> subscribed = new ArrayList<>();
+    synchronized (this) {
+      attributes.put(attributeKey, value);
+      for (Subscription<?> subscription : subscriptions) {
+        if (subscription.attributeKey == attributeKey) {
+          subscribed.add(subscription);
+        }
+      }
+    }
+    SimulatedCastingBackend backend = getBackend();
+    for (Subscription<?> subscription : subscribed) {
+      backend.schedule(
+          () -> {
+            if (isSubscribed(subscription)) {
+              subscription.report(value);
+            }
+          });
+    }
+  }
+
+  /**
+   * Simulates invoking a cluster command: after a simulated latency, either onSuccess or onFailure
+   * is called.
+   *
+   * @return MatterError.NO_ERROR if the command was sent, or an error if the CastingPlayer is not
+   *     connected
+   */
+  public MatterError invoke(
+      long clusterId,
+      long commandId,
+      MatterCallback<Void> onSuccess,
+      MatterCallback<MatterError> onFailure) {
+    SimulatedCastingBackend backend = getBackend();
+    if (backend == null || !getCastingPlayer().isConnected()) {
+      return MatterError.CHIP_ERROR_INCORRECT_STATE;
+    }
+    boolean scheduled =
+        backend.schedule(
+            () -> {
+              if (backend.drawFailure()) {
+                SimulatedCallbacks.deliver(onFailure, SimulatedCastingBackend.CHIP_ERROR_TIMEOUT);
+              } else {
+                invokedCommandCount.incrementAndGet();
+                SimulatedCallbacks.deliver(onSuccess, null);
+              }
+            });
+    return scheduled ? MatterError.NO_ERROR : MatterError.CHIP_ERROR_INCORRECT_STATE;
+  }
+
+  /**
+   * @return a Subscriber to an attribute, to pass to SubscriptionRegistry.subscribe(). Once
+   *     established, the subscription reports the current value of the attribute, if set, then each
+   *     value set.
+   */
+  public <T> SubscriptionRegistry.Subscriber<T> subscriber(long clusterId, long attributeId) {
+    long attributeKey = attributeKey(clusterId, attributeId);
+    return (minInterval, maxInterval, sink) -> subscribe(attributeKey, sink);
+  }
+
+  /** @return the number of commands that succeeded */
+  public long getInvokedCommandCount() {
+    return invokedCommandCount.get();
+  }
+
+  /** @return the number of active subscriptions */
+  public synchronized int getSubscriptionCount() {
+    return subscriptions.size();
+  }
+
+  @Override
+  public String toString() {
+    return "SimulatedEndpoint{" + "id=" + id + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SimulatedEndpoint that = (SimulatedEndpoint) o;
+    return id == that.id && Objects.equals(castingPlayer, that.castingPlayer);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id);
+  }
+
+  synchronized void attach(SimulatedCastingPlayer castingPlayer) {
+    this.castingPlayer = castingPlayer;
+  }
+
+  /** @return true if the subscription was found and shut down */
+  synchronized boolean shutdownSubscription(long subscriptionId) {
+    for (Iterator<Subscription<?>> iterator = subscriptions.iterator(); iterator.hasNext(); ) {
+      if (iterator.next().id == subscriptionId) {
+        iterator.remove();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  synchronized void shutdownAllSubscriptions() {
+    subscriptions.clear();
+  }
+
+  private <T> void subscribe(long attributeKey, SubscriptionRegistry.Sink<T> sink) {
+    SimulatedCastingBackend backend = getBackend();
+    if (backend == null || !getCastingPlayer().isConnected()) {
+      sink.onError(new IllegalStateException("CastingPlayer not connected"));
+      return;
+    }
+    Subscription<T> subscription =
+        new Subscription<>(nextSubscriptionId.getAndIncrement(), attributeKey, sink);
+    boolean scheduled =
+        backend.schedule(
+            () -> {
+              if (backend.drawFailure()) {
+                sink.onError(
+                    new RuntimeException(
+                        "Subscription failed: " + SimulatedCastingBackend.CHIP_ERROR_TIMEOUT));
+                return;
+              }
+              Object value;
+              synchronized (this) {
+                subscriptions.add(subscription);
+                value = attributes.get(attributeKey);
+              }
+              sink.onSubscriptionEstablished(subscription.id);
+              if (value != null && isSubscribed(subscription)) {
+                subscription.report(value);
+              }
+            });
+    if (!scheduled) {
+      sink.onError(new IllegalStateException("SimulatedCastingBackend not running"));
+    }
+  }
+
+  private synchronized boolean isSubscribed(Subscription<?> subscription) {
+    return subscriptions.contains(subscription);
+  }
+
+  private SimulatedCastingBackend getBackend() {
+    SimulatedCastingPlayer player;
+    synchronized (this) {
+      player = castingPlayer;
+    }
+    return player != null ? player.getBackend() : null;
+  }
+
+  /**
+   * A KeypadInputCluster whose SendKey command is simulated with invoke(). As with the native
+   * stack, the response callback is called on the Matter thread.
+   */
+  private final class SimulatedKeypadInputCluster extends ChipClusters.KeypadInputCluster {
+    SimulatedKeypadInputCluster() {
+      super(0L, id); // no native device proxy: the commands sent through it are overridden
+    }
+
+    @Override
+    public void sendKey(SendKeyResponseCallback callback, Integer keyCode) {
+      MatterError err =
+          invoke(
+              CLUSTER_ID,
+              SEND_KEY_COMMAND_ID,
+              new MatterCallback<Void>(true) {
+                @Override
+                public void handle(Void response) {
+                  callback.onSuccess(SEND_KEY_STATUS_SUCCESS);
+                }
+              },
+              new MatterCallback<MatterError>(true) {
+                @Override
+                public void handle(MatterError error) {
+                  callback.onError(new RuntimeException("SendKey failed: " + error));
+                }
+              });
+      if (err.hasError()) {
+        callback.onError(new IllegalStateException("SendKey not sent: " + err));
+      }
+    }
+  }
+
+  private static long attributeKey(long clusterId, long attributeId) {
+    return (clusterId << 32) | (attributeId & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.support;
+
+/**
+ * Delivers the results of the simulated backend to MatterCallbacks. MatterCallback.handleInternal()
+ * is only visible to this package, where the Matter stack's own deliveries are made from.
+ */
+public final class SimulatedCallbacks {
+  private SimulatedCallbacks() {}
+
+  /**
+   * Delivers the response as the Matter stack does: on the MatterCallbackDispatcher thread, unless
+   * the callback handles responses on the calling thread.
+   */
+  public static <R> void deliver(MatterCallback<R> callback, R response) {
+    callback.handleInternal(response);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.chip.casting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.matter.casting.core.SimulatedCastingBackend;
+import com.matter.casting.core.SimulatedCastingPlayer;
+import com.matter.casting.core.SimulatedEndpoint;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Runs the compat TvCastingApp on a SimulatedCastingBackend installed on the CastingApp. The
+ * CastingApp can only be started once per process, so this runs the whole flow in a single test.
+ */
+public class TvCastingAppSimulationTest {
+  private static final int VENDOR_ID = 0xFFF1;
+  private static final short ENDPOINT_ID = 1;
+  private static final byte KEY_CODE_SELECT = 0x00;
+  private static final long TIMEOUT_SEC = 5;
+
+  @Test
+  public void discoversConnectsAndSendsKeyThroughTvCastingApp() throws Exception {
+    SimulatedEndpoint endpoint =
+        new SimulatedEndpoint(ENDPOINT_ID, VENDOR_ID, 0x8001, new ArrayList<>());
+    SimulatedCastingPlayer castingPlayer =
+        new SimulatedCastingPlayer("tv-1", "Test TV", VENDOR_ID, 0x8001, 35).addEndpoint(endpoint);
+    SimulatedCastingBackend backend =
+        SimulatedCastingBackend.builder().addCastingPlayer(castingPlayer).build();
+    File filesDir = Files.createTempDirectory("tv-casting-app").toFile();
+
+    SimulatedTvCastingApp app = SimulatedTvCastingApp.start(backend, filesDir);
+    try {
+      DiscoveredNodeData commissioner = app.discover();
+      assertEquals("Test TV", commissioner.getDeviceName());
+
+      ContentApp contentApp = app.connect(commissioner, VENDOR_ID, ENDPOINT_ID);
+      assertNotNull(contentApp);
+      assertTrue(castingPlayer.isConnected());
+
+      assertEquals(
+          MatterError.NO_ERROR,
+          app.sendKey(contentApp, KEY_CODE_SELECT).get(TIMEOUT_SEC, TimeUnit.SECONDS));
+      assertEquals(1, endpoint.getInvokedCommandCount());
+    } finally {
+      app.stop();
+    }
+  }
+}
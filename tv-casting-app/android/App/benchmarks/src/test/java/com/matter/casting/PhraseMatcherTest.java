@@ -0,0 +1,110 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class PhraseMatcherTest {
+  private final PhraseMatcher<String> matcher =
+      PhraseMatcher.<String>builder()
+          .add("UP", "up")
+          .add("VOLUME_UP", "volume up")
+          .add("PRIME", "prime")
+          .add("PRIME_VIDEO", "prime video")
+          .add("A_B", "a b")
+          .add("B_C", "b c")
+          .build();
+
+  @Test
+  public void matchesWholeWordsOnly() {
+    List<PhraseMatcher.Match<String>> matches = matcher.findAll("supper up");
+
+    assertEquals(1, matches.size());
+    assertMatch(matches.get(0), "UP", 7, 9);
+    assertFalse(matcher.containsAny("supper upstairs"));
+  }
+
+  @Test
+  public void ignoresCaseAndRunsOfSeparators() {
+    List<PhraseMatcher.Match<String>> matches = matcher.findAll("Volume,  UP!");
+
+    assertEquals(1, matches.size());
+    assertMatch(matches.get(0), "VOLUME_UP", 0, 11);
+  }
+
+  @Test
+  public void prefersLongestPhrase() {
+    List<PhraseMatcher.Match<String>> matches = matcher.findAll("volume up");
+
+    assertEquals(1, matches.size());
+    assertEquals("VOLUME_UP", matches.get(0).value);
+  }
+
+  @Test
+  public void fallsBackToShorterPhraseWhenLongerOneIsIncomplete() {
+    List<PhraseMatcher.Match<String>> matches = matcher.findAll("prime videos");
+
+    assertEquals(1, matches.size());
+    assertMatch(matches.get(0), "PRIME", 0, 5);
+  }
+
+  @Test
+  public void leftmostMatchWinsOverlaps() {
+    List<PhraseMatcher.Match<String>> matches = matcher.findAll("a b c");
+
+    assertEquals(1, matches.size());
+    assertMatch(matches.get(0), "A_B", 0, 3);
+  }
+
+  @Test
+  public void flagsPhrasesThatLongerOnesStartWith() {
+    assertTrue(matcher.findAll("prime").get(0).extensible);
+    assertFalse(matcher.findAll("prime video").get(0).extensible);
+    assertFalse(matcher.findAll("up").get(0).extensible);
+  }
+
+  @Test
+  public void keepsLatestValueOfPhraseAddedTwice() {
+    PhraseMatcher<String> matcher =
+        PhraseMatcher.<String>builder().add("FIRST", "ok").add("SECOND", "OK").build();
+
+    assertEquals("SECOND", matcher.findAll("ok").get(0).value);
+  }
+
+  @Test
+  public void findsNothingInUnknownText() {
+    assertTrue(matcher.findAll("what's the weather").isEmpty());
+    assertTrue(matcher.findAll("").isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyPhrase() {
+    PhraseMatcher.<String>builder().add("EMPTY", " , ");
+  }
+
+  private static void assertMatch(
+      PhraseMatcher.Match<String> match, String value, int start, int end) {
+    assertEquals(value, match.value);
+    assertEquals(start, match.start);
+    assertEquals(end, match.end);
+  }
+}
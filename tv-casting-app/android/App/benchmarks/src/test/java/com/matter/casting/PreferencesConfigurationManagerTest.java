@@ -0,0 +1,81 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import chip.platform.AndroidChipPlatformException;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PreferencesConfigurationManagerTest {
+  private static final String PREFERENCE_FILE_KEY = "chip.platform.ConfigurationManager";
+  private static final String NAMESPACE = "chip-config";
+
+  private SimulatedContext context;
+  private PreferencesConfigurationManager manager;
+
+  @Before
+  public void setUp() throws Exception {
+    context = new SimulatedContext(Files.createTempDirectory("config-manager-test").toFile());
+    manager = new PreferencesConfigurationManager(context, PREFERENCE_FILE_KEY);
+  }
+
+  @After
+  public void tearDown() {
+    context.delete();
+  }
+
+  @Test
+  public void nullNameDoesNotExist() throws Exception {
+    assertFalse(manager.configValueExists(NAMESPACE, null));
+
+    manager.writeConfigValueStr(NAMESPACE, "name", "value");
+    manager.writeConfigValueBin(NAMESPACE, "cert", new byte[] {1, 2, 3});
+
+    assertFalse(manager.configValueExists(NAMESPACE, null));
+    assertTrue(manager.configValueExists(NAMESPACE, "name"));
+    assertTrue(manager.configValueExists(NAMESPACE, "cert"));
+  }
+
+  @Test(expected = AndroidChipPlatformException.class)
+  public void nullNamespaceIsRejected() throws Exception {
+    manager.configValueExists(null, "name");
+  }
+
+  @Test(expected = AndroidChipPlatformException.class)
+  public void nullNameIsNotFound() throws Exception {
+    manager.readConfigValueStr(NAMESPACE, null);
+  }
+
+  @Test
+  public void keepsValuesAcrossReload() throws Exception {
+    manager.writeConfigValueLong(NAMESPACE, "counter", 42);
+    manager.writeConfigValueBin(NAMESPACE, "cert", new byte[] {1, 2, 3});
+    manager.flush();
+
+    PreferencesConfigurationManager reloaded =
+        new PreferencesConfigurationManager(context, PREFERENCE_FILE_KEY);
+    assertEquals(42, reloaded.readConfigValueLong(NAMESPACE, "counter"));
+    assertArrayEquals(new byte[] {1, 2, 3}, reloaded.readConfigValueBin(NAMESPACE, "cert"));
+  }
+}
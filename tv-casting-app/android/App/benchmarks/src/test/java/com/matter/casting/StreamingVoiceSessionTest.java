@@ -0,0 +1,145 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.matter.casting.VoiceIntent.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class StreamingVoiceSessionTest {
+  private final List<VoiceIntent> dispatched = new ArrayList<>();
+  private final StreamingVoiceSession session = new StreamingVoiceSession(dispatched::add);
+
+  @Test
+  public void keepsSpeculationTheFinalResultAgreesWith() {
+    session.begin();
+    session.onPartialResult("volume up");
+    assertEquals(Arrays.asList(VoiceIntent.forKey(Key.VOLUME_UP)), dispatched);
+
+    session.onFinalResult("volume up");
+
+    assertEquals(Arrays.asList(VoiceIntent.forKey(Key.VOLUME_UP)), dispatched);
+    assertEquals(1, session.getSpeculationCount());
+    assertEquals(0, session.getCompensationCount());
+  }
+
+  @Test
+  public void waitsForFinalResultOfAmbiguousPartial() {
+    session.begin();
+    session.onPartialResult("down down");
+    session.onPartialResult("stop");
+    assertTrue(dispatched.isEmpty());
+
+    session.onFinalResult("down down");
+
+    assertEquals(Arrays.asList(VoiceIntent.forKeys(Arrays.asList(Key.DOWN, Key.DOWN))), dispatched);
+    assertEquals(0, session.getSpeculationCount());
+  }
+
+  @Test
+  public void followsSpeculationWithRestOfFinalSequence() {
+    session.begin();
+    session.onPartialResult("down");
+    session.onFinalResult("down down select");
+
+    assertEquals(
+        Arrays.asList(
+            VoiceIntent.forKey(Key.DOWN),
+            VoiceIntent.forKeys(Arrays.asList(Key.DOWN, Key.SELECT))),
+        dispatched);
+    assertEquals(0, session.getCompensationCount());
+  }
+
+  @Test
+  public void compensatesSpeculationTheFinalResultDisagreesWith() {
+    session.begin();
+    session.onPartialResult("up");
+    VoiceIntent intent = session.onFinalResult("open netflix");
+
+    assertEquals(
+        Arrays.asList(VoiceIntent.forKey(Key.UP), VoiceIntent.forKey(Key.DOWN), intent),
+        dispatched);
+    assertEquals(VoiceIntent.Action.LAUNCH_APP, intent.action);
+    assertEquals(1, session.getCompensationCount());
+  }
+
+  @Test
+  public void speculatesOncePerUtterance() {
+    session.begin();
+    session.onPartialResult("up");
+    session.onPartialResult("left");
+
+    assertEquals(Arrays.asList(VoiceIntent.forKey(Key.UP)), dispatched);
+  }
+
+  @Test
+  public void neverSendsPlayOrPauseOnPartialResult() {
+    for (String partial : new String[] {"play", "pause", "resume"}) {
+      session.begin();
+      session.onPartialResult(partial);
+      assertTrue(partial, dispatched.isEmpty());
+      session.onError();
+    }
+
+    session.begin();
+    session.onPartialResult("pause");
+    session.onFinalResult("pause");
+
+    assertEquals(Arrays.asList(VoiceIntent.forKey(Key.PAUSE)), dispatched);
+    assertEquals(0, session.getSpeculationCount());
+  }
+
+  @Test
+  public void cancelledUtteranceKeepsItsSpeculation() {
+    session.begin();
+    session.onPartialResult("channel up");
+    session.onError();
+
+    session.begin();
+    session.onFinalResult("mute");
+
+    assertEquals(
+        Arrays.asList(VoiceIntent.forKey(Key.CHANNEL_UP), VoiceIntent.forKey(Key.MUTE)),
+        dispatched);
+    assertEquals(0, session.getCompensationCount());
+    assertEquals(1, session.getUtteranceCount());
+  }
+
+  @Test
+  public void ignoresMissingPartialResult() {
+    session.begin();
+    session.onPartialResult(null);
+
+    assertTrue(dispatched.isEmpty());
+  }
+
+  @Test
+  public void measuresSpeculationAheadOfEndOfSpeech() throws InterruptedException {
+    session.begin();
+    session.onPartialResult("volume down");
+    Thread.sleep(5);
+    session.onEndOfSpeech();
+    session.onFinalResult("volume down");
+
+    assertTrue(session.getLastLatencyMs() < 0);
+  }
+}
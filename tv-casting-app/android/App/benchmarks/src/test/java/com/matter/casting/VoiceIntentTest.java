@@ -0,0 +1,124 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.matter.casting.VoiceIntent.Action;
+import com.matter.casting.VoiceIntent.Key;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class VoiceIntentTest {
+  @Test
+  public void parsesChainedKeysInOrder() {
+    VoiceIntent intent = VoiceIntent.parse("down down down select");
+
+    assertEquals(
+        VoiceIntent.forKeys(Arrays.asList(Key.DOWN, Key.DOWN, Key.DOWN, Key.SELECT)), intent);
+    assertArrayEquals(new int[] {2, 2, 2, 0}, intent.keyCodes());
+    assertEquals("Down, Down, Down, OK", intent.label());
+    assertFalse(intent.unambiguous);
+  }
+
+  @Test
+  public void prefersLongestKeyPhrase() {
+    VoiceIntent intent = VoiceIntent.parse("Volume up");
+
+    assertEquals(VoiceIntent.forKey(Key.VOLUME_UP), intent);
+    assertTrue(intent.unambiguous);
+  }
+
+  @Test
+  public void stopAloneIsTheStopKeyButNotUnambiguous() {
+    VoiceIntent intent = VoiceIntent.parse("stop");
+
+    assertEquals(VoiceIntent.forKey(Key.STOP), intent);
+    // "stop" may yet be followed by an app name
+    assertFalse(intent.unambiguous);
+  }
+
+  @Test
+  public void appNameWinsOverKeys() {
+    VoiceIntent launch = VoiceIntent.parse("open netflix");
+    assertEquals(Action.LAUNCH_APP, launch.action);
+    assertEquals("Netflix", launch.appName);
+
+    VoiceIntent stop = VoiceIntent.parse("stop you tube");
+    assertEquals(Action.STOP_APP, stop.action);
+    assertEquals("YouTube", stop.appName);
+
+    // only a stop verb before the app name stops it
+    VoiceIntent stopAfter = VoiceIntent.parse("netflix stop");
+    assertEquals(Action.LAUNCH_APP, stopAfter.action);
+    assertEquals("Netflix", stopAfter.appName);
+  }
+
+  @Test
+  public void prefersLongestAppName() {
+    assertEquals("Prime Video", VoiceIntent.parse("launch amazon prime").appName);
+    assertEquals("Prime Video", VoiceIntent.parse("prime").appName);
+  }
+
+  @Test
+  public void parsesChannelNumbers() {
+    VoiceIntent words = VoiceIntent.parse("channel one two three");
+    assertEquals(Action.CHANNEL, words.action);
+    assertEquals("123", words.digits);
+    assertEquals("Channel 123", words.label());
+
+    VoiceIntent digits = VoiceIntent.parse("tune to channel 5 7");
+    assertEquals(Action.CHANNEL, digits.action);
+    assertEquals("57", digits.digits);
+    assertArrayEquals(
+        new int[] {VoiceIntent.numberKeyCode('5'), VoiceIntent.numberKeyCode('7')},
+        digits.keyCodes());
+  }
+
+  @Test
+  public void parsesNumbersWithoutChannelWordAsNumberKeys() {
+    VoiceIntent intent = VoiceIntent.parse("four 2");
+
+    assertEquals(Action.NUMBER, intent.action);
+    assertEquals("42", intent.digits);
+    assertArrayEquals(new int[] {36, 34}, intent.keyCodes());
+  }
+
+  @Test
+  public void verbAloneAsksForUnrecognizedApp() {
+    VoiceIntent launch = VoiceIntent.parse("open the weather app");
+    assertEquals(Action.LAUNCH_APP, launch.action);
+    assertNull(launch.appName);
+
+    assertEquals(Action.STOP_APP, VoiceIntent.parse("close it").action);
+  }
+
+  @Test
+  public void unknownUtterance() {
+    for (String utterance : new String[] {"what's the weather", "", "   "}) {
+      VoiceIntent intent = VoiceIntent.parse(utterance);
+      assertEquals(Action.UNKNOWN, intent.action);
+      assertTrue(intent.keys.isEmpty());
+      assertEquals(0, intent.keyCodes().length);
+      assertFalse(intent.unambiguous);
+    }
+  }
+}
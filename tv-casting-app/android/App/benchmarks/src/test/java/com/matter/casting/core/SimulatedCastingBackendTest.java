@@ -0,0 +1,191 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.matter.casting.support.ConnectionCallbacks;
+import com.matter.casting.support.MatterCallback;
+import com.matter.casting.support.MatterError;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class SimulatedCastingBackendTest {
+  private static final long KEYPAD_INPUT_CLUSTER_ID = 0x0509;
+  private static final long SEND_KEY_COMMAND_ID = 0x00;
+  private static final long TIMEOUT_SEC = 5;
+
+  private SimulatedCastingBackend backend;
+
+  @After
+  public void tearDown() {
+    if (backend != null && backend.isRunning()) {
+      backend.stop();
+    }
+  }
+
+  @Test
+  public void connectsAndInvokesCommand() throws Exception {
+    SimulatedEndpoint endpoint = newEndpoint();
+    SimulatedCastingPlayer castingPlayer = newCastingPlayer("tv-1").addEndpoint(endpoint);
+    backend = SimulatedCastingBackend.builder().addCastingPlayer(castingPlayer).build();
+    assertEquals(MatterError.NO_ERROR, backend.start());
+
+    assertEquals(MatterError.NO_ERROR, connect(castingPlayer).get(TIMEOUT_SEC, TimeUnit.SECONDS));
+    assertTrue(castingPlayer.isConnected());
+
+    assertEquals(MatterError.NO_ERROR, invoke(endpoint).get(TIMEOUT_SEC, TimeUnit.SECONDS));
+    assertEquals(1, endpoint.getInvokedCommandCount());
+  }
+
+  @Test
+  public void failsEveryOperationAtFailureRateOne() throws Exception {
+    SimulatedCastingPlayer castingPlayer = newCastingPlayer("tv-1").addEndpoint(newEndpoint());
+    backend =
+        SimulatedCastingBackend.builder()
+            .setFailureRate(1)
+            .addCastingPlayer(castingPlayer)
+            .build();
+    backend.start();
+
+    assertEquals(
+        SimulatedCastingBackend.CHIP_ERROR_TIMEOUT,
+        connect(castingPlayer).get(TIMEOUT_SEC, TimeUnit.SECONDS));
+    assertEquals(CastingPlayer.ConnectionState.NOT_CONNECTED, castingPlayer.getConnectionState());
+    assertEquals(1, backend.getFailureCount());
+  }
+
+  @Test
+  public void rejectsCommandsOnceStopped() throws Exception {
+    SimulatedEndpoint endpoint = newEndpoint();
+    SimulatedCastingPlayer castingPlayer = newCastingPlayer("tv-1").addEndpoint(endpoint);
+    backend = SimulatedCastingBackend.builder().addCastingPlayer(castingPlayer).build();
+    backend.start();
+    connect(castingPlayer).get(TIMEOUT_SEC, TimeUnit.SECONDS);
+
+    assertEquals(MatterError.NO_ERROR, backend.stop());
+
+    assertEquals(
+        MatterError.CHIP_ERROR_INCORRECT_STATE,
+        endpoint.invoke(KEYPAD_INPUT_CLUSTER_ID, SEND_KEY_COMMAND_ID, null, null));
+    assertEquals(MatterError.CHIP_ERROR_INCORRECT_STATE, backend.stop());
+  }
+
+  @Test
+  public void discoveryReportsCastingPlayersAddedAndRemoved() throws Exception {
+    SimulatedCastingPlayer first = newCastingPlayer("tv-1");
+    SimulatedCastingPlayer second = newCastingPlayer("tv-2");
+    backend = SimulatedCastingBackend.builder().addCastingPlayer(first).build();
+    backend.start();
+
+    CountDownLatch added = new CountDownLatch(2);
+    CountDownLatch removed = new CountDownLatch(1);
+    List<CastingPlayer> addedCastingPlayers = new CopyOnWriteArrayList<>();
+    CastingPlayerDiscovery discovery = backend.getCastingPlayerDiscovery();
+    discovery.addCastingPlayerChangeListener(
+        new CastingPlayerDiscovery.CastingPlayerChangeListener() {
+          @Override
+          public void onAdded(CastingPlayer castingPlayer) {
+            addedCastingPlayers.add(castingPlayer);
+            added.countDown();
+          }
+
+          @Override
+          public void onChanged(CastingPlayer castingPlayer) {}
+
+          @Override
+          public void onRemoved(CastingPlayer castingPlayer) {
+            removed.countDown();
+          }
+        });
+
+    assertEquals(MatterError.NO_ERROR, discovery.startDiscovery(35L));
+    backend.addCastingPlayer(second);
+    assertTrue(added.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+    assertEquals(2, addedCastingPlayers.size());
+    assertTrue(addedCastingPlayers.contains(first));
+    assertTrue(addedCastingPlayers.contains(second));
+
+    backend.removeCastingPlayer(first);
+    assertTrue(removed.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+    assertEquals(1, discovery.getCastingPlayers().size());
+  }
+
+  private static SimulatedEndpoint newEndpoint() {
+    return new SimulatedEndpoint(1, 0xFFF1, 0x8001, new ArrayList<>());
+  }
+
+  private static SimulatedCastingPlayer newCastingPlayer(String deviceId) {
+    return new SimulatedCastingPlayer(deviceId, "Test TV " + deviceId, 0xFFF1, 0x8001, 35);
+  }
+
+  // completes with NO_ERROR once connected, or with the error the connection failed with
+  private static CompletableFuture<MatterError> connect(SimulatedCastingPlayer castingPlayer) {
+    CompletableFuture<MatterError> result = new CompletableFuture<>();
+    MatterError err =
+        castingPlayer.verifyOrEstablishConnection(
+            new ConnectionCallbacks(
+                new MatterCallback<Void>() {
+                  @Override
+                  public void handle(Void response) {
+                    result.complete(MatterError.NO_ERROR);
+                  }
+                },
+                new MatterCallback<MatterError>() {
+                  @Override
+                  public void handle(MatterError error) {
+                    result.complete(error);
+                  }
+                },
+                null));
+    if (err.hasError()) {
+      result.complete(err);
+    }
+    return result;
+  }
+
+  private static CompletableFuture<MatterError> invoke(SimulatedEndpoint endpoint) {
+    CompletableFuture<MatterError> result = new CompletableFuture<>();
+    MatterError err =
+        endpoint.invoke(
+            KEYPAD_INPUT_CLUSTER_ID,
+            SEND_KEY_COMMAND_ID,
+            new MatterCallback<Void>() {
+              @Override
+              public void handle(Void response) {
+                result.complete(MatterError.NO_ERROR);
+              }
+            },
+            new MatterCallback<MatterError>() {
+              @Override
+              public void handle(MatterError error) {
+                result.complete(error);
+              }
+            });
+    if (err.hasError()) {
+      result.complete(err);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.matter.casting.SimulatedContext;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournaledKeyValueStoreManagerTest {
+  private static final String JOURNAL_FILE_NAME = "chip.platform.KeyValueStore.journal";
+
+  private SimulatedContext context;
+
+  @Before
+  public void setUp() throws Exception {
+    context = new SimulatedContext(Files.createTempDirectory("journaled-kvs-test").toFile());
+  }
+
+  @After
+  public void tearDown() {
+    context.delete();
+  }
+
+  @Test
+  public void replaysFlushedWrites() {
+    JournaledKeyValueStoreManager store = new JournaledKeyValueStoreManager(context);
+    store.set("a", "1");
+    store.set("b", "2");
+    store.delete("a");
+    store.flush();
+
+    JournaledKeyValueStoreManager reopened = new JournaledKeyValueStoreManager(context);
+    assertNull(reopened.get("a"));
+    assertEquals("2", reopened.get("b"));
+  }
+
+  @Test
+  public void dropsTornGroupWhole() throws Exception {
+    JournaledKeyValueStoreManager store = new JournaledKeyValueStoreManager(context);
+    store.set("a", "1");
+    store.set("b", "2");
+    store.flush();
+    long firstGroupBytes = journalFile().length();
+    store.set("c", "3");
+    store.set("d", "4");
+    store.set("a", "5");
+    store.flush();
+
+    // a crash while the second group was appended leaves a prefix of it
+    truncateJournal(journalFile().length() - 1);
+
+    JournaledKeyValueStoreManager reopened = new JournaledKeyValueStoreManager(context);
+    assertEquals("1", reopened.get("a"));
+    assertEquals("2", reopened.get("b"));
+    assertNull(reopened.get("c"));
+    assertNull(reopened.get("d"));
+    assertEquals(firstGroupBytes, journalFile().length());
+
+    // writes made after the torn record was discarded are replayed after the intact ones
+    reopened.set("e", "6");
+    reopened.flush();
+    JournaledKeyValueStoreManager reopenedAgain = new JournaledKeyValueStoreManager(context);
+    assertEquals("1", reopenedAgain.get("a"));
+    assertEquals("6", reopenedAgain.get("e"));
+  }
+
+  @Test
+  public void flushesBeforeFirstLoad() {
+    JournaledKeyValueStoreManager store = new JournaledKeyValueStoreManager(context);
+    store.flush();
+    store.set("a", "1");
+    store.flush();
+
+    assertEquals("1", new JournaledKeyValueStoreManager(context).get("a"));
+  }
+
+  private File journalFile() {
+    return new File(context.getFilesDir(), JOURNAL_FILE_NAME);
+  }
+
+  private void truncateJournal(long length) throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(journalFile(), "rw")) {
+      file.setLength(length);
+    }
+  }
+}
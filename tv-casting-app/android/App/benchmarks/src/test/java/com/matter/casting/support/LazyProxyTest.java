@@ -0,0 +1,104 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LazyProxyTest {
+  private static final int INIT_SUCCESS = 0;
+
+  /** The shape of the BleManager: a setter the platform registers through, and init() */
+  public interface Manager {
+    void setPlatform(Object platform);
+
+    int init();
+
+    boolean hasFlag(long flag);
+  }
+
+  private final List<String> calls = new ArrayList<>();
+  private int createdCount;
+
+  private Manager newManager() {
+    createdCount++;
+    return new Manager() {
+      @Override
+      public void setPlatform(Object platform) {
+        calls.add("setPlatform");
+      }
+
+      @Override
+      public int init() {
+        calls.add("init");
+        return INIT_SUCCESS;
+      }
+
+      @Override
+      public boolean hasFlag(long flag) {
+        calls.add("hasFlag");
+        return true;
+      }
+    };
+  }
+
+  private Manager newProxy() {
+    return LazyProxy.builder(Manager.class, this::newManager)
+        .defer("setPlatform")
+        .defer("init", INIT_SUCCESS)
+        .build();
+  }
+
+  @Test
+  public void initDoesNotCreateDelegate() {
+    Manager manager = newProxy();
+
+    manager.setPlatform(new Object());
+    assertEquals(INIT_SUCCESS, manager.init());
+
+    assertEquals(0, createdCount);
+    assertTrue(calls.isEmpty());
+  }
+
+  @Test
+  public void replaysDeferredCallsOnceCreated() {
+    Manager manager = newProxy();
+    manager.setPlatform(new Object());
+    manager.init();
+
+    assertTrue(manager.hasFlag(1));
+    assertEquals(INIT_SUCCESS, manager.init());
+
+    assertEquals(1, createdCount);
+    assertEquals(Arrays.asList("setPlatform", "init", "hasFlag", "init"), calls);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMissingResultOfPrimitiveMethod() {
+    LazyProxy.builder(Manager.class, this::newManager).defer("init");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsResultOfWrongType() {
+    LazyProxy.builder(Manager.class, this::newManager).defer("init", INIT_SUCCESS + 0L);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *   Copyright (c) 2024 Project CHIP Authors
+ *   All rights reserved.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.matter.casting.support;
+
+import static org.junit.Assert.assertEquals;
+
+import chip.devicecontroller.ChipStructs;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PlaybackClockTest {
+  // 2023-11-14T22:13:20Z, in milliseconds since the Unix epoch
+  private static final long NOW_MS = 1_700_000_000_000L;
+  private static final long POSITION_MS = 10_000;
+
+  private long nowNanos;
+  private PlaybackClock clock;
+
+  @Before
+  public void setUp() {
+    nowNanos = 0;
+    clock = new PlaybackClock(() -> nowNanos);
+  }
+
+  @Test
+  public void convertsMatterEpochToUnixEpoch() {
+    assertEquals(0, PlaybackClock.matterEpochUsToUnixMs(0));
+    // 2000-01-01T00:00:01Z
+    assertEquals(946_684_801_000L, PlaybackClock.matterEpochUsToUnixMs(1_000_000L));
+  }
+
+  @Test
+  public void advancesFreshSampleByItsAge() {
+    clock.onCurrentState(PlaybackClock.STATE_PLAYING);
+    clock.onSampledPosition(sample(POSITION_MS, NOW_MS - 300), NOW_MS);
+
+    assertEquals(POSITION_MS + 300, clock.getPositionMs());
+    advanceMs(1000);
+    assertEquals(POSITION_MS + 1300, clock.getPositionMs());
+  }
+
+  @Test
+  public void boundsTheAgeOfStaleSample() {
+    clock.onCurrentState(PlaybackClock.STATE_PLAYING);
+    clock.onSampledPosition(sample(POSITION_MS, NOW_MS - 10_000), NOW_MS);
+
+    assertEquals(POSITION_MS + PlaybackClock.MAX_SAMPLE_AGE_MS, clock.getPositionMs());
+  }
+
+  @Test
+  public void holdsPausedSample() {
+    clock.onCurrentState(PlaybackClock.STATE_PAUSED);
+    clock.onSampledPosition(sample(POSITION_MS, NOW_MS - 300), NOW_MS);
+
+    assertEquals(POSITION_MS, clock.getPositionMs());
+    advanceMs(5000);
+    assertEquals(POSITION_MS, clock.getPositionMs());
+  }
+
+  private void advanceMs(long ms) {
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+
+  // a SampledPosition report, with updatedAt in microseconds since the Matter epoch
+  private static ChipStructs.MediaPlaybackClusterPlaybackPositionStruct sample(
+      long positionMs, long updatedAtUnixMs) {
+    long updatedAtMatterMs =
+        updatedAtUnixMs - TimeUnit.SECONDS.toMillis(PlaybackClock.MATTER_EPOCH_OFFSET_SEC);
+    return new ChipStructs.MediaPlaybackClusterPlaybackPositionStruct(
+        TimeUnit.MILLISECONDS.toMicros(updatedAtMatterMs), positionMs);
+  }
+}
@@ -14,7 +14,10 @@
 #include <CastingServer.h>
 #include <TargetVideoPlayerInfo.h>
 
+#include "App/app/src/main/jni/cpp/support/Metrics-JNI.h"
+
 using namespace chip;
+using matter::casting::support::MetricsJNI;
 
 #define JNI_METHOD(RETURN, METHOD_NAME)                                                                                            \
     extern "C" JNIEXPORT RETURN JNICALL Java_com_matter_casting_AppLauncherFragment_##METHOD_NAME
@@ -80,7 +83,7 @@ JNI_METHOD(jboolean, launchApp)(JNIEnv * env, jobject thiz, jint catalogVendorId
         appLauncherEndpoint,
         application,
         chip::NullOptional, // data (optional)
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("ApplicationLauncher.LaunchApp", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "ApplicationLauncher::LaunchApp command succeeded");
@@ -89,7 +92,7 @@ JNI_METHOD(jboolean, launchApp)(JNIEnv * env, jobject thiz, jint catalogVendorId
             {
                 ChipLogError(AppServer, "ApplicationLauncher::LaunchApp command failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     env->ReleaseStringUTFChars(applicationId, nativeApplicationId);
 
@@ -162,7 +165,7 @@ JNI_METHOD(jboolean, stopApp)(JNIEnv * env, jobject thiz, jint catalogVendorId,
     CHIP_ERROR err = castingServer->ApplicationLauncher_StopApp(
         appLauncherEndpoint,
         application,
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("ApplicationLauncher.StopApp", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "ApplicationLauncher::StopApp command succeeded");
@@ -171,7 +174,7 @@ JNI_METHOD(jboolean, stopApp)(JNIEnv * env, jobject thiz, jint catalogVendorId,
             {
                 ChipLogError(AppServer, "ApplicationLauncher::StopApp command failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     env->ReleaseStringUTFChars(applicationId, nativeApplicationId);
 
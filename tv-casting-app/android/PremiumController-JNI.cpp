@@ -13,82 +13,44 @@
 #include <CastingServer.h>
 #include <TargetVideoPlayerInfo.h>
 
+#include "App/app/src/main/jni/cpp/support/Metrics-JNI.h"
+#include "VideoPlayerCommands-JNI.h"
+
 using namespace chip;
+using matter::casting::support::MetricsJNI;
 
 #define JNI_METHOD(RETURN, METHOD_NAME)                                                                                            \
     extern "C" JNIEXPORT RETURN JNICALL Java_com_matter_casting_PremiumControllerFragment_##METHOD_NAME
 
-// Send KeypadInput command
+// Send KeypadInput command, queued behind any key sequence in flight as they share the SendKey response callback
 JNI_METHOD(jboolean, sendKeyToDevice)(JNIEnv * env, jobject thiz, jint keyCode)
 {
-    chip::DeviceLayer::StackLock lock;
     ChipLogProgress(AppServer, "PremiumController-JNI::sendKeyToDevice called with keyCode: %d", keyCode);
 
-    CastingServer * castingServer = CastingServer::GetInstance();
-    if (castingServer == nullptr)
-    {
-        ChipLogError(AppServer, "CastingServer instance is null");
-        return JNI_FALSE;
-    }
-
-    TargetVideoPlayerInfo * targetVideoPlayerInfo = castingServer->GetActiveTargetVideoPlayer();
-    if (targetVideoPlayerInfo == nullptr || !targetVideoPlayerInfo->IsInitialized())
-    {
-        ChipLogError(AppServer, "No active target video player found");
-        return JNI_FALSE;
-    }
-
-    TargetEndpointInfo * endpoints = targetVideoPlayerInfo->GetEndpoints();
-    if (endpoints == nullptr)
-    {
-        ChipLogError(AppServer, "No endpoints available");
-        return JNI_FALSE;
-    }
-    
-    TargetEndpointInfo * keypadInputEndpoint = nullptr;
-    for (size_t i = 0; i < kMaxNumberOfEndpoints && endpoints[i].IsInitialized(); i++)
-    {
-        if (endpoints[i].HasCluster(chip::app::Clusters::KeypadInput::Id))
-        {
-            keypadInputEndpoint = &endpoints[i];
-            ChipLogProgress(AppServer, "Found KeypadInput cluster on endpoint %d", keypadInputEndpoint->GetEndpointId());
-            break;
-        }
-    }
-
-    if (keypadInputEndpoint == nullptr)
+    jintArray keyCodes = env->NewIntArray(1);
+    if (keyCodes == nullptr)
     {
-        ChipLogError(AppServer, "No endpoint found with KeypadInput cluster support");
         return JNI_FALSE;
     }
+    env->SetIntArrayRegion(keyCodes, 0, 1, &keyCode);
+    jboolean queued = VideoPlayerCommandsJNI::SendKeySequence(env, keyCodes, nullptr);
+    env->DeleteLocalRef(keyCodes);
+    return queued;
+}
 
-    chip::app::Clusters::KeypadInput::CECKeyCodeEnum cecKeyCode = 
-        static_cast<chip::app::Clusters::KeypadInput::CECKeyCodeEnum>(keyCode);
-
-    ChipLogProgress(AppServer, "Premium: Sending KeypadInput::SendKey to endpoint %d with keyCode %d",
-                    keypadInputEndpoint->GetEndpointId(), keyCode);
-
-    CHIP_ERROR err = castingServer->KeypadInput_SendKey(
-        keypadInputEndpoint,
-        cecKeyCode,
-        [](CHIP_ERROR err) {
-            if (err == CHIP_NO_ERROR)
-            {
-                ChipLogProgress(AppServer, "Premium: KeypadInput command succeeded");
-            }
-            else
-            {
-                ChipLogError(AppServer, "Premium: KeypadInput command failed: %" CHIP_ERROR_FORMAT, err.Format());
-            }
-        });
-
-    if (err != CHIP_NO_ERROR)
-    {
-        ChipLogError(AppServer, "Failed to send KeypadInput command: %" CHIP_ERROR_FORMAT, err.Format());
-        return JNI_FALSE;
-    }
+// Send a sequence of KeypadInput commands, each once the previous one was acknowledged. The outcome is reported to
+// callback.onKeySequenceSent(sentCount, keyCount)
+JNI_METHOD(jboolean, sendKeySequenceToDevice)(JNIEnv * env, jobject thiz, jintArray keyCodes, jobject callback)
+{
+    ChipLogProgress(AppServer, "PremiumController-JNI::sendKeySequenceToDevice called");
+    return VideoPlayerCommandsJNI::SendKeySequence(env, keyCodes, callback);
+}
 
-    return JNI_TRUE;
+// Change channel with Channel::ChangeChannel, the match being e.g. the channel number
+JNI_METHOD(jboolean, changeChannelNative)(JNIEnv * env, jobject thiz, jstring match)
+{
+    ChipLogProgress(AppServer, "PremiumController-JNI::changeChannelNative called");
+    return VideoPlayerCommandsJNI::ChangeChannel(env, match);
 }
 
 // Launch application
@@ -148,7 +110,7 @@ JNI_METHOD(jboolean, launchAppNative)(JNIEnv * env, jobject thiz, jint catalogVe
         appLauncherEndpoint,
         application,
         chip::NullOptional,
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("ApplicationLauncher.LaunchApp", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "Premium: ApplicationLauncher::LaunchApp succeeded");
@@ -157,7 +119,7 @@ JNI_METHOD(jboolean, launchAppNative)(JNIEnv * env, jobject thiz, jint catalogVe
             {
                 ChipLogError(AppServer, "Premium: ApplicationLauncher::LaunchApp failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     env->ReleaseStringUTFChars(applicationId, nativeApplicationId);
 
@@ -14,7 +14,10 @@
 #include <CastingServer.h>
 #include <TargetVideoPlayerInfo.h>
 
+#include "App/app/src/main/jni/cpp/support/Metrics-JNI.h"
+
 using namespace chip;
+using matter::casting::support::MetricsJNI;
 
 #define JNI_METHOD(RETURN, METHOD_NAME)                                                                                            \
     extern "C" JNIEXPORT RETURN JNICALL Java_com_matter_casting_RemoteControlFragment_##METHOD_NAME
@@ -76,7 +79,7 @@ JNI_METHOD(jboolean, sendKeyToDevice)(JNIEnv * env, jobject thiz, jint keyCode)
     CHIP_ERROR err = castingServer->KeypadInput_SendKey(
         keypadInputEndpoint,
         cecKeyCode,
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("KeypadInput.SendKey", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "KeypadInput::SendKey command succeeded");
@@ -85,7 +88,7 @@ JNI_METHOD(jboolean, sendKeyToDevice)(JNIEnv * env, jobject thiz, jint keyCode)
             {
                 ChipLogError(AppServer, "KeypadInput::SendKey command failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     if (err != CHIP_NO_ERROR)
     {
@@ -0,0 +1,241 @@
+/*
+ * VideoPlayerCommands-JNI.cpp
+ *
+ * Commands sent to the active video player on behalf of the voice control and premium controller JNI bridges
+ */
+
+#include "VideoPlayerCommands-JNI.h"
+
+#include <lib/support/CodeUtils.h>
+#include <lib/support/JniReferences.h>
+#include <lib/support/JniTypeWrappers.h>
+
+#include <CastingServer.h>
+#include <TargetVideoPlayerInfo.h>
+#include <platform/CHIPDeviceLayer.h>
+
+#include "App/app/src/main/jni/cpp/support/Metrics-JNI.h"
+
+#include <deque>
+#include <memory>
+#include <vector>
+
+using namespace chip;
+using chip::app::Clusters::KeypadInput::CECKeyCodeEnum;
+using matter::casting::support::MetricsJNI;
+
+namespace {
+
+/**
+ * A key sequence sent, or waiting to be sent, to the active video player
+ */
+class KeySequence
+{
+public:
+    KeySequence(std::vector<CECKeyCodeEnum> && keys, jobject callback) : mKeys(std::move(keys)), mCallback(callback) {}
+
+    ~KeySequence()
+    {
+        JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
+        if (env != nullptr && mCallback != nullptr)
+        {
+            env->DeleteGlobalRef(mCallback);
+        }
+    }
+
+    /**
+     * @brief Queues the sequence, and starts sending it unless another sequence is in flight
+     */
+    static void Enqueue(std::unique_ptr<KeySequence> sequence)
+    {
+        sQueue.push_back(std::move(sequence));
+        if (sQueue.size() == 1)
+        {
+            Advance();
+        }
+    }
+
+private:
+    /**
+     * @brief Sends the next key of the sequence at the front of the queue, or reports it once done and moves on to the next
+     */
+    static void Advance()
+    {
+        while (!sQueue.empty())
+        {
+            KeySequence & sequence = *sQueue.front();
+            if (!sequence.mFailed && sequence.mSentCount < sequence.mKeys.size())
+            {
+                CHIP_ERROR err = sequence.SendNextKey();
+                if (err == CHIP_NO_ERROR)
+                {
+                    // called again once the key is acknowledged
+                    return;
+                }
+                ChipLogError(AppServer, "KeySequence failed to send key %u of %u: %" CHIP_ERROR_FORMAT,
+                             static_cast<unsigned>(sequence.mSentCount + 1), static_cast<unsigned>(sequence.mKeys.size()),
+                             err.Format());
+                sequence.mFailed = true;
+            }
+
+            std::unique_ptr<KeySequence> done = std::move(sQueue.front());
+            sQueue.pop_front();
+            done->ReportSent();
+        }
+    }
+
+    CHIP_ERROR SendNextKey()
+    {
+        // looked up for every key, as the active video player may change in between
+        TargetEndpointInfo * endpoint = VideoPlayerCommandsJNI::FindActiveEndpointWithCluster(app::Clusters::KeypadInput::Id);
+        VerifyOrReturnError(endpoint != nullptr, CHIP_ERROR_INCORRECT_STATE);
+        return CastingServer::GetInstance()->KeypadInput_SendKey(
+            endpoint, mKeys[mSentCount], MetricsJNI::TimeCommand("KeypadInput.SendKey", [this](CHIP_ERROR err) {
+                OnKeyResponse(err);
+            }));
+    }
+
+    void OnKeyResponse(CHIP_ERROR err)
+    {
+        if (err == CHIP_NO_ERROR)
+        {
+            mSentCount++;
+        }
+        else
+        {
+            ChipLogError(AppServer, "KeySequence key %u of %u failed: %" CHIP_ERROR_FORMAT, static_cast<unsigned>(mSentCount + 1),
+                         static_cast<unsigned>(mKeys.size()), err.Format());
+            mFailed = true;
+        }
+
+        // this runs inside the SendKey response callback, which sending the next key replaces, so carry on from a fresh stack
+        CHIP_ERROR scheduleErr = DeviceLayer::SystemLayer().ScheduleLambda([] { Advance(); });
+        if (scheduleErr != CHIP_NO_ERROR)
+        {
+            ChipLogError(AppServer, "KeySequence failed to schedule the next key: %" CHIP_ERROR_FORMAT, scheduleErr.Format());
+            mFailed = true;
+            Advance();
+        }
+    }
+
+    void ReportSent()
+    {
+        VerifyOrReturn(mCallback != nullptr);
+        JNIEnv * env = JniReferences::GetInstance().GetEnvForCurrentThread();
+        VerifyOrReturn(env != nullptr, ChipLogError(AppServer, "KeySequence::ReportSent() could not get JNIEnv"));
+
+        jclass callbackClass = env->GetObjectClass(mCallback);
+        jmethodID method     = env->GetMethodID(callbackClass, "onKeySequenceSent", "(II)V");
+        if (method != nullptr)
+        {
+            env->CallVoidMethod(mCallback, method, static_cast<jint>(mSentCount), static_cast<jint>(mKeys.size()));
+        }
+        if (env->ExceptionCheck())
+        {
+            env->ExceptionDescribe();
+            env->ExceptionClear();
+        }
+        env->DeleteLocalRef(callbackClass);
+    }
+
+    // the sequence in flight is at the front
+    static std::deque<std::unique_ptr<KeySequence>> sQueue;
+
+    std::vector<CECKeyCodeEnum> mKeys;
+    jobject mCallback;
+    size_t mSentCount = 0;
+    bool mFailed      = false;
+};
+
+std::deque<std::unique_ptr<KeySequence>> KeySequence::sQueue;
+
+} // namespace
+
+TargetEndpointInfo * VideoPlayerCommandsJNI::FindActiveEndpointWithCluster(ClusterId clusterId)
+{
+    CastingServer * castingServer = CastingServer::GetInstance();
+    if (castingServer == nullptr)
+    {
+        ChipLogError(AppServer, "CastingServer instance is null");
+        return nullptr;
+    }
+
+    TargetVideoPlayerInfo * targetVideoPlayerInfo = castingServer->GetActiveTargetVideoPlayer();
+    if (targetVideoPlayerInfo == nullptr || !targetVideoPlayerInfo->IsInitialized())
+    {
+        ChipLogError(AppServer, "No active target video player found");
+        return nullptr;
+    }
+
+    TargetEndpointInfo * endpoints = targetVideoPlayerInfo->GetEndpoints();
+    if (endpoints == nullptr)
+    {
+        ChipLogError(AppServer, "No endpoints available");
+        return nullptr;
+    }
+
+    for (size_t i = 0; i < kMaxNumberOfEndpoints && endpoints[i].IsInitialized(); i++)
+    {
+        if (endpoints[i].HasCluster(clusterId))
+        {
+            return &endpoints[i];
+        }
+    }
+    ChipLogError(AppServer, "No endpoint found with cluster " ChipLogFormatMEI, ChipLogValueMEI(clusterId));
+    return nullptr;
+}
+
+jboolean VideoPlayerCommandsJNI::SendKeySequence(JNIEnv * env, jintArray keyCodes, jobject callback)
+{
+    chip::DeviceLayer::StackLock lock;
+    jsize count = env->GetArrayLength(keyCodes);
+    ChipLogProgress(AppServer, "VideoPlayerCommandsJNI::SendKeySequence called with %d keys", static_cast<int>(count));
+    VerifyOrReturnValue(count > 0, JNI_FALSE);
+
+    jint * codes = env->GetIntArrayElements(keyCodes, nullptr);
+    VerifyOrReturnValue(codes != nullptr, JNI_FALSE);
+    std::vector<CECKeyCodeEnum> keys;
+    keys.reserve(static_cast<size_t>(count));
+    for (jsize i = 0; i < count; i++)
+    {
+        keys.push_back(static_cast<CECKeyCodeEnum>(codes[i]));
+    }
+    env->ReleaseIntArrayElements(keyCodes, codes, JNI_ABORT);
+
+    jobject globalCallback = callback != nullptr ? env->NewGlobalRef(callback) : nullptr;
+    KeySequence::Enqueue(std::make_unique<KeySequence>(std::move(keys), globalCallback));
+    return JNI_TRUE;
+}
+
+jboolean VideoPlayerCommandsJNI::ChangeChannel(JNIEnv * env, jstring match)
+{
+    chip::DeviceLayer::StackLock lock;
+    ChipLogProgress(AppServer, "VideoPlayerCommandsJNI::ChangeChannel called");
+
+    TargetEndpointInfo * channelEndpoint = FindActiveEndpointWithCluster(app::Clusters::Channel::Id);
+    if (channelEndpoint == nullptr)
+    {
+        return JNI_FALSE;
+    }
+
+    JniUtfString nativeMatch(env, match);
+    CHIP_ERROR err = CastingServer::GetInstance()->Channel_ChangeChannelCommand(
+        channelEndpoint, nativeMatch.charSpan(), MetricsJNI::TimeCommand("Channel.ChangeChannel", [](CHIP_ERROR err) {
+            if (err == CHIP_NO_ERROR)
+            {
+                ChipLogProgress(AppServer, "Channel::ChangeChannel succeeded");
+            }
+            else
+            {
+                ChipLogError(AppServer, "Channel::ChangeChannel failed: %" CHIP_ERROR_FORMAT, err.Format());
+            }
+        }));
+
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "Failed to change channel: %" CHIP_ERROR_FORMAT, err.Format());
+        return JNI_FALSE;
+    }
+
+    return JNI_TRUE;
+}
@@ -0,0 +1,42 @@
+/*
+ * VideoPlayerCommands-JNI.h
+ *
+ * Commands sent to the active video player on behalf of the voice control and premium controller JNI bridges
+ */
+
+#pragma once
+
+#include <jni.h>
+
+#include <TargetEndpointInfo.h>
+#include <lib/core/DataModelTypes.h>
+
+class VideoPlayerCommandsJNI
+{
+public:
+    /**
+     * @return the first endpoint of the active video player that has the cluster, or nullptr
+     */
+    static TargetEndpointInfo * FindActiveEndpointWithCluster(chip::ClusterId clusterId);
+
+    /**
+     * @brief Sends a sequence of KeypadInput keys to the active video player, in order. Each key is only sent once the
+     * previous one was acknowledged: CastingServer's SendKey command has a single response callback for all its invocations,
+     * and keys sent back to back may reach the player out of order. Sequences sent while another is in flight are queued
+     * behind it.
+     *
+     * @param keyCodes the CEC key codes of the keys
+     * @param callback if not null, its onKeySequenceSent(int sentCount, int keyCount) method is called on the Matter thread
+     * once the sequence is done. A sentCount lower than keyCount means key sentCount failed, and the keys after it were not
+     * sent.
+     * @return JNI_TRUE if the sequence was queued
+     */
+    static jboolean SendKeySequence(JNIEnv * env, jintArray keyCodes, jobject callback);
+
+    /**
+     * @brief Changes channel with Channel::ChangeChannel, the match being e.g. the channel number
+     *
+     * @return JNI_TRUE if the command was sent
+     */
+    static jboolean ChangeChannel(JNIEnv * env, jstring match);
+};
@@ -13,82 +13,28 @@
 #include <CastingServer.h>
 #include <TargetVideoPlayerInfo.h>
 
+#include "App/app/src/main/jni/cpp/support/Metrics-JNI.h"
+#include "VideoPlayerCommands-JNI.h"
+
 using namespace chip;
+using matter::casting::support::MetricsJNI;
 
 #define JNI_METHOD(RETURN, METHOD_NAME)                                                                                            \
     extern "C" JNIEXPORT RETURN JNICALL Java_com_matter_casting_VoiceControlFragment_##METHOD_NAME
 
-// Send KeypadInput command
-JNI_METHOD(jboolean, sendKeyToDevice)(JNIEnv * env, jobject thiz, jint keyCode)
+// Send a sequence of KeypadInput commands, each once the previous one was acknowledged. The outcome is reported to
+// callback.onKeySequenceSent(sentCount, keyCount)
+JNI_METHOD(jboolean, sendKeySequenceToDevice)(JNIEnv * env, jobject thiz, jintArray keyCodes, jobject callback)
 {
-    chip::DeviceLayer::StackLock lock;
-    ChipLogProgress(AppServer, "VoiceControl-JNI::sendKeyToDevice called with keyCode: %d", keyCode);
-
-    CastingServer * castingServer = CastingServer::GetInstance();
-    if (castingServer == nullptr)
-    {
-        ChipLogError(AppServer, "CastingServer instance is null");
-        return JNI_FALSE;
-    }
-
-    TargetVideoPlayerInfo * targetVideoPlayerInfo = castingServer->GetActiveTargetVideoPlayer();
-    if (targetVideoPlayerInfo == nullptr || !targetVideoPlayerInfo->IsInitialized())
-    {
-        ChipLogError(AppServer, "No active target video player found");
-        return JNI_FALSE;
-    }
-
-    TargetEndpointInfo * endpoints = targetVideoPlayerInfo->GetEndpoints();
-    if (endpoints == nullptr)
-    {
-        ChipLogError(AppServer, "No endpoints available");
-        return JNI_FALSE;
-    }
-    
-    TargetEndpointInfo * keypadInputEndpoint = nullptr;
-    for (size_t i = 0; i < kMaxNumberOfEndpoints && endpoints[i].IsInitialized(); i++)
-    {
-        if (endpoints[i].HasCluster(chip::app::Clusters::KeypadInput::Id))
-        {
-            keypadInputEndpoint = &endpoints[i];
-            ChipLogProgress(AppServer, "Found KeypadInput cluster on endpoint %d", keypadInputEndpoint->GetEndpointId());
-            break;
-        }
-    }
-
-    if (keypadInputEndpoint == nullptr)
-    {
-        ChipLogError(AppServer, "No endpoint found with KeypadInput cluster support");
-        return JNI_FALSE;
-    }
-
-    chip::app::Clusters::KeypadInput::CECKeyCodeEnum cecKeyCode = 
-        static_cast<chip::app::Clusters::KeypadInput::CECKeyCodeEnum>(keyCode);
-
-    ChipLogProgress(AppServer, "Voice: Sending KeypadInput::SendKey to endpoint %d with keyCode %d",
-                    keypadInputEndpoint->GetEndpointId(), keyCode);
-
-    CHIP_ERROR err = castingServer->KeypadInput_SendKey(
-        keypadInputEndpoint,
-        cecKeyCode,
-        [](CHIP_ERROR err) {
-            if (err == CHIP_NO_ERROR)
-            {
-                ChipLogProgress(AppServer, "Voice: KeypadInput command succeeded");
-            }
-            else
-            {
-                ChipLogError(AppServer, "Voice: KeypadInput command failed: %" CHIP_ERROR_FORMAT, err.Format());
-            }
-        });
-
-    if (err != CHIP_NO_ERROR)
-    {
-        ChipLogError(AppServer, "Failed to send KeypadInput command: %" CHIP_ERROR_FORMAT, err.Format());
-        return JNI_FALSE;
-    }
+    ChipLogProgress(AppServer, "VoiceControl-JNI::sendKeySequenceToDevice called");
+    return VideoPlayerCommandsJNI::SendKeySequence(env, keyCodes, callback);
+}
 
-    return JNI_TRUE;
+// Change channel with Channel::ChangeChannel, the match being e.g. the channel number
+JNI_METHOD(jboolean, changeChannel)(JNIEnv * env, jobject thiz, jstring match)
+{
+    ChipLogProgress(AppServer, "VoiceControl-JNI::changeChannel called");
+    return VideoPlayerCommandsJNI::ChangeChannel(env, match);
 }
 
 // Launch application
@@ -148,7 +94,7 @@ JNI_METHOD(jboolean, launchApp)(JNIEnv * env, jobject thiz, jint catalogVendorId
         appLauncherEndpoint,
         application,
         chip::NullOptional,
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("ApplicationLauncher.LaunchApp", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "Voice: ApplicationLauncher::LaunchApp succeeded");
@@ -157,7 +103,7 @@ JNI_METHOD(jboolean, launchApp)(JNIEnv * env, jobject thiz, jint catalogVendorId
             {
                 ChipLogError(AppServer, "Voice: ApplicationLauncher::LaunchApp failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     env->ReleaseStringUTFChars(applicationId, nativeApplicationId);
 
@@ -226,7 +172,7 @@ JNI_METHOD(jboolean, stopApp)(JNIEnv * env, jobject thiz, jint catalogVendorId,
     CHIP_ERROR err = castingServer->ApplicationLauncher_StopApp(
         appLauncherEndpoint,
         application,
-        [](CHIP_ERROR err) {
+        MetricsJNI::TimeCommand("ApplicationLauncher.StopApp", [](CHIP_ERROR err) {
             if (err == CHIP_NO_ERROR)
             {
                 ChipLogProgress(AppServer, "Voice: ApplicationLauncher::StopApp succeeded");
@@ -235,7 +181,7 @@ JNI_METHOD(jboolean, stopApp)(JNIEnv * env, jobject thiz, jint catalogVendorId,
             {
                 ChipLogError(AppServer, "Voice: ApplicationLauncher::StopApp failed: %" CHIP_ERROR_FORMAT, err.Format());
             }
-        });
+        }));
 
     env->ReleaseStringUTFChars(applicationId, nativeApplicationId);
 
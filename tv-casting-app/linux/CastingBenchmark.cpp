@@ -0,0 +1,419 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "CastingBenchmark.h"
+
+#include "CastingServer.h"
+
+#include <inttypes.h>
+#include <lib/support/CodeUtils.h>
+#include <platform/CHIPDeviceLayer.h>
+
+#include <algorithm>
+#include <cstdio>
+#include <cstring>
+
+using namespace chip;
+using namespace chip::System;
+using namespace chip::app::Clusters;
+
+namespace {
+
+const char kBenchmarkContentUrl[]        = "https://www.test.com/videoid";
+const char kBenchmarkContentDisplayStr[] = "Benchmark video";
+
+// the subscription workload subscribes with a max interval long enough for no report to arrive during a run
+constexpr uint16_t kSubscriptionMaxIntervalSec = 3600;
+
+Clock::Microseconds64 Now()
+{
+    return SystemClock().GetMonotonicMicroseconds64();
+}
+
+void * SequenceToContext(uint32_t sequence)
+{
+    return reinterpret_cast<void *>(static_cast<uintptr_t>(sequence));
+}
+
+uint32_t ContextToSequence(void * context)
+{
+    return static_cast<uint32_t>(reinterpret_cast<uintptr_t>(context));
+}
+
+/**
+ * @return the value at the given percentile of sorted values, by the nearest-rank method
+ */
+uint64_t Percentile(const std::vector<uint64_t> & sortedValues, uint32_t percentile)
+{
+    if (sortedValues.empty())
+    {
+        return 0;
+    }
+    size_t rank = (sortedValues.size() * percentile + 99) / 100;
+    return sortedValues[rank > 0 ? rank - 1 : 0];
+}
+
+void OnBenchmarkCurrentStateReport(void * context,
+                                   MediaPlayback::Attributes::CurrentState::TypeInfo::DecodableArgType responseData)
+{}
+
+} // namespace
+
+CastingBenchmark * CastingBenchmark::GetInstance()
+{
+    static CastingBenchmark sInstance;
+    return &sInstance;
+}
+
+bool CastingBenchmark::ParseWorkload(const char * name, Workload & workload)
+{
+    for (Workload candidate : { Workload::kSendKey, Workload::kLaunchURL, Workload::kPlayPause, Workload::kSubscribe })
+    {
+        if (strcmp(name, GetWorkloadName(candidate)) == 0)
+        {
+            workload = candidate;
+            return true;
+        }
+    }
+    return false;
+}
+
+const char * CastingBenchmark::GetWorkloadName(Workload workload)
+{
+    switch (workload)
+    {
+    case Workload::kSendKey:
+        return "sendkey";
+    case Workload::kLaunchURL:
+        return "launchurl";
+    case Workload::kPlayPause:
+        return "playpause";
+    case Workload::kSubscribe:
+        return "subscribe";
+    }
+    return "unknown";
+}
+
+ClusterId CastingBenchmark::GetWorkloadClusterId(Workload workload)
+{
+    switch (workload)
+    {
+    case Workload::kSendKey:
+        return KeypadInput::Id;
+    case Workload::kLaunchURL:
+        return ContentLauncher::Id;
+    case Workload::kPlayPause:
+    case Workload::kSubscribe:
+        return MediaPlayback::Id;
+    }
+    return kInvalidClusterId;
+}
+
+TargetEndpointInfo * CastingBenchmark::FindEndpoint(ClusterId clusterId)
+{
+    TargetVideoPlayerInfo * videoPlayer = CastingServer::GetInstance()->GetActiveTargetVideoPlayer();
+    if (videoPlayer == nullptr || !videoPlayer->IsInitialized())
+    {
+        return nullptr;
+    }
+    TargetEndpointInfo * endpoints = videoPlayer->GetEndpoints();
+    for (size_t i = 0; endpoints != nullptr && i < kMaxNumberOfEndpoints && endpoints[i].IsInitialized(); i++)
+    {
+        if (endpoints[i].HasCluster(clusterId))
+        {
+            return &endpoints[i];
+        }
+    }
+    return nullptr;
+}
+
+CHIP_ERROR CastingBenchmark::Start(Workload workload, uint32_t count, uint32_t warmupCount)
+{
+    VerifyOrReturnError(!mRunning, CHIP_ERROR_INCORRECT_STATE);
+    VerifyOrReturnError(count > 0, CHIP_ERROR_INVALID_ARGUMENT);
+
+    TargetEndpointInfo * endpoint = FindEndpoint(GetWorkloadClusterId(workload));
+    if (endpoint == nullptr)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: no endpoint of the active video player supports the %s workload",
+                     GetWorkloadName(workload));
+        return CHIP_ERROR_INCORRECT_STATE;
+    }
+
+    ChipLogProgress(AppServer,
+                    "CastingBenchmark: starting %s, %" PRIu32 " requests after %" PRIu32 " warmup requests, on endpoint %d",
+                    GetWorkloadName(workload), count, warmupCount, endpoint->GetEndpointId());
+
+    mRunning              = true;
+    mWorkload             = workload;
+    mEndpoint             = endpoint;
+    mCount                = count;
+    mWarmupCount          = warmupCount;
+    mResponseCount        = 0;
+    mErrorCount           = 0;
+    mTimeoutCount         = 0;
+    mAwaitingLateResponse = false;
+    mRunStart             = Now();
+    mLatenciesUs.clear();
+    mLatenciesUs.reserve(count);
+
+    SendNext();
+    return CHIP_NO_ERROR;
+}
+
+void CastingBenchmark::SendNext()
+{
+    if (mResponseCount >= mWarmupCount + mCount)
+    {
+        Finish();
+        return;
+    }
+    if (mResponseCount == mWarmupCount)
+    {
+        mRunStart = Now();
+    }
+
+    uint32_t sequence = ++mSequence;
+    mRequestStart     = Now();
+    CHIP_ERROR err    = SendRequest(sequence);
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: request %" PRIu32 " failed to send: %" CHIP_ERROR_FORMAT, sequence,
+                     err.Format());
+        OnResponse(sequence, err);
+        return;
+    }
+    err = DeviceLayer::SystemLayer().StartTimer(kRequestTimeout, OnRequestTimeout, SequenceToContext(sequence));
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: could not start the request timer: %" CHIP_ERROR_FORMAT, err.Format());
+    }
+}
+
+CHIP_ERROR CastingBenchmark::SendRequest(uint32_t sequence)
+{
+    CastingServer * server                     = CastingServer::GetInstance();
+    std::function<void(CHIP_ERROR)> onResponse = [sequence](CHIP_ERROR err) {
+        CastingBenchmark::GetInstance()->OnResponse(sequence, err);
+    };
+
+    switch (mWorkload)
+    {
+    case Workload::kSendKey: {
+        KeypadInput::CECKeyCodeEnum keyCode = sequence % 2 ? KeypadInput::CECKeyCodeEnum::kUp : KeypadInput::CECKeyCodeEnum::kDown;
+        return server->KeypadInput_SendKey(mEndpoint, keyCode, onResponse);
+    }
+    case Workload::kLaunchURL:
+        return server->ContentLauncher_LaunchURL(mEndpoint, kBenchmarkContentUrl, kBenchmarkContentDisplayStr, NullOptional,
+                                                 onResponse);
+    case Workload::kPlayPause:
+        return sequence % 2 ? server->MediaPlayback_Play(mEndpoint, onResponse)
+                            : server->MediaPlayback_Pause(mEndpoint, onResponse);
+    case Workload::kSubscribe:
+        // tear down the previous subscription first, so that each request measures a new subscription being established
+        server->ShutdownAllSubscriptions();
+        return server->MediaPlayback_SubscribeToCurrentState(mEndpoint, SequenceToContext(sequence), OnBenchmarkCurrentStateReport,
+                                                             OnSubscriptionFailure, 0, kSubscriptionMaxIntervalSec,
+                                                             OnSubscriptionEstablished);
+    }
+    return CHIP_ERROR_INVALID_ARGUMENT;
+}
+
+void CastingBenchmark::OnResponse(uint32_t sequence, CHIP_ERROR err)
+{
+    // a response to a previous request, or to a previous run, is ignored
+    VerifyOrReturn(mRunning && sequence == mSequence);
+
+    if (mAwaitingLateResponse)
+    {
+        // the request was already counted as timed out, and the response callback is now free for the next one
+        mAwaitingLateResponse = false;
+        DeviceLayer::SystemLayer().CancelTimer(OnLateResponseTimeout, SequenceToContext(sequence));
+        ChipLogProgress(AppServer, "CastingBenchmark: late response to request %" PRIu32 ": %" CHIP_ERROR_FORMAT, sequence,
+                        err.Format());
+        ScheduleNext();
+        return;
+    }
+
+    uint64_t latencyUs = (Now() - mRequestStart).count();
+    DeviceLayer::SystemLayer().CancelTimer(OnRequestTimeout, SequenceToContext(sequence));
+    RecordResult(sequence, err, latencyUs);
+    ScheduleNext();
+}
+
+void CastingBenchmark::OnRequestTimedOut(uint32_t sequence)
+{
+    VerifyOrReturn(mRunning && sequence == mSequence && !mAwaitingLateResponse);
+
+    RecordResult(sequence, CHIP_ERROR_TIMEOUT, 0);
+
+    // sending the next request now would replace the response callback of this one, which may still respond
+    mAwaitingLateResponse = true;
+    CHIP_ERROR err =
+        DeviceLayer::SystemLayer().StartTimer(kLateResponseTimeout, OnLateResponseTimeout, SequenceToContext(sequence));
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: could not start the late response timer: %" CHIP_ERROR_FORMAT, err.Format());
+        Finish();
+    }
+}
+
+void CastingBenchmark::OnLateResponseTimedOut(uint32_t sequence)
+{
+    VerifyOrReturn(mRunning && sequence == mSequence && mAwaitingLateResponse);
+
+    ChipLogError(AppServer, "CastingBenchmark: request %" PRIu32 " never got a response, stopping the run", sequence);
+    mAwaitingLateResponse = false;
+    Finish();
+}
+
+void CastingBenchmark::RecordResult(uint32_t sequence, CHIP_ERROR err, uint64_t latencyUs)
+{
+    bool warmup = mResponseCount < mWarmupCount;
+    mResponseCount++;
+    if (warmup)
+    {
+        // responses to warmup requests are not measured
+    }
+    else if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: request %" PRIu32 " failed: %" CHIP_ERROR_FORMAT, sequence, err.Format());
+        if (err == CHIP_ERROR_TIMEOUT)
+        {
+            mTimeoutCount++;
+        }
+        mErrorCount++;
+    }
+    else
+    {
+        mLatenciesUs.push_back(latencyUs);
+    }
+}
+
+void CastingBenchmark::ScheduleNext()
+{
+    // send the next request once the stack has finished handling this response
+    CHIP_ERROR err = DeviceLayer::SystemLayer().ScheduleLambda([] { CastingBenchmark::GetInstance()->SendNext(); });
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "CastingBenchmark: could not schedule the next request: %" CHIP_ERROR_FORMAT, err.Format());
+        Finish();
+    }
+}
+
+void CastingBenchmark::OnRequestTimeout(Layer * aSystemLayer, void * context)
+{
+    CastingBenchmark::GetInstance()->OnRequestTimedOut(ContextToSequence(context));
+}
+
+void CastingBenchmark::OnLateResponseTimeout(Layer * aSystemLayer, void * context)
+{
+    CastingBenchmark::GetInstance()->OnLateResponseTimedOut(ContextToSequence(context));
+}
+
+void CastingBenchmark::OnSubscriptionFailure(void * context, CHIP_ERROR err)
+{
+    CastingBenchmark::GetInstance()->OnResponse(ContextToSequence(context), err);
+}
+
+void CastingBenchmark::OnSubscriptionEstablished(void * context, SubscriptionId aSubscriptionId)
+{
+    CastingBenchmark::GetInstance()->OnResponse(ContextToSequence(context), CHIP_NO_ERROR);
+}
+
+void CastingBenchmark::Finish()
+{
+    mRunEnd   = Now();
+    mRunning  = false;
+    mEndpoint = nullptr;
+    if (mWorkload == Workload::kSubscribe)
+    {
+        CastingServer::GetInstance()->ShutdownAllSubscriptions();
+    }
+    PrintResults();
+}
+
+void CastingBenchmark::PrintResults()
+{
+    std::vector<uint64_t> sorted(mLatenciesUs);
+    std::sort(sorted.begin(), sorted.end());
+
+    uint64_t totalUs = 0;
+    for (uint64_t latencyUs : sorted)
+    {
+        totalUs += latencyUs;
+    }
+    // fewer than mCount if the run was stopped early
+    uint32_t completed = mResponseCount > mWarmupCount ? mResponseCount - mWarmupCount : 0;
+    uint64_t elapsedUs = completed > 0 ? (mRunEnd - mRunStart).count() : 0;
+    double throughput  = elapsedUs > 0 ? static_cast<double>(completed) * 1e6 / static_cast<double>(elapsedUs) : 0;
+    uint64_t meanUs    = sorted.empty() ? 0 : totalUs / sorted.size();
+    uint64_t minUs     = sorted.empty() ? 0 : sorted.front();
+    uint64_t maxUs     = sorted.empty() ? 0 : sorted.back();
+
+    // printed rather than logged so that the line is not interleaved with, or filtered out like, log output
+    printf("%s{\"workload\":\"%s\",\"count\":%" PRIu32 ",\"completed\":%" PRIu32 ",\"warmup\":%" PRIu32 ",\"errors\":%" PRIu32
+           ",\"timeouts\":%" PRIu32 ",\"elapsed_ms\":%.3f,\"throughput_per_s\":%.2f,\"latency_us\":{\"min\":%" PRIu64
+           ",\"mean\":%" PRIu64 ",\"p50\":%" PRIu64 ",\"p95\":%" PRIu64 ",\"p99\":%" PRIu64 ",\"max\":%" PRIu64 "}}\n",
+           kResultPrefix, GetWorkloadName(mWorkload), mCount, completed, mWarmupCount, mErrorCount, mTimeoutCount,
+           static_cast<double>(elapsedUs) / 1000, throughput, minUs, meanUs, Percentile(sorted, 50), Percentile(sorted, 95),
+           Percentile(sorted, 99), maxUs);
+    fflush(stdout);
+}
+
+void CastingBenchmark::PrintTimings()
+{
+    printf("%s{\"commissioning_ms\":%.3f,\"commissioning_error\":\"%s\",\"connection_ms\":%.3f,\"connection_error\":\"%s\"}\n",
+           kTimingsPrefix, mCommissioningUs < 0 ? -1.0 : static_cast<double>(mCommissioningUs) / 1000,
+           mCommissioningError.AsString(), mConnectionUs < 0 ? -1.0 : static_cast<double>(mConnectionUs) / 1000,
+           mConnectionError.AsString());
+    fflush(stdout);
+}
+
+void CastingBenchmark::OnCommissioningStarted()
+{
+    mCommissioningStart   = Now();
+    mCommissioningPending = true;
+}
+
+void CastingBenchmark::OnCommissioningComplete(CHIP_ERROR err)
+{
+    VerifyOrReturn(mCommissioningPending);
+    mCommissioningPending = false;
+    mCommissioningUs      = static_cast<int64_t>((Now() - mCommissioningStart).count());
+    mCommissioningError   = err;
+    if (err == CHIP_NO_ERROR)
+    {
+        // once commissioned, the casting server connects to the video player that commissioned it
+        OnConnectionStarted();
+    }
+}
+
+void CastingBenchmark::OnConnectionStarted()
+{
+    mConnectionStart   = Now();
+    mConnectionPending = true;
+}
+
+void CastingBenchmark::OnConnectionComplete(CHIP_ERROR err)
+{
+    VerifyOrReturn(mConnectionPending);
+    mConnectionPending = false;
+    mConnectionUs      = static_cast<int64_t>((Now() - mConnectionStart).count());
+    mConnectionError   = err;
+}
@@ -0,0 +1,139 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+/**
+ * @brief CastingBenchmark measures the latency of the requests the casting app sends to the active video player, and the
+ * time taken to commission and connect to it.
+ *
+ * A run sends a fixed number of requests of one workload, one at a time: each is sent as soon as the response to the
+ * previous one arrives, since the casting server keeps a single response callback per command. For the same reason, a
+ * request that timed out is only followed by the next one once its late response arrives. Once done, the run prints its
+ * results as one line of JSON, prefixed with kResultPrefix, for scripts such as latency_benchmark.py to parse.
+ *
+ * All methods must be called on the Matter thread.
+ */
+
+#pragma once
+
+#include "TargetEndpointInfo.h"
+
+#include <lib/core/CHIPError.h>
+#include <lib/core/DataModelTypes.h>
+#include <system/SystemClock.h>
+
+#include <vector>
+
+class CastingBenchmark
+{
+public:
+    static constexpr const char * kResultPrefix  = "CASTING_BENCHMARK_RESULT ";
+    static constexpr const char * kTimingsPrefix = "CASTING_BENCHMARK_TIMINGS ";
+
+    /**
+     * @brief A request that does not get a response within this time counts as an error. The run moves on once its late
+     * response arrives, as the next request would otherwise replace the response callback it is still using.
+     */
+    static constexpr chip::System::Clock::Milliseconds32 kRequestTimeout = chip::System::Clock::Milliseconds32(10 * 1000);
+
+    /**
+     * @brief If a request that timed out gets no late response within this further time, the run stops
+     */
+    static constexpr chip::System::Clock::Milliseconds32 kLateResponseTimeout = chip::System::Clock::Milliseconds32(60 * 1000);
+
+    enum class Workload : uint8_t
+    {
+        kSendKey,   // KeypadInput SendKey, alternating Up and Down
+        kLaunchURL, // ContentLauncher LaunchURL
+        kPlayPause, // MediaPlayback Play and Pause, alternating
+        kSubscribe, // MediaPlayback CurrentState subscription, measured until established
+    };
+
+    static CastingBenchmark * GetInstance();
+
+    /**
+     * @return true if name is the name of a workload, e.g. "sendkey", and sets workload to it
+     */
+    static bool ParseWorkload(const char * name, Workload & workload);
+
+    /**
+     * @brief Starts a run of count requests of the workload, after warmupCount requests that are not measured
+     */
+    CHIP_ERROR Start(Workload workload, uint32_t count, uint32_t warmupCount);
+
+    bool IsRunning() const { return mRunning; }
+
+    /**
+     * @brief Prints the commissioning and connection times recorded, as one line of JSON prefixed with kTimingsPrefix
+     */
+    void PrintTimings();
+
+    void OnCommissioningStarted();
+    void OnCommissioningComplete(CHIP_ERROR err);
+    void OnConnectionStarted();
+    void OnConnectionComplete(CHIP_ERROR err);
+
+private:
+    CastingBenchmark() = default;
+
+    static const char * GetWorkloadName(Workload workload);
+    static chip::ClusterId GetWorkloadClusterId(Workload workload);
+    static TargetEndpointInfo * FindEndpoint(chip::ClusterId clusterId);
+
+    void SendNext();
+    CHIP_ERROR SendRequest(uint32_t sequence);
+    void OnResponse(uint32_t sequence, CHIP_ERROR err);
+    void OnRequestTimedOut(uint32_t sequence);
+    void OnLateResponseTimedOut(uint32_t sequence);
+    void RecordResult(uint32_t sequence, CHIP_ERROR err, uint64_t latencyUs);
+    void ScheduleNext();
+    void Finish();
+    void PrintResults();
+
+    static void OnRequestTimeout(chip::System::Layer * aSystemLayer, void * context);
+    static void OnLateResponseTimeout(chip::System::Layer * aSystemLayer, void * context);
+    static void OnSubscriptionFailure(void * context, CHIP_ERROR err);
+    static void OnSubscriptionEstablished(void * context, chip::SubscriptionId aSubscriptionId);
+
+    bool mRunning                  = false;
+    Workload mWorkload             = Workload::kSendKey;
+    TargetEndpointInfo * mEndpoint = nullptr;
+    uint32_t mCount                = 0;
+    uint32_t mWarmupCount          = 0;
+    uint32_t mResponseCount        = 0;
+    uint32_t mErrorCount           = 0;
+    uint32_t mTimeoutCount         = 0;
+
+    // sequence number of the request in flight, counting warmup requests, so that late responses can be told apart
+    uint32_t mSequence = 0;
+    // true once the request in flight has timed out, until its late response arrives
+    bool mAwaitingLateResponse = false;
+
+    chip::System::Clock::Microseconds64 mRequestStart;
+    chip::System::Clock::Microseconds64 mRunStart;
+    chip::System::Clock::Microseconds64 mRunEnd;
+    std::vector<uint64_t> mLatenciesUs;
+
+    chip::System::Clock::Microseconds64 mCommissioningStart;
+    chip::System::Clock::Microseconds64 mConnectionStart;
+    bool mCommissioningPending     = false;
+    bool mConnectionPending        = false;
+    int64_t mCommissioningUs       = -1;
+    int64_t mConnectionUs          = -1;
+    CHIP_ERROR mCommissioningError = CHIP_NO_ERROR;
+    CHIP_ERROR mConnectionError    = CHIP_NO_ERROR;
+};
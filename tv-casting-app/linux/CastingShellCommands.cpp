@@ -21,6 +21,7 @@
 
 #include "CastingShellCommands.h"
 
+#include "CastingBenchmark.h"
 #include "CastingServer.h"
 #include "CastingUtils.h"
 #include "app/clusters/bindings/BindingManager.h"
@@ -78,6 +79,12 @@ static CHIP_ERROR PrintAllCommands()
     streamer_printf(
         sout,
         "  cluster [clustercommand] Send cluster command. Usage: cast cluster keypadinput send-key 1 18446744004990074879 1\r\n");
+    streamer_printf(sout,
+                    "  benchmark <sendkey|launchurl|playpause|subscribe> <count> [warmup]  Measure the latency of count requests to "
+                    "the active video player. Usage: cast benchmark sendkey 1000 50\r\n");
+    streamer_printf(sout,
+                    "  benchmark timings    Print the time taken to commission and connect to the video player. Usage: cast "
+                    "benchmark timings\r\n");
     streamer_printf(sout, "\r\n");
 
     return CHIP_NO_ERROR;
@@ -310,6 +317,28 @@ static CHIP_ERROR CastingHandler(int argc, char ** argv)
     {
         return ProcessClusterCommand(argc, argv);
     }
+    if (strcmp(argv[0], "benchmark") == 0)
+    {
+        ChipLogProgress(DeviceLayer, "benchmark");
+        if (argc == 2 && strcmp(argv[1], "timings") == 0)
+        {
+            CastingBenchmark::GetInstance()->PrintTimings();
+            return CHIP_NO_ERROR;
+        }
+        CastingBenchmark::Workload workload;
+        if (argc < 3 || !CastingBenchmark::ParseWorkload(argv[1], workload))
+        {
+            return PrintAllCommands();
+        }
+        uint32_t count  = 0;
+        uint32_t warmup = 0;
+        if (!chip::ArgParser::ParseInt(argv[2], count) || count == 0 || (argc > 3 && !chip::ArgParser::ParseInt(argv[3], warmup)))
+        {
+            streamer_printf(streamer_get(), "ERROR - count must be a positive number, and warmup a number\r\n");
+            return CHIP_ERROR_INVALID_ARGUMENT;
+        }
+        return CastingBenchmark::GetInstance()->Start(workload, count, warmup);
+    }
     return CHIP_ERROR_INVALID_ARGUMENT;
 }
 
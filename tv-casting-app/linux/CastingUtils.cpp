@@ -18,6 +18,7 @@
 
 #include "CastingUtils.h"
 
+#include "CastingBenchmark.h"
 #include "CommissioningCallbacks.h"
 
 using namespace chip;
@@ -75,6 +76,8 @@ void PrepareForCommissioning(const Dnssd::CommissionNodeData * selectedCommissio
 #if CHIP_DEVICE_CONFIG_ENABLE_COMMISSIONER_DISCOVERY_CLIENT
     if (selectedCommissioner != nullptr)
     {
+        CastingBenchmark::GetInstance()->OnCommissioningStarted();
+
         // Send User Directed commissioning request
         // Wait 1 second to allow our commissionee DNS records to publish (needed on Mac)
         int32_t expiration = 1;
@@ -230,6 +233,7 @@ void OnConnectionSuccess(TargetVideoPlayerInfo * videoPlayer)
                     "%d, deviceType: %d)",
                     ChipLogValueX64(videoPlayer->GetNodeId()), videoPlayer->GetFabricIndex(), videoPlayer->GetDeviceName(),
                     videoPlayer->GetVendorId(), videoPlayer->GetProductId(), videoPlayer->GetDeviceType());
+    CastingBenchmark::GetInstance()->OnConnectionComplete(CHIP_NO_ERROR);
 
     TargetEndpointInfo * endpoints = videoPlayer->GetEndpoints();
     if (endpoints != nullptr)
@@ -244,6 +248,7 @@ void OnConnectionSuccess(TargetVideoPlayerInfo * videoPlayer)
 void OnConnectionFailure(CHIP_ERROR err)
 {
     ChipLogError(AppServer, "OnConnectionFailure error: %" CHIP_ERROR_FORMAT, err.AsString());
+    CastingBenchmark::GetInstance()->OnConnectionComplete(err);
 }
 
 void OnNewOrUpdatedEndpoint(TargetEndpointInfo * endpoint)
@@ -263,6 +268,7 @@ CHIP_ERROR ConnectToCachedVideoPlayer()
             {
                 ChipLogProgress(AppServer, "Found a Cached video player with nodeId: 0x" ChipLogFormatX64 ", fabricIndex: %d",
                                 ChipLogValueX64(cachedVideoPlayers[i].GetNodeId()), cachedVideoPlayers[i].GetFabricIndex());
+                CastingBenchmark::GetInstance()->OnConnectionStarted();
                 if (CastingServer::GetInstance()->VerifyOrEstablishConnection(
                         cachedVideoPlayers[i], OnConnectionSuccess, OnConnectionFailure, OnNewOrUpdatedEndpoint) == CHIP_NO_ERROR)
                 {
@@ -281,6 +287,7 @@ CHIP_ERROR ConnectToCachedVideoPlayer()
 void HandleCommissioningCompleteCallback(CHIP_ERROR err)
 {
     ChipLogProgress(AppServer, "HandleCommissioningCompleteCallback called with %" CHIP_ERROR_FORMAT, err.Format());
+    CastingBenchmark::GetInstance()->OnCommissioningComplete(err);
 }
 
 #if CHIP_DEVICE_CONFIG_ENABLE_COMMISSIONER_DISCOVERY_CLIENT
@@ -0,0 +1,207 @@
+#!/usr/bin/env python3
+#
+#    Copyright (c) 2024 Project CHIP Authors
+#    All rights reserved.
+#
+#    Licensed under the Apache License, Version 2.0 (the "License");
+#    you may not use this file except in compliance with the License.
+#    You may obtain a copy of the License at
+#
+#        http://www.apache.org/licenses/LICENSE-2.0
+#
+#    Unless required by applicable law or agreed to in writing, software
+#    distributed under the License is distributed on an "AS IS" BASIS,
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+#    See the License for the specific language governing permissions and
+#    limitations under the License.
+#
+
+"""End-to-end latency benchmark of the Linux tv-casting-app against a local tv-app.
+
+Starts the example chip-tv-app and chip-tv-casting-app on this host, commissions the casting app onto the tv-app
+through user-directed commissioning, then runs the casting app's `cast benchmark` shell command for each workload
+and writes the results (latency percentiles, throughput, commissioning and connection times) as one JSON report.
+
+Example:
+    $ ./latency_benchmark.py --count 2000 --warmup 100 --output results.json
+"""
+
+import argparse
+import json
+import os
+import platform
+import queue
+import re
+import shutil
+import subprocess
+import sys
+import tempfile
+import threading
+import time
+
+RESULT_PREFIX = 'CASTING_BENCHMARK_RESULT '
+TIMINGS_PREFIX = 'CASTING_BENCHMARK_TIMINGS '
+
+WORKLOADS = ['sendkey', 'launchurl', 'playpause', 'subscribe']
+
+# the casting app stores its fabrics and cached video players here, passed as CHIP_CASTING_KVS_PATH so that the
+# benchmark neither reads nor clears the default CHIP_CONFIG_KVS_PATH store
+CASTING_APP_KVS = '/tmp/chip_casting_kvs_latency_benchmark'
+
+ANSI_ESCAPE = re.compile(r'\x1b\[[0-9;]*m')
+
+
+class App:
+    """A process whose output is logged to a file and can be waited on, line by line."""
+
+    def __init__(self, name, args, log_path, env=None):
+        self.name = name
+        self.lines = queue.Queue()
+        self.log = open(log_path, 'w')
+        self.process = subprocess.Popen(args, stdin=subprocess.PIPE, stdout=subprocess.PIPE, stderr=subprocess.STDOUT,
+                                        text=True, errors='replace', bufsize=1, env=env)
+        self.reader = threading.Thread(target=self._read, daemon=True)
+        self.reader.start()
+
+    def _read(self):
+        for line in self.process.stdout:
+            self.log.write(line)
+            self.log.flush()
+            self.lines.put(ANSI_ESCAPE.sub('', line.rstrip('\r\n')))
+        self.lines.put(None)
+
+    def send(self, command):
+        self.process.stdin.write(command + '\n')
+        self.process.stdin.flush()
+
+    def wait_for(self, pattern, timeout):
+        """Returns the first line of output containing pattern, skipping the lines before it."""
+        deadline = time.monotonic() + timeout
+        while True:
+            remaining = deadline - time.monotonic()
+            if remaining <= 0:
+                raise TimeoutError(f'{self.name}: "{pattern}" not seen within {timeout}s')
+            try:
+                line = self.lines.get(timeout=remaining)
+            except queue.Empty:
+                continue
+            if line is None:
+                raise RuntimeError(f'{self.name} exited with {self.process.wait()} while waiting for "{pattern}"')
+            if pattern in line:
+                return line
+
+    def stop(self):
+        if self.process.poll() is None:
+            self.process.terminate()
+            try:
+                self.process.wait(timeout=10)
+            except subprocess.TimeoutExpired:
+                self.process.kill()
+                self.process.wait()
+        self.reader.join(timeout=5)
+        self.log.close()
+
+
+def parse_json_line(line, prefix):
+    return json.loads(line[line.index(prefix) + len(prefix):])
+
+
+def commission(tv_app, casting_app, timeout):
+    casting_app.wait_for('Discovered Commissioner #0', timeout)
+    casting_app.send('cast request 0')
+    tv_app.wait_for('PROMPT USER', timeout)
+    tv_app.send('controller ux ok')
+    casting_app.wait_for('OnConnectionSuccess', timeout)
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument('--tv-app', default='out/linux-x64-tv-app/chip-tv-app', help='path to the chip-tv-app binary')
+    parser.add_argument('--tv-casting-app', default='out/linux-x64-tv-casting-app/chip-tv-casting-app',
+                        help='path to the chip-tv-casting-app binary')
+    parser.add_argument('--workload', action='append', choices=WORKLOADS,
+                        help='workload to run, may be repeated (default: all)')
+    parser.add_argument('--count', type=int, default=1000, help='measured requests per workload')
+    parser.add_argument('--warmup', type=int, default=50, help='unmeasured requests sent before each workload')
+    parser.add_argument('--timeout', type=float, default=60,
+                        help='seconds to wait for each commissioning step, and per 1000 requests of a workload')
+    parser.add_argument('--settle', type=float, default=2,
+                        help='seconds to wait once connected, for the casting app\'s demo requests to complete')
+    parser.add_argument('--keep-state', action='store_true',
+                        help='keep the casting app\'s fabrics from previous runs, and connect to the cached video player')
+    parser.add_argument('--casting-kvs', default=CASTING_APP_KVS,
+                        help=f'key value store file of the casting app, kept across runs with --keep-state '
+                             f'(default: {CASTING_APP_KVS})')
+    parser.add_argument('--log-dir', help='directory for the output of both apps (default: a temporary directory)')
+    parser.add_argument('--output', help='file to write the JSON report to (default: stdout)')
+    args = parser.parse_args()
+
+    for binary in (args.tv_app, args.tv_casting_app):
+        if not os.access(binary, os.X_OK):
+            parser.error(f'{binary} is not an executable, build it first or pass its path')
+
+    workdir = tempfile.mkdtemp(prefix='casting_benchmark_')
+    log_dir = args.log_dir or workdir
+    os.makedirs(log_dir, exist_ok=True)
+    if not args.keep_state:
+        if os.path.exists(args.casting_kvs):
+            os.remove(args.casting_kvs)
+
+    tv_app = App('tv-app', [args.tv_app, '--KVS', os.path.join(workdir, 'tv_app_kvs'), '--secured-device-port', '5640',
+                            '--secured-commissioner-port', '5552'], os.path.join(log_dir, 'tv-app.log'))
+    casting_app = None
+    try:
+        tv_app.wait_for('Server Listening', args.timeout)
+        casting_app = App('tv-casting-app', [args.tv_casting_app], os.path.join(log_dir, 'tv-casting-app.log'),
+                          env=dict(os.environ, CHIP_CASTING_KVS_PATH=args.casting_kvs))
+
+        started = time.monotonic()
+        if args.keep_state:
+            casting_app.wait_for('OnConnectionSuccess', args.timeout)
+        else:
+            commission(tv_app, casting_app, args.timeout)
+        setup_s = time.monotonic() - started
+        time.sleep(args.settle)
+
+        casting_app.send('cast benchmark timings')
+        timings = parse_json_line(casting_app.wait_for(TIMINGS_PREFIX, args.timeout), TIMINGS_PREFIX)
+
+        results = []
+        for workload in args.workload or WORKLOADS:
+            print(f'Running {workload}: {args.count} requests after {args.warmup} warmup requests', file=sys.stderr)
+            casting_app.send(f'cast benchmark {workload} {args.count} {args.warmup}')
+            timeout = args.timeout * max(1, (args.count + args.warmup) / 1000)
+            results.append(parse_json_line(casting_app.wait_for(RESULT_PREFIX, timeout), RESULT_PREFIX))
+    finally:
+        if casting_app is not None:
+            casting_app.stop()
+        tv_app.stop()
+        if args.log_dir is None:
+            print(f'App output is in {log_dir}', file=sys.stderr)
+        else:
+            shutil.rmtree(workdir, ignore_errors=True)
+
+    report = {
+        'environment': {
+            'host': platform.node(),
+            'platform': platform.platform(),
+            'cpu_count': os.cpu_count(),
+            'tv_app': os.path.abspath(args.tv_app),
+            'tv_casting_app': os.path.abspath(args.tv_casting_app),
+            'fresh_commissioning': not args.keep_state,
+        },
+        'setup_s': round(setup_s, 3),
+        'timings': timings,
+        'results': results,
+    }
+    if args.output:
+        with open(args.output, 'w') as f:
+            json.dump(report, f, indent=2)
+            f.write('\n')
+    else:
+        json.dump(report, sys.stdout, indent=2)
+        print()
+
+
+if __name__ == '__main__':
+    main()
@@ -17,6 +17,7 @@
  */
 
 #include <signal.h>
+#include <stdlib.h>
 
 #include "commands/clusters/SubscriptionsCommands.h"
 #include "commands/common/Commands.h"
@@ -159,7 +160,11 @@ int main(int argc, char * argv[])
 
     CHIP_ERROR err = CHIP_NO_ERROR;
 
-    DeviceLayer::PersistedStorage::KeyValueStoreMgrImpl().Init(CHIP_CONFIG_KVS_PATH);
+    {
+        // CHIP_CASTING_KVS_PATH lets scripts (e.g. latency_benchmark.py) keep their state apart from the default store
+        const char * kvsPath = getenv("CHIP_CASTING_KVS_PATH");
+        DeviceLayer::PersistedStorage::KeyValueStoreMgrImpl().Init(kvsPath != nullptr ? kvsPath : CHIP_CONFIG_KVS_PATH);
+    }
 
     // Init the commissionable data provider based on command line options
     // to handle custom verifiers, discriminators, etc.
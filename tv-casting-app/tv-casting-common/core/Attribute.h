@@ -22,6 +22,9 @@
 #include "core/Endpoint.h"
 
 #include "lib/support/logging/CHIPLogging.h"
+#include <controller/ReadInteraction.h>
+#include <platform/CHIPDeviceLayer.h>
+
 namespace matter {
 namespace casting {
 namespace core {
@@ -71,10 +74,31 @@ public:
      * @param successCb Called when the Attribute is read successfully, with the value of the attribute after reading, as well as
      * before (if the Attribute had been previously read)
      * @param failureCb Called when there is a failure in reading the Attribute
+     *
+     * If the value is fresh according to the Endpoint's AttributeCache, e.g. because the Attribute is subscribed to, it is
+     * returned without a round trip to the CastingPlayer.
      */
     void Read(void * context, ReadResponseSuccessCallbackFn<TypeInfo> successCb, ReadResponseFailureCallbackFn failureCb)
     {
         memory::Strong<core::Endpoint> endpoint = this->GetEndpoint().lock();
+        if (endpoint && hasValue && endpoint->GetAttributeCache().Lookup(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId()))
+        {
+            ChipLogProgress(AppServer, "<Attribute>::Read() serving cached value on EndpointId: %d", endpoint->GetId());
+            ReadAttributeContext<TypeInfo> * attributeContext =
+                new ReadAttributeContext<TypeInfo>(this, endpoint, context, successCb, failureCb);
+            // still called back asynchronously, as it would be after a round trip
+            CHIP_ERROR err = chip::DeviceLayer::SystemLayer().ScheduleLambda([attributeContext]() {
+                Attribute<TypeInfo> * attr = static_cast<Attribute<TypeInfo> *>(attributeContext->mAttribute);
+                attributeContext->mSuccessCb(attributeContext->mClientContext, chip::MakeOptional(attr->value), attr->value);
+                delete attributeContext;
+            });
+            if (err == CHIP_NO_ERROR)
+            {
+                return;
+            }
+            delete attributeContext;
+        }
+
         if (endpoint)
         {
             ReadAttributeContext<TypeInfo> * attributeContext =
@@ -87,15 +111,16 @@ public:
                     ReadAttributeContext<TypeInfo> * _attributeContext = static_cast<ReadAttributeContext<TypeInfo> *>(_context);
                     ChipLogProgress(AppServer, "<Attribute>::Read() Found or established session");
 
-                    // Read attribute
-                    MediaClusterBase mediaClusterBase(exchangeMgr, sessionHandle, _attributeContext->mEndpoint->GetId());
-                    CHIP_ERROR err = mediaClusterBase.template ReadAttribute<TypeInfo>(
-                        _attributeContext,
+                    // Read attribute, with the path of the response carrying the cluster's DataVersion
+                    CHIP_ERROR err = chip::Controller::ReadAttribute<TypeInfo>(
+                        &exchangeMgr, sessionHandle, _attributeContext->mEndpoint->GetId(),
                         // Read success handler
-                        [](void * __context, typename TypeInfo::DecodableArgType response) {
-                            ReadAttributeContext<TypeInfo> * __attributeContext =
-                                static_cast<ReadAttributeContext<TypeInfo> *>(__context);
+                        [_attributeContext](const chip::app::ConcreteDataAttributePath & path,
+                                            const typename TypeInfo::DecodableType & response) {
+                            ReadAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
                             ChipLogProgress(AppServer, "<Attribute>::Read() success");
+                            __attributeContext->mEndpoint->GetAttributeCache().OnValueUpdated(
+                                TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), path.mDataVersion);
                             Attribute<TypeInfo> * __attr = static_cast<Attribute<TypeInfo> *>(__attributeContext->mAttribute);
                             if (__attr->hasValue)
                             {
@@ -114,9 +139,8 @@ public:
                             delete __attributeContext;
                         },
                         // Read failure handler
-                        [](void * __context, CHIP_ERROR error) {
-                            ReadAttributeContext<TypeInfo> * __attributeContext =
-                                static_cast<ReadAttributeContext<TypeInfo> *>(__context);
+                        [_attributeContext](const chip::app::ConcreteDataAttributePath *, CHIP_ERROR error) {
+                            ReadAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
                             ChipLogError(AppServer,
                                          "<Attribute>::Read() failure response on EndpointId: %d with error: "
                                          "%" CHIP_ERROR_FORMAT,
@@ -189,6 +213,9 @@ public:
                             WriteAttributeContext<typename TypeInfo::Type> * __attributeContext =
                                 static_cast<WriteAttributeContext<typename TypeInfo::Type> *>(__context);
                             ChipLogProgress(AppServer, "<Attribute>::Write() success");
+                            // the CastingPlayer may have accepted a different value than the one written
+                            __attributeContext->mEndpoint->GetAttributeCache().Invalidate(TypeInfo::GetClusterId(),
+                                                                                          TypeInfo::GetAttributeId());
                             __attributeContext->mSuccessCb(__attributeContext->mClientContext);
                             delete __attributeContext;
                         },
@@ -262,16 +289,27 @@ public:
                         static_cast<SubscribeAttributeContext<TypeInfo> *>(_context);
                     ChipLogProgress(AppServer, "<Attribute>::Subscribe() Found or established session");
 
-                    // Subscribe to attribute
-                    MediaClusterBase mediaClusterBase(exchangeMgr, sessionHandle, _attributeContext->mEndpoint->GetId());
-                    CHIP_ERROR err = mediaClusterBase.template SubscribeAttribute<TypeInfo>(
-                        _attributeContext,
-                        // Subscription success handler
-                        [](void * __context, typename TypeInfo::DecodableArgType response) {
-                            SubscribeAttributeContext<TypeInfo> * __attributeContext =
-                                static_cast<SubscribeAttributeContext<TypeInfo> *>(__context);
+                    // Subscribe to attribute. The ReadClient resubscribes with exponential backoff whenever the subscription
+                    // drops, and the context lives until the subscription ends for good.
+                    AttributeCache & cache      = _attributeContext->mEndpoint->GetAttributeCache();
+                    Attribute<TypeInfo> * _attr = static_cast<Attribute<TypeInfo> *>(_attributeContext->mAttribute);
+                    // with a value at hand, current as of the cluster's DataVersion, the CastingPlayer can skip resending it if
+                    // that DataVersion has not changed
+                    chip::Optional<chip::DataVersion> dataVersion = _attr->hasValue
+                        ? cache.GetDataVersionFilter(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId())
+                        : chip::NullOptional;
+                    CHIP_ERROR err = chip::Controller::SubscribeAttribute<TypeInfo>(
+                        &exchangeMgr, sessionHandle, _attributeContext->mEndpoint->GetId(),
+                        // Subscription report handler
+                        [_attributeContext](const chip::app::ConcreteDataAttributePath & path,
+                                            const typename TypeInfo::DecodableType & response) {
+                            SubscribeAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
                             ChipLogProgress(AppServer, "<Attribute>::Subscribe() success");
-                            Attribute<TypeInfo> * __attr = static_cast<Attribute<TypeInfo> *>(__attributeContext->mAttribute);
+                            AttributeCache & __cache = __attributeContext->mEndpoint->GetAttributeCache();
+                            __cache.OnValueUpdated(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), path.mDataVersion);
+                            __cache.SetSubscribed(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), true);
+                            __attributeContext->mReported = true;
+                            Attribute<TypeInfo> * __attr  = static_cast<Attribute<TypeInfo> *>(__attributeContext->mAttribute);
                             if (__attr->hasValue)
                             {
                                 typename TypeInfo::DecodableType prevValue = __attr->value;
@@ -286,22 +324,65 @@ public:
                                 __attributeContext->mSuccessCb(__attributeContext->mClientContext, chip::NullOptional,
                                                                __attr->value);
                             }
-                            delete __attributeContext;
                         },
                         // Subscription failure handler
-                        [](void * __context, CHIP_ERROR error) {
-                            SubscribeAttributeContext<TypeInfo> * __attributeContext =
-                                static_cast<SubscribeAttributeContext<TypeInfo> *>(__context);
+                        [_attributeContext](const chip::app::ConcreteDataAttributePath *, CHIP_ERROR error) {
+                            SubscribeAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
                             ChipLogError(AppServer,
                                          "<Attribute>::Subscribe() failure response on EndpointId: %d with error: "
                                          "%" CHIP_ERROR_FORMAT,
                                          __attributeContext->mEndpoint->GetId(), error.Format());
+                            __attributeContext->mEndpoint->GetAttributeCache().SetSubscribed(
+                                TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), false);
                             __attributeContext->mFailureCb(__attributeContext->mClientContext, error);
-                            delete __attributeContext;
                         },
                         _attributeContext->mMinIntervalFloorSeconds, _attributeContext->mMaxIntervalCeilingSeconds,
-                        nullptr /* SubscriptionEstablishedCallback */, nullptr /* ResubscriptionAttemptCallback */,
-                        true /* aIsFabricFiltered */, true /* aKeepPreviousSubscriptions */);
+                        // Subscription established handler, also called after each successful resubscription
+                        [_attributeContext](const chip::app::ReadClient &, chip::SubscriptionId subscriptionId) {
+                            SubscribeAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
+                            ChipLogProgress(AppServer, "<Attribute>::Subscribe() established with SubscriptionId: 0x%08lx",
+                                            static_cast<unsigned long>(subscriptionId));
+                            AttributeCache & __cache = __attributeContext->mEndpoint->GetAttributeCache();
+                            __cache.SetSubscribed(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), true);
+                            if (__attributeContext->mGapStart != chip::System::Clock::kZero)
+                            {
+                                __cache.OnSubscriptionRecovered(std::chrono::duration_cast<chip::System::Clock::Milliseconds64>(
+                                    chip::System::SystemClock().GetMonotonicTimestamp() - __attributeContext->mGapStart));
+                                __attributeContext->mGapStart = chip::System::Clock::kZero;
+                            }
+
+                            // the priming report was skipped thanks to the DataVersion filter, so hand over the value at hand
+                            Attribute<TypeInfo> * __attr = static_cast<Attribute<TypeInfo> *>(__attributeContext->mAttribute);
+                            if (!__attributeContext->mReported && __attr->hasValue)
+                            {
+                                __attributeContext->mReported = true;
+                                __attributeContext->mSuccessCb(__attributeContext->mClientContext,
+                                                               chip::MakeOptional(__attr->value), __attr->value);
+                            }
+                        },
+                        // Resubscription attempt handler
+                        [_attributeContext](const chip::app::ReadClient &, CHIP_ERROR error, uint32_t nextResubscribeIntervalMsec) {
+                            SubscribeAttributeContext<TypeInfo> * __attributeContext = _attributeContext;
+                            ChipLogProgress(AppServer,
+                                            "<Attribute>::Subscribe() resubscribing on EndpointId: %d in %lu ms after error: "
+                                            "%" CHIP_ERROR_FORMAT,
+                                            __attributeContext->mEndpoint->GetId(),
+                                            static_cast<unsigned long>(nextResubscribeIntervalMsec), error.Format());
+                            AttributeCache & __cache = __attributeContext->mEndpoint->GetAttributeCache();
+                            __cache.SetSubscribed(TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), false);
+                            __cache.OnResubscribing();
+                            if (__attributeContext->mGapStart == chip::System::Clock::kZero)
+                            {
+                                __attributeContext->mGapStart = chip::System::SystemClock().GetMonotonicTimestamp();
+                            }
+                        },
+                        true /* fabricFiltered */, true /* keepPreviousSubscriptions */, dataVersion,
+                        // Subscription done handler, once it will not be resubscribed anymore
+                        [_attributeContext]() {
+                            _attributeContext->mEndpoint->GetAttributeCache().SetSubscribed(TypeInfo::GetClusterId(),
+                                                                                            TypeInfo::GetAttributeId(), false);
+                            delete _attributeContext;
+                        });
 
                     // error in subscribing to the attribute
                     if (err != CHIP_NO_ERROR)
@@ -403,6 +484,8 @@ struct SubscribeAttributeContext
     ReadResponseFailureCallbackFn mFailureCb;
     uint16_t mMinIntervalFloorSeconds;
     uint16_t mMaxIntervalCeilingSeconds;
+    bool mReported                           = false;
+    chip::System::Clock::Timestamp mGapStart = chip::System::Clock::kZero;
 };
 
 }; // namespace core
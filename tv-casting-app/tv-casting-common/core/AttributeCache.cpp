@@ -0,0 +1,135 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "AttributeCache.h"
+
+#include "lib/support/CodeUtils.h"
+#include "lib/support/logging/CHIPLogging.h"
+
+namespace matter {
+namespace casting {
+namespace core {
+
+void AttributeCache::OnValueUpdated(chip::ClusterId clusterId, chip::AttributeId attributeId,
+                                    const chip::Optional<chip::DataVersion> & dataVersion)
+{
+    Entry & entry     = mEntries[std::make_pair(clusterId, attributeId)];
+    entry.updatedAt   = chip::System::SystemClock().GetMonotonicTimestamp();
+    entry.dataVersion = dataVersion;
+    if (dataVersion.HasValue())
+    {
+        mDataVersions[clusterId] = dataVersion.Value();
+    }
+}
+
+void AttributeCache::SetSubscribed(chip::ClusterId clusterId, chip::AttributeId attributeId, bool subscribed)
+{
+    auto entry = mEntries.find(std::make_pair(clusterId, attributeId));
+    if (entry != mEntries.end())
+    {
+        entry->second.subscribed = subscribed;
+    }
+    else if (subscribed)
+    {
+        // no value yet, so nothing can be served until the first report arrives
+        mEntries[std::make_pair(clusterId, attributeId)].subscribed = true;
+    }
+}
+
+void AttributeCache::Invalidate(chip::ClusterId clusterId, chip::AttributeId attributeId)
+{
+    auto entry = mEntries.find(std::make_pair(clusterId, attributeId));
+    if (entry != mEntries.end())
+    {
+        entry->second.updatedAt = chip::System::Clock::kZero;
+        entry->second.dataVersion.ClearValue();
+    }
+    mDataVersions.erase(clusterId);
+}
+
+bool AttributeCache::Lookup(chip::ClusterId clusterId, chip::AttributeId attributeId)
+{
+    auto entry = mEntries.find(std::make_pair(clusterId, attributeId));
+    if (entry == mEntries.end() || entry->second.updatedAt == chip::System::Clock::kZero)
+    {
+        mMissCount++;
+        return false;
+    }
+
+    chip::System::Clock::Milliseconds64 age = std::chrono::duration_cast<chip::System::Clock::Milliseconds64>(
+        chip::System::SystemClock().GetMonotonicTimestamp() - entry->second.updatedAt);
+    if (!entry->second.subscribed && age > mFreshnessWindow)
+    {
+        mMissCount++;
+        return false;
+    }
+
+    mHitCount++;
+    mTotalStaleness += age;
+    if (age > mMaxStaleness)
+    {
+        mMaxStaleness = age;
+    }
+    return true;
+}
+
+chip::Optional<chip::DataVersion> AttributeCache::GetDataVersion(chip::ClusterId clusterId) const
+{
+    auto dataVersion = mDataVersions.find(clusterId);
+    return dataVersion != mDataVersions.end() ? chip::MakeOptional(dataVersion->second) : chip::NullOptional;
+}
+
+chip::Optional<chip::DataVersion> AttributeCache::GetDataVersionFilter(chip::ClusterId clusterId,
+                                                                       chip::AttributeId attributeId) const
+{
+    chip::Optional<chip::DataVersion> dataVersion = GetDataVersion(clusterId);
+    VerifyOrReturnValue(dataVersion.HasValue(), chip::NullOptional);
+
+    auto entry = mEntries.find(std::make_pair(clusterId, attributeId));
+    VerifyOrReturnValue(entry != mEntries.end() && entry->second.dataVersion == dataVersion, chip::NullOptional);
+
+    // the entries of a cluster are adjacent, ordered by attribute
+    for (auto it = mEntries.lower_bound(std::make_pair(clusterId, chip::AttributeId(0)));
+         it != mEntries.end() && it->first.first == clusterId; ++it)
+    {
+        if (it->second.updatedAt != chip::System::Clock::kZero && it->second.dataVersion != dataVersion)
+        {
+            return chip::NullOptional;
+        }
+    }
+    return dataVersion;
+}
+
+void AttributeCache::LogMetrics(chip::EndpointId endpointId) const
+{
+    ChipLogProgress(AppServer,
+                    "AttributeCache::LogMetrics() endpointId: %d, hits: %lu, misses: %lu, hit ratio: %d%%, average staleness: "
+                    "%lu ms, max staleness: %lu ms",
+                    endpointId, static_cast<unsigned long>(mHitCount), static_cast<unsigned long>(mMissCount),
+                    static_cast<int>(GetHitRatio() * 100), static_cast<unsigned long>(GetAverageStaleness().count()),
+                    static_cast<unsigned long>(mMaxStaleness.count()));
+    ChipLogProgress(AppServer,
+                    "AttributeCache::LogMetrics() endpointId: %d, resubscribe attempts: %lu, recoveries: %lu, average gap: %lu ms, "
+                    "max gap: %lu ms",
+                    endpointId, static_cast<unsigned long>(mResubscribeCount), static_cast<unsigned long>(mRecoveryCount),
+                    static_cast<unsigned long>(GetAverageGap().count()), static_cast<unsigned long>(mMaxGap.count()));
+}
+
+}; // namespace core
+}; // namespace casting
+}; // namespace matter
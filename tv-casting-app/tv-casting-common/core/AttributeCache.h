@@ -0,0 +1,171 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#pragma once
+
+#include <lib/core/DataModelTypes.h>
+#include <lib/core/Optional.h>
+#include <system/SystemClock.h>
+
+#include <algorithm>
+#include <map>
+#include <utility>
+
+namespace matter {
+namespace casting {
+namespace core {
+
+/**
+ * @brief AttributeCache tracks how fresh the attribute values held by the Attributes of an Endpoint are, along with the
+ * latest DataVersion seen for each of its clusters. The values themselves live in the Attribute objects.
+ *
+ * A value is fresh while a subscription to its attribute is active, or for the freshness window after it was last read or
+ * reported. Attribute::Read() serves fresh values locally instead of making a round trip to the CastingPlayer.
+ *
+ * All methods must be called on the Matter thread.
+ */
+class AttributeCache
+{
+public:
+    static constexpr chip::System::Clock::Milliseconds32 kDefaultFreshnessWindow = chip::System::Clock::Milliseconds32(5000);
+
+    /**
+     * @brief Sets how long a value that is not kept current by a subscription is considered fresh. Zero disables serving
+     * such values from the cache.
+     */
+    void SetFreshnessWindow(chip::System::Clock::Milliseconds32 freshnessWindow) { mFreshnessWindow = freshnessWindow; }
+    chip::System::Clock::Milliseconds32 GetFreshnessWindow() const { return mFreshnessWindow; }
+
+    /**
+     * @brief Records that a new value of the attribute was read or reported
+     */
+    void OnValueUpdated(chip::ClusterId clusterId, chip::AttributeId attributeId,
+                        const chip::Optional<chip::DataVersion> & dataVersion = chip::NullOptional);
+
+    /**
+     * @brief Records whether a subscription to the attribute is currently keeping its value up to date
+     */
+    void SetSubscribed(chip::ClusterId clusterId, chip::AttributeId attributeId, bool subscribed);
+
+    /**
+     * @brief Drops the attribute from the cache, e.g. after a write, so the next read goes to the CastingPlayer
+     */
+    void Invalidate(chip::ClusterId clusterId, chip::AttributeId attributeId);
+
+    /**
+     * @brief Checks if a value of the attribute can be served locally, and counts the outcome as a cache hit or miss
+     */
+    bool Lookup(chip::ClusterId clusterId, chip::AttributeId attributeId);
+
+    /**
+     * @return the latest DataVersion reported for the cluster, if any
+     */
+    chip::Optional<chip::DataVersion> GetDataVersion(chip::ClusterId clusterId) const;
+
+    /**
+     * @brief The DataVersion filter for a subscription to the attribute. The CastingPlayer skips resending the values of a
+     * cluster whose DataVersion matches the filter, so it is only returned when the attribute, and every other attribute of
+     * the cluster held, were read or reported at the cluster's latest DataVersion. The DataVersion is cluster-wide, so a value
+     * held from an older version may have changed since.
+     *
+     * @return the latest DataVersion of the cluster, if it can be used as a filter
+     */
+    chip::Optional<chip::DataVersion> GetDataVersionFilter(chip::ClusterId clusterId, chip::AttributeId attributeId) const;
+
+    uint32_t GetHitCount() const { return mHitCount; }
+    uint32_t GetMissCount() const { return mMissCount; }
+
+    /**
+     * @return the share of lookups served locally, between 0 and 1
+     */
+    float GetHitRatio() const
+    {
+        uint32_t lookups = mHitCount + mMissCount;
+        return lookups == 0 ? 0.0f : static_cast<float>(mHitCount) / static_cast<float>(lookups);
+    }
+
+    /**
+     * @return the average age of the values served locally
+     */
+    chip::System::Clock::Milliseconds64 GetAverageStaleness() const
+    {
+        return mHitCount == 0 ? chip::System::Clock::Milliseconds64(0) : mTotalStaleness / mHitCount;
+    }
+
+    /**
+     * @return the age of the oldest value served locally
+     */
+    chip::System::Clock::Milliseconds64 GetMaxStaleness() const { return mMaxStaleness; }
+
+    /**
+     * @brief Records an attempt to re-establish a dropped subscription
+     */
+    void OnResubscribing() { mResubscribeCount++; }
+
+    /**
+     * @brief Records that a dropped subscription was re-established after the given gap
+     */
+    void OnSubscriptionRecovered(chip::System::Clock::Milliseconds64 gap)
+    {
+        mRecoveryCount++;
+        mTotalGap += gap;
+        mMaxGap = std::max(mMaxGap, gap);
+    }
+
+    uint32_t GetResubscribeCount() const { return mResubscribeCount; }
+    uint32_t GetRecoveryCount() const { return mRecoveryCount; }
+
+    /**
+     * @return the average time between a subscription dropping and it being re-established
+     */
+    chip::System::Clock::Milliseconds64 GetAverageGap() const
+    {
+        return mRecoveryCount == 0 ? chip::System::Clock::Milliseconds64(0) : mTotalGap / mRecoveryCount;
+    }
+
+    chip::System::Clock::Milliseconds64 GetMaxGap() const { return mMaxGap; }
+
+    void LogMetrics(chip::EndpointId endpointId) const;
+
+private:
+    struct Entry
+    {
+        chip::System::Clock::Timestamp updatedAt = chip::System::Clock::kZero;
+        bool subscribed                          = false;
+        // DataVersion of the cluster when the value was read or reported, if known
+        chip::Optional<chip::DataVersion> dataVersion;
+    };
+
+    std::map<std::pair<chip::ClusterId, chip::AttributeId>, Entry> mEntries;
+    std::map<chip::ClusterId, chip::DataVersion> mDataVersions;
+    chip::System::Clock::Milliseconds32 mFreshnessWindow = kDefaultFreshnessWindow;
+
+    uint32_t mHitCount                                  = 0;
+    uint32_t mMissCount                                 = 0;
+    chip::System::Clock::Milliseconds64 mTotalStaleness = chip::System::Clock::Milliseconds64(0);
+    chip::System::Clock::Milliseconds64 mMaxStaleness   = chip::System::Clock::Milliseconds64(0);
+
+    uint32_t mResubscribeCount                    = 0;
+    uint32_t mRecoveryCount                       = 0;
+    chip::System::Clock::Milliseconds64 mTotalGap = chip::System::Clock::Milliseconds64(0);
+    chip::System::Clock::Milliseconds64 mMaxGap   = chip::System::Clock::Milliseconds64(0);
+};
+
+}; // namespace core
+}; // namespace casting
+}; // namespace matter
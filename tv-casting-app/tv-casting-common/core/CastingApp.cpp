@@ -28,6 +28,7 @@
 #include <app/server/Server.h>
 #include <credentials/DeviceAttestationCredsProvider.h>
 #include <credentials/attestation_verifier/DeviceAttestationVerifier.h>
+#include <tracing/macros.h>
 
 namespace matter {
 namespace casting {
@@ -50,6 +51,7 @@ CastingApp * CastingApp::GetInstance()
 
 CHIP_ERROR CastingApp::Initialize(const AppParameters & appParameters)
 {
+    MATTER_TRACE_SCOPE("Initialize", "CastingApp");
     ChipLogProgress(Discovery, "CastingApp::Initialize() called");
     VerifyOrReturnError(mState == CASTING_APP_UNINITIALIZED, CHIP_ERROR_INCORRECT_STATE);
     VerifyOrReturnError(appParameters.GetCommissionableDataProvider() != nullptr, CHIP_ERROR_INVALID_ARGUMENT);
@@ -108,6 +110,7 @@ void ReconnectHandler(CHIP_ERROR err, matter::casting::core::CastingPlayer * cas
 
 CHIP_ERROR CastingApp::Start()
 {
+    MATTER_TRACE_SCOPE("Start", "CastingApp");
     ChipLogProgress(Discovery, "CastingApp::Start()");
     VerifyOrReturnError(mState == CASTING_APP_NOT_RUNNING, CHIP_ERROR_INCORRECT_STATE);
 
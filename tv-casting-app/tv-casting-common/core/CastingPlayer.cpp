@@ -22,6 +22,7 @@
 #include "support/CastingStore.h"
 
 #include <app/server/Server.h>
+#include <tracing/macros.h>
 
 namespace matter {
 namespace casting {
@@ -32,6 +33,7 @@ memory::Weak<CastingPlayer> CastingPlayer::mTargetCastingPlayer;
 void CastingPlayer::VerifyOrEstablishConnection(ConnectionCallbacks connectionCallbacks, uint16_t commissioningWindowTimeoutSec,
                                                 IdentificationDeclarationOptions idOptions)
 {
+    MATTER_TRACE_SCOPE("VerifyOrEstablishConnection", "CastingPlayer");
     ChipLogProgress(AppServer, "CastingPlayer::VerifyOrEstablishConnection() called");
 
     CastingPlayerDiscovery * castingPlayerDiscovery = CastingPlayerDiscovery::GetInstance();
@@ -380,6 +382,7 @@ chip::Inet::IPAddress * CastingPlayer::GetIpAddressForUDCRequest()
 void CastingPlayer::FindOrEstablishSession(void * clientContext, chip::OnDeviceConnected onDeviceConnected,
                                            chip::OnDeviceConnectionFailure onDeviceConnectionFailure)
 {
+    MATTER_TRACE_SCOPE("FindOrEstablishSession", "CastingPlayer");
     ChipLogProgress(AppServer, "CastingPlayer::FindOrEstablishSession() called on nodeId=0x" ChipLogFormatX64 " fabricIndex=%d",
                     ChipLogValueX64(mAttributes.nodeId), mAttributes.fabricIndex);
     VerifyOrReturn(mAttributes.nodeId != 0 && mAttributes.fabricIndex != 0,
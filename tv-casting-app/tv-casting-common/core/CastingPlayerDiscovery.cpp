@@ -70,10 +70,16 @@ CHIP_ERROR CastingPlayerDiscovery::StopDiscovery()
     // Copy mCastingPlayers to mCastingPlayersInternal
     mCastingPlayersInternal = std::vector<memory::Strong<CastingPlayer>>(mCastingPlayers);
 
-    // Clear mCastingPlayers of all CastingPlayers
-    mCastingPlayers.clear();
+    // Clear mCastingPlayers of all CastingPlayers, before the delegate is told, as it may release the stack lock
+    std::vector<memory::Strong<CastingPlayer>> removedCastingPlayers;
+    removedCastingPlayers.swap(mCastingPlayers);
     mState = DISCOVERY_READY;
 
+    for (auto & player : removedCastingPlayers)
+    {
+        mDelegate.OnRemovedDevice(player);
+    }
+
     return CHIP_NO_ERROR;
 }
 
@@ -162,6 +168,14 @@ void DeviceDiscoveryDelegateImpl::OnDiscoveredDevice(const chip::Dnssd::Commissi
     mClientDelegate->HandleOnAdded(player);
 }
 
+void DeviceDiscoveryDelegateImpl::OnRemovedDevice(memory::Strong<CastingPlayer> player)
+{
+    ChipLogProgress(Discovery, "DeviceDiscoveryDelegateImpl::OnRemovedDevice() called with CastingPlayer, ID: %s", player->GetId());
+    VerifyOrReturn(mClientDelegate != nullptr,
+                   ChipLogError(Discovery, "DeviceDiscoveryDelegateImpl::OnRemovedDevice mClientDelegate is a nullptr"));
+    mClientDelegate->HandleOnRemoved(player);
+}
+
 }; // namespace core
 }; // namespace casting
 }; // namespace matter
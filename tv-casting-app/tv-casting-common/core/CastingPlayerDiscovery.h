@@ -50,7 +50,13 @@ public:
     virtual ~DiscoveryDelegate() {}
     virtual void HandleOnAdded(memory::Strong<CastingPlayer> player)    = 0;
     virtual void HandleOnUpdated(memory::Strong<CastingPlayer> players) = 0;
-    // virtual void HandleOnRemoved(memory::Strong<CastingPlayer> players) = 0;
+
+    /**
+     * @brief Called for each CastingPlayer dropped from CastingPlayerDiscovery::GetCastingPlayers(), which happens when
+     * discovery stops, as DNS-SD does not report CastingPlayers leaving the network. A restarted discovery adds the
+     * CastingPlayers it finds again.
+     */
+    virtual void HandleOnRemoved(memory::Strong<CastingPlayer> player) {}
 };
 class CastingPlayer; // Forward declaration of the CastingPlayer class
 class CastingPlayerDiscovery;
@@ -69,6 +75,8 @@ public:
     DeviceDiscoveryDelegateImpl(DiscoveryDelegate * delegate) { mClientDelegate = delegate; }
 
     void OnDiscoveredDevice(const chip::Dnssd::CommissionNodeData & nodeData) override;
+
+    void OnRemovedDevice(memory::Strong<CastingPlayer> player);
 };
 
 /**
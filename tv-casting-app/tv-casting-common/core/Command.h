@@ -19,9 +19,11 @@
 #pragma once
 
 #include "core/BaseCluster.h"
+#include "core/CommandObserver.h"
 #include "core/Endpoint.h"
 
 #include "lib/support/logging/CHIPLogging.h"
+#include <tracing/macros.h>
 
 namespace matter {
 namespace casting {
@@ -50,16 +52,19 @@ public:
     void Invoke(RequestType request, void * context, CommandSuccessCallbackType<typename RequestType::ResponseType> successCb,
                 CommandFailureCallbackType failureCb, const chip::Optional<uint16_t> & timedInvokeTimeoutMs)
     {
+        MATTER_TRACE_SCOPE("Invoke", "Command");
         memory::Strong<core::Endpoint> endpoint = this->GetEndpoint().lock();
         if (endpoint)
         {
             CommandContext<RequestType> * commandContext =
                 new CommandContext<RequestType>(endpoint, request, context, successCb, failureCb, timedInvokeTimeoutMs);
+            commandContext->NotifyStarted();
 
             endpoint->GetCastingPlayer()->FindOrEstablishSession(
                 commandContext,
                 // FindOrEstablishSession success handler
                 [](void * _context, chip::Messaging::ExchangeManager & exchangeMgr, const chip::SessionHandle & sessionHandle) {
+                    MATTER_TRACE_SCOPE("InvokeOnSession", "Command");
                     CommandContext<RequestType> * _commandContext = static_cast<CommandContext<RequestType> *>(_context);
                     ChipLogProgress(AppServer, "<Command>::Invoke() Found or established session");
 
@@ -69,18 +74,22 @@ public:
                         _commandContext->mRequest, _commandContext,
                         // Command success handler
                         [](void * __context, const typename RequestType::ResponseType & response) {
+                            MATTER_TRACE_SCOPE("OnResponse", "Command");
                             CommandContext<RequestType> * __commandContext = static_cast<CommandContext<RequestType> *>(__context);
                             ChipLogProgress(AppServer, "<Command>::Invoke() response success");
+                            __commandContext->NotifyCompleted(CHIP_NO_ERROR);
                             __commandContext->mSuccessCb(__commandContext->mClientContext, response);
                             delete __commandContext;
                         },
                         // Command failure handler
                         [](void * __context, CHIP_ERROR error) {
+                            MATTER_TRACE_SCOPE("OnFailure", "Command");
                             CommandContext<RequestType> * __commandContext = static_cast<CommandContext<RequestType> *>(__context);
                             ChipLogError(AppServer,
                                          "<Command>::Invoke() failure response on EndpointId: %d with error: "
                                          "%" CHIP_ERROR_FORMAT,
                                          __commandContext->mEndpoint->GetId(), error.Format());
+                            __commandContext->NotifyCompleted(error);
                             __commandContext->mFailureCb(__commandContext->mClientContext, error);
                             delete __commandContext;
                         },
@@ -93,6 +102,7 @@ public:
                                      "<Command>::Invoke() failure in invoking command on EndpointId: %d with error: "
                                      "%" CHIP_ERROR_FORMAT,
                                      _commandContext->mEndpoint->GetId(), err.Format());
+                        _commandContext->NotifyCompleted(err);
                         _commandContext->mFailureCb(_commandContext->mClientContext, err);
                         delete _commandContext;
                     }
@@ -104,6 +114,7 @@ public:
                                  "<Command>::Invoke() failure in retrieving session info for peerId.nodeId: "
                                  "0x" ChipLogFormatX64 ", peer.fabricIndex: %d with error: %" CHIP_ERROR_FORMAT,
                                  ChipLogValueX64(peerId.GetNodeId()), peerId.GetFabricIndex(), error.Format());
+                    _commandContext->NotifyCompleted(error);
                     _commandContext->mFailureCb(_commandContext->mClientContext, error);
                     delete _commandContext;
                 });
@@ -138,12 +149,40 @@ struct CommandContext
         mTimedInvokeTimeoutMs = timedInvokeTimeoutMs;
     }
 
+    /**
+     * @brief Tells the CommandObserver, if any, that the command is being sent
+     */
+    void NotifyStarted()
+    {
+        CommandObserver * observer = CommandObserver::GetInstance();
+        if (observer != nullptr)
+        {
+            mObserver      = observer;
+            mObserverToken = observer->OnCommandStarted(RequestType::GetClusterId(), RequestType::GetCommandId());
+        }
+    }
+
+    /**
+     * @brief Tells the CommandObserver told of the start of the command that it completed
+     */
+    void NotifyCompleted(CHIP_ERROR err)
+    {
+        if (mObserver != nullptr)
+        {
+            mObserver->OnCommandCompleted(mObserverToken, err);
+            mObserver = nullptr;
+        }
+    }
+
     memory::Strong<core::Endpoint> mEndpoint;
     RequestType mRequest;
     void * mClientContext;
     CommandSuccessCallbackType<typename RequestType::ResponseType> mSuccessCb;
     CommandFailureCallbackType mFailureCb;
     chip::Optional<uint16_t> mTimedInvokeTimeoutMs;
+    // the observer told of the start of the command, which is told of its completion even if another was set since
+    CommandObserver * mObserver = nullptr;
+    uintptr_t mObserverToken    = 0;
 };
 
 } // namespace core
@@ -0,0 +1,71 @@
+/*
+ *
+ *    Copyright (c) 2023 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#pragma once
+
+#include <lib/core/CHIPError.h>
+#include <lib/core/DataModelTypes.h>
+
+#include <cstdint>
+
+namespace matter {
+namespace casting {
+namespace core {
+
+/**
+ * @brief CommandObserver is told when Command::Invoke() sends a command and when the command completes, so that the
+ * platform layer can e.g. record and trace command latencies. Both methods are called on the Matter thread.
+ */
+class CommandObserver
+{
+public:
+    virtual ~CommandObserver() {}
+
+    /**
+     * @brief Called as a command is invoked
+     *
+     * @return a token, passed back to OnCommandCompleted() for this command
+     */
+    virtual uintptr_t OnCommandStarted(chip::ClusterId clusterId, chip::CommandId commandId) = 0;
+
+    /**
+     * @brief Called once the command got its response, or failed, with err CHIP_NO_ERROR in the first case
+     */
+    virtual void OnCommandCompleted(uintptr_t token, CHIP_ERROR err) = 0;
+
+    /**
+     * @return the observer Command::Invoke() reports to, nullptr if none was set
+     */
+    static CommandObserver * GetInstance() { return Instance(); }
+
+    /**
+     * @brief Sets the observer Command::Invoke() reports to, nullptr for none. Must be called on the Matter thread.
+     */
+    static void SetInstance(CommandObserver * observer) { Instance() = observer; }
+
+private:
+    static CommandObserver *& Instance()
+    {
+        static CommandObserver * sInstance = nullptr;
+        return sInstance;
+    }
+};
+
+}; // namespace core
+}; // namespace casting
+}; // namespace matter
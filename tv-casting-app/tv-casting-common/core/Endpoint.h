@@ -18,6 +18,7 @@
 
 #pragma once
 
+#include "AttributeCache.h"
 #include "BaseCluster.h"
 #include "CastingPlayer.h"
 #include "Types.h"
@@ -59,6 +60,7 @@ private:
 
     EndpointAttributes mAttributes;
     std::map<chip::ClusterId, memory::Strong<BaseCluster>> mClusters;
+    AttributeCache mAttributeCache;
 
 public:
     Endpoint(CastingPlayer * castingPlayer, const EndpointAttributes & attributes)
@@ -75,6 +77,11 @@ public:
 
     CastingPlayer * GetCastingPlayer() const { return mCastingPlayer; }
 
+    /**
+     * @brief Tracks the freshness of the attribute values read from, or reported by, this Endpoint
+     */
+    AttributeCache & GetAttributeCache() { return mAttributeCache; }
+
     /**
      * @brief Compares based on the Id
      */
@@ -150,6 +157,7 @@ public:
     {
         ChipLogProgress(AppServer, "Endpoint::LogDetail() Endpoint ID: %d, Vendor ID: %d, Product ID: %d, Clusters: %d",
                         mAttributes.mId, mAttributes.mVendorId, mAttributes.mProductId, static_cast<int>(mClusters.size()));
+        mAttributeCache.LogMetrics(mAttributes.mId);
     }
 };
 
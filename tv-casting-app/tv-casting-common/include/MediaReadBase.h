@@ -18,6 +18,10 @@
 #pragma once
 
 #include "MediaBase.h"
+#include "SubscriptionMultiplexer.h"
+
+#include <app/data-model/Decode.h>
+#include <platform/CHIPDeviceLayer.h>
 
 template <typename TypeInfo>
 class MediaReadBase : public MediaBase
@@ -25,6 +29,19 @@ class MediaReadBase : public MediaBase
 public:
     MediaReadBase(chip::ClusterId clusterId) : MediaBase(clusterId) {}
 
+    /**
+     * @brief Number of reads served from the shared subscription's cache that can be awaiting delivery at once. Reads
+     * beyond it take the round trip to the video player.
+     */
+    static constexpr size_t kMaxCachedReads = 4;
+
+    /**
+     * @brief Reads the attribute. If a shared subscription is keeping it current, the last reported value is returned
+     * without a round trip to the video player.
+     *
+     * Cached reads are held in place, in this reader, until they are delivered, so the reader must outlive them, as the
+     * readers of the CastingServer do.
+     */
     CHIP_ERROR ReadAttribute(void * context,
                              chip::Controller::ReadResponseSuccessCallback<typename TypeInfo::DecodableArgType> successFn,
                              chip::Controller::ReadResponseFailureCallback failureFn)
@@ -34,8 +51,77 @@ public:
         auto deviceProxy = mTargetVideoPlayerInfo->GetOperationalDeviceProxy();
         VerifyOrReturnError(deviceProxy != nullptr && deviceProxy->ConnectionReady(), CHIP_ERROR_PEER_NODE_NOT_FOUND);
 
+        CachedRead * cachedRead = AcquireCachedRead();
+        if (cachedRead != nullptr &&
+            SubscriptionMultiplexer::GetInstance()->GetLastReport(*mTargetVideoPlayerInfo, mTvEndpoint, TypeInfo::GetClusterId(),
+                                                                  TypeInfo::GetAttributeId(), cachedRead->data))
+        {
+            cachedRead->context   = context;
+            cachedRead->successFn = successFn;
+            cachedRead->failureFn = failureFn;
+            // still called back asynchronously, as it would be after a round trip
+            CHIP_ERROR err = chip::DeviceLayer::SystemLayer().ScheduleLambda([cachedRead]() { cachedRead->Deliver(); });
+            if (err == CHIP_NO_ERROR)
+            {
+                return CHIP_NO_ERROR;
+            }
+        }
+        if (cachedRead != nullptr)
+        {
+            cachedRead->inUse = false;
+        }
+
         MediaClusterBase cluster(*deviceProxy->GetExchangeManager(), deviceProxy->GetSecureSession().Value(), mTvEndpoint);
 
         return cluster.template ReadAttribute<TypeInfo>(context, successFn, failureFn);
     }
+
+private:
+    struct CachedRead
+    {
+        bool inUse     = false;
+        void * context = nullptr;
+        chip::Controller::ReadResponseSuccessCallback<typename TypeInfo::DecodableArgType> successFn;
+        chip::Controller::ReadResponseFailureCallback failureFn;
+        // keeps its storage from one read to the next
+        std::vector<uint8_t> data;
+
+        void Deliver()
+        {
+            chip::TLV::TLVReader reader;
+            reader.Init(data.data(), data.size());
+            typename TypeInfo::DecodableType value;
+            CHIP_ERROR err = reader.Next();
+            if (err == CHIP_NO_ERROR)
+            {
+                err = chip::app::DataModel::Decode(reader, value);
+            }
+
+            if (err == CHIP_NO_ERROR)
+            {
+                successFn(context, value);
+            }
+            else
+            {
+                failureFn(context, err);
+            }
+            // released only now, as a decoded list still reads from data
+            inUse = false;
+        }
+    };
+
+    CachedRead * AcquireCachedRead()
+    {
+        for (CachedRead & cachedRead : mCachedReads)
+        {
+            if (!cachedRead.inUse)
+            {
+                cachedRead.inUse = true;
+                return &cachedRead;
+            }
+        }
+        return nullptr;
+    }
+
+    CachedRead mCachedReads[kMaxCachedReads];
 };
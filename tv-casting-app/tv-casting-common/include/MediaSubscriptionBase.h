@@ -18,6 +18,9 @@
 #pragma once
 
 #include "MediaBase.h"
+#include "SubscriptionMultiplexer.h"
+
+#include <app/data-model/Decode.h>
 
 template <typename TypeInfo>
 class MediaSubscriptionBase : public MediaBase
@@ -25,6 +28,10 @@ class MediaSubscriptionBase : public MediaBase
 public:
     MediaSubscriptionBase(chip::ClusterId clusterId) : MediaBase(clusterId) {}
 
+    /**
+     * @brief Subscribes to the attribute through the SubscriptionMultiplexer, which shares one subscription between all
+     * the attributes subscribed to on the same cluster and endpoint. Subscribing again replaces the previous callbacks.
+     */
     CHIP_ERROR SubscribeAttribute(void * context,
                                   chip::Controller::ReadResponseSuccessCallback<typename TypeInfo::DecodableArgType> successFn,
                                   chip::Controller::ReadResponseFailureCallback failureFn, uint16_t minInterval,
@@ -35,10 +42,31 @@ public:
         auto deviceProxy = mTargetVideoPlayerInfo->GetOperationalDeviceProxy();
         VerifyOrReturnError(deviceProxy != nullptr && deviceProxy->ConnectionReady(), CHIP_ERROR_PEER_NODE_NOT_FOUND);
 
-        MediaClusterBase cluster(*deviceProxy->GetExchangeManager(), deviceProxy->GetSecureSession().Value(), mTvEndpoint);
+        auto onReport = [context, successFn, failureFn](chip::TLV::TLVReader & data) {
+            typename TypeInfo::DecodableType value;
+            CHIP_ERROR err = chip::app::DataModel::Decode(data, value);
+            if (err != CHIP_NO_ERROR)
+            {
+                failureFn(context, err);
+                return;
+            }
+            successFn(context, value);
+        };
+        auto onFailure     = [context, failureFn](CHIP_ERROR err) { failureFn(context, err); };
+        auto onEstablished = [context, onSubscriptionEstablished](chip::SubscriptionId subscriptionId) {
+            if (onSubscriptionEstablished != nullptr)
+            {
+                onSubscriptionEstablished(context, subscriptionId);
+            }
+        };
 
-        return cluster.template SubscribeAttribute<TypeInfo>(context, successFn, failureFn, minInterval, maxInterval,
-                                                             onSubscriptionEstablished, nullptr /* resubscribeCb */,
-                                                             true /* fabricFiltered */, true /* keepPreviousSubscriptions */);
+        return SubscriptionMultiplexer::GetInstance()->AddListener(
+            this, *mTargetVideoPlayerInfo, mTvEndpoint, TypeInfo::GetClusterId(), TypeInfo::GetAttributeId(), minInterval,
+            maxInterval, onReport, onFailure, onEstablished);
     }
+
+    /**
+     * @brief Stops delivering reports to the callbacks passed to SubscribeAttribute
+     */
+    void Unsubscribe() { SubscriptionMultiplexer::GetInstance()->RemoveListener(this); }
 };
@@ -0,0 +1,205 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+#pragma once
+
+#include "TargetVideoPlayerInfo.h"
+
+#include <app/BufferedReadCallback.h>
+#include <app/ReadClient.h>
+#include <lib/core/TLV.h>
+
+#include <functional>
+#include <map>
+#include <memory>
+#include <tuple>
+#include <vector>
+
+/**
+ * @brief SubscriptionMultiplexer merges concurrent attribute subscriptions to the same cluster, on the same video player
+ * endpoint, into a single multi-path subscription and fans its reports out to per-attribute listeners. When more than
+ * kMaxConcreteAttributePaths attributes of a cluster are listened to, one cluster-wildcard path is used instead.
+ *
+ * The shared subscription is only re-established when a listener needs an attribute it does not cover yet, or a tighter
+ * reporting interval. A listener joining an attribute that is already covered is handed the last reported value and the
+ * existing subscription, without any traffic to the video player. Paths of removed listeners are kept until the next
+ * resubscribe, rather than resubscribing just to drop them.
+ *
+ * Dropped subscriptions are re-established by the ReadClient with exponential backoff. Resubscriptions carry a DataVersion
+ * filter for the cluster, so the video player only resends values that changed during the gap.
+ *
+ * All methods must be called on the Matter thread.
+ */
+class SubscriptionMultiplexer
+{
+public:
+    using ReportHandler      = std::function<void(chip::TLV::TLVReader & data)>;
+    using FailureHandler     = std::function<void(CHIP_ERROR err)>;
+    using EstablishedHandler = std::function<void(chip::SubscriptionId subscriptionId)>;
+
+    /**
+     * @brief Number of concrete attribute paths a shared subscription may hold before it switches to a cluster-wildcard
+     * path. Servers are only required to support 3 paths per subscription.
+     */
+    static constexpr size_t kMaxConcreteAttributePaths = 3;
+
+    /**
+     * @brief Largest encoded attribute value kept for replay to late joining listeners
+     */
+    static constexpr size_t kMaxCachedReportBytes = 1024;
+
+    static SubscriptionMultiplexer * GetInstance();
+
+    /**
+     * @brief Registers the listener of owner, replacing any listener it registered before, and subscribes to its
+     * attribute unless the shared subscription for the endpoint and cluster already covers it.
+     */
+    CHIP_ERROR AddListener(const void * owner, TargetVideoPlayerInfo & targetVideoPlayerInfo, chip::EndpointId endpointId,
+                           chip::ClusterId clusterId, chip::AttributeId attributeId, uint16_t minInterval, uint16_t maxInterval,
+                           ReportHandler onReport, FailureHandler onFailure, EstablishedHandler onEstablished);
+
+    /**
+     * @brief Copies the last value reported for the attribute by an established shared subscription, in TLV, so it can be
+     * read without a round trip to the video player
+     *
+     * @return true if a value was copied into data
+     */
+    bool GetLastReport(TargetVideoPlayerInfo & targetVideoPlayerInfo, chip::EndpointId endpointId, chip::ClusterId clusterId,
+                       chip::AttributeId attributeId, std::vector<uint8_t> & data);
+
+    /**
+     * @brief Removes the listener registered by owner. A shared subscription is shut down once it has no listeners left.
+     */
+    void RemoveListener(const void * owner);
+
+    /**
+     * @brief Shuts down all shared subscriptions and drops their listeners
+     */
+    void ShutdownAll();
+
+    uint32_t GetResubscribeCount() const { return mResubscribeCount; }
+    uint32_t GetRecoveryCount() const { return mRecoveryCount; }
+
+    /**
+     * @return the average time between a subscription dropping and it being re-established
+     */
+    chip::System::Clock::Milliseconds64 GetAverageGap() const
+    {
+        return mRecoveryCount == 0 ? chip::System::Clock::Milliseconds64(0) : mTotalGap / mRecoveryCount;
+    }
+
+    chip::System::Clock::Milliseconds64 GetMaxGap() const { return mMaxGap; }
+
+    void LogMetrics() const;
+
+private:
+    struct Key
+    {
+        chip::NodeId nodeId;
+        chip::FabricIndex fabricIndex;
+        chip::EndpointId endpointId;
+        chip::ClusterId clusterId;
+
+        bool operator<(const Key & other) const
+        {
+            return std::tie(nodeId, fabricIndex, endpointId, clusterId) <
+                std::tie(other.nodeId, other.fabricIndex, other.endpointId, other.clusterId);
+        }
+    };
+
+    struct Listener
+    {
+        const void * owner;
+        chip::AttributeId attributeId;
+        uint16_t minInterval;
+        uint16_t maxInterval;
+        ReportHandler onReport;
+        FailureHandler onFailure;
+        EstablishedHandler onEstablished;
+        bool established = false;
+        bool reported    = false;
+    };
+
+    class SharedSubscription : public chip::app::ReadClient::Callback
+    {
+    public:
+        SharedSubscription(const Key & key, TargetVideoPlayerInfo * targetVideoPlayerInfo) :
+            mKey(key), mTargetVideoPlayerInfo(targetVideoPlayerInfo), mBufferedReadCallback(*this)
+        {}
+
+        bool NeedsResubscribe(const Listener & joining) const;
+        CHIP_ERROR Subscribe();
+        void CatchUpListeners();
+        bool GetLastReport(chip::AttributeId attributeId, std::vector<uint8_t> & data) const;
+
+        // ReadClient::Callback
+        void OnAttributeData(const chip::app::ConcreteDataAttributePath & path, chip::TLV::TLVReader * data,
+                             const chip::app::StatusIB & status) override;
+        void OnSubscriptionEstablished(chip::SubscriptionId subscriptionId) override;
+        CHIP_ERROR OnResubscriptionNeeded(chip::app::ReadClient * readClient, CHIP_ERROR cause) override;
+        CHIP_ERROR OnUpdateDataVersionFilterList(chip::app::DataVersionFilterIBs::Builder & dataVersionFilterIBsBuilder,
+                                                 const chip::Span<chip::app::AttributePathParams> & attributePaths,
+                                                 bool & encodedDataVersionList) override;
+        void OnDeallocatePaths(chip::app::ReadPrepareParams && readPrepareParams) override;
+        void OnError(CHIP_ERROR err) override;
+        void OnDone(chip::app::ReadClient * readClient) override;
+
+        Key mKey;
+        TargetVideoPlayerInfo * mTargetVideoPlayerInfo;
+        std::vector<Listener> mListeners;
+        // non-zero while listener handlers are being called
+        unsigned mDispatchDepth = 0;
+        // when the subscription dropped, or zero while it is up
+        chip::System::Clock::Timestamp mGapStart = chip::System::Clock::kZero;
+
+    private:
+        bool Covers(chip::AttributeId attributeId) const;
+        void CacheReport(chip::AttributeId attributeId, const chip::TLV::TLVReader & data);
+
+        chip::app::BufferedReadCallback mBufferedReadCallback;
+        // the paths of mReadClient, which only borrows them, so they are declared first to outlive it
+        std::unique_ptr<chip::app::AttributePathParams[]> mPaths;
+        std::unique_ptr<chip::app::ReadClient> mReadClient;
+        std::vector<chip::AttributeId> mSubscribedAttributes;
+        bool mWildcard                       = false;
+        uint16_t mMinInterval                = 0;
+        uint16_t mMaxInterval                = 0;
+        bool mPrimed                         = false; // the priming report of the current ReadClient is in
+        bool mLive                           = false; // established, and not waiting to resubscribe
+        chip::SubscriptionId mSubscriptionId = 0;
+        chip::Optional<chip::DataVersion> mDataVersion;
+        std::map<chip::AttributeId, std::vector<uint8_t>> mLastReports;
+        // where CacheReport() encodes each report, kMaxCachedReportBytes once used
+        std::vector<uint8_t> mReportScratch;
+    };
+
+    SubscriptionMultiplexer() {}
+
+    void Release(std::map<Key, std::unique_ptr<SharedSubscription>>::iterator it);
+    void OnResubscribing(SharedSubscription & subscription, CHIP_ERROR cause);
+    void OnRecovered(SharedSubscription & subscription);
+    void ScheduleUpdate(const Key & key);
+    void Update(const Key & key);
+
+    static SubscriptionMultiplexer * sInstance;
+    std::map<Key, std::unique_ptr<SharedSubscription>> mSubscriptions;
+
+    uint32_t mResubscribeCount                    = 0;
+    uint32_t mRecoveryCount                       = 0;
+    chip::System::Clock::Milliseconds64 mTotalGap = chip::System::Clock::Milliseconds64(0);
+    chip::System::Clock::Milliseconds64 mMaxGap   = chip::System::Clock::Milliseconds64(0);
+};
@@ -754,6 +754,7 @@ void CastingServer::SetDefaultFabricIndex(std::function<void(TargetVideoPlayerIn
 void CastingServer::ShutdownAllSubscriptions()
 {
     ChipLogProgress(AppServer, "Shutting down ALL Subscriptions");
+    SubscriptionMultiplexer::GetInstance()->ShutdownAll();
     app::InteractionModelEngine::GetInstance()->ShutdownAllSubscriptions();
 }
 
@@ -0,0 +1,502 @@
+/*
+ *
+ *    Copyright (c) 2024 Project CHIP Authors
+ *    All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+#include "SubscriptionMultiplexer.h"
+
+#include <algorithm>
+#include <app/InteractionModelEngine.h>
+#include <platform/CHIPDeviceLayer.h>
+
+using namespace chip;
+using namespace chip::app;
+
+SubscriptionMultiplexer * SubscriptionMultiplexer::sInstance = nullptr;
+
+SubscriptionMultiplexer * SubscriptionMultiplexer::GetInstance()
+{
+    if (sInstance == nullptr)
+    {
+        sInstance = new SubscriptionMultiplexer();
+    }
+    return sInstance;
+}
+
+CHIP_ERROR SubscriptionMultiplexer::AddListener(const void * owner, TargetVideoPlayerInfo & targetVideoPlayerInfo,
+                                                EndpointId endpointId, ClusterId clusterId, AttributeId attributeId,
+                                                uint16_t minInterval, uint16_t maxInterval, ReportHandler onReport,
+                                                FailureHandler onFailure, EstablishedHandler onEstablished)
+{
+    Key key = { targetVideoPlayerInfo.GetNodeId(), targetVideoPlayerInfo.GetFabricIndex(), endpointId, clusterId };
+
+    // drop the owner's previous listener, but keep its subscription alive if the owner is rejoining the same one
+    for (auto it = mSubscriptions.begin(); it != mSubscriptions.end();)
+    {
+        auto & listeners = it->second->mListeners;
+        listeners.erase(std::remove_if(listeners.begin(), listeners.end(),
+                                       [owner](const Listener & listener) { return listener.owner == owner; }),
+                        listeners.end());
+        auto current = it++;
+        if (current->first < key || key < current->first)
+        {
+            Release(current);
+        }
+    }
+
+    auto & subscription = mSubscriptions[key];
+    if (subscription == nullptr)
+    {
+        subscription = std::make_unique<SharedSubscription>(key, &targetVideoPlayerInfo);
+    }
+    subscription->mTargetVideoPlayerInfo = &targetVideoPlayerInfo;
+
+    Listener listener     = { owner, attributeId, minInterval, maxInterval, onReport, onFailure, onEstablished };
+    bool needsResubscribe = subscription->NeedsResubscribe(listener);
+    subscription->mListeners.push_back(listener);
+
+    if (!needsResubscribe)
+    {
+        ChipLogProgress(AppServer,
+                        "SubscriptionMultiplexer sharing subscription to cluster 0x" ChipLogFormatMEI
+                        " for attribute 0x" ChipLogFormatMEI,
+                        ChipLogValueMEI(clusterId), ChipLogValueMEI(attributeId));
+        subscription->CatchUpListeners();
+        return CHIP_NO_ERROR;
+    }
+
+    if (subscription->mDispatchDepth > 0)
+    {
+        // the ReadClient being replaced is on the call stack, so resubscribe once it has returned
+        ScheduleUpdate(key);
+        return CHIP_NO_ERROR;
+    }
+
+    CHIP_ERROR err = subscription->Subscribe();
+    if (err != CHIP_NO_ERROR)
+    {
+        subscription->mListeners.pop_back();
+        Release(mSubscriptions.find(key));
+    }
+    return err;
+}
+
+bool SubscriptionMultiplexer::GetLastReport(TargetVideoPlayerInfo & targetVideoPlayerInfo, EndpointId endpointId,
+                                            ClusterId clusterId, AttributeId attributeId, std::vector<uint8_t> & data)
+{
+    Key key = { targetVideoPlayerInfo.GetNodeId(), targetVideoPlayerInfo.GetFabricIndex(), endpointId, clusterId };
+    auto it = mSubscriptions.find(key);
+    return it != mSubscriptions.end() && it->second->GetLastReport(attributeId, data);
+}
+
+void SubscriptionMultiplexer::RemoveListener(const void * owner)
+{
+    for (auto it = mSubscriptions.begin(); it != mSubscriptions.end();)
+    {
+        auto & listeners = it->second->mListeners;
+        listeners.erase(std::remove_if(listeners.begin(), listeners.end(),
+                                       [owner](const Listener & listener) { return listener.owner == owner; }),
+                        listeners.end());
+        Release(it++);
+    }
+}
+
+void SubscriptionMultiplexer::ShutdownAll()
+{
+    ChipLogProgress(AppServer, "SubscriptionMultiplexer shutting down %u shared subscriptions",
+                    static_cast<unsigned>(mSubscriptions.size()));
+    for (auto it = mSubscriptions.begin(); it != mSubscriptions.end();)
+    {
+        it->second->mListeners.clear();
+        Release(it++);
+    }
+}
+
+void SubscriptionMultiplexer::LogMetrics() const
+{
+    ChipLogProgress(AppServer,
+                    "SubscriptionMultiplexer::LogMetrics() subscriptions: %u, resubscribe attempts: %lu, recoveries: %lu, "
+                    "average gap: %lu ms, max gap: %lu ms",
+                    static_cast<unsigned>(mSubscriptions.size()), static_cast<unsigned long>(mResubscribeCount),
+                    static_cast<unsigned long>(mRecoveryCount), static_cast<unsigned long>(GetAverageGap().count()),
+                    static_cast<unsigned long>(mMaxGap.count()));
+}
+
+void SubscriptionMultiplexer::OnResubscribing(SharedSubscription & subscription, CHIP_ERROR cause)
+{
+    mResubscribeCount++;
+    if (subscription.mGapStart == System::Clock::kZero)
+    {
+        subscription.mGapStart = System::SystemClock().GetMonotonicTimestamp();
+    }
+    ChipLogProgress(AppServer, "SubscriptionMultiplexer resubscribing to cluster 0x" ChipLogFormatMEI " after %" CHIP_ERROR_FORMAT,
+                    ChipLogValueMEI(subscription.mKey.clusterId), cause.Format());
+}
+
+void SubscriptionMultiplexer::OnRecovered(SharedSubscription & subscription)
+{
+    VerifyOrReturn(subscription.mGapStart != System::Clock::kZero);
+
+    System::Clock::Milliseconds64 gap = std::chrono::duration_cast<System::Clock::Milliseconds64>(
+        System::SystemClock().GetMonotonicTimestamp() - subscription.mGapStart);
+    subscription.mGapStart = System::Clock::kZero;
+    mRecoveryCount++;
+    mTotalGap += gap;
+    mMaxGap = std::max(mMaxGap, gap);
+    ChipLogProgress(AppServer, "SubscriptionMultiplexer subscription to cluster 0x" ChipLogFormatMEI " recovered after %lu ms",
+                    ChipLogValueMEI(subscription.mKey.clusterId), static_cast<unsigned long>(gap.count()));
+}
+
+void SubscriptionMultiplexer::Release(std::map<Key, std::unique_ptr<SharedSubscription>>::iterator it)
+{
+    if (it == mSubscriptions.end() || !it->second->mListeners.empty())
+    {
+        return;
+    }
+
+    if (it->second->mDispatchDepth > 0)
+    {
+        ScheduleUpdate(it->first);
+        return;
+    }
+    // destroying the ReadClient shuts the subscription down
+    mSubscriptions.erase(it);
+}
+
+void SubscriptionMultiplexer::ScheduleUpdate(const Key & key)
+{
+    CHIP_ERROR err = DeviceLayer::SystemLayer().ScheduleLambda([key] { GetInstance()->Update(key); });
+    if (err != CHIP_NO_ERROR)
+    {
+        ChipLogError(AppServer, "SubscriptionMultiplexer failed to schedule an update: %" CHIP_ERROR_FORMAT, err.Format());
+    }
+}
+
+void SubscriptionMultiplexer::Update(const Key & key)
+{
+    auto it = mSubscriptions.find(key);
+    if (it == mSubscriptions.end())
+    {
+        return;
+    }
+
+    SharedSubscription & subscription = *it->second;
+    if (subscription.mListeners.empty())
+    {
+        Release(it);
+        return;
+    }
+
+    // only listeners that joined while a report was being dispatched are still waiting
+    bool needsResubscribe = false;
+    for (const Listener & listener : subscription.mListeners)
+    {
+        needsResubscribe = needsResubscribe || (!listener.established && subscription.NeedsResubscribe(listener));
+    }
+    if (!needsResubscribe)
+    {
+        subscription.CatchUpListeners();
+        return;
+    }
+
+    CHIP_ERROR err = subscription.Subscribe();
+    if (err != CHIP_NO_ERROR)
+    {
+        std::vector<Listener> listeners;
+        listeners.swap(subscription.mListeners);
+        Release(it);
+        for (Listener & listener : listeners)
+        {
+            listener.onFailure(err);
+        }
+    }
+}
+
+bool SubscriptionMultiplexer::SharedSubscription::Covers(AttributeId attributeId) const
+{
+    bool subscribed = mWildcard ||
+        std::find(mSubscribedAttributes.begin(), mSubscribedAttributes.end(), attributeId) != mSubscribedAttributes.end();
+
+    // once the priming report is in, a late joiner can only be served if its attribute's value was kept
+    return subscribed && (!mPrimed || mLastReports.find(attributeId) != mLastReports.end());
+}
+
+bool SubscriptionMultiplexer::SharedSubscription::NeedsResubscribe(const Listener & joining) const
+{
+    return mReadClient == nullptr || joining.minInterval < mMinInterval || joining.maxInterval < mMaxInterval ||
+        !Covers(joining.attributeId);
+}
+
+CHIP_ERROR SubscriptionMultiplexer::SharedSubscription::Subscribe()
+{
+    auto deviceProxy = mTargetVideoPlayerInfo->GetOperationalDeviceProxy();
+    VerifyOrReturnError(deviceProxy != nullptr && deviceProxy->ConnectionReady(), CHIP_ERROR_PEER_NODE_NOT_FOUND);
+
+    std::vector<AttributeId> attributes;
+    uint16_t minInterval = UINT16_MAX;
+    uint16_t maxInterval = UINT16_MAX;
+    for (const Listener & listener : mListeners)
+    {
+        if (std::find(attributes.begin(), attributes.end(), listener.attributeId) == attributes.end())
+        {
+            attributes.push_back(listener.attributeId);
+        }
+        minInterval = std::min(minInterval, listener.minInterval);
+        maxInterval = std::min(maxInterval, listener.maxInterval);
+    }
+    maxInterval = std::max(minInterval, maxInterval);
+
+    // the ReadClient keeps the paths for its resubscriptions. It only hands them back through OnDeallocatePaths when it
+    // closes on its own, not when it is destroyed by a replacement or a release, so they are owned here instead.
+    bool wildcard    = attributes.size() > kMaxConcreteAttributePaths;
+    size_t pathCount = wildcard ? 1 : attributes.size();
+    std::unique_ptr<AttributePathParams[]> paths(new AttributePathParams[pathCount]);
+    for (size_t i = 0; i < pathCount; i++)
+    {
+        paths[i] = wildcard ? AttributePathParams(mKey.endpointId, mKey.clusterId)
+                            : AttributePathParams(mKey.endpointId, mKey.clusterId, attributes[i]);
+    }
+
+    ReadPrepareParams readParams(deviceProxy->GetSecureSession().Value());
+    readParams.mpAttributePathParamsList    = paths.get();
+    readParams.mAttributePathParamsListSize = pathCount;
+    readParams.mMinIntervalFloorSeconds     = minInterval;
+    readParams.mMaxIntervalCeilingSeconds   = maxInterval;
+    readParams.mIsFabricFiltered            = true;
+    readParams.mKeepSubscriptions           = true;
+
+    // the ReadClient resubscribes on its own, with backoff, whenever the subscription drops
+    auto readClient = std::make_unique<ReadClient>(InteractionModelEngine::GetInstance(), deviceProxy->GetExchangeManager(),
+                                                   mBufferedReadCallback, ReadClient::InteractionType::Subscribe);
+    ReturnErrorOnFailure(readClient->SendAutoResubscribeRequest(std::move(readParams)));
+
+    ChipLogProgress(AppServer,
+                    "SubscriptionMultiplexer subscribed to %u %s of cluster 0x" ChipLogFormatMEI " on endpoint %d, interval %u-%us",
+                    static_cast<unsigned>(pathCount), wildcard ? "wildcard path" : "attribute paths",
+                    ChipLogValueMEI(mKey.clusterId), mKey.endpointId, minInterval, maxInterval);
+
+    // replacing the previous ReadClient, if any, shuts its subscription down now that its successor is on the way
+    mReadClient           = std::move(readClient);
+    mPaths                = std::move(paths);
+    mSubscribedAttributes = std::move(attributes);
+    mWildcard             = wildcard;
+    mMinInterval          = minInterval;
+    mMaxInterval          = maxInterval;
+    mPrimed               = false;
+    mLive                 = false;
+    return CHIP_NO_ERROR;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::CatchUpListeners()
+{
+    if (!mLive)
+    {
+        // OnSubscriptionEstablished is still to come
+        return;
+    }
+
+    // collect first, the handlers may add or remove listeners
+    std::vector<std::pair<Listener, std::vector<uint8_t>>> joiners;
+    for (Listener & listener : mListeners)
+    {
+        if (listener.established)
+        {
+            continue;
+        }
+        listener.established = true;
+
+        // a listener that joined after the priming report, or on a resubscription that skipped it thanks to its DataVersion
+        // filter, is handed the last reported value instead
+        auto report = mLastReports.find(listener.attributeId);
+        bool replay = !listener.reported && report != mLastReports.end();
+        listener.reported = listener.reported || replay;
+        joiners.emplace_back(listener, replay ? report->second : std::vector<uint8_t>());
+    }
+
+    mDispatchDepth++;
+    for (auto & joiner : joiners)
+    {
+        if (!joiner.second.empty())
+        {
+            TLV::TLVReader reader;
+            reader.Init(joiner.second.data(), joiner.second.size());
+            if (reader.Next() == CHIP_NO_ERROR)
+            {
+                joiner.first.onReport(reader);
+            }
+        }
+        if (joiner.first.onEstablished)
+        {
+            joiner.first.onEstablished(mSubscriptionId);
+        }
+    }
+    mDispatchDepth--;
+}
+
+bool SubscriptionMultiplexer::SharedSubscription::GetLastReport(AttributeId attributeId, std::vector<uint8_t> & data) const
+{
+    // only values kept current by a live subscription are served
+    VerifyOrReturnValue(mReadClient != nullptr && mLive && Covers(attributeId), false);
+    data = mLastReports.at(attributeId);
+    return true;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::CacheReport(AttributeId attributeId, const TLV::TLVReader & data)
+{
+    // encoded into the scratch buffer of the subscription, allocated once, then copied into the attribute's entry, which
+    // keeps its storage from one report to the next
+    mReportScratch.resize(kMaxCachedReportBytes);
+    TLV::TLVReader reader;
+    reader.Init(data);
+
+    TLV::TLVWriter writer;
+    writer.Init(mReportScratch.data(), mReportScratch.size());
+    if (writer.CopyElement(TLV::AnonymousTag(), reader) != CHIP_NO_ERROR || writer.Finalize() != CHIP_NO_ERROR)
+    {
+        // too large to keep, a late joiner for this attribute will resubscribe instead
+        mLastReports.erase(attributeId);
+        return;
+    }
+    mLastReports[attributeId].assign(mReportScratch.begin(), mReportScratch.begin() + writer.GetLengthWritten());
+}
+
+void SubscriptionMultiplexer::SharedSubscription::OnAttributeData(const ConcreteDataAttributePath & path, TLV::TLVReader * data,
+                                                                  const StatusIB & status)
+{
+    VerifyOrReturn(path.mEndpointId == mKey.endpointId && path.mClusterId == mKey.clusterId);
+
+    if (status.IsSuccess() && data != nullptr)
+    {
+        CacheReport(path.mAttributeId, *data);
+        if (path.mDataVersion.HasValue())
+        {
+            mDataVersion = path.mDataVersion;
+        }
+    }
+
+    // handlers may add or remove listeners, so dispatch to a snapshot
+    std::vector<Listener> listeners;
+    for (Listener & listener : mListeners)
+    {
+        if (listener.attributeId == path.mAttributeId)
+        {
+            listener.reported = true;
+            listeners.push_back(listener);
+        }
+    }
+
+    mDispatchDepth++;
+    for (Listener & listener : listeners)
+    {
+        if (!status.IsSuccess())
+        {
+            listener.onFailure(status.ToChipError());
+        }
+        else if (data != nullptr)
+        {
+            TLV::TLVReader reader;
+            reader.Init(*data);
+            listener.onReport(reader);
+        }
+    }
+    mDispatchDepth--;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::OnSubscriptionEstablished(SubscriptionId subscriptionId)
+{
+    ChipLogProgress(AppServer, "SubscriptionMultiplexer subscription 0x%08lx established for cluster 0x" ChipLogFormatMEI,
+                    static_cast<unsigned long>(subscriptionId), ChipLogValueMEI(mKey.clusterId));
+    mPrimed         = true;
+    mLive           = true;
+    mSubscriptionId = subscriptionId;
+    SubscriptionMultiplexer::GetInstance()->OnRecovered(*this);
+
+    // listeners already established keep their callback from the first establishment
+    CatchUpListeners();
+}
+
+CHIP_ERROR SubscriptionMultiplexer::SharedSubscription::OnResubscriptionNeeded(ReadClient * readClient, CHIP_ERROR cause)
+{
+    mLive = false;
+    SubscriptionMultiplexer::GetInstance()->OnResubscribing(*this, cause);
+
+    // schedules the next attempt with the ReadClient's exponential backoff, re-establishing CASE if needed
+    return ReadClient::Callback::OnResubscriptionNeeded(readClient, cause);
+}
+
+CHIP_ERROR SubscriptionMultiplexer::SharedSubscription::OnUpdateDataVersionFilterList(
+    DataVersionFilterIBs::Builder & dataVersionFilterIBsBuilder, const Span<AttributePathParams> &,
+    bool & encodedDataVersionList)
+{
+    // only a resubscription covers exactly the values already received; a new subscription needs its priming report
+    VerifyOrReturnError(mPrimed && mDataVersion.HasValue(), CHIP_NO_ERROR);
+
+    TLV::TLVWriter backup;
+    dataVersionFilterIBsBuilder.Checkpoint(backup);
+
+    DataVersionFilterIB::Builder & filterIB = dataVersionFilterIBsBuilder.CreateDataVersionFilter();
+    ReturnErrorOnFailure(dataVersionFilterIBsBuilder.GetError());
+    ClusterPathIB::Builder & path = filterIB.CreatePath();
+    ReturnErrorOnFailure(filterIB.GetError());
+    CHIP_ERROR err = path.Endpoint(mKey.endpointId).Cluster(mKey.clusterId).EndOfClusterPathIB();
+    if (err == CHIP_NO_ERROR)
+    {
+        err = filterIB.DataVersion(mDataVersion.Value()).EndOfDataVersionFilterIB();
+    }
+
+    if (err != CHIP_NO_ERROR)
+    {
+        // out of space for the filter, resubscribe without it
+        dataVersionFilterIBsBuilder.Rollback(backup);
+        return CHIP_NO_ERROR;
+    }
+    encodedDataVersionList = true;
+    return CHIP_NO_ERROR;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::OnDeallocatePaths(ReadPrepareParams && readPrepareParams)
+{
+    // the paths are owned by mPaths, and freed along with the ReadClient
+    readPrepareParams.mpAttributePathParamsList    = nullptr;
+    readPrepareParams.mAttributePathParamsListSize = 0;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::OnError(CHIP_ERROR err)
+{
+    ChipLogError(AppServer, "SubscriptionMultiplexer subscription to cluster 0x" ChipLogFormatMEI " failed: %" CHIP_ERROR_FORMAT,
+                 ChipLogValueMEI(mKey.clusterId), err.Format());
+
+    std::vector<Listener> listeners = mListeners;
+    mDispatchDepth++;
+    for (Listener & listener : listeners)
+    {
+        listener.onFailure(err);
+    }
+    mDispatchDepth--;
+}
+
+void SubscriptionMultiplexer::SharedSubscription::OnDone(ReadClient * readClient)
+{
+    VerifyOrReturn(readClient == mReadClient.get());
+
+    // the subscription has ended for good, i.e. with an error it cannot resubscribe after, or a shutdown, so its
+    // listeners are dropped along with it
+    mReadClient.reset();
+    mPaths.reset();
+    mLive = false;
+    mListeners.clear();
+    SubscriptionMultiplexer::GetInstance()->ScheduleUpdate(mKey);
+}
@@ -26,6 +26,7 @@
 
 #include "app/clusters/bindings/BindingManager.h"
 #include <app-common/zap-generated/cluster-objects.h>
+#include <tracing/macros.h>
 
 namespace matter {
 namespace casting {
@@ -84,6 +85,7 @@ void EndpointListLoader::Initialize(chip::Messaging::ExchangeManager * exchangeM
 
 CHIP_ERROR EndpointListLoader::Load()
 {
+    MATTER_TRACE_SCOPE("Load", "EndpointListLoader");
     ChipLogProgress(AppServer, "EndpointListLoader::Load() called");
 
     VerifyOrReturnError(CastingPlayer::GetTargetCastingPlayer() != nullptr, CHIP_ERROR_INCORRECT_STATE);
@@ -141,6 +143,7 @@ CHIP_ERROR EndpointListLoader::Load()
 
 void EndpointListLoader::Complete()
 {
+    MATTER_TRACE_SCOPE("Complete", "EndpointListLoader");
     ChipLogProgress(AppServer, "EndpointListLoader::Complete() called with mPendingAttributeReads: %lu", mPendingAttributeReads);
     if (mPendingAttributeReads > 0)
     {